@@ -0,0 +1,265 @@
+package edu.uiowa.cs.warp;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import edu.uiowa.cs.warp.SystemAttributes.ScheduleChoices;
+import edu.uiowa.cs.warp.Visualization.SystemChoices;
+
+/**
+ * JMH benchmarks for the scheduling and analysis hot paths: parsing a WorkLoad, building a Program
+ * with each scheduler, building a NonPreemptiveSchedule on each kind of poset, the reliability and
+ * latency analyses, the simulator, writing a visualization to a file, and the binary program format
+ * and cache.
+ * <p>
+ * Each benchmark runs on every input named by the input parameter. A name is a checked-in graph
+ * file without its .txt extension, a copy of one scaled up k times written as the name, "x" and k
+ * (StressTest4x16), or a base station workload made by WorkLoadGenerator from a fixed seed written
+ * as "Synthetic" and its number of flows (Synthetic1000). The schedulers print as they work, so
+ * System.out is discarded while benchmarks run, and the files they write go to a temporary
+ * directory that is deleted after each trial.
+ * <p>
+ * Run from the project directory with Gradle, passing JMH options with --args:
+ *
+ * <pre>
+ * gradle jmh --args='[regex] [-wi n] [-i n] [-p input=StressTest4x64,Synthetic5000]'
+ * </pre>
+ *
+ * The regex keeps only the benchmarks whose name (for example "WarpBenchmark.program") matches.
+ *
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WarpBenchmark {
+
+  private static final Double MIN_LQ = 0.9;
+  private static final Double E2E = 0.99;
+  private static final Integer NUM_CHANNELS = 16;
+  private static final long GENERATOR_SEED = 2820;
+
+  /* a flow line in a graph file, e.g. "F1 (1, 20, 20, 0) : B -> C -> D" or "F0: A -> B" */
+  private static final Pattern FLOW_LINE =
+      Pattern.compile("^\\s*(\\w+)\\s*(\\([^)]*\\))?\\s*:\\s*(.*?)\\s*$");
+  private static final Pattern SCALED_NAME = Pattern.compile("(.+)x(\\d+)");
+  private static final Pattern GENERATED_NAME = Pattern.compile("Synthetic(\\d+)");
+
+  /* DeepSearch and LongSearch have 30000 and 100002 slot hyperperiods to search for free slots */
+  @Param({"Example4", "StressTest4", "WARP-WASHU-MIX", "WARP-INDRIYA-MIX", "StressTest4x4",
+      "StressTest4x16", "DeepSearch", "LongSearch"})
+  public String input;
+
+  private final PrintStream out = System.out;
+  private Path outputDirectory;
+  private String graphFile;
+  private WarpInterface warp;
+  private String binaryFile;
+  private ProgramCache cache;
+
+  /**
+   * Scheduler the program benchmark builds with, every ScheduleChoices value by default. The
+   * parameter is a name since the generated benchmark code can't see the package-private enum.
+   */
+  @State(Scope.Benchmark)
+  public static class Scheduler {
+    @Param({"PRIORITY", "RM", "DM", "RTHART", "POSET_PRIORITY", "POSET_RM", "POSET_DM",
+        "WARP_POSET_PRIORITY", "WARP_POSET_RM", "WARP_POSET_DM", "CONNECTIVITY_POSET_PRIORITY",
+        "CONNECTIVITY_POSET_RM", "CONNECTIVITY_POSET_DM"})
+    public String scheduler;
+    private ScheduleChoices choice;
+
+    @Setup
+    public void setUp() {
+      choice = ScheduleChoices.valueOf(scheduler);
+    }
+  }
+
+  @Setup
+  public void setUp() throws IOException {
+    System.setOut(new PrintStream(new ByteArrayOutputStream() {
+      @Override
+      public synchronized void write(byte[] b, int off, int len) {} // drop scheduler output
+    }));
+    outputDirectory = Files.createTempDirectory("warp-bench");
+    graphFile = graphFile(input);
+    /* the analyses are timed on a program built once, as Warp builds it */
+    warp = SystemFactory.create(newWorkLoad(), NUM_CHANNELS, ScheduleChoices.PRIORITY);
+    binaryFile = outputDirectory.resolve(input + ".wpb").toString();
+    new BinaryProgram(warp.toProgram()).toFile(binaryFile);
+    cache = new ProgramCache(outputDirectory.resolve("cache").toString());
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    System.setOut(out);
+    try (var paths = Files.walk(outputDirectory)) {
+      paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+    }
+  }
+
+  @Benchmark
+  public void workload(Blackhole blackhole) {
+    blackhole.consume(newWorkLoad());
+  }
+
+  @Benchmark
+  public void program(Scheduler scheduler, Blackhole blackhole) {
+    blackhole.consume(new Program(newWorkLoad(), NUM_CHANNELS, scheduler.choice));
+  }
+
+  @Benchmark
+  public void scheduleBasicPoset(Blackhole blackhole) {
+    blackhole.consume(new NonPreemptiveSchedule(new BasicPoset(newWorkLoad()), NUM_CHANNELS));
+  }
+
+  @Benchmark
+  public void scheduleWarpPoset(Blackhole blackhole) {
+    blackhole.consume(new NonPreemptiveSchedule(new WarpPoset(newWorkLoad()), NUM_CHANNELS));
+  }
+
+  @Benchmark
+  public void scheduleConnectivityPoset(Blackhole blackhole) {
+    blackhole
+        .consume(new NonPreemptiveSchedule(new ConnectivityPoset(newWorkLoad()), NUM_CHANNELS));
+  }
+
+  @Benchmark
+  public void reliability(Blackhole blackhole) {
+    blackhole.consume(new ReliabilityAnalysis(warp.toProgram()).getReliabilities());
+  }
+
+  @Benchmark
+  public void reliabilityVerify(Blackhole blackhole) {
+    blackhole.consume(new ReliabilityAnalysis(warp.toProgram()).verifyReliablities());
+  }
+
+  @Benchmark
+  public void latencyReport(Blackhole blackhole) {
+    blackhole.consume(new LatencyAnalysis(warp).latencyReport());
+  }
+
+  @Benchmark
+  public void simulator(Blackhole blackhole) {
+    blackhole.consume(new PacketSimulator(warp.toProgram()).simulate(1000, 1L));
+  }
+
+  @Benchmark
+  public void visualizationSource() {
+    new VisualizationImplementation(warp, outputDirectory.toString(), SystemChoices.SOURCE)
+        .toFile();
+  }
+
+  @Benchmark
+  public void visualizationSimulatorInput() {
+    new VisualizationImplementation(warp, outputDirectory.toString(),
+        SystemChoices.SIMULATOR_INPUT).toFile();
+  }
+
+  @Benchmark
+  public void binaryWrite() {
+    new BinaryProgram(warp.toProgram()).toFile(outputDirectory.resolve("write.wpb").toString());
+  }
+
+  @Benchmark
+  public void binaryOpen(Blackhole blackhole) {
+    blackhole.consume(MappedProgram.open(binaryFile).get(0, 0));
+  }
+
+  @Benchmark
+  public void programCache(Blackhole blackhole) {
+    blackhole.consume(cache.getProgram(newWorkLoad(), NUM_CHANNELS, ScheduleChoices.PRIORITY));
+  }
+
+  private WorkLoad newWorkLoad() {
+    return new WorkLoad(MIN_LQ, E2E, graphFile);
+  }
+
+  /* the graph file the input parameter names, written to outputDirectory unless it is checked in */
+  private String graphFile(String name) throws IOException {
+    var generated = GENERATED_NAME.matcher(name);
+    if (generated.matches()) {
+      return generated(Integer.parseInt(generated.group(1)), outputDirectory);
+    }
+    var scaled = SCALED_NAME.matcher(name);
+    if (scaled.matches() && Files.isRegularFile(Path.of(scaled.group(1) + ".txt"))) {
+      return scaled(scaled.group(1) + ".txt", Integer.parseInt(scaled.group(2)), outputDirectory);
+    }
+    return name.endsWith(".txt") ? name : name + ".txt";
+  }
+
+  /**
+   * Generates a base station workload with numFlows flows over numFlows / 5 nodes (at least 10),
+   * with harmonic periods from 100 to 800.
+   *
+   * @return path of the graph file in directory, named like Synthetic1000.txt
+   */
+  static String generated(int numFlows, Path directory) {
+    var generator = new WorkLoadGenerator(GENERATOR_SEED);
+    generator.setName("Synthetic" + numFlows);
+    generator.setTopology(WorkLoadGenerator.Topology.BASE_STATION);
+    generator.setNumNodes(Math.max(10, numFlows / 5));
+    generator.setNumFlows(numFlows);
+    generator.setHops(1, 6);
+    generator.setPeriods(WorkLoadGenerator.harmonicPeriods(100, 4));
+    generator.setMaxPhase(50);
+    var file = directory.resolve("Synthetic" + numFlows + ".txt");
+    generator.writeFile(file.toString());
+    return file.toString();
+  }
+
+  /**
+   * Writes a copy of the graph file with k copies of every flow. The flows and nodes of copy i are
+   * renamed by prefixing "s" and i to their names, so the copies share no nodes with each other.
+   *
+   * @return path of the scaled graph file in directory, named like StressTest4x16.txt
+   */
+  static String scaled(String input, int k, Path directory) throws IOException {
+    var lines = Files.readAllLines(Path.of(input));
+    var scaledLines = new ArrayList<String>();
+    for (String line : lines) {
+      Matcher flow = FLOW_LINE.matcher(line);
+      if (!line.contains("{") && flow.matches()) {
+        for (int copy = 0; copy < k; copy++) {
+          var prefix = "s" + copy;
+          var nodes = flow.group(3).split("\\s*->\\s*");
+          for (int n = 0; n < nodes.length; n++) {
+            nodes[n] = prefix + nodes[n].trim();
+          }
+          var parameters = flow.group(2) == null ? "" : " " + flow.group(2);
+          scaledLines.add(prefix + flow.group(1) + parameters + " : " + String.join(" -> ", nodes));
+        }
+      } else {
+        scaledLines.add(line);
+      }
+    }
+    var name = new File(input).getName().replaceFirst("\\.txt$", "");
+    var file = directory.resolve(name + "x" + k + ".txt");
+    Files.write(file, scaledLines);
+    return file.toString();
+  }
+}
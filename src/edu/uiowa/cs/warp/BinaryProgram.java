@@ -0,0 +1,275 @@
+package edu.uiowa.cs.warp;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Compact binary encoding of a program, which MappedProgram reads back without parsing it.
+ * <p>
+ * Numbers in the header and cells are big-endian. The file starts with a header of HEADER_SIZE
+ * bytes:
+ *
+ * <pre>
+ *  0 int    MAGIC, "WARP"
+ *  4 short  VERSION
+ *  6 byte   bytes per cell: 1, 2 or 4
+ *  7 byte   0
+ *  8 int    number of time slots
+ * 12 int    number of nodes
+ * 16 int    number of channels
+ * 20 int    workload name, as a string index
+ * 24 int    scheduler name, as a string index
+ * 28 double minimum packet reception rate
+ * 36 double end-to-end reliability target
+ * 44 int    offset of the cells
+ * </pre>
+ *
+ * followed by these sections, in order, in which every count, index and channel is an unsigned
+ * LEB128 varint, and names and channels are stored plus one so that 0 stands for none:
+ * <ul>
+ * <li>strings: a count, then each string as its length and UTF-8 bytes.</li>
+ * <li>nodes: the name of each node, one per column of the program.</li>
+ * <li>flows: a count, then the flow names in priority order.</li>
+ * <li>clauses: a count, then each distinct clause as a byte holding its opcode, guard and
+ * guard-on-link bit, its flow, src and snk names, and its channel.</li>
+ * <li>instructions: a count, then each distinct instruction as its number of clauses and their
+ * positions in the clause section.</li>
+ * <li>columns: for each node, a count, then the positions of the instructions the node uses in
+ * the instruction section.</li>
+ * <li>cells: the program row by row, time slot by node, each cell holding the position of its
+ * instruction in the node's column section plus one, or 0 for an empty cell.</li>
+ * </ul>
+ * A program repeats a few instructions in many cells, and a node uses few of them, so the cells
+ * of most programs take one byte each.
+ *
+ * @version 1.0
+ */
+public class BinaryProgram {
+
+  /** First four bytes of the file, "WARP" in ASCII */
+  public static final int MAGIC = 0x57415250;
+  /** Format version, increased whenever the layout changes */
+  public static final short VERSION = 1;
+  static final int HEADER_SIZE = 48;
+  static final int NO_STRING = -1;
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  private final Program program;
+
+  public BinaryProgram(Program program) {
+    this.program = program;
+  }
+
+  /**
+   * Writes the program to file, replacing it if it exists. Errors are reported on System.err, as
+   * FileManager does.
+   */
+  public void toFile(String file) {
+    try (var channel = FileChannel.open(Path.of(file), StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      write(channel);
+    } catch (IOException e) {
+      System.err.println("Error on writing binary program to file " + file + ": " + e.getMessage());
+    }
+  }
+
+  /**
+   * Writes the program to channel, which is left open.
+   */
+  void write(WritableByteChannel channel) throws IOException {
+    var table = new InstructionIdTable(program.getSchedule());
+    var numSlots = table.getNumRows();
+    var numNodes = table.getNumColumns();
+    var strings = new StringTable();
+    var name = strings.indexOf(program.getName());
+    var schedulerName = strings.indexOf(program.getSchedulerName());
+    var nodeNames = new String[numNodes];
+    for (var node : program.getNodeMapIndex().entrySet()) {
+      if (node.getValue() < numNodes) {
+        nodeNames[node.getValue()] = node.getKey();
+      }
+    }
+
+    /* the strings come first in the file, but are only all known once the rest is encoded */
+    var rest = new ByteArrayOutputStream();
+    var out = new DataOutputStream(rest);
+    for (String nodeName : nodeNames) {
+      writeVarint(out, strings.indexOf(nodeName) + 1);
+    }
+    var flowNames = program.getFlowNamesInPriorityOrder();
+    writeVarint(out, flowNames.size());
+    for (String flowName : flowNames) {
+      writeVarint(out, strings.indexOf(flowName) + 1);
+    }
+    var clauses = new ArrayList<Instruction>();
+    var clauseIds = new HashMap<Instruction, Integer>();
+    var instructionClauses = new int[table.getNumInstructions()][];
+    for (int id = 0; id < table.getNumInstructions(); id++) {
+      var instruction = table.getInstruction(id);
+      instructionClauses[id] = new int[instruction.numClauses()];
+      var c = 0;
+      for (var clause = instruction; clause != null; clause = clause.getElse(), c++) {
+        var key = Instruction.clause(clause.getOpcode(), clause.getGuard(),
+            clause.isGuardOnLink(), clause.getFlow(), clause.getSrc(), clause.getSnk(),
+            clause.getChannel(), null);
+        var clauseId = clauseIds.get(key);
+        if (clauseId == null) {
+          clauseId = clauses.size();
+          clauses.add(key);
+          clauseIds.put(key, clauseId);
+        }
+        instructionClauses[id][c] = clauseId;
+      }
+    }
+    writeVarint(out, clauses.size());
+    for (Instruction clause : clauses) {
+      out.writeByte(clause.getOpcode().ordinal() << 4 | clause.getGuard().ordinal() << 1
+          | (clause.isGuardOnLink() ? 1 : 0));
+      writeVarint(out, strings.indexOf(clause.getFlow()) + 1);
+      writeVarint(out, strings.indexOf(clause.getSrc()) + 1);
+      writeVarint(out, strings.indexOf(clause.getSnk()) + 1);
+      writeVarint(out, clause.getChannel() + 1);
+    }
+    writeVarint(out, instructionClauses.length);
+    for (int[] ids : instructionClauses) {
+      writeVarint(out, ids.length);
+      for (int clauseId : ids) {
+        writeVarint(out, clauseId);
+      }
+    }
+
+    /* each node's own dictionary, and the cells as positions in it */
+    var cells = new int[numSlots * numNodes];
+    var maxCell = 0;
+    var column = new int[table.getNumInstructions()];
+    var position = new int[table.getNumInstructions()]; // plus one, 0 until the node uses the id
+    for (int node = 0; node < numNodes; node++) {
+      var size = 0;
+      for (int slot = 0; slot < numSlots; slot++) {
+        var id = table.getId(slot, node);
+        if (id != InstructionIdTable.NO_INSTRUCTION) {
+          if (position[id] == 0) {
+            column[size++] = id;
+            position[id] = size;
+          }
+          cells[slot * numNodes + node] = position[id];
+        }
+      }
+      writeVarint(out, size);
+      for (int i = 0; i < size; i++) {
+        writeVarint(out, column[i]);
+        position[column[i]] = 0;
+      }
+      maxCell = Math.max(maxCell, size);
+    }
+    out.flush();
+    var sections = new ByteArrayOutputStream();
+    strings.write(new DataOutputStream(sections));
+    rest.writeTo(sections);
+
+    var cellBytes = cellBytes(maxCell);
+    var header = ByteBuffer.allocate(HEADER_SIZE);
+    header.putInt(MAGIC);
+    header.putShort(VERSION);
+    header.put((byte) cellBytes);
+    header.put((byte) 0);
+    header.putInt(numSlots);
+    header.putInt(numNodes);
+    header.putInt(program.getNumChannels());
+    header.putInt(name);
+    header.putInt(schedulerName);
+    header.putDouble(program.getMinPacketReceptionRate());
+    header.putDouble(program.getE2e());
+    header.putInt(HEADER_SIZE + sections.size());
+    header.flip();
+    writeFully(channel, header);
+    writeFully(channel, ByteBuffer.wrap(sections.toByteArray()));
+    writeCells(channel, cells, cellBytes);
+  }
+
+  /* streams the cells through a fixed size buffer */
+  private static void writeCells(WritableByteChannel channel, int[] cells, int cellBytes)
+      throws IOException {
+    var buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    for (int cell : cells) {
+      if (buffer.remaining() < Integer.BYTES) {
+        buffer.flip();
+        writeFully(channel, buffer);
+        buffer.clear();
+      }
+      switch (cellBytes) {
+        case 1:
+          buffer.put((byte) cell);
+          break;
+        case 2:
+          buffer.putShort((short) cell);
+          break;
+        default:
+          buffer.putInt(cell);
+      }
+    }
+    buffer.flip();
+    writeFully(channel, buffer);
+  }
+
+  /* value as an unsigned LEB128 varint: 7 bits a byte, low bits first */
+  private static void writeVarint(DataOutputStream out, int value) throws IOException {
+    while ((value & ~0x7F) != 0) {
+      out.writeByte((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    out.writeByte(value);
+  }
+
+  private static void writeFully(WritableByteChannel channel, ByteBuffer buffer)
+      throws IOException {
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+
+  /* fewest bytes that hold every cell value, 0 to maxCell */
+  static int cellBytes(int maxCell) {
+    if (maxCell <= 0xFF) {
+      return 1;
+    }
+    return (maxCell <= 0xFFFF) ? 2 : 4;
+  }
+
+  /* each distinct string once, in the order first seen */
+  private static class StringTable {
+    private final ArrayList<byte[]> strings = new ArrayList<byte[]>();
+    private final HashMap<String, Integer> index = new HashMap<String, Integer>();
+
+    int indexOf(String string) {
+      if (string == null) {
+        return NO_STRING;
+      }
+      var i = index.get(string);
+      if (i == null) {
+        i = strings.size();
+        strings.add(string.getBytes(StandardCharsets.UTF_8));
+        index.put(string, i);
+      }
+      return i;
+    }
+
+    void write(DataOutputStream out) throws IOException {
+      writeVarint(out, strings.size());
+      for (byte[] bytes : strings) {
+        writeVarint(out, bytes.length);
+        out.write(bytes);
+      }
+      out.flush();
+    }
+  }
+}
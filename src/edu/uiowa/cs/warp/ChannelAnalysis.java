@@ -1,16 +1,46 @@
 package edu.uiowa.cs.warp;
 
-/**
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 
+/**
+ * ChannelAnalysis checks that the channels a program uses do not conflict.
+ * <p>
+ * Two kinds of conflict are reported as ChannelConflicts:
+ * <ul>
+ * <li>two transmissions of different flows, in different nodes, on the same channel in the same
+ * time slot. Clauses of one flow in a slot can share a channel, since only the node holding the
+ * flow's packet transmits, and so can the clauses of one node, which executes only one of
+ * them. Each channel is reported at most once per slot;</li>
+ * <li>a node using a channel, to transmit or to wait, in two consecutive time slots.</li>
+ * </ul>
+ * The schedule is read through an InstructionIdTable, so each distinct instruction is decoded
+ * once into the channels its clauses use, kept as a bitset, and the channel and flow of each of
+ * its transmissions. The scan then keeps a bitset of the channels in use in the current slot, and
+ * compares each node's bitset with the one of its previous slot, so it is O(slots x nodes).
+ *
 * @author sgoddard
  * @version 1.4
  *  *
  */
 public class ChannelAnalysis {
 
+  private static final int WORD_BITS = Long.SIZE;
+
   private Program program;
   private ProgramSchedule programTable;
   private Boolean conflictExists;
+  /* found on first use */
+  private ArrayList<ChannelConflict> conflicts;
+  private InstructionIdTable instructions;
+  private String[] nodeNames;
+  private ArrayList<String> flowNames;
+  private int numChannels;
+  /* decoded instructions, indexed by instruction id */
+  private long[][] channelMasks;
+  private int[][] txChannels;
+  private int[][] txFlows;
 
   ChannelAnalysis(WarpInterface warp) {
     this.program = warp.toProgram();
@@ -25,6 +55,188 @@ public class ChannelAnalysis {
      }
 
   public Boolean isChannelConflict() {
+    findConflicts();
     return conflictExists;
      }
+
+  /**
+   * @return the conflicts in time slot order
+   */
+  public ArrayList<ChannelConflict> getConflicts() {
+    findConflicts();
+    return new ArrayList<ChannelConflict>(conflicts);
+  }
+
+  /**
+   * @return the number of channels, which is the program's, or more if a cell uses a higher one
+   */
+  public int getNumChannels() {
+    findConflicts();
+    return numChannels;
+  }
+
+  /**
+   * @return for each time slot and channel, the links transmitting on the channel, as
+   *         "F0: A -> B", separated by ", ", or "" when it is not used
+   */
+  public String[][] getChannelTable() {
+    findConflicts();
+    var numRows = instructions.getNumRows();
+    var numColumns = instructions.getNumColumns();
+    var table = new String[numRows][numChannels];
+    /* links of each channel in a slot, without repeats */
+    var links = new ArrayList<ArrayList<String>>();
+    for (int channel = 0; channel < numChannels; channel++) {
+      links.add(new ArrayList<String>());
+    }
+    for (int row = 0; row < numRows; row++) {
+      for (int column = 0; column < numColumns; column++) {
+        var id = instructions.getId(row, column);
+        if (id == InstructionIdTable.NO_INSTRUCTION) {
+          continue;
+        }
+        for (var clause = instructions.getInstruction(id); clause != null; clause =
+            clause.getElse()) {
+          if (clause.isTransmission() && clause.getChannel() >= 0) {
+            var link = String.format("%s: %s -> %s", clause.getFlow(), clause.getSrc(),
+                clause.getSnk());
+            var channelLinks = links.get(clause.getChannel());
+            if (!channelLinks.contains(link)) {
+              channelLinks.add(link);
+            }
+          }
+        }
+      }
+      for (int channel = 0; channel < numChannels; channel++) {
+        table[row][channel] = String.join(", ", links.get(channel));
+        links.get(channel).clear();
+      }
+    }
+    return table;
+  }
+
+  private void findConflicts() {
+    if (conflicts != null) {
+      return;
+    }
+    conflicts = new ArrayList<ChannelConflict>();
+    instructions = new InstructionIdTable(programTable);
+    nodeNames = program.toWorkLoadSnapshot().getNodeNamesOrderedAlphabetically();
+    decodeInstructions();
+    var numRows = instructions.getNumRows();
+    var numColumns = instructions.getNumColumns();
+    var words = numWords(numChannels);
+    var used = new long[words]; // channels transmitted on in this slot
+    var reported = new long[words]; // channels with a SAME_SLOT conflict in this slot
+    var channelFlow = new int[numChannels];
+    var channelColumn = new int[numChannels];
+    var previousIds = new int[numColumns];
+    Arrays.fill(previousIds, InstructionIdTable.NO_INSTRUCTION);
+    for (int row = 0; row < numRows; row++) {
+      Arrays.fill(used, 0L);
+      Arrays.fill(reported, 0L);
+      for (int column = 0; column < numColumns; column++) {
+        var id = instructions.getId(row, column);
+        var previous = previousIds[column];
+        previousIds[column] = id;
+        if (id == InstructionIdTable.NO_INSTRUCTION) {
+          continue;
+        }
+        var channels = txChannels[id];
+        var flows = txFlows[id];
+        for (int tx = 0; tx < channels.length; tx++) {
+          var channel = channels[tx];
+          if (!isSet(used, channel)) {
+            set(used, channel);
+            channelFlow[channel] = flows[tx];
+            channelColumn[channel] = column;
+          } else if (channelColumn[channel] != column && channelFlow[channel] != flows[tx]
+              && !isSet(reported, channel)) {
+            set(reported, channel);
+            conflicts.add(new ChannelConflict(ChannelConflict.Type.SAME_SLOT, row, channel,
+                nodeNames[column], flowNames.get(flows[tx]), nodeNames[channelColumn[channel]],
+                flowNames.get(channelFlow[channel])));
+          }
+        }
+        if (previous != InstructionIdTable.NO_INSTRUCTION) {
+          var mask = channelMasks[id];
+          var previousMask = channelMasks[previous];
+          for (int word = 0; word < mask.length; word++) {
+            for (var shared = mask[word] & previousMask[word]; shared != 0; shared &= shared - 1) {
+              var channel = word * WORD_BITS + Long.numberOfTrailingZeros(shared);
+              conflicts.add(new ChannelConflict(ChannelConflict.Type.CONSECUTIVE_SLOTS, row,
+                  channel, nodeNames[column], flowOn(id, channel), nodeNames[column],
+                  flowOn(previous, channel)));
+            }
+          }
+        }
+      }
+    }
+    conflictExists = !conflicts.isEmpty();
+  }
+
+  /* decodes each distinct instruction once, numbering flows as they are found */
+  private void decodeInstructions() {
+    var numInstructions = instructions.getNumInstructions();
+    numChannels = program.getNumChannels();
+    for (int id = 0; id < numInstructions; id++) {
+      for (var clause = instructions.getInstruction(id); clause != null; clause =
+          clause.getElse()) {
+        numChannels = Math.max(numChannels, clause.getChannel() + 1);
+      }
+    }
+    var flowIds = new HashMap<String, Integer>();
+    flowNames = new ArrayList<String>();
+    channelMasks = new long[numInstructions][];
+    txChannels = new int[numInstructions][];
+    txFlows = new int[numInstructions][];
+    for (int id = 0; id < numInstructions; id++) {
+      var instruction = instructions.getInstruction(id);
+      var mask = new long[numWords(numChannels)];
+      var numTx = 0;
+      var channels = new int[instruction.numClauses()];
+      var flows = new int[channels.length];
+      for (var clause = instruction; clause != null; clause = clause.getElse()) {
+        var channel = clause.getChannel();
+        if (channel < 0) {
+          continue; // sleep
+        }
+        set(mask, channel);
+        if (clause.isTransmission()) {
+          var flow = flowIds.computeIfAbsent(clause.getFlow(), (name) -> {
+            flowNames.add(name);
+            return flowNames.size() - 1;
+          });
+          channels[numTx] = channel;
+          flows[numTx++] = flow;
+        }
+      }
+      channelMasks[id] = mask;
+      txChannels[id] = Arrays.copyOf(channels, numTx);
+      txFlows[id] = Arrays.copyOf(flows, numTx);
+    }
+  }
+
+  /* flow of the first transmission of instruction id on channel, or null if it only waits */
+  private String flowOn(int id, int channel) {
+    var channels = txChannels[id];
+    for (int tx = 0; tx < channels.length; tx++) {
+      if (channels[tx] == channel) {
+        return flowNames.get(txFlows[id][tx]);
+      }
+    }
+    return null;
+  }
+
+  private static int numWords(int numChannels) {
+    return Math.max(1, (numChannels + WORD_BITS - 1) / WORD_BITS);
+  }
+
+  private static boolean isSet(long[] mask, int channel) {
+    return (mask[channel / WORD_BITS] & (1L << (channel % WORD_BITS))) != 0;
+  }
+
+  private static void set(long[] mask, int channel) {
+    mask[channel / WORD_BITS] |= 1L << (channel % WORD_BITS);
+  }
 }
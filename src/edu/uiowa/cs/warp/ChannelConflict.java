@@ -0,0 +1,76 @@
+package edu.uiowa.cs.warp;
+
+/**
+ * One channel conflict found by ChannelAnalysis.
+ * <p>
+ * A SAME_SLOT conflict is two transmissions of different flows on the same channel in the same
+ * time slot; node and flow are the second transmission found, otherNode and otherFlow the first.
+ * A CONSECUTIVE_SLOTS conflict is a node using the same channel in the time slot before timeSlot
+ * and in timeSlot; node and otherNode are that node, and a flow is null when the node only waits
+ * on the channel.
+ *
+ * @version 1.0
+ */
+public class ChannelConflict {
+
+  public enum Type {
+    SAME_SLOT, CONSECUTIVE_SLOTS
+  }
+
+  private final Type type;
+  private final int timeSlot;
+  private final int channel;
+  private final String node;
+  private final String flow;
+  private final String otherNode;
+  private final String otherFlow;
+
+  ChannelConflict(Type type, int timeSlot, int channel, String node, String flow,
+      String otherNode, String otherFlow) {
+    this.type = type;
+    this.timeSlot = timeSlot;
+    this.channel = channel;
+    this.node = node;
+    this.flow = flow;
+    this.otherNode = otherNode;
+    this.otherFlow = otherFlow;
+  }
+
+  public Type getType() {
+    return type;
+  }
+
+  public int getTimeSlot() {
+    return timeSlot;
+  }
+
+  public int getChannel() {
+    return channel;
+  }
+
+  public String getNode() {
+    return node;
+  }
+
+  public String getFlow() {
+    return flow;
+  }
+
+  public String getOtherNode() {
+    return otherNode;
+  }
+
+  public String getOtherFlow() {
+    return otherFlow;
+  }
+
+  @Override
+  public String toString() {
+    if (type == Type.SAME_SLOT) {
+      return String.format("Time slot %d, channel #%d: %s at %s and %s at %s", timeSlot, channel,
+          otherFlow, otherNode, flow, node);
+    }
+    return String.format("Time slots %d and %d, channel #%d: used twice in a row by %s",
+        timeSlot - 1, timeSlot, channel, node);
+  }
+}
@@ -0,0 +1,250 @@
+package edu.uiowa.cs.warp;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * How much of the channels and node time a program uses.
+ * <p>
+ * For each time slot it counts the channels in use; for each channel, the fraction of slots in
+ * which it is busy; for each node, its duty cycle, the fraction of slots in which it does not
+ * sleep; and it finds the longest run of consecutive slots in which every channel is in use. A
+ * new flow needs free channels in the slots between its release and deadline, so these tell
+ * whether it can fit before the program is rebuilt.
+ * <p>
+ * A slot uses a channel when a clause of some cell names it, whichever clause of the chain runs.
+ * Each distinct instruction is decoded once through an InstructionIdTable. A program built by a
+ * poset scheduler is measured on the ScheduleTable the scheduler built, where a channel is busy
+ * when it holds an Activation and a node is awake when an Activation in that slot has an edge to
+ * or from it, since that table still holds what was scheduled when no program could be made.
+ *
+ * @version 1.0
+ */
+public class ChannelUtilization {
+
+  private static final int WORD_BITS = Long.SIZE;
+
+  private final int numSlots;
+  private final int numChannels;
+  private final int[] channelsInUse;
+  private final int[] channelBusySlots;
+  private final String[] nodeNames;
+  private final HashMap<String, Integer> nodeIndex = new HashMap<String, Integer>();
+  private final int[] nodeActiveSlots;
+  private int longestSaturatedRun = 0;
+  private int longestSaturatedRunStart = 0;
+
+  ChannelUtilization(Program program) {
+    var schedule = program.getSchedule();
+    var posetSchedule = program.getPosetSchedule();
+    var instructions = new InstructionIdTable(schedule);
+    var masks = channelMasks(instructions);
+    var channels = program.getNumChannels();
+    for (long[] mask : masks) {
+      channels = Math.max(channels, highestChannel(mask) + 1);
+    }
+    numChannels = channels;
+    numSlots = (posetSchedule != null) ? posetSchedule.getNumColumns()
+        : instructions.getNumRows();
+    channelsInUse = new int[numSlots];
+    channelBusySlots = new int[numChannels];
+    nodeNames = program.toWorkLoadSnapshot().getNodeNamesOrderedAlphabetically();
+    for (int node = 0; node < nodeNames.length; node++) {
+      nodeIndex.put(nodeNames[node], node);
+    }
+    nodeActiveSlots = new int[nodeNames.length];
+    if (posetSchedule != null) {
+      countNodeActivity(posetSchedule);
+      countChannels(posetSchedule);
+    } else {
+      countNodeActivity(instructions);
+      countChannels(instructions, masks);
+    }
+    findLongestSaturatedRun();
+  }
+
+  public int getNumTimeSlots() {
+    return numSlots;
+  }
+
+  public int getNumChannels() {
+    return numChannels;
+  }
+
+  /**
+   * @return the number of channels in use in timeSlot
+   */
+  public int getChannelsInUse(int timeSlot) {
+    return channelsInUse[timeSlot];
+  }
+
+  /**
+   * @return the fraction of time slots in which channel is in use
+   */
+  public double getChannelBusyFraction(int channel) {
+    return numSlots > 0 ? (double) channelBusySlots[channel] / numSlots : 0.0;
+  }
+
+  /**
+   * @return the fraction of channel time slots in use over the whole program
+   */
+  public double getUtilization() {
+    long busy = 0;
+    for (int slots : channelBusySlots) {
+      busy += slots;
+    }
+    return (numSlots > 0 && numChannels > 0) ? (double) busy / ((long) numSlots * numChannels)
+        : 0.0;
+  }
+
+  /**
+   * @return the names of the nodes, in the order of the program's columns
+   */
+  public String[] getNodeNames() {
+    return nodeNames.clone();
+  }
+
+  /**
+   * @return the fraction of time slots in which nodeName does not sleep, or null for an unknown
+   *         node
+   */
+  public Double getNodeDutyCycle(String nodeName) {
+    var node = nodeIndex.get(nodeName);
+    if (node == null) {
+      return null;
+    }
+    return numSlots > 0 ? (double) nodeActiveSlots[node] / numSlots : 0.0;
+  }
+
+  /**
+   * @return the length of the longest run of consecutive time slots that use every channel
+   */
+  public int getLongestSaturatedRun() {
+    return longestSaturatedRun;
+  }
+
+  /**
+   * @return the first time slot of the longest saturated run, 0 when there is none
+   */
+  public int getLongestSaturatedRunStart() {
+    return longestSaturatedRunStart;
+  }
+
+  /* the channels named by the clauses of each distinct instruction */
+  private static long[][] channelMasks(InstructionIdTable instructions) {
+    var masks = new long[instructions.getNumInstructions()][];
+    for (int id = 0; id < masks.length; id++) {
+      var maxChannel = -1;
+      for (var clause = instructions.getInstruction(id); clause != null; clause =
+          clause.getElse()) {
+        maxChannel = Math.max(maxChannel, clause.getChannel());
+      }
+      masks[id] = new long[maxChannel / WORD_BITS + 1];
+      for (var clause = instructions.getInstruction(id); clause != null; clause =
+          clause.getElse()) {
+        var channel = clause.getChannel();
+        if (channel >= 0) {
+          masks[id][channel / WORD_BITS] |= 1L << (channel % WORD_BITS);
+        }
+      }
+    }
+    return masks;
+  }
+
+  private static int highestChannel(long[] mask) {
+    for (int word = mask.length - 1; word >= 0; word--) {
+      if (mask[word] != 0) {
+        return word * WORD_BITS + WORD_BITS - 1 - Long.numberOfLeadingZeros(mask[word]);
+      }
+    }
+    return -1;
+  }
+
+  private void countNodeActivity(InstructionIdTable instructions) {
+    var numIds = instructions.getNumInstructions();
+    var active = new boolean[numIds];
+    for (int id = 0; id < numIds; id++) {
+      active[id] = !instructions.getInstruction(id).isSleep();
+    }
+    var numColumns = Math.min(instructions.getNumColumns(), nodeNames.length);
+    for (int row = 0; row < instructions.getNumRows(); row++) {
+      for (int column = 0; column < numColumns; column++) {
+        var id = instructions.getId(row, column);
+        if (id != InstructionIdTable.NO_INSTRUCTION && active[id]) {
+          nodeActiveSlots[column]++;
+        }
+      }
+    }
+  }
+
+  /* a node is counted once per slot, however many of the slot's activations it is in */
+  private void countNodeActivity(ScheduleTable posetSchedule) {
+    var lastActiveSlot = new int[nodeNames.length];
+    Arrays.fill(lastActiveSlot, -1);
+    var rows = Math.min(numChannels, posetSchedule.getNumRows() - 1);
+    for (int time = 0; time < numSlots; time++) {
+      for (int channel = 0; channel < rows; channel++) {
+        var activation = posetSchedule.get(channel, time);
+        if (activation == null) {
+          continue;
+        }
+        for (Edge edge : activation.getEdges()) {
+          for (String name : new String[] {edge.getSrc(), edge.getSnk()}) {
+            var node = nodeIndex.get(name);
+            if (node != null && lastActiveSlot[node] < time) {
+              lastActiveSlot[node] = time;
+              nodeActiveSlots[node]++;
+            }
+          }
+        }
+      }
+    }
+  }
+
+  private void countChannels(InstructionIdTable instructions, long[][] masks) {
+    var inUse = new long[Math.max(1, (numChannels + WORD_BITS - 1) / WORD_BITS)];
+    for (int row = 0; row < numSlots; row++) {
+      Arrays.fill(inUse, 0L);
+      for (int column = 0; column < instructions.getNumColumns(); column++) {
+        var id = instructions.getId(row, column);
+        if (id == InstructionIdTable.NO_INSTRUCTION) {
+          continue;
+        }
+        var mask = masks[id];
+        for (int word = 0; word < mask.length; word++) {
+          inUse[word] |= mask[word];
+        }
+      }
+      for (int word = 0; word < inUse.length; word++) {
+        channelsInUse[row] += Long.bitCount(inUse[word]);
+        for (var bits = inUse[word]; bits != 0; bits &= bits - 1) {
+          channelBusySlots[word * WORD_BITS + Long.numberOfTrailingZeros(bits)]++;
+        }
+      }
+    }
+  }
+
+  /* rows of the table are channels, with a last row for entries that were not schedulable */
+  private void countChannels(ScheduleTable posetSchedule) {
+    var rows = Math.min(numChannels, posetSchedule.getNumRows() - 1);
+    for (int channel = 0; channel < rows; channel++) {
+      for (int time = 0; time < numSlots; time++) {
+        if (posetSchedule.get(channel, time) != null) {
+          channelsInUse[time]++;
+          channelBusySlots[channel]++;
+        }
+      }
+    }
+  }
+
+  private void findLongestSaturatedRun() {
+    var run = 0;
+    for (int slot = 0; slot < numSlots; slot++) {
+      run = (numChannels > 0 && channelsInUse[slot] >= numChannels) ? run + 1 : 0;
+      if (run > longestSaturatedRun) {
+        longestSaturatedRun = run;
+        longestSaturatedRunStart = slot - run + 1;
+      }
+    }
+  }
+}
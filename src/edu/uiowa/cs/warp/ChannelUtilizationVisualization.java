@@ -0,0 +1,59 @@
+package edu.uiowa.cs.warp;
+
+import java.util.ArrayList;
+import java.util.Locale;
+
+/**
+ * ChannelUtilizationVisualization writes the ChannelUtilization of a WARP program as a TSV with
+ * one value per row, so it can be read without parsing a report.
+ * <p>
+ * The Metric column is one of utilization, saturated_run, slot_channels_in_use,
+ * channel_busy_fraction or node_duty_cycle; Key is the time slot, channel or node the value is
+ * for, empty for utilization, and the first slot of the run for saturated_run, whose value is its
+ * length.
+ *
+ * @version 1.0
+ */
+public class ChannelUtilizationVisualization extends VisualizationObject {
+
+  private static final String NAME_EXTENSION = "ChannelUtilization";
+  private static final String SOURCE_SUFFIX = ".tsv";
+  private ChannelUtilization cu;
+
+  ChannelUtilizationVisualization(WarpInterface warp) {
+    super(new FileManager(), warp, NAME_EXTENSION, SOURCE_SUFFIX);
+    this.cu = warp.toChannelUtilization();
+  }
+
+  @Override
+  protected String[] createColumnHeader() {
+    return new String[] {"Metric", "Key", "Value"};
+  }
+
+  @Override
+  protected String[][] createVisualizationData() {
+    if (visualizationData == null) {
+      var rows = new ArrayList<String[]>();
+      rows.add(new String[] {"utilization", "", fraction(cu.getUtilization())});
+      rows.add(new String[] {"saturated_run", String.valueOf(cu.getLongestSaturatedRunStart()),
+          String.valueOf(cu.getLongestSaturatedRun())});
+      for (int slot = 0; slot < cu.getNumTimeSlots(); slot++) {
+        rows.add(new String[] {"slot_channels_in_use", String.valueOf(slot),
+            String.valueOf(cu.getChannelsInUse(slot))});
+      }
+      for (int channel = 0; channel < cu.getNumChannels(); channel++) {
+        rows.add(new String[] {"channel_busy_fraction", String.format("#%d", channel),
+            fraction(cu.getChannelBusyFraction(channel))});
+      }
+      for (String node : cu.getNodeNames()) {
+        rows.add(new String[] {"node_duty_cycle", node, fraction(cu.getNodeDutyCycle(node))});
+      }
+      visualizationData = rows.toArray(new String[rows.size()][]);
+    }
+    return visualizationData;
+  }
+
+  private static String fraction(double value) {
+    return String.format(Locale.ROOT, "%.4f", value);
+  }
+}
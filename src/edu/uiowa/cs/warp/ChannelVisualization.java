@@ -24,4 +24,67 @@ public class ChannelVisualization extends VisualizationObject {
     this.warp = warp;
     this.ca = warp.toChannelAnalysis();
      }
+
+  /**
+   * Function creates and returns a header with the title, scheduler name and number of
+   * channels. <br>
+   */
+  @Override
+  protected Description createHeader() {
+    Description header = new Description();
+    var program = warp.toProgram();
+    header.add(String.format("Channel use for graph %s\n", program.getName()));
+    header.add(String.format("Scheduler Name: %s\n", program.getSchedulerName()));
+    header.add(String.format("nChannels: %d\n", ca.getNumChannels()));
+    return header;
+     }
+
+  /**
+   * Function creates and returns a footer that lists the channel conflicts, if any. <br>
+   */
+  @Override
+  protected Description createFooter() {
+    Description footer = new Description();
+    var conflicts = ca.getConflicts();
+    if (conflicts.isEmpty()) {
+      footer.add("// No channel conflicts\n");
+    } else {
+      footer.add(String.format("// WARNING: %d channel conflicts\n", conflicts.size()));
+      for (ChannelConflict conflict : conflicts) {
+        footer.add(String.format("// %s\n", conflict));
+      }
+    }
+    return footer;
+     }
+
+  /**
+   * Function that returns the column headers: the time slot, then one column per channel. <br>
+   */
+  @Override
+  protected String[] createColumnHeader() {
+    var numChannels = ca.getNumChannels();
+    String[] columnNames = new String[numChannels + 1];
+    columnNames[0] = "Time Slot";
+    for (int channel = 0; channel < numChannels; channel++) {
+      columnNames[channel + 1] = String.format("#%d", channel);
+    }
+    return columnNames;
+     }
+
+  /**
+   * Function creates and returns the links transmitting on each channel in each time slot. <br>
+   */
+  @Override
+  protected String[][] createVisualizationData() {
+    if (visualizationData == null) {
+      var channelTable = ca.getChannelTable();
+      visualizationData = new String[channelTable.length][];
+      for (int row = 0; row < channelTable.length; row++) {
+        visualizationData[row] = new String[channelTable[row].length + 1];
+        visualizationData[row][0] = String.format("%s", row);
+        System.arraycopy(channelTable[row], 0, visualizationData[row], 1, channelTable[row].length);
+      }
+    }
+    return visualizationData;
+     }
 }
@@ -1,79 +1,178 @@
 package edu.uiowa.cs.warp;
 
-
-import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Arrays;
 
 /**
-
-* @author sgoddard
- * @version 1.4
- *  *
+ * Channels available in each time slot of a program.
+ * <p>
+ * Availability is kept as a bitmask per time slot, bit c set when channel c is free, with all
+ * slots packed into one contiguous long array of wordsPerSlot words each (one word when there are
+ * at most 64 channels). Adding or removing a channel is a single bit operation and the search for
+ * the next free channel walks whole words with Long.numberOfTrailingZeros, so the scheduler's inner
+ * loop neither copies sets nor boxes channel numbers into Strings.
+ *
+ * @author sgoddard
+ * @version 1.5
  */
 public class Channels {
 
+  /** Returned by nextAvailableChannel when every channel is taken */
+  public static final int NO_CHANNEL = Instruction.NO_CHANNEL;
+
+  private static final int WORD_BITS = Long.SIZE;
+  private static final int INITIAL_SLOTS = 16;
 
-  private class ChannelSet extends HashSet<String> {
-    private static final long serialVersionUID = 6725256944325470867L;
+  Integer nChannels; // size of the full set of channels
+  Boolean verbose;
+  private final int wordsPerSlot;
+  private final long[] fullMask; // mask with channels 0..nChannels-1 set
+  private long[] available; // wordsPerSlot words for each time slot
+  private int nSlots = 0;
 
-    // default constructor
-    private ChannelSet() {
-      super();
+  Channels(Integer nChannels, Boolean verbose) {
+    this.nChannels = nChannels;
+    this.verbose = verbose;
+    this.wordsPerSlot = Math.max(1, (nChannels + WORD_BITS - 1) / WORD_BITS);
+    this.fullMask = newChannelMask();
+    for (int channel = 0; channel < nChannels; channel++) { // ASSUMES channels range from 0 to
+                                                           // nChannels-1
+      setChannel(fullMask, channel);
     }
+    this.available = new long[INITIAL_SLOTS * wordsPerSlot];
+  }
 
-    private ChannelSet(Integer nChannels) {
-      super();
-      for (int i = 0; i < nChannels; i++) { // ASSUMES channels range from 0 to nChannels-1
-        this.add(String.valueOf(i));
-      }
+  /**
+   * Copies the availability of every time slot in channels.
+   */
+  Channels(Channels channels) {
+    this.nChannels = channels.nChannels;
+    this.verbose = channels.verbose;
+    this.wordsPerSlot = channels.wordsPerSlot;
+    this.fullMask = channels.fullMask;
+    this.available = channels.available.clone();
+    this.nSlots = channels.nSlots;
+  }
+
+  /**
+   * Adds a time slot with all channels available.
+   */
+  public void addNewChannelSet() {
+    if ((nSlots + 1) * wordsPerSlot > available.length) {
+      available = Arrays.copyOf(available, 2 * available.length);
     }
+    System.arraycopy(fullMask, 0, available, nSlots * wordsPerSlot, wordsPerSlot);
+    nSlots++;
   }
 
+  public Integer getNumTimeSlots() {
+    return nSlots;
+  }
 
-  Integer nChannels; // size of the full set of channels
-  Boolean verbose;
-  ArrayList<ChannelSet> channelsAvailable; // ArrayList to hold channels available in each time slot
+  public Boolean isEmpty(int timeSlot) {
+    var base = timeSlot * wordsPerSlot;
+    for (int word = 0; word < wordsPerSlot; word++) {
+      if (available[base + word] != 0) {
+        return false;
+      }
+    }
+    return true; // no channel is available in this timeSlot
+  }
 
-  Channels(Integer nChannels, Boolean verbose) {
-    this.nChannels = nChannels;
-    this.verbose = verbose;
-    this.channelsAvailable = new ArrayList<ChannelSet>();
-     }
+  public Boolean isAvailable(int timeSlot, int channel) {
+    if (!inRange(channel)) {
+      return false;
+    }
+    return (available[timeSlot * wordsPerSlot + channel / WORD_BITS] & bit(channel)) != 0;
+  }
+
+  /**
+   * @return true if channel was available in timeSlot and is now taken
+   */
+  public Boolean removeChannel(int timeSlot, int channel) {
+    if (!isAvailable(timeSlot, channel)) {
+      return false;
+    }
+    available[timeSlot * wordsPerSlot + channel / WORD_BITS] &= ~bit(channel);
+    return true;
+  }
 
-  public HashSet<String> getChannelSet(Integer timeSlot) {
-    /* get the channel set for this timeSlot */
-    HashSet<String> channelSet = new HashSet<String>(channelsAvailable.get(timeSlot));
-    return channelSet;
-     }
+  /**
+   * @return true if channel was taken in timeSlot and is now available again
+   */
+  public Boolean addChannel(int timeSlot, int channel) {
+    if (!inRange(channel) || isAvailable(timeSlot, channel)) {
+      return false;
+    }
+    available[timeSlot * wordsPerSlot + channel / WORD_BITS] |= bit(channel);
+    return true;
+  }
 
-  public void addNewChannelSet() {
-    var channels = new ChannelSet(nChannels);
-    channelsAvailable.add(channels);
-     }
+  /**
+   * Finds the first channel available in timeSlot, and not set in excluded, searching upward from
+   * start and wrapping around to channel 0. Availability is not changed.
+   *
+   * @param timeSlot time slot to search
+   * @param start first channel to try; values outside 0..nChannels-1 start at 0
+   * @param excluded mask from newChannelMask of channels that must not be used, or null
+   * @return the channel found, or NO_CHANNEL
+   */
+  public int nextAvailableChannel(int timeSlot, int start, long[] excluded) {
+    if (!inRange(start)) {
+      start = 0;
+    }
+    var base = timeSlot * wordsPerSlot;
+    var channel = firstAvailable(base, excluded, start, nChannels);
+    if (channel == NO_CHANNEL && start > 0) {
+      channel = firstAvailable(base, excluded, 0, start);
+    }
+    return channel;
+  }
+
+  /* first channel in [from, to) that is available and not excluded */
+  private int firstAvailable(int base, long[] excluded, int from, int to) {
+    var firstWord = from / WORD_BITS;
+    for (int word = firstWord; word * WORD_BITS < to; word++) {
+      var free = available[base + word];
+      if (excluded != null) {
+        free &= ~excluded[word];
+      }
+      if (word == firstWord) {
+        free &= -1L << (from % WORD_BITS); // drop channels below from
+      }
+      if (free != 0) {
+        var channel = word * WORD_BITS + Long.numberOfTrailingZeros(free);
+        return (channel < to) ? channel : NO_CHANNEL;
+      }
+    }
+    return NO_CHANNEL;
+  }
 
+  /**
+   * @return an empty channel mask sized for this channel set, for use with setChannel
+   */
+  public long[] newChannelMask() {
+    return new long[wordsPerSlot];
+  }
 
-  public Boolean isEmpty(int timeSlot) {
-    ChannelSet channelSet = channelsAvailable.get(timeSlot); // get the channel set for this
-                                                             // timeSlot
-    return channelSet.isEmpty(); // returns true channel set is empty and false if not
-     }
-
-  public Boolean removeChannel(int timeSlot, String channel) {
-    Boolean result;
-    ChannelSet channels = channelsAvailable.get(timeSlot);
-    result = channels.remove(channel);
-    return result;
-     }
-
-  public Boolean addChannel(int timeSlot, String channel) {
-    Boolean result;
-    ChannelSet channels = channelsAvailable.get(timeSlot); // get a pointer to the channel set
-    result = channels.add(channel); // remove the channel, returning the result
-    return result;
-     }
+  /**
+   * Sets channel in mask. Channels outside the mask, such as NO_CHANNEL, are ignored.
+   */
+  public static void setChannel(long[] mask, int channel) {
+    if (channel >= 0 && channel / WORD_BITS < mask.length) {
+      mask[channel / WORD_BITS] |= bit(channel);
+    }
+  }
+
+  private static long bit(int channel) {
+    return 1L << (channel % WORD_BITS);
+  }
+
+  private boolean inRange(int channel) {
+    return channel >= 0 && channel < nChannels;
+  }
 
   public Integer getNumChannels() {
-    return nChannels;
-     }
+    return nChannels;
+  }
 
 }
@@ -2,15 +2,13 @@ package edu.uiowa.cs.warp;
 
 import java.util.ArrayList;
 import java.util.Iterator;
-import java.util.regex.Pattern;
 
 public class CodeFragment {
 	
 	
-	private static final String SLEEP = "sleep";
 	ArrayList<Edge> edges;
 	String coordinator;
-	ArrayList<String> codeFragment;
+	ArrayList<Instruction> codeFragment;
 	Integer delta;
 	Integer channel;
 	
@@ -24,8 +22,8 @@ public class CodeFragment {
    		this.channel = 0;
    		this.edges = null;
    		this.coordinator = null;
-   		this.codeFragment = new ArrayList<String>();
-   		this.codeFragment.add(SLEEP);
+   		this.codeFragment = new ArrayList<Instruction>();
+   		this.codeFragment.add(Instruction.sleep());
    	}
 	
 	/**
@@ -47,7 +45,7 @@ public class CodeFragment {
    		this.channel = channel;
    		this.edges = edges;
    		this.coordinator = coordinators.get(0);
-   		this.codeFragment = new ArrayList<String>();
+   		this.codeFragment = new ArrayList<Instruction>();
    		if (multipleCoordinators(coordinators)) {
    			reportIfDifferentCoordinators(coordinators);
    		}	
@@ -66,7 +64,7 @@ public class CodeFragment {
 
 * @return the codeFragment
 	 */
-	public ArrayList<String> instructions() {
+	public ArrayList<Instruction> instructions() {
 		return codeFragment;
    	}
 
@@ -88,7 +86,7 @@ public class CodeFragment {
    		 * delta + #edges -1
    		 */
    		var codeLength = delta + size -1;
-   		var basicInstructions = new ArrayList<String>();
+   		var basicInstructions = new ArrayList<Instruction>();
    		/* create basic instructions for each edge 
    		 * and initial receiver set for each instruction
    		 * */
@@ -114,12 +112,11 @@ public class CodeFragment {
    		
    		/* build the initial code fragment */
    		Integer localDelta = Math.min(size, delta);
-   		var instr = new String();
-   		var dropInstr = new String();
-   		var priorInstr = new String();
+   		Instruction instr;
+   		Instruction dropInstr;
+   		Instruction priorInstr;
    		for (int i = 1; i < localDelta ; i++) { 
-   			instr = codeFragment.get(i-1) +
-   					" else " + basicInstructions.get(i);
+   			instr = codeFragment.get(i-1).orElse(basicInstructions.get(i));
    			codeFragment.add(instr);
    		}
    		/* now repeat middle stage if size < delta 
@@ -145,9 +142,9 @@ public class CodeFragment {
    		 */
    		for (int i = localDelta + numRepeatStages; (i < numRepeatStages + size)  && i < codeLength ; i++) { 
    			priorInstr = codeFragment.get(i-1);
-   			dropInstr =  basicInstructions.get(i-(localDelta + numRepeatStages)) + " else ";
-   			instr = priorInstr.replaceFirst(Pattern.quote(dropInstr),"");
-   			instr += " else " + basicInstructions.get(i-numRepeatStages);
+   			dropInstr =  basicInstructions.get(i-(localDelta + numRepeatStages));
+   			instr = priorInstr.withoutClause(dropInstr);
+   			instr = instr.orElse(basicInstructions.get(i-numRepeatStages));
    			codeFragment.add(instr);
    		}
    		/* Now loop through dropping old instructions, draining
@@ -155,52 +152,30 @@ public class CodeFragment {
    		 */
    		for (int i = numRepeatStages + size; i < codeLength ; i++) { 
    			priorInstr = codeFragment.get(i-1);
-   			dropInstr =  basicInstructions.get(i-delta)  + " else ";
-   			instr = priorInstr.replaceFirst(Pattern.quote(dropInstr),"");
+   			dropInstr =  basicInstructions.get(i-delta);
+   			instr = priorInstr.withoutClause(dropInstr);
    			codeFragment.add(instr);
    		}
    	}
 	
-	private String getBaseInstruction(String flow, String src, String snk) {
-		var instr = new String();
-   		if (coordinator.equals(src)) {
-   			/* push instruction */
-   			instr += ifHas(flow,src,snk) + push(flow,src,snk);
-   		} else {
-   			/* pull instruction */
-   			instr += ifNotHas(flow,src,snk) + pull(flow,src,snk);
-   		}
-   		return instr;
-   	}
-	
-	private String push(String flow, String src, String snk) {
-		var instruction = String.format("push(%s: %s -> %s, #%d)", flow, src, snk, channel);
-   		return instruction;
-   	}
-	
-	private String pull(String flow, String src, String snk) {
-		var instruction = String.format("pull(%s: %s -> %s, #%d)", flow, src, snk, channel);
-   		return instruction;
-   	}
-	
-	private String ifHas(String flow, String src, String snk) {
-		var instruction = String.format("if has(%s: %s -> %s) ", flow, src, snk);
-   		return instruction;
-   	}
-	
-	private String ifNotHas(String flow, String src, String snk) {
-		var instruction = String.format("if !has(%s: %s -> %s) ", flow, src, snk);
-   		return instruction;
+	private Instruction getBaseInstruction(String flow, String src, String snk) {
+		Instruction instr;
+   		if (coordinator.equals(src)) {
+   			/* push instruction */
+   			instr = Instruction.push(flow, src, snk, channel).ifHasLink();
+   		} else {
+   			/* pull instruction */
+   			instr = Instruction.pull(flow, src, snk, channel).ifNotHasLink();
+   		}
+   		return instr;
    	}
 	
-	public String wait(int channel) {
-		var instruction = String.format("wait(#%d)", channel);
-   		return instruction;
+	public Instruction wait(int channel) {
+		return Instruction.waitOn(channel);
    	}
 	
-	public static String sleep() {
-		var instruction = SLEEP;
-   		return instruction;
+	public static Instruction sleep() {
+		return Instruction.sleep();
    	}
 	
 	private void reportIfDifferentCoordinators(ArrayList<String> coordinators) {
@@ -0,0 +1,173 @@
+package edu.uiowa.cs.warp;
+
+import java.util.Arrays;
+
+/**
+ * Reliability table kept as one double[] in row-major order, with the same getNumRows,
+ * getNumColumns, get and set methods as ReliabilityTable.
+ * <p>
+ * A ReliabilityTable holds a list of rows of boxed Doubles, which takes several times the memory
+ * of the values themselves and scatters each row across the heap. ReliabilityAnalysis fills one of
+ * these instead and only builds a ReliabilityTable when one is asked for. Rows are added at the
+ * end, and the array grows by half its size when it is full, so appending a row is amortized
+ * constant time.
+ *
+ * @version 1.0
+ */
+public class DenseReliabilityTable {
+
+  private static final int INITIAL_ROWS = 16;
+
+  private double[] cells;
+  private int numRows = 0;
+  private final int numColumns;
+
+  /**
+   * Creates a table with no rows.
+   *
+   * @param numColumns number of columns in every row
+   */
+  public DenseReliabilityTable(int numColumns) {
+    this.numColumns = numColumns;
+    this.cells = new double[INITIAL_ROWS * numColumns];
+  }
+
+  /**
+   * Copies table; a row shorter than the last row is padded with 0.0, a longer one is cut short.
+   */
+  public DenseReliabilityTable(ReliabilityTable table) {
+    this(table.getNumColumns());
+    for (ReliabilityRow row : table) {
+      var offset = addRow();
+      for (int column = 0; column < Math.min(numColumns, row.size()); column++) {
+        cells[offset + column] = row.get(column);
+      }
+    }
+  }
+
+  public Integer getNumRows() {
+    return numRows;
+  }
+
+  public Integer getNumColumns() {
+    return numColumns;
+  }
+
+  /**
+   * @return the value at row and column, or null if the cell is outside the table
+   */
+  public Double get(Integer row, Integer column) {
+    return contains(row, column) ? cells[row * numColumns + column] : null;
+  }
+
+  /**
+   * Sets the value at row and column; does nothing if the cell is outside the table or element
+   * is null.
+   */
+  public void set(Integer row, Integer column, Double element) {
+    if (element != null && contains(row, column)) {
+      cells[row * numColumns + column] = element;
+    }
+  }
+
+  /**
+   * Same as get, without boxing; the cell must be in the table.
+   */
+  public double getValue(int row, int column) {
+    return cells[row * numColumns + column];
+  }
+
+  /**
+   * Same as set, without boxing; the cell must be in the table.
+   */
+  public void setValue(int row, int column, double value) {
+    cells[row * numColumns + column] = value;
+  }
+
+  /**
+   * Adds a row of 0.0 values at the end of the table.
+   *
+   * @return index in the backing array of the first cell of the new row
+   */
+  private int addRow() {
+    var offset = numRows * numColumns;
+    if (offset + numColumns > cells.length) {
+      var capacity = Math.max(numRows + 1, numRows + (numRows >> 1)) * numColumns;
+      cells = Arrays.copyOf(cells, Math.max(capacity, INITIAL_ROWS * numColumns));
+    }
+    numRows++;
+    return offset;
+  }
+
+  /**
+   * Adds count rows of 0.0 values at the end of the table, for filling in with setValues.
+   */
+  void addRows(int count) {
+    var needed = (numRows + count) * numColumns;
+    if (needed > cells.length) {
+      cells = Arrays.copyOf(cells, needed);
+    }
+    numRows += count;
+  }
+
+  /**
+   * Copies values into row, starting at column; the cells must be in the table. Threads may set
+   * values in different cells at the same time.
+   */
+  void setValues(int row, int column, double[] values) {
+    System.arraycopy(values, 0, cells, row * numColumns + column, values.length);
+  }
+
+  /**
+   * Adds a copy of the last row at the end of the table, or a row of 0.0 values if the table is
+   * empty.
+   *
+   * @return index of the new row
+   */
+  public int addCopyOfLastRow() {
+    var offset = addRow();
+    if (numRows > 1) {
+      System.arraycopy(cells, offset - numColumns, cells, offset, numColumns);
+    }
+    return numRows - 1;
+  }
+
+  /**
+   * Adds a row holding values, padded with 0.0 or cut short to numColumns values.
+   *
+   * @return index of the new row
+   */
+  public int addRow(double[] values) {
+    var offset = addRow();
+    System.arraycopy(values, 0, cells, offset, Math.min(numColumns, values.length));
+    return numRows - 1;
+  }
+
+  /**
+   * @return a copy of the values in row
+   */
+  public double[] getRow(int row) {
+    var offset = row * numColumns;
+    return Arrays.copyOfRange(cells, offset, offset + numColumns);
+  }
+
+  /**
+   * @return the values as a ReliabilityTable of boxed rows
+   */
+  public ReliabilityTable toReliabilityTable() {
+    var table = new ReliabilityTable();
+    var row = new Double[numColumns];
+    for (int r = 0; r < numRows; r++) {
+      var offset = r * numColumns;
+      for (int column = 0; column < numColumns; column++) {
+        row[column] = cells[offset + column];
+      }
+      table.add(new ReliabilityRow(row));
+    }
+    return table;
+  }
+
+  private boolean contains(int row, int column) {
+    return row >= 0 && row < numRows && column >= 0 && column < numColumns;
+  }
+}
@@ -0,0 +1,439 @@
+package edu.uiowa.cs.warp;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Typed, immutable representation of one WARP DSL instruction, which is what each cell of a
+ * ProgramSchedule holds. An instruction is a chain of clauses joined by <code>else</code>. Each
+ * clause has an opcode (push, pull, wait or sleep), an optional <code>has()</code> or
+ * <code>!has()</code> guard, the flow and link it acts on, and the channel it uses.
+ * <p>
+ * The schedulers and analyses read these fields directly instead of formatting and re-parsing DSL
+ * strings. The DSL text is only produced by {@link #toString()} when a program is written out, and
+ * it is identical to the text the schedulers used to build, e.g.
+ * <code>if has(F0) push(F0: A -> B, #1) else pull(F0: C -> A, #1)</code>.
+ *
+ * @version 1.0
+ */
+public final class Instruction {
+
+  /** Channel value used by clauses that do not name a channel (sleep). */
+  public static final int NO_CHANNEL = -1;
+
+  public enum Opcode {
+    PUSH("push"), PULL("pull"), WAIT("wait"), SLEEP("sleep");
+
+    private final String keyword;
+
+    Opcode(String keyword) {
+      this.keyword = keyword;
+    }
+
+    public String keyword() {
+      return keyword;
+    }
+  }
+
+  public enum Guard {
+    NONE, HAS, NOT_HAS
+  }
+
+  private static final Instruction SLEEP =
+      new Instruction(Opcode.SLEEP, Guard.NONE, false, null, null, null, NO_CHANNEL, null);
+
+  private final Opcode opcode;
+  private final Guard guard;
+  /* true when the guard names the link, has(F0: A -> B), rather than just the flow, has(F0) */
+  private final boolean guardOnLink;
+  private final String flow;
+  private final String src;
+  private final String snk;
+  private final int channel;
+  /* next clause in the chain, null for the last clause */
+  private final Instruction elseBranch;
+  private final int hash;
+
+  private Instruction(Opcode opcode, Guard guard, boolean guardOnLink, String flow, String src,
+      String snk, int channel, Instruction elseBranch) {
+    this.opcode = opcode;
+    this.guard = guard;
+    this.guardOnLink = guardOnLink;
+    this.flow = flow;
+    this.src = src;
+    this.snk = snk;
+    this.channel = channel;
+    this.elseBranch = elseBranch;
+    this.hash = Objects.hash(opcode, guard, guardOnLink, flow, src, snk, channel, elseBranch);
+  }
+
+  /**
+   * @return the <code>sleep</code> instruction
+   */
+  public static Instruction sleep() {
+    return SLEEP;
+  }
+
+  /**
+   * @param channel channel to listen on
+   * @return <code>wait(#channel)</code>
+   */
+  public static Instruction waitOn(int channel) {
+    return new Instruction(Opcode.WAIT, Guard.NONE, false, null, null, null, channel, null);
+  }
+
+  /**
+   * @return <code>push(flow: src -> snk, #channel)</code>
+   */
+  public static Instruction push(String flow, String src, String snk, int channel) {
+    return new Instruction(Opcode.PUSH, Guard.NONE, false, flow, src, snk, channel, null);
+  }
+
+  /**
+   * @return <code>pull(flow: src -> snk, #channel)</code>
+   */
+  public static Instruction pull(String flow, String src, String snk, int channel) {
+    return new Instruction(Opcode.PULL, Guard.NONE, false, flow, src, snk, channel, null);
+  }
+
+  /**
+   * @return the clause with exactly these fields followed by elseBranch, for rebuilding an
+   *         instruction that was written out field by field, as by BinaryProgram
+   */
+  static Instruction clause(Opcode opcode, Guard guard, boolean guardOnLink, String flow,
+      String src, String snk, int channel, Instruction elseBranch) {
+    var instruction =
+        new Instruction(opcode, guard, guardOnLink, flow, src, snk, channel, elseBranch);
+    return SLEEP.equals(instruction) ? SLEEP : instruction;
+  }
+
+  /**
+   * @return this clause guarded by <code>if has(flow)</code>
+   */
+  public Instruction ifHas() {
+    return withGuard(Guard.HAS, false);
+  }
+
+  /**
+   * @return this clause guarded by <code>if has(flow: src -> snk)</code>
+   */
+  public Instruction ifHasLink() {
+    return withGuard(Guard.HAS, true);
+  }
+
+  /**
+   * @return this clause guarded by <code>if !has(flow)</code>
+   */
+  public Instruction ifNotHas() {
+    return withGuard(Guard.NOT_HAS, false);
+  }
+
+  /**
+   * @return this clause guarded by <code>if !has(flow: src -> snk)</code>
+   */
+  public Instruction ifNotHasLink() {
+    return withGuard(Guard.NOT_HAS, true);
+  }
+
+  private Instruction withGuard(Guard newGuard, boolean onLink) {
+    return new Instruction(opcode, newGuard, onLink, flow, src, snk, channel, elseBranch);
+  }
+
+  /**
+   * Appends next at the end of this chain, i.e. <code>this else next</code>.
+   *
+   * @param next instruction executed when no earlier clause in the chain fires
+   * @return the new, longer chain
+   */
+  public Instruction orElse(Instruction next) {
+    var tail = (elseBranch == null) ? next : elseBranch.orElse(next);
+    return new Instruction(opcode, guard, guardOnLink, flow, src, snk, channel, tail);
+  }
+
+  /**
+   * Removes the first clause equal to clause that is followed by an else, which is how a code
+   * fragment drops the oldest edge from its pipeline.
+   *
+   * @param clause the clause to drop
+   * @return this chain without that clause, or this chain if no such clause exists
+   */
+  public Instruction withoutClause(Instruction clause) {
+    if (elseBranch == null) {
+      return this;
+    }
+    if (sameClause(clause) && channel == clause.channel) {
+      return elseBranch;
+    }
+    var tail = elseBranch.withoutClause(clause);
+    if (tail == elseBranch) {
+      return this;
+    }
+    return new Instruction(opcode, guard, guardOnLink, flow, src, snk, channel, tail);
+  }
+
+  public Opcode getOpcode() {
+    return opcode;
+  }
+
+  public Guard getGuard() {
+    return guard;
+  }
+
+  public Boolean isGuardOnLink() {
+    return guardOnLink;
+  }
+
+  /**
+   * @return the flow name, or null for wait and sleep
+   */
+  public String getFlow() {
+    return flow;
+  }
+
+  /**
+   * @return the src node of the link, or null for wait and sleep
+   */
+  public String getSrc() {
+    return src;
+  }
+
+  /**
+   * @return the snk node of the link, or null for wait and sleep
+   */
+  public String getSnk() {
+    return snk;
+  }
+
+  /**
+   * @return the channel, or NO_CHANNEL when the clause does not use one
+   */
+  public int getChannel() {
+    return channel;
+  }
+
+  /**
+   * @return the rest of the chain after this clause, or null
+   */
+  public Instruction getElse() {
+    return elseBranch;
+  }
+
+  public Boolean hasElse() {
+    return elseBranch != null;
+  }
+
+  /**
+   * The coordinator drives the transmission: the src of a push or the snk of a pull.
+   *
+   * @return coordinator node name, or null for wait and sleep
+   */
+  public String getCoordinator() {
+    switch (opcode) {
+      case PUSH:
+        return src;
+      case PULL:
+        return snk;
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * The listener is the other end of the link: the snk of a push or the src of a pull.
+   *
+   * @return listener node name, or null for wait and sleep
+   */
+  public String getListener() {
+    switch (opcode) {
+      case PUSH:
+        return snk;
+      case PULL:
+        return src;
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * @return true if this instruction is exactly <code>sleep</code>
+   */
+  public Boolean isSleep() {
+    return SLEEP.equals(this);
+  }
+
+  /**
+   * @return true if this clause transmits a flow, i.e. it is a push or pull
+   */
+  public Boolean isTransmission() {
+    return flow != null;
+  }
+
+  /**
+   * Returns each clause of the chain as a single instruction with no else, in program order.
+   *
+   * @return unmodifiable list of clauses
+   */
+  public List<Instruction> clauses() {
+    if (elseBranch == null) {
+      return Collections.singletonList(this);
+    }
+    var result = new ArrayList<Instruction>();
+    for (Instruction i = this; i != null; i = i.elseBranch) {
+      result.add(new Instruction(i.opcode, i.guard, i.guardOnLink, i.flow, i.src, i.snk,
+          i.channel, null));
+    }
+    return Collections.unmodifiableList(result);
+  }
+
+  /**
+   * @return number of clauses in the chain
+   */
+  public int numClauses() {
+    var count = 0;
+    for (Instruction i = this; i != null; i = i.elseBranch) {
+      count++;
+    }
+    return count;
+  }
+
+  /**
+   * @return true if any clause in the chain uses opcode
+   */
+  public Boolean contains(Opcode op) {
+    for (Instruction i = this; i != null; i = i.elseBranch) {
+      if (i.opcode == op) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return true if an unguarded clause after the first uses opcode, e.g. <code>else pull(</code>
+   */
+  public Boolean containsElse(Opcode op) {
+    for (Instruction i = elseBranch; i != null; i = i.elseBranch) {
+      if (i.opcode == op && i.guard == Guard.NONE) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return true if some clause in the chain is guarded by <code>has(flowName)</code>
+   */
+  public Boolean hasGuardOn(String flowName) {
+    for (Instruction i = this; i != null; i = i.elseBranch) {
+      if (i.guard == Guard.HAS && !i.guardOnLink && i.flow.equals(flowName)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return true if some clause of the chain equals clause, ignoring any else branches
+   */
+  public Boolean containsClause(Instruction clause) {
+    for (Instruction i = this; i != null; i = i.elseBranch) {
+      if (i.sameClause(clause) && i.channel == clause.channel) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return true if some clause of the chain equals clause on any channel
+   */
+  public Boolean containsClauseOnAnyChannel(Instruction clause) {
+    for (Instruction i = this; i != null; i = i.elseBranch) {
+      if (i.sameClause(clause)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return true if some clause of the chain other than the first equals clause
+   */
+  public Boolean containsElseClause(Instruction clause) {
+    return elseBranch != null && elseBranch.containsClause(clause);
+  }
+
+  /**
+   * @return the channel of the first clause that names one, or NO_CHANNEL
+   */
+  public int firstChannel() {
+    for (Instruction i = this; i != null; i = i.elseBranch) {
+      if (i.channel != NO_CHANNEL) {
+        return i.channel;
+      }
+    }
+    return NO_CHANNEL;
+  }
+
+  /* clause equality ignoring channel and else branch */
+  private boolean sameClause(Instruction other) {
+    return opcode == other.opcode && guard == other.guard && guardOnLink == other.guardOnLink
+        && Objects.equals(flow, other.flow) && Objects.equals(src, other.src)
+        && Objects.equals(snk, other.snk);
+  }
+
+  /**
+   * @return the WARP DSL text for this instruction
+   */
+  @Override
+  public String toString() {
+    var text = new StringBuilder();
+    for (Instruction i = this; i != null; i = i.elseBranch) {
+      if (i != this) {
+        text.append(" else ");
+      }
+      i.appendClause(text);
+    }
+    return text.toString();
+  }
+
+  private void appendClause(StringBuilder text) {
+    if (guard != Guard.NONE) {
+      text.append(guard == Guard.HAS ? "if has(" : "if !has(").append(flow);
+      if (guardOnLink) {
+        text.append(": ").append(src).append(" -> ").append(snk);
+      }
+      text.append(") ");
+    }
+    text.append(opcode.keyword());
+    if (flow != null) {
+      text.append('(').append(flow).append(": ").append(src).append(" -> ").append(snk);
+      if (channel != NO_CHANNEL) {
+        text.append(", #").append(channel);
+      }
+      text.append(')');
+    } else if (channel != NO_CHANNEL) {
+      text.append("(#").append(channel).append(')');
+    }
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof Instruction)) {
+      return false;
+    }
+    var other = (Instruction) obj;
+    return hash == other.hash && channel == other.channel && sameClause(other)
+        && Objects.equals(elseBranch, other.elseBranch);
+  }
+
+  @Override
+  public int hashCode() {
+    return hash;
+  }
+}
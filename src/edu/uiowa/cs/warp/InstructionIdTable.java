@@ -0,0 +1,134 @@
+package edu.uiowa.cs.warp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Program schedule kept as one int[] of instruction ids in row-major order (time slots by nodes),
+ * with the same getNumRows, getNumColumns, get and set methods as ProgramSchedule.
+ * <p>
+ * A program repeats a few distinct instructions in thousands of cells, so each distinct
+ * Instruction is stored once and given an id, and a cell holds only that id. Besides saving the
+ * per-row lists of references, this lets an analysis work out what an instruction means once per
+ * id, keep the result in an array indexed by id, and then scan the cells as plain ints. Empty
+ * cells hold NO_INSTRUCTION.
+ *
+ * @version 1.0
+ */
+public class InstructionIdTable {
+
+  /** Id of an empty cell */
+  public static final int NO_INSTRUCTION = -1;
+
+  private final int[] cells;
+  private final int numRows;
+  private final int numColumns;
+  private final ArrayList<Instruction> instructions = new ArrayList<Instruction>();
+  private final HashMap<Instruction, Integer> ids = new HashMap<Instruction, Integer>();
+
+  /**
+   * Creates a table of empty cells.
+   */
+  public InstructionIdTable(int numRows, int numColumns) {
+    this.numRows = numRows;
+    this.numColumns = numColumns;
+    this.cells = new int[numRows * numColumns];
+    Arrays.fill(cells, NO_INSTRUCTION);
+  }
+
+  /**
+   * Copies schedule, which is expected to have the same number of columns in every row.
+   */
+  public InstructionIdTable(Table<Instruction, InstructionTimeSlot> schedule) {
+    this(schedule.getNumRows(), schedule.getNumColumns());
+    for (int row = 0; row < numRows; row++) {
+      var offset = row * numColumns;
+      for (int column = 0; column < numColumns; column++) {
+        /* cell by cell, since the poset schedulers fill the table with plain ArrayList rows */
+        cells[offset + column] = idOf(schedule.get(row, column));
+      }
+    }
+  }
+
+  public Integer getNumRows() {
+    return numRows;
+  }
+
+  public Integer getNumColumns() {
+    return numColumns;
+  }
+
+  /**
+   * @return the instruction at row and column, or null if the cell is empty or outside the table
+   */
+  public Instruction get(Integer row, Integer column) {
+    if (!contains(row, column)) {
+      return null;
+    }
+    var id = cells[row * numColumns + column];
+    return id == NO_INSTRUCTION ? null : instructions.get(id);
+  }
+
+  /**
+   * Sets the instruction at row and column; does nothing if the cell is outside the table.
+   */
+  public void set(Integer row, Integer column, Instruction element) {
+    if (contains(row, column)) {
+      cells[row * numColumns + column] = idOf(element);
+    }
+  }
+
+  /**
+   * @return the id of the instruction at row and column, which must be in the table
+   */
+  public int getId(int row, int column) {
+    return cells[row * numColumns + column];
+  }
+
+  /**
+   * @return the instruction with id, which must be in [0, getNumInstructions())
+   */
+  public Instruction getInstruction(int id) {
+    return instructions.get(id);
+  }
+
+  /**
+   * @return number of distinct instructions in the table; ids run from 0 to this minus 1
+   */
+  public int getNumInstructions() {
+    return instructions.size();
+  }
+
+  /**
+   * @return the instructions as a ProgramSchedule
+   */
+  public ProgramSchedule toProgramSchedule() {
+    var schedule = new ProgramSchedule();
+    var timeSlot = new Instruction[numColumns];
+    for (int row = 0; row < numRows; row++) {
+      for (int column = 0; column < numColumns; column++) {
+        timeSlot[column] = get(row, column);
+      }
+      schedule.add(new InstructionTimeSlot(timeSlot));
+    }
+    return schedule;
+  }
+
+  private int idOf(Instruction instruction) {
+    if (instruction == null) {
+      return NO_INSTRUCTION;
+    }
+    var id = ids.get(instruction);
+    if (id == null) {
+      id = instructions.size();
+      instructions.add(instruction);
+      ids.put(instruction, id);
+    }
+    return id;
+  }
+
+  private boolean contains(int row, int column) {
+    return row >= 0 && row < numRows && column >= 0 && column < numColumns;
+  }
+}
@@ -1,7 +1,7 @@
 package edu.uiowa.cs.warp;
 
-import edu.uiowa.cs.warp.WarpDSL.InstructionParameters;
 import java.util.HashMap;
+import java.util.Locale;
 
 /**
 
@@ -14,14 +14,15 @@ public class LatencyAnalysis {
   private static String FLOW_SEPARATOR = "******************************\n";
   private Description latencyReport;
   private Program program;
-  private WorkLoad workload;
+  private WorkLoadSnapshot workload;
   private ProgramSchedule programTable;
   private HashMap<String, Integer> nodeIndex;
+  private HashMap<String, LatencyHistogram> latencyHistograms;
 
   LatencyAnalysis(WarpInterface warp) {
     this.latencyReport = new Description();
     this.program = warp.toProgram();
-    this.workload = warp.toWorkload();
+    this.workload = program.toWorkLoadSnapshot();
     this.programTable = program.getSchedule();
     this.nodeIndex = program.getNodeMapIndex();
      }
@@ -29,7 +30,7 @@ public class LatencyAnalysis {
   LatencyAnalysis(Program program) {
     this.latencyReport = new Description();
     this.program = program;
-    this.workload = program.toWorkLoad();
+    this.workload = program.toWorkLoadSnapshot();
     this.programTable = program.getSchedule();
     this.nodeIndex = program.getNodeMapIndex();
      }
@@ -49,9 +50,18 @@ public class LatencyAnalysis {
      * an instance, then the latency is not computed (as we assume deadline <= period. Thus, the
      * report is: "UNKNOWN latency for FlowName:Instance; Not enough transmissions attempted"
      * 
+     * The slots in which each link transmits are found in one pass over the program, so each
+     * instance only looks at the slots in which its last link transmits.
+     * 
+     * The latencies of each flow are also added to a LatencyHistogram, and a line with their
+     * min, mean, p50, p95, p99, max, jitter (max - min) and slack (relative deadline - max) ends
+     * the group of the flow.
      */
    
-    var flows = workload.getFlowNamesInPriorityOrder();
+    latencyHistograms = new HashMap<String, LatencyHistogram>();
+    var flows = program.getFlowNamesInPriorityOrder();
+    var hyperPeriod = workload.getHyperPeriod();
+    TransmissionIndex transmissions = null; // built when the first flow needs a Tx
     for (String flowName : flows) {
       var time = 0;
    
@@ -68,42 +78,71 @@ public class LatencyAnalysis {
       var numTxAttemptsPerLink = workload.getNumTxAttemptsPerLink(flowName);
       /* get the number of transmission required for the last link in the flow */
       var numTxRequired = numTxAttemptsPerLink[numTxAttemptsPerLink.length - 1];
+      /* an instance finishes before its next release, at most a deadline and a period later */
+      var histogram = new LatencyHistogram(
+          workload.getFlowPeriod(flowName) + workload.getFlowDeadline(flowName));
       var numTxProcessed = 0; // num of Tx seen in the program schedule so far
+      /*
+       * get the slots in which the src and snk cells hold a Tx on the link, with repeats. When no
+       * Tx are required, only the release slot is looked at, so the slots aren't needed
+       */
+      var slots = new int[0];
+      if (numTxRequired > 0) {
+        if (transmissions == null) {
+          transmissions = new TransmissionIndex(programTable, nodeIndex);
+        }
+        slots = transmissions.getSlots(flowName, src, snk);
+      }
+      var nextSlot = 0; // index in slots of the first slot not yet processed
       var instance = 0;
-      while (time < workload.getHyperPeriod()) {
+      while (time < hyperPeriod) {
         /* get next release time and absolute deadline of the flow */
         var releaseTime = workload.nextReleaseTime(flowName, time);
         var deadline = workload.nextAbsoluteDeadline(flowName, releaseTime);
         var nextReleaseTime = workload.nextReleaseTime(flowName, deadline);
-        // var latency = 0;
-        time = releaseTime;
         numTxProcessed = 0; // num of Tx seen in the program schedule so far
-        while (time < nextReleaseTime) {
-          /* get instruction strings at these to locations */
-          String instr1 = programTable.get(time, srcIndex);
-          String instr2 = programTable.get(time, snkIndex);
-          numTxProcessed += numMatchingTx(flowName, src, snk, instr1);
-          numTxProcessed += numMatchingTx(flowName, src, snk, instr2);
+        /* skip the Tx of the slots before this release, including those after a latency was found */
+        while (nextSlot < slots.length && slots[nextSlot] < releaseTime) {
+          nextSlot++;
+        }
+        /*
+         * The count is checked after each slot from releaseTime, but only changes in slots with a
+         * Tx, so the only other slot where the required number can be reached is releaseTime
+         * itself, when no Tx are required and there is none in that slot
+         */
+        var latency = -1;
+        if (numTxRequired == 0 && releaseTime < nextReleaseTime
+            && numMatchingTx(flowName, src, snk, programTable.get(releaseTime, srcIndex))
+                + numMatchingTx(flowName, src, snk, programTable.get(releaseTime, snkIndex)) == 0) {
+          latency = 1;
+        }
+        while (latency < 0 && nextSlot < slots.length && slots[nextSlot] < nextReleaseTime) {
+          /* count every Tx in the slot before checking, as both cells are read together */
+          var slot = slots[nextSlot];
+          while (nextSlot < slots.length && slots[nextSlot] == slot) {
+            numTxProcessed++;
+            nextSlot++;
+          }
           if (numTxProcessed == numTxRequired) {
-            /*
-             * all required Tx attempts have been made compute and record latency
-             */
-            var latency = time - releaseTime + 1;
-            // report latency
-            String latencyMsg =
-                String.format("Maximum latency for %s:%d is %d", flowName, instance, latency);
-            if (latency > deadline) {
-              /* deadline missed, so color the text red */
-              latencyMsg += DEADLINE_MISS;
-            }
-            latencyMsg += "\n";
-            latencyReport.add(latencyMsg);
-            time = nextReleaseTime;
-          } else {
-            time++;
+            latency = slot - releaseTime + 1;
           }
-   
         }
+        if (latency >= 0) {
+          /*
+           * all required Tx attempts have been made compute and record latency
+           */
+          // report latency
+          String latencyMsg =
+              String.format("Maximum latency for %s:%d is %d", flowName, instance, latency);
+          if (latency > deadline) {
+            /* deadline missed, so color the text red */
+            latencyMsg += DEADLINE_MISS;
+          }
+          latencyMsg += "\n";
+          latencyReport.add(latencyMsg);
+          histogram.add(latency);
+        }
+        time = Math.max(releaseTime, nextReleaseTime);
         if (numTxProcessed < numTxRequired) {
           /*
            * This flow missed its deadline with required number of Tx!! This message should not be
@@ -113,32 +152,66 @@ public class LatencyAnalysis {
               String.format("UNKNOWN latency for %s:%d; Not enough transmissions attempted\n",
                   flowName, instance);
           latencyReport.add(latencyMsg);
+          histogram.addUnknown();
         }
         instance++;
       }
+      latencyHistograms.put(flowName, histogram);
+      latencyReport.add(latencyStatistics(flowName, histogram));
       String flowSeparator = FLOW_SEPARATOR;
       latencyReport.add(flowSeparator);
     }
     return latencyReport;
      }
+
+  /**
+   * @return the distribution of the latencies of the instances of flowName, or null for an
+   *         unknown flow; the latency report is built first if it hasn't been
+   */
+  public LatencyHistogram getLatencyHistogram(String flowName) {
+    if (latencyHistograms == null) {
+      latencyReport();
+    }
+    return latencyHistograms.get(flowName);
+  }
+
+  /**
+   * @return the mean latency with two decimals, the same in every locale
+   */
+  static String formatMean(LatencyHistogram histogram) {
+    return String.format(Locale.ROOT, "%.2f", histogram.getMean());
+  }
+
+  private String latencyStatistics(String flowName, LatencyHistogram histogram) {
+    String statistics;
+    if (histogram.getCount() > 0) {
+      statistics = String.format(
+          "Latency of %s over %d instances: min %d, mean %s, p50 %d, p95 %d, p99 %d, max %d, "
+              + "jitter %d, slack %d",
+          flowName, histogram.getCount(), histogram.getMin(), formatMean(histogram),
+          histogram.getPercentile(50), histogram.getPercentile(95), histogram.getPercentile(99),
+          histogram.getMax(), histogram.getJitter(),
+          workload.getFlowDeadline(flowName) - histogram.getMax());
+    } else {
+      statistics = String.format("No latencies for %s", flowName);
+    }
+    if (histogram.getNumUnknown() > 0) {
+      statistics += String.format("; %d UNKNOWN", histogram.getNumUnknown());
+    }
+    return statistics + "\n";
+  }
 
-  public Integer numMatchingTx(String flow, String src, String snk, String instr) {
+  public Integer numMatchingTx(String flow, String src, String snk, Instruction instr) {
     var numTx = 0;
    
     if (flow == null || src == null || snk == null || instr == null) {
       /* make sure all parameters are valid */
       return numTx;
     }
-    /*
-     * get a Warp instruction parser object and then get the instruction parameters from the
-     * instruction string.
-     */
-    var dsl = new WarpDSL();
-    var instructionParametersArray = dsl.getInstructionParameters(instr);
-   
-    for (InstructionParameters entry : instructionParametersArray) {
-      String flowName = entry.getFlow();
-      if (flowName.equals(flow)) {
+    /* check each clause of the instruction */
+    for (Instruction entry : instr.clauses()) {
+      String flowName = entry.getFlow();
+      if (flow.equals(flowName)) {
         /*
          * This instruction is for the flow we want. (flow name is set for push/pull instructions,
          * which are all we want. If not push/pull, then we skip this instruction.) If flow, src,
@@ -0,0 +1,138 @@
+package edu.uiowa.cs.warp;
+
+/**
+ * Distribution of the latencies of the instances of one flow, kept in a fixed number of buckets.
+ * <p>
+ * The buckets are allocated when the histogram is created, so adding a latency only increments a
+ * count. Latencies are in time slots and a flow instance finishes before its next release, so
+ * with the largest possible latency given up front, each bucket holds a single latency and the
+ * percentiles are exact. Longer ranges share buckets between neighbouring latencies, and a
+ * percentile is then the largest latency its bucket can hold, but never more than getMax().
+ * getMin(), getMax() and getMean() are always exact.
+ *
+ * @version 1.0
+ */
+public class LatencyHistogram {
+
+  /** Most buckets a histogram uses, however large the largest latency is */
+  public static final int MAX_BUCKETS = 1024;
+
+  private final int bucketWidth;
+  private final int[] counts;
+  private int count = 0;
+  private long sum = 0;
+  private int min = Integer.MAX_VALUE;
+  private int max = Integer.MIN_VALUE;
+  private int numUnknown = 0;
+
+  /**
+   * @param maxLatency the largest latency expected; larger ones are counted in the last bucket
+   */
+  public LatencyHistogram(int maxLatency) {
+    var range = Math.max(1, maxLatency + 1);
+    bucketWidth = (range + MAX_BUCKETS - 1) / MAX_BUCKETS;
+    counts = new int[(range + bucketWidth - 1) / bucketWidth];
+  }
+
+  /**
+   * Adds the latency of an instance.
+   */
+  public void add(int latency) {
+    var bucket = Math.max(0, Math.min(latency / bucketWidth, counts.length - 1));
+    counts[bucket]++;
+    count++;
+    sum += latency;
+    min = Math.min(min, latency);
+    max = Math.max(max, latency);
+  }
+
+  /**
+   * Counts an instance whose latency could not be computed.
+   */
+  public void addUnknown() {
+    numUnknown++;
+  }
+
+  /**
+   * Adds the latencies and unknown instances of other, which must have been created with the same
+   * maxLatency.
+   */
+  void addAll(LatencyHistogram other) {
+    for (int bucket = 0; bucket < counts.length; bucket++) {
+      counts[bucket] += other.counts[bucket];
+    }
+    count += other.count;
+    sum += other.sum;
+    min = Math.min(min, other.min);
+    max = Math.max(max, other.max);
+    numUnknown += other.numUnknown;
+  }
+
+  /**
+   * @return the number of latencies added
+   */
+  public int getCount() {
+    return count;
+  }
+
+  /**
+   * @return the number of instances whose latency could not be computed
+   */
+  public int getNumUnknown() {
+    return numUnknown;
+  }
+
+  /**
+   * @return the smallest latency, or 0 if none was added
+   */
+  public int getMin() {
+    return count > 0 ? min : 0;
+  }
+
+  /**
+   * @return the largest latency, or 0 if none was added
+   */
+  public int getMax() {
+    return count > 0 ? max : 0;
+  }
+
+  /**
+   * @return the mean latency, or 0.0 if none was added
+   */
+  public double getMean() {
+    return count > 0 ? (double) sum / count : 0.0;
+  }
+
+  /**
+   * @return the difference between the largest and smallest latency
+   */
+  public int getJitter() {
+    return getMax() - getMin();
+  }
+
+  /**
+   * Nearest-rank percentile: the smallest latency that at least percent of the latencies are
+   * less than or equal to.
+   *
+   * @param percent from 0 to 100
+   * @return the percentile, or 0 if no latency was added
+   */
+  public int getPercentile(double percent) {
+    if (count == 0) {
+      return 0;
+    }
+    var rank = Math.max(1, (long) Math.ceil(percent / 100.0 * count));
+    long seen = 0;
+    for (int bucket = 0; bucket < counts.length; bucket++) {
+      seen += counts[bucket];
+      if (seen >= rank) {
+        if (bucket == counts.length - 1) {
+          return getMax(); // the last bucket also holds latencies beyond maxLatency
+        }
+        var latency = bucket * bucketWidth + bucketWidth - 1; // largest latency in the bucket
+        return Math.max(getMin(), Math.min(latency, getMax()));
+      }
+    }
+    return getMax();
+  }
+}
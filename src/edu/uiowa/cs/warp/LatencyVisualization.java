@@ -14,8 +14,6 @@ package edu.uiowa.cs.warp;
  */
 public class LatencyVisualization extends VisualizationObject {
 
-  // TODO Auto-generated class stub for unimplemented visualization
-
   private static final String SOURCE_SUFFIX = ".la";
   private static final String OBJECT_NAME = "Latency Analysis";
   private WarpInterface warp;
@@ -26,4 +24,47 @@ public class LatencyVisualization extends VisualizationObject {
     this.warp = warp;
     this.la = warp.toLatencyAnalysis();
      }
+
+  /**
+   * Function that returns the column headers of the latency statistics, one row per flow. <br>
+   */
+  @Override
+  protected String[] createColumnHeader() {
+    return new String[] {"Flow", "Instances", "Unknown", "Min", "Mean", "P50", "P95", "P99",
+        "Max", "Deadline", "Slack", "Jitter"};
+     }
+
+  /**
+   * Function creates and returns the latency statistics of each flow, in priority order, as a 2D
+   * array of Strings. Flows without a known latency have "-" in the latency columns. <br>
+   */
+  @Override
+  protected String[][] createVisualizationData() {
+    if (visualizationData == null) {
+      var program = warp.toProgram();
+      var workLoad = program.toWorkLoadSnapshot();
+      var flows = program.getFlowNamesInPriorityOrder();
+      visualizationData = new String[flows.size()][];
+      for (int row = 0; row < flows.size(); row++) {
+        var flowName = flows.get(row);
+        var histogram = la.getLatencyHistogram(flowName);
+        var deadline = workLoad.getFlowDeadline(flowName);
+        if (histogram.getCount() > 0) {
+          visualizationData[row] = new String[] {flowName,
+              String.valueOf(histogram.getCount()), String.valueOf(histogram.getNumUnknown()),
+              String.valueOf(histogram.getMin()), LatencyAnalysis.formatMean(histogram),
+              String.valueOf(histogram.getPercentile(50)),
+              String.valueOf(histogram.getPercentile(95)),
+              String.valueOf(histogram.getPercentile(99)), String.valueOf(histogram.getMax()),
+              String.valueOf(deadline), String.valueOf(deadline - histogram.getMax()),
+              String.valueOf(histogram.getJitter())};
+        } else {
+          visualizationData[row] = new String[] {flowName, "0",
+              String.valueOf(histogram.getNumUnknown()), "-", "-", "-", "-", "-", "-",
+              String.valueOf(deadline), "-", "-"};
+        }
+      }
+    }
+    return visualizationData;
+     }
 }
@@ -0,0 +1,314 @@
+package edu.uiowa.cs.warp;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import edu.uiowa.cs.warp.Instruction.Guard;
+import edu.uiowa.cs.warp.Instruction.Opcode;
+
+/**
+ * Read-only view of a program written by BinaryProgram.
+ * <p>
+ * The file is memory-mapped. Opening it decodes the header and the small sections before the
+ * cells, and each distinct instruction is rebuilt once. The cells are left in the file and
+ * read one at a time, so looking up the instruction of a node in a time slot costs one read of the
+ * mapping however large the program is. The cells are read with absolute gets, so one
+ * MappedProgram can be shared by several threads.
+ *
+ * @version 1.0
+ */
+public class MappedProgram {
+
+  private final ByteBuffer cells;
+  private final int cellBytes;
+  private final int numSlots;
+  private final int numNodes;
+  private final int numChannels;
+  private final String name;
+  private final String schedulerName;
+  private final double minPacketReceptionRate;
+  private final double e2e;
+  private final String[] nodeNames;
+  private final String[] flowNames;
+  private final Instruction[] instructions;
+  /* ids and instructions each node uses, which its cells index from 1 */
+  private final int[][] columnIds;
+  private final Instruction[][] columns;
+
+  MappedProgram(ByteBuffer buffer) throws IOException {
+    if (buffer.limit() < BinaryProgram.HEADER_SIZE || buffer.getInt() != BinaryProgram.MAGIC) {
+      throw new IOException("not a WARP binary program");
+    }
+    var version = buffer.getShort();
+    if (version != BinaryProgram.VERSION) {
+      throw new IOException("unsupported version " + version);
+    }
+    cellBytes = buffer.get();
+    buffer.get();
+    numSlots = buffer.getInt();
+    numNodes = buffer.getInt();
+    numChannels = buffer.getInt();
+    var nameIndex = buffer.getInt();
+    var schedulerIndex = buffer.getInt();
+    minPacketReceptionRate = buffer.getDouble();
+    e2e = buffer.getDouble();
+    var cellsOffset = buffer.getInt();
+    if ((cellBytes != 1 && cellBytes != 2 && cellBytes != 4) || numSlots < 0 || numNodes < 0
+        || cellsOffset < BinaryProgram.HEADER_SIZE || (long) cellsOffset
+            + (long) numSlots * numNodes * cellBytes > buffer.limit()) {
+      throw new IOException("header does not match the file size");
+    }
+
+    var strings = new String[readCount(buffer)];
+    for (int i = 0; i < strings.length; i++) {
+      var bytes = new byte[readCount(buffer)];
+      buffer.get(bytes);
+      strings[i] = new String(bytes, StandardCharsets.UTF_8);
+    }
+    name = (nameIndex == BinaryProgram.NO_STRING) ? null : string(strings, nameIndex + 1);
+    schedulerName =
+        (schedulerIndex == BinaryProgram.NO_STRING) ? null : string(strings, schedulerIndex + 1);
+    nodeNames = new String[numNodes];
+    for (int node = 0; node < numNodes; node++) {
+      nodeNames[node] = string(strings, readVarint(buffer));
+    }
+    flowNames = new String[readCount(buffer)];
+    for (int f = 0; f < flowNames.length; f++) {
+      flowNames[f] = string(strings, readVarint(buffer));
+    }
+
+    var opcodes = Opcode.values();
+    var guards = Guard.values();
+    var clauses = new Instruction[readCount(buffer)];
+    for (int c = 0; c < clauses.length; c++) {
+      var bits = buffer.get();
+      var flow = string(strings, readVarint(buffer));
+      var src = string(strings, readVarint(buffer));
+      var snk = string(strings, readVarint(buffer));
+      var channel = readVarint(buffer) - 1;
+      clauses[c] = Instruction.clause(opcodes[bits >> 4], guards[(bits >> 1) & 0x7],
+          (bits & 1) != 0, flow, src, snk, channel, null);
+    }
+    instructions = new Instruction[readCount(buffer)];
+    var chain = new Instruction[0];
+    for (int id = 0; id < instructions.length; id++) {
+      var numClauses = readCount(buffer);
+      if (numClauses == 0) {
+        throw new IOException("instruction " + id + " has no clauses");
+      }
+      if (chain.length < numClauses) {
+        chain = new Instruction[numClauses];
+      }
+      for (int c = 0; c < numClauses; c++) {
+        chain[c] = clauses[readVarint(buffer)];
+      }
+      /* the chain is built from its last clause back */
+      Instruction instruction = null;
+      for (int c = numClauses - 1; c >= 0; c--) {
+        var clause = chain[c];
+        instruction = Instruction.clause(clause.getOpcode(), clause.getGuard(),
+            clause.isGuardOnLink(), clause.getFlow(), clause.getSrc(), clause.getSnk(),
+            clause.getChannel(), instruction);
+      }
+      instructions[id] = instruction;
+    }
+
+    columnIds = new int[numNodes][];
+    columns = new Instruction[numNodes][];
+    for (int node = 0; node < numNodes; node++) {
+      var size = readCount(buffer);
+      if (BinaryProgram.cellBytes(size) > cellBytes) {
+        throw new IOException("cells are too narrow for the " + size + " instructions of node "
+            + nodeNames[node]);
+      }
+      columnIds[node] = new int[size];
+      columns[node] = new Instruction[size];
+      for (int i = 0; i < size; i++) {
+        columnIds[node][i] = readVarint(buffer);
+        columns[node][i] = instructions[columnIds[node][i]];
+      }
+    }
+    cells = buffer.position(cellsOffset).slice();
+  }
+
+  /**
+   * Maps file, which BinaryProgram wrote. Errors are reported on System.err.
+   *
+   * @return the program, or null if file cannot be read or is not a WARP binary program
+   */
+  public static MappedProgram open(String file) {
+    try (var channel = FileChannel.open(Path.of(file), StandardOpenOption.READ)) {
+      if (channel.size() > Integer.MAX_VALUE) {
+        throw new IOException("file is larger than 2 GB");
+      }
+      return new MappedProgram(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    } catch (IOException e) {
+      System.err.println("Error on reading binary program from file " + file + ": "
+          + e.getMessage());
+    } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+      System.err.println("Error on reading binary program from file " + file + ": truncated or "
+          + "corrupt file");
+    }
+    return null;
+  }
+
+  /* the string stored as index, which is one more than its position in strings, or null if 0 */
+  private static String string(String[] strings, int index) throws IOException {
+    if (index == 0) {
+      return null;
+    }
+    if (index > strings.length) {
+      throw new IOException("string " + index + " is not in the string table");
+    }
+    return strings[index - 1];
+  }
+
+  /*
+   * a count of items that follow in buffer, each taking at least one byte, so a damaged count
+   * can't make an array larger than the file
+   */
+  private static int readCount(ByteBuffer buffer) throws IOException {
+    var count = readVarint(buffer);
+    if (count < 0 || count > buffer.remaining()) {
+      throw new IOException("count " + Integer.toUnsignedString(count) + " at byte "
+          + buffer.position() + " is larger than the rest of the file");
+    }
+    return count;
+  }
+
+  private static int readVarint(ByteBuffer buffer) throws IOException {
+    var value = 0;
+    for (int shift = 0; shift < Integer.SIZE; shift += 7) {
+      var b = buffer.get();
+      value |= (b & 0x7F) << shift;
+      if (b >= 0) {
+        return value;
+      }
+    }
+    throw new IOException("varint is longer than an int");
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public String getSchedulerName() {
+    return schedulerName;
+  }
+
+  public Integer getNumChannels() {
+    return numChannels;
+  }
+
+  public Double getMinPacketReceptionRate() {
+    return minPacketReceptionRate;
+  }
+
+  public Double getE2e() {
+    return e2e;
+  }
+
+  public int getNumTimeSlots() {
+    return numSlots;
+  }
+
+  public int getNumNodes() {
+    return numNodes;
+  }
+
+  /**
+   * @return the node names, in column order
+   */
+  public String[] getNodeNames() {
+    return nodeNames.clone();
+  }
+
+  public ArrayList<String> getFlowNamesInPriorityOrder() {
+    return new ArrayList<String>(Arrays.asList(flowNames));
+  }
+
+  /**
+   * @return number of distinct instructions in the program; ids run from 0 to this minus 1
+   */
+  public int getNumInstructions() {
+    return instructions.length;
+  }
+
+  /**
+   * @return the instruction with id, which must be in [0, getNumInstructions())
+   */
+  public Instruction getInstruction(int id) {
+    return instructions[id];
+  }
+
+  /**
+   * @return the id of the instruction of node in timeSlot, which must be in the program, or
+   *         InstructionIdTable.NO_INSTRUCTION if the cell is empty
+   * @throws IllegalStateException if the cell is damaged
+   */
+  public int getId(int timeSlot, int node) {
+    var cell = cell(timeSlot, node);
+    return (cell == 0) ? InstructionIdTable.NO_INSTRUCTION : columnIds[node][cell - 1];
+  }
+
+  /**
+   * @return the instruction of node in timeSlot, or null if the cell is empty or outside the
+   *         program
+   * @throws IllegalStateException if the cell is damaged
+   */
+  public Instruction get(int timeSlot, int node) {
+    if (timeSlot < 0 || timeSlot >= numSlots || node < 0 || node >= numNodes) {
+      return null;
+    }
+    var cell = cell(timeSlot, node);
+    return (cell == 0) ? null : columns[node][cell - 1];
+  }
+
+  /*
+   * position plus one of the cell's instruction in its node's column, or 0 if the cell is empty;
+   * a damaged cell can't index outside the column
+   */
+  private int cell(int timeSlot, int node) {
+    var index = timeSlot * numNodes + node;
+    int cell;
+    switch (cellBytes) {
+      case 1:
+        cell = Byte.toUnsignedInt(cells.get(index));
+        break;
+      case 2:
+        cell = Short.toUnsignedInt(cells.getShort(index * 2));
+        break;
+      default:
+        cell = cells.getInt(index * 4);
+        break;
+    }
+    if (cell < 0 || cell > columns[node].length) {
+      throw new IllegalStateException("cell " + Integer.toUnsignedString(cell) + " of node "
+          + node + " in time slot " + timeSlot + " is larger than the node's "
+          + columns[node].length + " instructions");
+    }
+    return cell;
+  }
+
+  /**
+   * @return the whole program as a ProgramSchedule
+   * @throws IllegalStateException if a cell is damaged
+   */
+  public ProgramSchedule toProgramSchedule() {
+    var schedule = new ProgramSchedule();
+    var timeSlot = new Instruction[numNodes];
+    for (int slot = 0; slot < numSlots; slot++) {
+      for (int node = 0; node < numNodes; node++) {
+        timeSlot[node] = get(slot, node);
+      }
+      schedule.add(new InstructionTimeSlot(timeSlot));
+    }
+    return schedule;
+  }
+}
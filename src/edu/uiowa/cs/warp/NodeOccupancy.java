@@ -0,0 +1,114 @@
+package edu.uiowa.cs.warp;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Index of the time slots in which each node of a program under construction is busy, i.e. has an
+ * instruction other than sleep.
+ * <p>
+ * Each node has a bitmap over the time slots of the schedule, so the scheduler can find the next
+ * slot where both the src and snk of a link are sleeping by OR-ing two words at a time and taking
+ * Long.numberOfTrailingZeros of the complement, rather than comparing the instructions of every
+ * slot. The index is kept in step with the schedule by calling addSlot and setSlot whenever a time
+ * slot is added to or replaced in the schedule.
+ *
+ * @version 1.0
+ */
+class NodeOccupancy {
+
+  private static final int WORD_BITS = Long.SIZE;
+  private static final int INITIAL_WORDS = 4;
+
+  private final long[][] busy; // busy[node] has bit t set when node is not sleeping in slot t
+  private int nSlots = 0;
+
+  NodeOccupancy(int nNodes) {
+    busy = new long[nNodes][INITIAL_WORDS];
+  }
+
+  NodeOccupancy(NodeOccupancy occupancy) {
+    busy = new long[occupancy.busy.length][];
+    for (int node = 0; node < busy.length; node++) {
+      busy[node] = occupancy.busy[node].clone();
+    }
+    nSlots = occupancy.nSlots;
+  }
+
+  /**
+   * Appends a time slot in which every node is sleeping.
+   */
+  void addSlot() {
+    ensureCapacity(nSlots + 1);
+    nSlots++;
+  }
+
+  /**
+   * Records the instructions of the time slot stored at index slot, extending the index if slot is
+   * past its end.
+   */
+  void setSlot(int slot, List<Instruction> timeSlot) {
+    ensureCapacity(slot + 1);
+    nSlots = Math.max(nSlots, slot + 1);
+    var word = slot / WORD_BITS;
+    var bit = 1L << (slot % WORD_BITS);
+    for (int node = 0; node < busy.length; node++) {
+      var instruction = (node < timeSlot.size()) ? timeSlot.get(node) : null;
+      if (instruction != null && instruction.isSleep()) {
+        busy[node][word] &= ~bit;
+      } else {
+        busy[node][word] |= bit;
+      }
+    }
+  }
+
+  int getNumSlots() {
+    return nSlots;
+  }
+
+  Boolean isFree(int slot, int srcNodeIndex, int snkNodeIndex) {
+    if (slot < 0 || slot >= nSlots) {
+      return false;
+    }
+    var bit = 1L << (slot % WORD_BITS);
+    return ((busy[srcNodeIndex][slot / WORD_BITS] | busy[snkNodeIndex][slot / WORD_BITS])
+        & bit) == 0;
+  }
+
+  /**
+   * Finds the first slot at or after from in which both nodes are sleeping.
+   *
+   * @return that slot, or the number of slots if there is none. from is returned unchanged when it
+   *         is already past the end of the schedule.
+   */
+  int nextFreeSlot(int from, int srcNodeIndex, int snkNodeIndex) {
+    if (from >= nSlots) {
+      return from;
+    }
+    from = Math.max(from, 0);
+    var src = busy[srcNodeIndex];
+    var snk = busy[snkNodeIndex];
+    var lastWord = (nSlots - 1) / WORD_BITS;
+    for (int word = from / WORD_BITS; word <= lastWord; word++) {
+      var free = ~(src[word] | snk[word]);
+      if (word == from / WORD_BITS) {
+        free &= -1L << (from % WORD_BITS); // drop slots before from
+      }
+      if (free != 0) {
+        return Math.min(word * WORD_BITS + Long.numberOfTrailingZeros(free), nSlots);
+      }
+    }
+    return nSlots;
+  }
+
+  private void ensureCapacity(int slots) {
+    var words = (slots + WORD_BITS - 1) / WORD_BITS;
+    if (busy.length == 0 || words <= busy[0].length) {
+      return;
+    }
+    var newLength = Math.max(words, 2 * busy[0].length);
+    for (int node = 0; node < busy.length; node++) {
+      busy[node] = Arrays.copyOf(busy[node], newLength);
+    }
+  }
+}
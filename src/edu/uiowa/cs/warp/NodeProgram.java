@@ -0,0 +1,84 @@
+package edu.uiowa.cs.warp;
+
+import edu.uiowa.cs.warp.SystemAttributes.ScheduleChoices;
+
+/**
+ * The program of a single node: its column of the program the workload synthesizes, built
+ * without keeping the columns of the other nodes.
+ * <p>
+ * Every node synthesizes the same program from the same workload, so a node only needs its own
+ * instructions. With the priority, RM, DM and RealtimeHART schedulers the program is built on a
+ * ProjectedSchedule, which keeps a node's column only until the last flow through the node has
+ * been scheduled and stores a column in pages of time slots in which the node is awake. The
+ * scheduler still keeps its per time slot channel and node occupancy bitmaps. The poset
+ * schedulers build the whole program, and its column is copied.
+ *
+ * @version 1.0
+ */
+public class NodeProgram {
+
+  private final String nodeName;
+  private final String schedulerName;
+  private final int numSlots;
+  /* the node's column, in projection or, for the poset schedulers, in column */
+  private final ProjectedSchedule projection;
+  private final Instruction[] column;
+
+  /**
+   * Synthesizes the program of nodeName. An unknown node is reported on System.err and gets an
+   * empty program.
+   */
+  public NodeProgram(WorkLoad workLoad, Integer nChannels, ScheduleChoices choice,
+      String nodeName) {
+    this.nodeName = nodeName;
+    if (!workLoad.getNodes().containsKey(nodeName)) {
+      System.err.printf("ERROR: node %s is not in workload %s\n", nodeName, workLoad.getName());
+      schedulerName = null;
+      numSlots = 0;
+      projection = null;
+      column = new Instruction[0];
+      return;
+    }
+    var program = new Program(workLoad, nChannels, choice, nodeName);
+    var schedule = program.getSchedule();
+    schedulerName = program.getSchedulerName();
+    numSlots = schedule.getNumRows();
+    if (schedule instanceof ProjectedSchedule) {
+      projection = (ProjectedSchedule) schedule;
+      column = null;
+    } else {
+      projection = null;
+      column = new Instruction[numSlots];
+      var index = program.getNodeMapIndex().get(nodeName);
+      for (int slot = 0; slot < numSlots; slot++) {
+        column[slot] = schedule.get(slot, index);
+      }
+    }
+  }
+
+  public String getNodeName() {
+    return nodeName;
+  }
+
+  public String getSchedulerName() {
+    return schedulerName;
+  }
+
+  public int getNumTimeSlots() {
+    return numSlots;
+  }
+
+  /**
+   * @return the node's instruction in timeSlot, or null if timeSlot is outside the program or its
+   *         cell is empty
+   */
+  public Instruction getInstruction(int timeSlot) {
+    if (timeSlot < 0 || timeSlot >= numSlots) {
+      return null;
+    }
+    if (projection != null) {
+      return projection.getInstruction(timeSlot, projection.getProjectedNode());
+    }
+    return column[timeSlot];
+  }
+}
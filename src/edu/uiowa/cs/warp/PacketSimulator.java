@@ -0,0 +1,346 @@
+package edu.uiowa.cs.warp;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.SplittableRandom;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Discrete-event simulator that runs a WARP program slot by slot, losing each transmission with
+ * probability 1 - M, to measure the end-to-end reliability and latency of its flows.
+ * <p>
+ * A trial runs the program once from slot 0. Each flow instance is released into its first node
+ * at phase + k * period and its packet is then held by exactly one node. In every slot, each node
+ * executes the first clause of its instruction whose guard holds, <code>has(F)</code> being true
+ * in the node holding the packet of F's current instance. A push or pull is executed by its
+ * coordinator and succeeds with probability M if the link's src holds the packet, which then moves
+ * to the snk; wait and sleep do nothing. Guards are evaluated on the state at the start of the
+ * slot, so a packet received in a slot is only forwarded in a later one. An instance is delivered
+ * when its packet reaches the flow's last node before the next release of the flow, and its
+ * latency is the number of slots from its release to the delivery, both included.
+ * <p>
+ * The program is compiled once: its cells are kept as instruction ids and each distinct
+ * instruction as arrays of clause guards, flows and nodes, so a trial only reads ints and the
+ * holder of each flow. Trials are split into batches, each with its own SplittableRandom split
+ * from the seed in batch order, and the batches run as fork/join tasks. The results for a seed
+ * do not depend on the number of threads.
+ *
+ * @version 1.0
+ */
+public class PacketSimulator {
+
+  /* a batch holds at least this many node-slot steps, or a single trial */
+  private static final long MIN_STEPS_PER_BATCH = 1 << 16;
+
+  private static final int GUARD_NONE = 0;
+  private static final int GUARD_HAS = 1;
+  private static final int GUARD_NOT_HAS = 2;
+  private static final int NO_NODE = -1;
+
+  private final double minPacketReceptionRate;
+  private final int numSlots;
+  private final int numNodes;
+  private final String[] flowNames;
+  private final int[] flowSrc;
+  private final int[] flowSnk;
+  private final int[] flowDeadline;
+  private final int[] flowMaxLatency;
+  /* instances of all flows numbered one flow after the other, from instanceStart[flow] */
+  private final int[] instanceStart;
+  private final int[] releaseTimes;
+  /* the flow and instance of each release in slot s, from releaseStart[s] to releaseStart[s+1] */
+  private final int[] releaseStart;
+  private final int[] releaseFlow;
+  private final int[] releaseInstance;
+  private final InstructionIdTable instructions;
+  /* clauses of instruction id, from clauseStart[id] to clauseStart[id+1] */
+  private final int[] clauseStart;
+  private final int[] clauseGuard;
+  private final int[] clauseFlow;
+  private final int[] clauseCoordinator;
+  private final int[] clauseSrc;
+  private final int[] clauseSnk;
+
+  /**
+   * Compiles program with the minimum packet reception rate of its workload.
+   */
+  public PacketSimulator(Program program) {
+    this(program, program.toWorkLoadSnapshot().getMinPacketReceptionRate());
+  }
+
+  /**
+   * @param minPacketReceptionRate probability that a transmission is received
+   */
+  public PacketSimulator(Program program, double minPacketReceptionRate) {
+    this.minPacketReceptionRate = minPacketReceptionRate;
+    var workLoad = program.toWorkLoadSnapshot();
+    var nodeIndex = program.getNodeMapIndex();
+    instructions = new InstructionIdTable(program.getSchedule());
+    numSlots = instructions.getNumRows();
+    numNodes = instructions.getNumColumns();
+
+    flowNames = program.getFlowNamesInPriorityOrder().toArray(new String[0]);
+    var numFlows = flowNames.length;
+    flowSrc = new int[numFlows];
+    flowSnk = new int[numFlows];
+    flowDeadline = new int[numFlows];
+    flowMaxLatency = new int[numFlows];
+    instanceStart = new int[numFlows + 1];
+    var releases = new int[numFlows][];
+    for (int f = 0; f < numFlows; f++) {
+      var nodes = workLoad.getNodesInFlow(flowNames[f]);
+      flowSrc[f] = nodeIndex.getOrDefault(nodes[0], NO_NODE);
+      flowSnk[f] = nodeIndex.getOrDefault(nodes[nodes.length - 1], NO_NODE);
+      flowDeadline[f] = workLoad.getFlowDeadline(flowNames[f]);
+      releases[f] = releaseTimes(workLoad, flowNames[f]);
+      /* an instance is delivered before the next release, or the end of the program */
+      var period = workLoad.getFlowPeriod(flowNames[f]);
+      flowMaxLatency[f] = (period > 0) ? Math.min(period, numSlots) : numSlots;
+      instanceStart[f + 1] = instanceStart[f] + releases[f].length;
+    }
+    releaseTimes = new int[instanceStart[numFlows]];
+    releaseStart = new int[numSlots + 1];
+    for (int f = 0; f < numFlows; f++) {
+      System.arraycopy(releases[f], 0, releaseTimes, instanceStart[f], releases[f].length);
+      for (int release : releases[f]) {
+        releaseStart[release + 1]++;
+      }
+    }
+    for (int slot = 0; slot < numSlots; slot++) {
+      releaseStart[slot + 1] += releaseStart[slot];
+    }
+    releaseFlow = new int[releaseTimes.length];
+    releaseInstance = new int[releaseTimes.length];
+    var next = Arrays.copyOf(releaseStart, numSlots);
+    for (int f = 0; f < numFlows; f++) {
+      for (int k = 0; k < releases[f].length; k++) {
+        var event = next[releases[f][k]]++;
+        releaseFlow[event] = f;
+        releaseInstance[event] = instanceStart[f] + k;
+      }
+    }
+
+    var flowIndex = new HashMap<String, Integer>();
+    for (int f = 0; f < numFlows; f++) {
+      flowIndex.put(flowNames[f], f);
+    }
+    var numIds = instructions.getNumInstructions();
+    clauseStart = new int[numIds + 1];
+    for (int id = 0; id < numIds; id++) {
+      clauseStart[id + 1] = clauseStart[id] + instructions.getInstruction(id).numClauses();
+    }
+    var numClauses = clauseStart[numIds];
+    clauseGuard = new int[numClauses];
+    clauseFlow = new int[numClauses];
+    clauseCoordinator = new int[numClauses];
+    clauseSrc = new int[numClauses];
+    clauseSnk = new int[numClauses];
+    for (int id = 0; id < numIds; id++) {
+      var c = clauseStart[id];
+      for (var clause = instructions.getInstruction(id); clause != null; clause =
+          clause.getElse()) {
+        var flow = (clause.getFlow() != null) ? flowIndex.get(clause.getFlow()) : null;
+        clauseFlow[c] = (flow != null) ? flow : 0;
+        switch (clause.getGuard()) {
+          case HAS:
+            clauseGuard[c] = GUARD_HAS;
+            break;
+          case NOT_HAS:
+            clauseGuard[c] = GUARD_NOT_HAS;
+            break;
+          default:
+            clauseGuard[c] = GUARD_NONE;
+            break;
+        }
+        if (flow == null) {
+          /* wait, sleep or a flow that isn't in the workload: selected, but does nothing */
+          clauseGuard[c] = GUARD_NONE;
+          clauseCoordinator[c] = NO_NODE;
+        } else {
+          clauseCoordinator[c] = nodeIndex.getOrDefault(clause.getCoordinator(), NO_NODE);
+          clauseSrc[c] = nodeIndex.getOrDefault(clause.getSrc(), NO_NODE);
+          clauseSnk[c] = nodeIndex.getOrDefault(clause.getSnk(), NO_NODE);
+        }
+        c++;
+      }
+    }
+  }
+
+  /**
+   * Runs numTrials independent trials of the program.
+   *
+   * @param seed seed of the random numbers; the same seed gives the same results
+   */
+  public SimulationResult simulate(int numTrials, long seed) {
+    var stepsPerTrial = Math.max(1L, (long) numSlots * numNodes);
+    var trialsPerBatch =
+        (int) Math.max(1L, Math.min(numTrials, MIN_STEPS_PER_BATCH / stepsPerTrial));
+    var numBatches = (numTrials + trialsPerBatch - 1) / trialsPerBatch;
+    var random = new SplittableRandom(seed);
+    var streams = new SplittableRandom[numBatches];
+    for (int batch = 0; batch < numBatches; batch++) {
+      streams[batch] = random.split();
+    }
+    Tally tally;
+    if (numBatches > 0) {
+      tally = new BatchTask(streams, trialsPerBatch, numTrials, 0, numBatches).invoke();
+    } else {
+      tally = new Tally();
+    }
+    return new SimulationResult(flowNames, minPacketReceptionRate, numTrials, instanceStart,
+        releaseTimes, tally.deliveries, tally.latencies, tally.deadlineMisses);
+  }
+
+  /**
+   * @return the number of node-slot steps in one trial
+   */
+  public long getStepsPerTrial() {
+    return (long) numSlots * numNodes;
+  }
+
+  /* release times of flowName, in slot order, that are inside the program */
+  private int[] releaseTimes(WorkLoadSnapshot workLoad, String flowName) {
+    var times = new int[4];
+    var count = 0;
+    var release = workLoad.nextReleaseTime(flowName, 0);
+    while (release < numSlots) {
+      if (count == times.length) {
+        times = Arrays.copyOf(times, count * 2);
+      }
+      times[count++] = release;
+      var next = workLoad.nextReleaseTime(flowName, release + 1);
+      if (next <= release) {
+        break; // a flow with no period is released once
+      }
+      release = next;
+    }
+    return Arrays.copyOf(times, count);
+  }
+
+  /* runs one trial, adding its deliveries and latencies to tally */
+  private void runTrial(SplittableRandom random, Tally tally, int[] holder, int[] current,
+      int[] moves) {
+    var numFlows = flowNames.length;
+    Arrays.fill(holder, NO_NODE);
+    Arrays.fill(current, -1);
+    for (int slot = 0; slot < numSlots; slot++) {
+      for (int event = releaseStart[slot]; event < releaseStart[slot + 1]; event++) {
+        var f = releaseFlow[event];
+        finishInstance(tally, f, current[f], holder[f]);
+        current[f] = releaseInstance[event];
+        holder[f] = flowSrc[f];
+      }
+      var numMoves = 0;
+      for (int node = 0; node < numNodes; node++) {
+        var id = instructions.getId(slot, node);
+        if (id == InstructionIdTable.NO_INSTRUCTION) {
+          continue;
+        }
+        for (int c = clauseStart[id]; c < clauseStart[id + 1]; c++) {
+          var f = clauseFlow[c];
+          var guard = clauseGuard[c];
+          if ((guard == GUARD_HAS && holder[f] != node)
+              || (guard == GUARD_NOT_HAS && holder[f] == node)) {
+            continue;
+          }
+          if (clauseCoordinator[c] == node && holder[f] == clauseSrc[c]
+              && holder[f] != NO_NODE && random.nextDouble() < minPacketReceptionRate) {
+            moves[numMoves++] = c;
+          }
+          break; // the first clause whose guard holds is the one executed
+        }
+      }
+      for (int move = 0; move < numMoves; move++) {
+        var c = moves[move];
+        var f = clauseFlow[c];
+        if (holder[f] != clauseSrc[c] || holder[f] == flowSnk[f]) {
+          continue; // the packet already moved in this slot, or was delivered
+        }
+        holder[f] = clauseSnk[c];
+        if (holder[f] == flowSnk[f]) {
+          var instance = current[f];
+          var latency = slot - releaseTimes[instance] + 1;
+          tally.deliveries[instance]++;
+          tally.latencies[f].add(latency);
+          if (latency > flowDeadline[f]) {
+            tally.deadlineMisses[f]++;
+          }
+        }
+      }
+    }
+    for (int f = 0; f < numFlows; f++) {
+      finishInstance(tally, f, current[f], holder[f]);
+    }
+  }
+
+  /* counts instance as lost if its packet never reached the flow's last node */
+  private void finishInstance(Tally tally, int f, int instance, int holder) {
+    if (instance >= 0 && holder != flowSnk[f]) {
+      tally.latencies[f].addUnknown();
+    }
+  }
+
+  /* deliveries per instance, and latencies and deadline misses per flow */
+  private class Tally {
+    final int[] deliveries = new int[releaseTimes.length];
+    final LatencyHistogram[] latencies = new LatencyHistogram[flowNames.length];
+    final int[] deadlineMisses = new int[flowNames.length];
+
+    Tally() {
+      for (int f = 0; f < latencies.length; f++) {
+        latencies[f] = new LatencyHistogram(flowMaxLatency[f]);
+      }
+    }
+
+    void addAll(Tally other) {
+      for (int i = 0; i < deliveries.length; i++) {
+        deliveries[i] += other.deliveries[i];
+      }
+      for (int f = 0; f < latencies.length; f++) {
+        latencies[f].addAll(other.latencies[f]);
+        deadlineMisses[f] += other.deadlineMisses[f];
+      }
+    }
+  }
+
+  @SuppressWarnings("serial") // SplittableRandom streams, split afresh for each simulate call
+  private class BatchTask extends RecursiveTask<Tally> {
+    private static final long serialVersionUID = 1L;
+
+    private final SplittableRandom[] streams;
+    private final int trialsPerBatch;
+    private final int numTrials;
+    private final int from;
+    private final int to;
+
+    BatchTask(SplittableRandom[] streams, int trialsPerBatch, int numTrials, int from, int to) {
+      this.streams = streams;
+      this.trialsPerBatch = trialsPerBatch;
+      this.numTrials = numTrials;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected Tally compute() {
+      if (to - from > 1) {
+        var middle = (from + to) >>> 1;
+        var second = new BatchTask(streams, trialsPerBatch, numTrials, middle, to);
+        second.fork();
+        var tally = new BatchTask(streams, trialsPerBatch, numTrials, from, middle).compute();
+        tally.addAll(second.join());
+        return tally;
+      }
+      var tally = new Tally();
+      var holder = new int[flowNames.length];
+      var current = new int[flowNames.length];
+      var moves = new int[numNodes];
+      var random = streams[from];
+      var lastTrial = Math.min(numTrials, (from + 1) * trialsPerBatch);
+      for (int trial = from * trialsPerBatch; trial < lastTrial; trial++) {
+        runTrial(random, tally, holder, current, moves);
+      }
+      return tally;
+    }
+  }
+}
@@ -0,0 +1,379 @@
+package edu.uiowa.cs.warp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+
+/**
+ * Computes the rows of a reliability table one flow at a time, with the flows spread over
+ * fork/join tasks.
+ * <p>
+ * A push or pull only changes the reliability of its flow's nodes, and only reads the columns of
+ * its own flow, so each flow's columns can be computed on their own once it is known in which
+ * time slots the flow transmits. The constructor makes one pass over the schedule to index those
+ * transmissions per flow, in the order ReliabilityAnalysis applies them; compute then gives each
+ * task a range of flows and each task fills in its flows' columns of every row. The results are
+ * the same as computing the whole table row by row.
+ * <p>
+ * Since each flow is reset at the start of its periods, a period's values only depend on the
+ * transmissions in it. computePeriodic compares the transmissions of each period with those of
+ * the periods before it and computes rows only for the first period of each pattern, giving a
+ * PeriodicReliabilityTable. computeLastRow computes only the last period of each flow, which is
+ * all verifying the end-to-end reliability needs.
+ * <p>
+ * A transmission into the first node of a flow would read the column before the flow, which
+ * belongs to another flow, and a flow with no nodes is reset by setting the next flow's first
+ * column. isIndependent() is false when the workload or schedule has either, and the table must
+ * then be computed row by row.
+ *
+ * @version 1.0
+ */
+class ParallelReliabilityEngine {
+
+  /* a task with fewer cells than this computes its flows itself rather than splitting them */
+  private static final long MIN_CELLS_PER_TASK = 1 << 14;
+
+  private final double minPacketReceptionRate;
+  private final int[] flowStart;
+  private final int[] flowLength;
+  private final int[] flowPeriod;
+  private final int numRows;
+  /* for each flow, the row, sink column and source column of each of its transmissions */
+  private final int[][] eventRows;
+  private final int[][] eventSnks;
+  private final int[][] eventSrcs;
+  private boolean independent = true;
+
+  /**
+   * Indexes the transmissions in rows 1 and later of instructions by flow.
+   *
+   * @param flowStart first reliability table column of each flow
+   * @param flowLength number of nodes, and so columns, in each flow
+   * @param flowPeriod period of each flow
+   * @param transmissionsOf {flow, sink column, source column} of each transmission in the
+   *        instruction with the given id, one after the other
+   */
+  ParallelReliabilityEngine(double minPacketReceptionRate, int[] flowStart, int[] flowLength,
+      int[] flowPeriod, InstructionIdTable instructions, IntFunction<int[]> transmissionsOf) {
+    this.minPacketReceptionRate = minPacketReceptionRate;
+    this.flowStart = flowStart;
+    this.flowLength = flowLength;
+    this.flowPeriod = flowPeriod;
+    this.numRows = instructions.getNumRows();
+    var numFlows = flowStart.length;
+    var numColumns = instructions.getNumColumns();
+    for (int f = 0; f < numFlows; f++) {
+      independent &= flowLength[f] > 0; // resetting an empty flow sets the next flow's column
+    }
+    /* count first, so each flow's events fit in arrays of the right size */
+    var counts = new int[numFlows];
+    for (int row = 1; row < numRows; row++) {
+      for (int col = 0; col < numColumns; col++) {
+        var id = instructions.getId(row, col);
+        if (id != InstructionIdTable.NO_INSTRUCTION) {
+          var transmissions = transmissionsOf.apply(id);
+          for (int t = 0; t < transmissions.length; t += 3) {
+            counts[transmissions[t]]++;
+          }
+        }
+      }
+    }
+    eventRows = new int[numFlows][];
+    eventSnks = new int[numFlows][];
+    eventSrcs = new int[numFlows][];
+    for (int f = 0; f < numFlows; f++) {
+      eventRows[f] = new int[counts[f]];
+      eventSnks[f] = new int[counts[f]];
+      eventSrcs[f] = new int[counts[f]];
+    }
+    Arrays.fill(counts, 0);
+    for (int row = 1; row < numRows; row++) {
+      for (int col = 0; col < numColumns; col++) {
+        var id = instructions.getId(row, col);
+        if (id == InstructionIdTable.NO_INSTRUCTION) {
+          continue;
+        }
+        var transmissions = transmissionsOf.apply(id);
+        for (int t = 0; t < transmissions.length; t += 3) {
+          var f = transmissions[t];
+          var snk = transmissions[t + 1];
+          var src = transmissions[t + 2];
+          independent &= snk - 1 >= flowStart[f] && isInFlow(f, snk) && isInFlow(f, src);
+          eventRows[f][counts[f]] = row;
+          eventSnks[f][counts[f]] = snk;
+          eventSrcs[f][counts[f]] = src;
+          counts[f]++;
+        }
+      }
+    }
+  }
+
+  /**
+   * @return true if every transmission only reads and writes columns of its own flow
+   */
+  boolean isIndependent() {
+    return independent;
+  }
+
+  /**
+   * Computes rows 1 and later from firstRow. If reliabilities is not null, rows 1 to numRows-1
+   * are set in it; it must already have those rows, as after addRows.
+   *
+   * @return the reliabilities in the last row
+   */
+  double[] compute(double[] firstRow, DenseReliabilityTable reliabilities) {
+    var lastRow = firstRow.clone();
+    forEachFlow((f) -> computeFlow(f, firstRow, lastRow, reliabilities));
+    return lastRow;
+  }
+
+  /**
+   * Computes rows 1 and later from firstRow, once for each distinct pattern of transmissions in
+   * the periods of each flow.
+   *
+   * @return the reliabilities of every row
+   */
+  PeriodicReliabilityTable computePeriodic(double[] firstRow) {
+    var numFlows = flowStart.length;
+    var windows = new double[numFlows][][];
+    var periodWindow = new int[numFlows][];
+    forEachFlow((f) -> computeFlowWindows(f, firstRow, windows, periodWindow));
+    return new PeriodicReliabilityTable(numRows, flowStart, flowLength, flowPeriod, windows,
+        periodWindow);
+  }
+
+  /**
+   * Computes only the last row from firstRow. The last row of each flow is in its last period,
+   * which starts with a reset, so only that period is computed and no other rows are kept.
+   *
+   * @return the reliabilities in the last row
+   */
+  double[] computeLastRow(double[] firstRow) {
+    var lastRow = firstRow.clone();
+    if (numRows > 1) {
+      forEachFlow((f) -> computeFlowLastRow(f, firstRow, lastRow));
+    }
+    return lastRow;
+  }
+
+  /* runs computeFlow for every flow, on the calling thread and the common pool */
+  private void forEachFlow(IntConsumer computeFlow) {
+    if (flowStart.length > 0) {
+      new FlowTask(0, flowStart.length, computeFlow).invoke();
+    }
+  }
+
+  private boolean isInFlow(int flow, int column) {
+    return column >= flowStart[flow] && column < flowStart[flow] + flowLength[flow];
+  }
+
+  /* computes the columns of flow f, with the same steps as ReliabilityAnalysis applies per row */
+  private void computeFlow(int f, double[] firstRow, double[] lastRow,
+      DenseReliabilityTable reliabilities) {
+    var start = flowStart[f];
+    var length = flowLength[f];
+    var period = flowPeriod[f];
+    var rows = eventRows[f];
+    var snks = eventSnks[f];
+    var srcs = eventSrcs[f];
+    var previous = Arrays.copyOfRange(firstRow, start, start + length);
+    var current = new double[length];
+    var e = 0;
+    for (int row = 1; row < numRows; row++) {
+      var reset = row % period == 0;
+      if (reset || (e < rows.length && rows[e] == row)) {
+        System.arraycopy(previous, 0, current, 0, length);
+        if (reset) {
+          current[0] = 1.0;
+          Arrays.fill(current, 1, length, 0.0);
+        }
+        for (; e < rows.length && rows[e] == row; e++) {
+          var snk = snks[e] - start;
+          if (reset) {
+            current[snk] = ReliabilityAnalysis.newSinkNodeState(minPacketReceptionRate,
+                current[snk], current[srcs[e] - start]);
+          } else {
+            current[snk] = ReliabilityAnalysis.newSinkNodeState(minPacketReceptionRate,
+                previous[snk], previous[snk - 1]);
+          }
+        }
+        var finished = current;
+        current = previous;
+        previous = finished;
+      }
+      if (reliabilities != null) {
+        reliabilities.setValues(row, start, previous);
+      }
+    }
+    System.arraycopy(previous, 0, lastRow, start, length);
+  }
+
+  /* fills in the windows of flow f and the window of each of its periods */
+  private void computeFlowWindows(int f, double[] firstRow, double[][][] windows,
+      int[][] periodWindow) {
+    var period = flowPeriod[f];
+    var numPeriods = (numRows + period - 1) / period;
+    /* the events of period k are firstEvent[k] to firstEvent[k + 1] - 1 */
+    var firstEvent = new int[numPeriods + 1];
+    var rows = eventRows[f];
+    for (int k = 0, e = 0; k < numPeriods; k++) {
+      while (e < rows.length && rows[e] < k * period) {
+        e++;
+      }
+      firstEvent[k] = e;
+    }
+    firstEvent[numPeriods] = rows.length;
+    var flowWindows = new ArrayList<double[]>();
+    /* the period each window was computed for, and the windows with each hash of events */
+    var computedFor = new ArrayList<Integer>();
+    var windowsByHash = new HashMap<Long, ArrayList<Integer>>();
+    var windowOf = new int[numPeriods];
+    for (int k = 0; k < numPeriods; k++) {
+      var rowsInPeriod = Math.min(period, numRows - k * period);
+      var window = -1;
+      /* period 0 starts from the first row rather than a reset, so it is never shared */
+      var hash = k > 0 ? hashOfEvents(f, k, firstEvent) : 0L;
+      var candidates = k > 0 ? windowsByHash.get(hash) : null;
+      if (candidates != null) {
+        for (int w : candidates) {
+          if (flowWindows.get(w).length >= rowsInPeriod * flowLength[f]
+              && sameEvents(f, k, computedFor.get(w), firstEvent)) {
+            window = w;
+            break;
+          }
+        }
+      }
+      if (window < 0) {
+        window = flowWindows.size();
+        flowWindows.add(computeWindow(f, k, rowsInPeriod, firstRow, firstEvent[k]));
+        computedFor.add(k);
+        if (k > 0) {
+          windowsByHash.computeIfAbsent(hash, (h) -> new ArrayList<Integer>()).add(window);
+        }
+      }
+      windowOf[k] = window;
+    }
+    windows[f] = flowWindows.toArray(new double[flowWindows.size()][]);
+    periodWindow[f] = windowOf;
+  }
+
+  /* computes the last period of flow f and copies its last row into lastRow */
+  private void computeFlowLastRow(int f, double[] firstRow, double[] lastRow) {
+    var k = (numRows - 1) / flowPeriod[f];
+    var firstRowOfPeriod = k * flowPeriod[f];
+    var rowsInPeriod = numRows - firstRowOfPeriod;
+    var rows = eventRows[f];
+    var e = 0;
+    while (e < rows.length && rows[e] < firstRowOfPeriod) {
+      e++;
+    }
+    var window = computeWindow(f, k, rowsInPeriod, firstRow, e);
+    System.arraycopy(window, (rowsInPeriod - 1) * flowLength[f], lastRow, flowStart[f],
+        flowLength[f]);
+  }
+
+  /* computes the rows of period k of flow f, whose first event is e */
+  private double[] computeWindow(int f, int k, int rowsInPeriod, double[] firstRow, int e) {
+    var start = flowStart[f];
+    var length = flowLength[f];
+    var firstRowOfPeriod = k * flowPeriod[f];
+    var rows = eventRows[f];
+    var snks = eventSnks[f];
+    var srcs = eventSrcs[f];
+    var window = new double[rowsInPeriod * length];
+    var previous = new double[length];
+    var current = new double[length];
+    var first = 0;
+    if (k == 0) {
+      System.arraycopy(firstRow, start, window, 0, length);
+      System.arraycopy(firstRow, start, previous, 0, length);
+      first = 1;
+    }
+    for (int r = first; r < rowsInPeriod; r++) {
+      var row = firstRowOfPeriod + r;
+      var reset = r == 0;
+      System.arraycopy(previous, 0, current, 0, length);
+      if (reset) {
+        current[0] = 1.0;
+        Arrays.fill(current, 1, length, 0.0);
+      }
+      for (; e < rows.length && rows[e] == row; e++) {
+        var snk = snks[e] - start;
+        if (reset) {
+          current[snk] = ReliabilityAnalysis.newSinkNodeState(minPacketReceptionRate,
+              current[snk], current[srcs[e] - start]);
+        } else {
+          current[snk] = ReliabilityAnalysis.newSinkNodeState(minPacketReceptionRate,
+              previous[snk], previous[snk - 1]);
+        }
+      }
+      System.arraycopy(current, 0, window, r * length, length);
+      var finished = current;
+      current = previous;
+      previous = finished;
+    }
+    return window;
+  }
+
+  /* hash of the events of period k of flow f, by their rows relative to the period's start */
+  private long hashOfEvents(int f, int k, int[] firstEvent) {
+    var firstRowOfPeriod = k * flowPeriod[f];
+    long hash = firstEvent[k + 1] - firstEvent[k];
+    for (int e = firstEvent[k]; e < firstEvent[k + 1]; e++) {
+      hash = hash * 31 + eventRows[f][e] - firstRowOfPeriod;
+      hash = hash * 31 + eventSnks[f][e];
+      hash = hash * 31 + eventSrcs[f][e];
+    }
+    return hash;
+  }
+
+  /* true if periods k and j of flow f have the same events at the same rows of the period */
+  private boolean sameEvents(int f, int k, int j, int[] firstEvent) {
+    var count = firstEvent[k + 1] - firstEvent[k];
+    if (count != firstEvent[j + 1] - firstEvent[j]) {
+      return false;
+    }
+    var shift = (k - j) * flowPeriod[f];
+    for (int i = 0; i < count; i++) {
+      var ek = firstEvent[k] + i;
+      var ej = firstEvent[j] + i;
+      if (eventRows[f][ek] - shift != eventRows[f][ej] || eventSnks[f][ek] != eventSnks[f][ej]
+          || eventSrcs[f][ek] != eventSrcs[f][ej]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /* computes flows [from, to), splitting them over two tasks while there is enough work */
+  @SuppressWarnings("serial") // computeFlow is a lambda that lives only for one forEachFlow call
+  private class FlowTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final int from;
+    private final int to;
+    private final IntConsumer computeFlow;
+
+    FlowTask(int from, int to, IntConsumer computeFlow) {
+      this.from = from;
+      this.to = to;
+      this.computeFlow = computeFlow;
+    }
+
+    @Override
+    protected void compute() {
+      var columns = flowStart[to - 1] + flowLength[to - 1] - flowStart[from];
+      if (to - from > 1 && (long) numRows * columns > MIN_CELLS_PER_TASK) {
+        var middle = (from + to) >>> 1;
+        invokeAll(new FlowTask(from, middle, computeFlow), new FlowTask(middle, to, computeFlow));
+      } else {
+        for (int f = from; f < to; f++) {
+          computeFlow.accept(f);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,159 @@
+package edu.uiowa.cs.warp;
+
+/**
+ * Reliability table kept as one window of rows for each distinct period of each flow.
+ * <p>
+ * A flow is reset to 1.0, 0.0, ... at the start of every period, so its columns in a period
+ * depend only on the flow's transmissions in that period. Once the schedule repeats, most periods
+ * of a flow transmit in the same time slots as an earlier one and have the same values. Each flow
+ * therefore keeps one window of rows for each distinct pattern of transmissions, and each of its
+ * periods refers to the window it shares. Any cell or row can still be read, and
+ * toDenseReliabilityTable builds the full table when it is wanted.
+ * <p>
+ * The columns of a flow are a group; a table that can't be split by flow has a single group
+ * covering every column, with one period as long as the table.
+ *
+ * @version 1.0
+ */
+public class PeriodicReliabilityTable {
+
+  private final int numRows;
+  private final int numColumns;
+  private final int[] groupStart;
+  private final int[] groupLength;
+  private final int[] groupPeriod;
+  /* the group of each column */
+  private final int[] groupOfColumn;
+  /* for each group, its distinct windows, each holding rows of the group's columns in row-major
+   * order */
+  private final double[][][] windows;
+  /* for each group, the index in windows of the window of each period */
+  private final int[][] periodWindow;
+
+  /**
+   * @param groupStart first column of each group
+   * @param groupLength number of columns in each group
+   * @param groupPeriod period of each group; period k covers rows k*period to (k+1)*period-1
+   * @param windows distinct windows of each group; a window has at least as many rows as the
+   *        periods that use it
+   * @param periodWindow index of the window of each period of each group
+   */
+  PeriodicReliabilityTable(int numRows, int[] groupStart, int[] groupLength, int[] groupPeriod,
+      double[][][] windows, int[][] periodWindow) {
+    this.numRows = numRows;
+    this.groupStart = groupStart;
+    this.groupLength = groupLength;
+    this.groupPeriod = groupPeriod;
+    this.windows = windows;
+    this.periodWindow = periodWindow;
+    var columns = 0;
+    for (int g = 0; g < groupStart.length; g++) {
+      columns = Math.max(columns, groupStart[g] + groupLength[g]);
+    }
+    this.numColumns = columns;
+    this.groupOfColumn = new int[numColumns];
+    for (int g = 0; g < groupStart.length; g++) {
+      for (int column = groupStart[g]; column < groupStart[g] + groupLength[g]; column++) {
+        groupOfColumn[column] = g;
+      }
+    }
+  }
+
+  /**
+   * Wraps table in a single group with a single window, so nothing is shared.
+   */
+  public static PeriodicReliabilityTable of(DenseReliabilityTable table) {
+    var numRows = table.getNumRows();
+    var numColumns = table.getNumColumns();
+    var window = new double[numRows * numColumns];
+    for (int row = 0; row < numRows; row++) {
+      System.arraycopy(table.getRow(row), 0, window, row * numColumns, numColumns);
+    }
+    return new PeriodicReliabilityTable(numRows, new int[] {0}, new int[] {numColumns},
+        new int[] {Math.max(1, numRows)}, new double[][][] {{window}}, new int[][] {{0}});
+  }
+
+  public Integer getNumRows() {
+    return numRows;
+  }
+
+  public Integer getNumColumns() {
+    return numColumns;
+  }
+
+  /**
+   * @return the value at row and column, or null if the cell is outside the table
+   */
+  public Double get(Integer row, Integer column) {
+    if (row < 0 || row >= numRows || column < 0 || column >= numColumns) {
+      return null;
+    }
+    return getValue(row, column);
+  }
+
+  /**
+   * Same as get, without boxing; the cell must be in the table.
+   */
+  public double getValue(int row, int column) {
+    var g = groupOfColumn[column];
+    var period = groupPeriod[g];
+    var window = windows[g][periodWindow[g][row / period]];
+    return window[(row % period) * groupLength[g] + column - groupStart[g]];
+  }
+
+  /**
+   * @return a copy of the values in row
+   */
+  public double[] getRow(int row) {
+    var values = new double[numColumns];
+    for (int g = 0; g < groupStart.length; g++) {
+      var period = groupPeriod[g];
+      var window = windows[g][periodWindow[g][row / period]];
+      var length = groupLength[g];
+      System.arraycopy(window, (row % period) * length, values, groupStart[g], length);
+    }
+    return values;
+  }
+
+  /**
+   * @return the number of windows kept for all the flows together
+   */
+  public int getNumWindows() {
+    var count = 0;
+    for (double[][] groupWindows : windows) {
+      count += groupWindows.length;
+    }
+    return count;
+  }
+
+  /**
+   * @return the number of periods of all the flows together, which is the number of windows a
+   *         table that shares nothing would keep
+   */
+  public int getNumPeriods() {
+    var count = 0;
+    for (int[] periods : periodWindow) {
+      count += periods.length;
+    }
+    return count;
+  }
+
+  /**
+   * @return every row of the table, with the windows copied into each period that uses them
+   */
+  public DenseReliabilityTable toDenseReliabilityTable() {
+    var table = new DenseReliabilityTable(numColumns);
+    table.addRows(numRows);
+    for (int g = 0; g < groupStart.length; g++) {
+      var period = groupPeriod[g];
+      var length = groupLength[g];
+      var values = new double[length];
+      for (int row = 0; row < numRows; row++) {
+        var window = windows[g][periodWindow[g][row / period]];
+        System.arraycopy(window, (row % period) * length, values, 0, length);
+        table.setValues(row, groupStart[g], values);
+      }
+    }
+    return table;
+  }
+}
@@ -19,7 +19,12 @@ public class PreemptiveSchedule extends Schedule {
 	@Override
 	protected ScheduleLocation continueSearch(Integer time, Activation activation) {
 		return findPreeptiveChannelAndTime(time,activation);
-   	}
+   	}
+	
+	@Override
+	protected Integer nextSearchTime(Integer time, Activation activation) {
+		return time+1; // preemption may find a location at any time
+   	}
 	
 	@Override
 	public ProgramSchedule toProgram() {
@@ -41,7 +46,7 @@ public class PreemptiveSchedule extends Schedule {
    		
    		if (channelConsidered == numChannels) {
    			/* no available time slots near this time, even for preemption */
-   			return findChannelAndTime(time+1,schedulableObject);
+   			return null; // findChannelAndTime continues at time+1
    		} else {
    			/* can use timeAvailable.time here on timeAvailable.channel
    			 * then must find additional time on same channel until 
@@ -209,7 +214,7 @@ public class PreemptiveSchedule extends Schedule {
    			/* Add this object to the schedule for the
    			 * from startTime to endTime.
    			 */
-   			schedule.set(channel, i, entry);
+   			setEntry(channel, i, entry);
    		}
    		
    		return success;
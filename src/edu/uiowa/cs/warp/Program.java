@@ -1,9 +1,10 @@
 package edu.uiowa.cs.warp;
 
-import edu.uiowa.cs.utilities.Utilities;
+import edu.uiowa.cs.warp.Instruction.Opcode;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 
 
 /**
@@ -16,14 +17,15 @@ import java.util.HashMap;
 public class Program implements SystemAttributes {
 
   private static final String UNKNOWN = "Unknown";
-  private static final String SLEEP_INSTRUCTION = "sleep";
-  private static final String WAIT_FRAGMENT = "wait(";
-  private static final String ELSE_PULL_FRAGMENT = "else pull(";
+  private static final Instruction SLEEP_INSTRUCTION = Instruction.sleep();
 
   // Global flags and data structures
   // FileManager wfm; // class to provide basic WARP file management functions
   WorkLoad workLoad; // WarpScheduler build schedules for flows in WARPflows class
+  WorkLoadSnapshot snapshot; // frozen copy of workLoad the schedule is built from
+  SchedulerContext context; // flow order and node channels of this program's build
   ProgramSchedule scheduleBuilt;
+  ScheduleTable posetSchedule; // channel by time table of a poset scheduler, null otherwise
   ScheduleChoices SchedulerSelected; // set the type of scheduler selected
   String schChoice; // Name of the scheduler selected for output file name
   String schedulerName; // test string of scheduler selected
@@ -31,10 +33,49 @@ public class Program implements SystemAttributes {
   Boolean realTimeHARTflag;
   Boolean optimizationRequested;
   Channels channelsAvailable; // channels available for each time slot
+  long[] excludedChannels; // scratch mask of channels findNextAvailableChannel must avoid
+  NodeOccupancy nodeOccupancy; // slots in which each node is busy in the schedule being built
+  String projectedNode; // only node whose program buildOriginalProgram keeps, null for all
   Integer nChannels;
   Boolean verbose;
   Boolean reportLatency;
   private Description deadlineMisses;
+  /*
+   * Scheduler state taken just before each flow in priority order was scheduled, plus one after the
+   * last flow, so a workload change only reschedules the flows it can affect. Each one copies the
+   * schedule's rows, so they are only kept once the workload first changes (see startCheckpoints)
+   * and are null until then.
+   */
+  private ArrayList<FlowCheckpoint> checkpoints;
+  /* true when the schedule was built by buildOriginalProgram for every node */
+  private Boolean incremental = false;
+  private Integer checkpointHyperPeriod;
+  private String[] checkpointNodes;
+  /* true once workLoad is this program's own copy, made before its first change */
+  private Boolean ownsWorkLoad = false;
+
+  /*
+   * Everything buildOriginalProgram carries from one flow to the next. Rows of the schedule are
+   * shared rather than copied since a time slot is always replaced, never modified in place.
+   */
+  private static final class FlowCheckpoint {
+    private final ArrayList<InstructionTimeSlot> timeSlots;
+    private final Channels channels;
+    private final NodeOccupancy occupancy;
+    private final HashMap<String, Integer> nodeChannels;
+    private final Integer nTx;
+    private final Integer nDeadlineMisses;
+
+    private FlowCheckpoint(ProgramSchedule schedule, Channels channels, NodeOccupancy occupancy,
+        SchedulerContext context, Integer nTx, Integer nDeadlineMisses) {
+      this.timeSlots = new ArrayList<InstructionTimeSlot>(schedule);
+      this.channels = new Channels(channels);
+      this.occupancy = new NodeOccupancy(occupancy);
+      this.nodeChannels = context.getNodeChannels();
+      this.nTx = nTx;
+      this.nDeadlineMisses = nDeadlineMisses;
+    }
+  }
 
   Program(WorkLoad workLoad, Integer nChannels, ScheduleChoices choice, Boolean verbose,
       Boolean reportLatency) {
@@ -47,12 +88,43 @@ public class Program implements SystemAttributes {
     buildProgram(choice);
      }
 
+  /**
+   * Builds a program whose schedule is a ProjectedSchedule that only keeps the column of
+   * projectedNode, when choice is one of the priority, RM, DM or RealtimeHART schedulers. The
+   * poset schedulers build the whole program. The program can't be updated incrementally.
+   *
+   * @see NodeProgram
+   */
+  Program(WorkLoad workLoad, Integer nChannels, ScheduleChoices choice, String projectedNode) {
+    setDefaultParameters(workLoad, nChannels, false, false);
+    this.projectedNode = projectedNode;
+    buildProgram(choice);
+  }
+
+  /**
+   * Makes the program that one of the priority, RM, DM or RealtimeHART schedulers built earlier
+   * for the same workload, from its schedule and deadline misses, without scheduling it again.
+   * The program can't be updated incrementally; a workload change rebuilds it.
+   *
+   * @see ProgramCache
+   */
+  Program(WorkLoad workLoad, Integer nChannels, ScheduleChoices choice, ProgramSchedule schedule,
+      List<String> deadlineMisses) {
+    setDefaultParameters(workLoad, nChannels, false, false);
+    newSchedulerContext();
+    posetSchedule = null;
+    incremental = false;
+    checkpoints = null;
+    setScheduleSelected(choice); // sets the names and flow order the scheduler would
+    setSchedule(schedule);
+    this.deadlineMisses.addAll(deadlineMisses);
+  }
+
   private void setDefaultParameters(WorkLoad workLoad, Integer nChannels, Boolean verbose,
       Boolean reportLatency) {
     this.workLoad = workLoad; // flows for which schedules will be built
     this.scheduleBuilt = new ProgramSchedule();
     this.SchedulerSelected = ScheduleChoices.PRIORITY; // set the type of scheduler selected
-    workLoad.setFlowsInPriorityOrder();
     this.schedulerName = "Priority";
     this.schChoice = "Priority";
     this.nTransmissions = 0;
@@ -60,7 +132,8 @@ public class Program implements SystemAttributes {
     this.optimizationRequested = true;
     this.nChannels = nChannels;
     this.verbose = verbose;
-    this.channelsAvailable = new Channels(nChannels, verbose);
+    this.channelsAvailable = new Channels(nChannels, verbose);
+    this.excludedChannels = channelsAvailable.newChannelMask();
     this.reportLatency = reportLatency;
     this.deadlineMisses = new Description();
      }
@@ -74,6 +147,32 @@ public class Program implements SystemAttributes {
     return workLoad;
      }
 
+  /**
+   * Returns the frozen copy of the workload that the current schedule was built from. Unlike the
+   * WorkLoad, it is safe to read from other threads while this or another program is built.
+   *
+   * @return WorkLoadSnapshot object
+   */
+  public WorkLoadSnapshot toWorkLoadSnapshot() {
+    return snapshot;
+     }
+
+  /**
+   * @return the flows in the order they were scheduled by the selected scheduler
+   */
+  public ArrayList<String> getFlowNamesInPriorityOrder() {
+    return new ArrayList<String>(context.getFlowNamesInPriorityOrder());
+     }
+
+  /*
+   * Takes a new snapshot of the workload, so changes made to it since the last build are seen, and
+   * gives the next build its own flow order and node channels.
+   */
+  private void newSchedulerContext() {
+    snapshot = workLoad.snapshot();
+    context = new SchedulerContext(snapshot);
+     }
+
   public void buildProgram(ScheduleChoices choice) {
     /*
      * Switch on the scheduler choice. If it is POSET-based scheduler, create the POSET that matches
@@ -81,15 +180,21 @@ public class Program implements SystemAttributes {
      * an original scheduler choice, build set the scheduler type and build the schedule and WARP
      * program by calling buildOriginalProgram();
      */
+    newSchedulerContext();
+    posetSchedule = null;
     switch (choice) { // select the requested scheduler
       case WARP_POSET_PRIORITY: // fall through
       case WARP_POSET_RM: // fall through
       case WARP_POSET_DM: // fall through
-        setScheduleSelected(choice);
-        var poset1 = new WarpPoset(workLoad);
+        setScheduleSelected(choice);
+        incremental = false;
+        checkpoints = null;
+        /* posets add their edges to the nodes and flows they are given, so each gets a copy */
+        var poset1 = new WarpPoset(new WorkLoad(workLoad));
         var schedule1 = new NonPreemptiveSchedule(poset1, this.nChannels);
         var newProgram = schedule1.toProgram();
         setSchedule(newProgram); // store the schedule built
+        posetSchedule = schedule1.getSchedule();
         break;
       case CONNECTIVITY_POSET_PRIORITY: // fall through
       case CONNECTIVITY_POSET_RM: // fall through
@@ -97,12 +202,15 @@ public class Program implements SystemAttributes {
       case POSET_PRIORITY: // fall through
       case POSET_RM: // fall through
       case POSET_DM:
-        setScheduleSelected(choice);
+        setScheduleSelected(choice);
+        incremental = false;
+        checkpoints = null;
         // var poset = new BasicPoset(workLoad);
-        var poset2 = new ConnectivityPoset(workLoad);
+        var poset2 = new ConnectivityPoset(new WorkLoad(workLoad));
         var schedule2 = new NonPreemptiveSchedule(poset2, this.nChannels);
         newProgram = schedule2.toProgram();
         setSchedule(newProgram); // store the schedule built
+        posetSchedule = schedule2.getSchedule();
         break;
       //// case CONNECTIVITY_POSET_PREEMPTIVE_PRIORITY: // fall through
       //// case CONNECTIVITY_POSET_PREEMPTIVE_RM: // fall through
@@ -135,18 +243,30 @@ public class Program implements SystemAttributes {
     }
      }
 
-  public void buildOriginalProgram() { // builds a Priority schedule
-   
+  public void buildOriginalProgram() { // builds a Priority schedule
+    if (checkpoints != null) { // start recording again from the first flow
+      checkpoints = new ArrayList<FlowCheckpoint>();
+    }
+    buildOriginalProgram(0);
+     }
+
+  /*
+   * Schedules the flows in priority order starting with the flow at position firstFlow. When
+   * firstFlow > 0, the schedule and scheduler state are restored from the checkpoint taken just
+   * before that flow was last scheduled, so the higher priority flows are not scheduled again.
+   */
+  private void buildOriginalProgram(int firstFlow) {
+   
     if (verbose) {
       var scheduleDetails =
           String.format("\nSystem schedule for graph %s created with the following parameters:\n",
-              workLoad.getName());
+              snapshot.getName());
       scheduleDetails =
           String.format(scheduleDetails + "\tScheduler Name:\t%s\n", getSchedulerName());
       scheduleDetails = String.format(scheduleDetails + "\tM:\t%s\n",
-          String.valueOf(workLoad.getMinPacketReceptionRate()));
+          String.valueOf(snapshot.getMinPacketReceptionRate()));
       scheduleDetails =
-          String.format(scheduleDetails + "\tE2E:\t%s\n", String.valueOf(workLoad.getE2e()));
+          String.format(scheduleDetails + "\tE2E:\t%s\n", String.valueOf(snapshot.getE2e()));
       scheduleDetails = String.format(scheduleDetails + "\tnChannels:\t%d\n", getNumChannels());
       // The following parameters are only output when special schedules are requested
       if (getNumTransmissions() > 0) { // only specify when NumTransmissions is fixed
@@ -163,22 +283,33 @@ public class Program implements SystemAttributes {
     var nTransmissions = getNumTransmissions();
     Boolean realtimeHART = getRealTimeHartFlag();
     var optimizationRequested = getOptimizationFlag();
-    var schedule = new ProgramSchedule(); // create an empty schedule
+    var schedule = newSchedule(); // create an empty schedule
     var newInstruction = SLEEP_INSTRUCTION; // initialize the new Instruction with a sleep
-    var prioritizedFlows = workLoad.getFlowNamesInPriorityOrder();
+    var prioritizedFlows = context.getFlowNamesInPriorityOrder();
     // var orderedNodes = workLoad.getNodeNamesOrderedAlphabetically(); // create an array of node
     // names
     // sorted alphabetically
     var nodeIndex = getNodeMapIndex(); // get the mapping from node names to index in schedule
-    var nNodes = nodeIndex.size();
+    var nNodes = nodeIndex.size();
+    nodeOccupancy = new NodeOccupancy(nNodes);
+    channelsAvailable = new Channels(nChannels, verbose);
+    if (firstFlow > 0) { // resume with the state just before flow firstFlow was last scheduled
+      nTx = restoreCheckpoint(checkpoints.get(firstFlow), schedule);
+    } else if (checkpoints != null && !checkpoints.isEmpty()) {
+      restoreCheckpoint(checkpoints.get(0), null); // start over with the first build's channels
+    }
+    if (checkpoints != null) {
+      checkpoints.subList(firstFlow, checkpoints.size()).clear();
+    }
     /*
      * for (int index = 0; index < nNodes; index++) { // set up the node to index mapping var name =
      * orderedNodes[index]; nodeIndex.put(name, index); // add name, index mapping to NodeIndex map
      * }
      */
-    var hyperPeriod = workLoad.getHyperPeriod();
-    for (int i = 0; i < hyperPeriod; i++) { // This loop makes sure the schedule is full up to the
-                                            // period and the channels entries are all initialized
+    var hyperPeriod = snapshot.getHyperPeriod();
+    for (int i = schedule.size(); i < hyperPeriod; i++) { // This loop makes sure the schedule is
+                                                          // full up to the period and the channels
+                                                          // entries are all initialized
       var newInstructionTimeSlot = new InstructionTimeSlot(nNodes, SLEEP_INSTRUCTION); // create a
                                                                                        // time slot
                                                                                        // for
@@ -187,31 +318,35 @@ public class Program implements SystemAttributes {
                                                                                        // initialized
                                                                                        // with a
                                                                                        // SLEEP_INSTRUCTION
-      schedule.add(newInstructionTimeSlot);
+      schedule.add(newInstructionTimeSlot);
+      nodeOccupancy.addSlot();
       channelsAvailable.addNewChannelSet();// initially, all channels are available in each time
                                            // slot
     }
-    // create an instance of the Warp DSL class for parsing instructions
-    var dsl = new WarpDSL();
-   
-    for (String flowName : prioritizedFlows) { // loop through all of the nodes in priority order
-      var nodesInFlow = workLoad.getNodesInFlow(flowName);
+    for (int flowPosition = firstFlow; flowPosition < prioritizedFlows.size(); flowPosition++) {
+      var flowName = prioritizedFlows.get(flowPosition); // loop through the flows in priority order
+      if (projectedNode != null) {
+        ((ProjectedSchedule) schedule).startFlow(flowPosition); // drop columns no flow needs
+      } else if (checkpoints != null) {
+        checkpoints.add(checkpoint(schedule, nTx));
+      }
+      var nodesInFlow = snapshot.getNodesInFlow(flowName);
       var nNodesInFlow = nodesInFlow.length;
       var e2eFlag = false; // default is to not use e2e to achieve E2E
       if (nTransmissions == 0) { // use nTx from flow.nTXperLink for realtimeHart and the linkTX
                                  // array otherwise
         e2eFlag = true; // need to meet e2e to hit E2E for flow
         if (realtimeHART) {
-          nTx = workLoad.getFlowTxAttemptsPerLink(flowName);
+          nTx = snapshot.getFlowTxAttemptsPerLink(flowName);
         } // else we will computer nTx from the linkTx array for the flow as we go
    
       } else {
         nTx = nTransmissions;
       }
       var snk = "";
-      var linkTxCosts = workLoad.getNumTxAttemptsPerLink(flowName);
+      var linkTxCosts = snapshot.getNumTxAttemptsPerLink(flowName);
       if (verbose) {
-        var totalCost = workLoad.getTotalTxAttemptsInFlow(flowName);
+        var totalCost = snapshot.getTotalTxAttemptsInFlow(flowName);
         var minCost = nNodesInFlow - 1; // nEdges in the flow is the minimum communication cost,
                                         // i.e., min nTx to go E2E with no errors
         System.out.printf(
@@ -225,13 +360,13 @@ public class Program implements SystemAttributes {
       var previousNodeInstruction = new Integer[nTx]; // set instruction location in schedule for
                                                       // previous slots to 0
       Arrays.fill(previousNodeInstruction, 0); // initialize locations to 0
-      var flowPhase = workLoad.getFlowPhase(flowName); // used to compute latency after done
+      var flowPhase = snapshot.getFlowPhase(flowName); // used to compute latency after done
                                                        // scheduling this flow
       var flowLastInstruction = flowPhase; // used to compute latency after done scheduling this
                                            // flow
-      var flowDeadline = workLoad.getFlowDeadline(flowName); // used to check schedulability for
+      var flowDeadline = snapshot.getFlowDeadline(flowName); // used to check schedulability for
                                                              // this flow
-      var flowPeriod = workLoad.getFlowPeriod(flowName);
+      var flowPeriod = snapshot.getFlowPeriod(flowName);
       var FlowSrcInstructionTimeSlot = flowPhase; // initialize the time at which the flow's src
                                                   // node can first transmit
       for (int instance = 0; instance < hyperPeriod / flowPeriod; instance++) {
@@ -258,7 +393,7 @@ public class Program implements SystemAttributes {
                                                       // flow meets desired reliability
             var instructionNodeName = currentNodeName; // name of node for which we write an
                                                        // instruction in its program
-            var priorSrcInstruction = UNKNOWN; // variable used to store and possibly update the
+            Instruction priorSrcInstruction = null; // variable used to store and possibly update the
                                                // priorSrcInstruction during optimization
             var priorSrcUpdated = false; // flag to indicate if priorSrcInstruction is updated or
                                          // not
@@ -293,14 +428,15 @@ public class Program implements SystemAttributes {
                                                                                                  // with
                                                                                                  // a
                                                                                                  // SLEEP_INSTRUCTION
-                schedule.add(newInstructionTimeSlot);
+                schedule.add(newInstructionTimeSlot);
+                nodeOccupancy.addSlot();
                 channelsAvailable.addNewChannelSet(); // need make sure we have channels available
                                                       // for all slots. instructionIndex may be >
                                                       // initialized size of array because of
                                                       // phases...
               }
             }
-            String channel = findNextAvailableChannel(schedule, instructionNodeName,
+            int channel = findNextAvailableChannel(schedule, instructionNodeName,
                 instructionIndex, nodeIndex.get(currentNodeName), nodeIndex.get(snk));
    
             // Now check if we have a valid channel. If not we need to find a new time slot further
@@ -311,7 +447,7 @@ public class Program implements SystemAttributes {
             // down the schedule.
             // So, initialize the search to start at the current slot and then increase by one each
             // time we loop if the current slot
-            while (channel.equals(UNKNOWN)) { // findNextAvailableChannel will return UNKNOWN if no
+            while (channel == Channels.NO_CHANNEL) { // findNextAvailableChannel returns NO_CHANNEL if no
                                               // channel was available. In that case, we need to
                                               // find a new slot for this instruction after the last
                                               // index found
@@ -335,7 +471,8 @@ public class Program implements SystemAttributes {
                                                                                                    // with
                                                                                                    // a
                                                                                                    // SLEEP_INSTRUCTION
-                  schedule.add(newInstructionTimeSlot);
+                  schedule.add(newInstructionTimeSlot);
+                  nodeOccupancy.addSlot();
                   channelsAvailable.addNewChannelSet(); // need make sure we have channels available
                                                         // for all slots. instructionIndex may be >
                                                         // initialized size of array because of
@@ -345,7 +482,7 @@ public class Program implements SystemAttributes {
               channel = findNextAvailableChannel(schedule, instructionNodeName, instructionIndex,
                   nodeIndex.get(currentNodeName), nodeIndex.get(snk));
             }
-            workLoad.setNodeChannel(instructionNodeName, Integer.valueOf(channel));
+            context.setNodeChannel(instructionNodeName, channel);
             if (realtimeHART) {
               newInstruction = pushInstruction(flowName, currentNodeName, snk, channel);
             } else {
@@ -356,7 +493,7 @@ public class Program implements SystemAttributes {
             if (optimizationRequested && instructionIndex > 0) {
               var priorInstructionTimeSlotArrayList = schedule.get(instructionIndex - 1);
               var priorInstructionTimeSlot = priorInstructionTimeSlotArrayList
-                  .toArray(new String[priorInstructionTimeSlotArrayList.size()]);
+                  .toArray(new Instruction[priorInstructionTimeSlotArrayList.size()]);
               var priorInstruction = priorInstructionTimeSlot[nodeIndex.get(snk)]; // get
                                                                                    // instruction
                                                                                    // scheduled for
@@ -364,10 +501,8 @@ public class Program implements SystemAttributes {
                                                                                    // in the prior
                                                                                    // time slot
               if (index == (nTx - 1)) {
-                String hasSubstring = String.format("if has(%s", flowName);
-                String elseSubString = "else pull(";
-                if (priorInstruction.contains(hasSubstring)
-                    && !priorInstruction.contains(elseSubString) && !realtimeHART) {
+                if (priorInstruction.hasGuardOn(flowName)
+                    && !priorInstruction.containsElse(Opcode.PULL) && !realtimeHART) {
                   // The sink node is not waiting, so add this instruction as an else to it
                   // Also need to make sure we haven't already combined a prior instruction by
                   // moving it to the else clause. May need a smater way to do this later...
@@ -376,14 +511,9 @@ public class Program implements SystemAttributes {
                   // get a new channel for that time slot and put back the channel we extraced from
                   // this time slot. And of course, clean up if any errors occur
                   // in the process
-                  var instructionParametersArrayList =
-                      dsl.getInstructionParameters(priorInstruction);
-                  var priorInstructionChannel = UNKNOWN;
-                  if (instructionParametersArrayList.size() == 1) {
-                    var instructionParameters = instructionParametersArrayList.get(0); // get a copy
-                                                                                       // of the
-                                                                                       // parameters
-                    priorInstructionChannel = instructionParameters.getChannel();
+                  var priorInstructionChannel = Channels.NO_CHANNEL;
+                  if (priorInstruction.numClauses() == 1) {
+                    priorInstructionChannel = priorInstruction.getChannel();
                   } else { // we just checked above that the prior instruction did not have an else
                            // pull, wait, or sleep. So, there should be only one instruction here
                     String msg = String.format(
@@ -391,22 +521,21 @@ public class Program implements SystemAttributes {
                         priorInstruction);
                     System.err.println(msg);
                   }
-                  workLoad.setNodeChannel(instructionNodeName,
-                      Integer.valueOf(priorInstructionChannel));
+                  context.setNodeChannel(instructionNodeName, priorInstructionChannel);
                   channelsAvailable.addChannel(instructionIndex, channel); // return channel for
                                                                            // this slot
                   channel = priorInstructionChannel; // update this so that the corresponding wait
                                                      // uses this channel
-                  newInstruction = priorInstruction + String.format("else pull(%s: %s -> %s, #%s)",
-                      flowName, currentNodeName, snk, priorInstructionChannel); // was channel
+                  newInstruction = priorInstruction.orElse(
+                      pullInstruction(flowName, currentNodeName, snk, priorInstructionChannel)); // was channel
                   instructionIndex -= 1; // set instructionIndex to the priorInstruction index so we
                                          // replace that slot with the new, optimized instruction
                   instructionNodeName = snk; // change currntNodeName to the snk node, which is the
                                              // node name of the prior instruction
                 }
               } else if ((flowNodeIndex == 0 && index == 0 && e2eFlag)
-                  && !(priorInstruction.contains(SLEEP_INSTRUCTION)
-                      || priorInstruction.contains(WAIT_FRAGMENT))) {
+                  && !(priorInstruction.contains(Opcode.SLEEP)
+                      || priorInstruction.contains(Opcode.WAIT))) {
                 // We hit this case when combining the last push of one flow with the first push of
                 // a new flow--making an if has (Fi) push(Fi) else pull pull(Fi+1)
                 // print ("Skipping optimization of combining \(priorInstruction) with
@@ -419,9 +548,9 @@ public class Program implements SystemAttributes {
               } else { // not sure when we hit this when combining a sleep or wait() from prior flow
                        // with a new instruction
                 // Anywhere else? :-) Probably better figure it out!!
-                if (!priorInstruction.contains(ELSE_PULL_FRAGMENT)
-                    && !priorInstruction.contains(WAIT_FRAGMENT)
-                    && !priorInstruction.contains(SLEEP_INSTRUCTION) && !realtimeHART) { // The sink
+                if (!priorInstruction.containsElse(Opcode.PULL)
+                    && !priorInstruction.contains(Opcode.WAIT)
+                    && !priorInstruction.contains(Opcode.SLEEP) && !realtimeHART) { // The sink
                                                                                          // node is
                                                                                          // not
                                                                                          // waiting,
@@ -433,16 +562,11 @@ public class Program implements SystemAttributes {
                                                                                          // it
                   // Also need to make sure we haven't already combined a prior instruction by
                   // moving it to the else clause. May need a smarter way to do this later...
-                  var instructionParametersArrayList =
-                      dsl.getInstructionParameters(priorInstruction);
-                  var priorInstructionChannel = UNKNOWN;
-                  var priorInstructionSnk = UNKNOWN;
-                  if (instructionParametersArrayList.size() == 1) {
-                    var instructionParameters = instructionParametersArrayList.get(0); // get a copy
-                                                                                       // of the
-                                                                                       // parameters
-                    priorInstructionSnk = instructionParameters.getSnk();
-                    priorInstructionChannel = instructionParameters.getChannel();
+                  var priorInstructionChannel = Channels.NO_CHANNEL;
+                  var priorInstructionSnk = UNKNOWN;
+                  if (priorInstruction.numClauses() == 1) {
+                    priorInstructionSnk = priorInstruction.getSnk();
+                    priorInstructionChannel = priorInstruction.getChannel();
                   } else { // we just checked above that the prior instruction did not have an else
                            // pull, wait, or sleep. So, there should be only one instruction here
                     String msg = String.format(
@@ -465,14 +589,14 @@ public class Program implements SystemAttributes {
                                                                      // to/from the same node, so
                                                                      // use the prior instruction
                                                                      // channel
-                    newInstruction = priorInstruction
-                        + elsePullClause(flowName, currentNodeName, snk, priorInstructionChannel);
+                    newInstruction = priorInstruction
+                        .orElse(pullInstruction(flowName, currentNodeName, snk, priorInstructionChannel));
                     instructionIndex -= 1; // set instructionIndex to the priorInstruction index so
                                            // we replace that slot with the new, optimized
                                            // instruction
                     instructionNodeName = snk; // change currntNodeName to the snk node, which is
                                                // the node name of the prior instruction
-                  } else if (priorSrcInstruction.contains(SLEEP_INSTRUCTION)) { // was
+                  } else if (priorSrcInstruction.contains(Opcode.SLEEP)) { // was
                                                                                 // !priorSrcInstruction.contains("wait(");
                                                                                 // I think it needs
                                                                                 // to be a sleep and
@@ -481,10 +605,9 @@ public class Program implements SystemAttributes {
                     // Make sure the currentNodeName entry for this time slot has a sleep. If so,
                     // then we combine instructions with new as an else push and add wait at
                     // currentNodeName
-                    workLoad.setNodeChannel(instructionNodeName,
-                        Integer.valueOf(priorInstructionChannel));
-                    newInstruction = priorInstruction
-                        + elsePullClause(flowName, currentNodeName, snk, priorInstructionChannel); // was
+                    context.setNodeChannel(instructionNodeName, priorInstructionChannel);
+                    newInstruction = priorInstruction
+                        .orElse(pullInstruction(flowName, currentNodeName, snk, priorInstructionChannel)); // was
                                                                                                    // channel
                     // need to change priorSrcInstruction from sleep to wait on channel
                     priorSrcInstruction = waitInstruction(priorInstructionChannel); // was channel
@@ -500,9 +623,9 @@ public class Program implements SystemAttributes {
                 }
               }
             }
-            ArrayList<String> currentInstructionTimeSlotArrayList; // =
+            ArrayList<Instruction> currentInstructionTimeSlotArrayList; // =
                                                                    // schedule.get(instructionIndex);
-            String[] currentInstructionTimeSlot; // =
+            Instruction[] currentInstructionTimeSlot; // =
                                                  // currentInstructionTimeSlotArrayList.toArray(new
                                                  // String[currentInstructionTimeSlotArrayList.size()]);
             currentNodeInstruction[index] = instructionIndex; // store the slot index for this
@@ -520,12 +643,12 @@ public class Program implements SystemAttributes {
                                                                                     // conflict
                                                                                     // channels
               currentInstructionTimeSlot = currentInstructionTimeSlotArrayList
-                  .toArray(new String[currentInstructionTimeSlotArrayList.size()]);
+                  .toArray(new Instruction[currentInstructionTimeSlotArrayList.size()]);
             } else {
               currentInstructionTimeSlotArrayList =
                   new InstructionTimeSlot(nNodes, SLEEP_INSTRUCTION);
               currentInstructionTimeSlot = currentInstructionTimeSlotArrayList
-                  .toArray(new String[currentInstructionTimeSlotArrayList.size()]);
+                  .toArray(new Instruction[currentInstructionTimeSlotArrayList.size()]);
             }
             currentInstructionTimeSlot[nodeIndex.get(instructionNodeName)] = newInstruction; // an
                                                                                              // error
@@ -569,9 +692,8 @@ public class Program implements SystemAttributes {
             if (flowNodeIndex > 0) {
               var priorNodeName = nodesInFlow[flowNodeIndex - 1];// get name of prior node in the
                                                                  // flow (aka predecessor)
-              var possibleCombineInstruction =
-                  String.format("if has(%1$s) push(%1$s: %2$s -> %3$s, #", flowName, priorNodeName,
-                      currentNodeName);
+              var possibleCombineInstruction = Instruction
+                  .push(flowName, priorNodeName, currentNodeName, Instruction.NO_CHANNEL).ifHas();
               if (optimizationRequested && !realtimeHART && nTx > 1) { // One more optimization
                                                                        // possible: combine two
                                                                        // conditional pushes at the
@@ -581,16 +703,11 @@ public class Program implements SystemAttributes {
                     currentInstructionTimeSlot[nodeIndex.get(priorNodeName)];
                 var instr = hasPushInstruction(flowName, currentNodeName, snk, channel);
                 if (newInstruction.equals(instr)
-                    && upstreamNodeInstruction.contains(possibleCombineInstruction)
-                    && !upstreamNodeInstruction.contains("else")) {
-                  var instructionParametersArrayList =
-                      dsl.getInstructionParameters(upstreamNodeInstruction);
-                  var upstreamNodeChannel = UNKNOWN;
-                  if (instructionParametersArrayList.size() == 1) {
-                    var instructionParameters = instructionParametersArrayList.get(0); // get a copy
-                                                                                       // of the
-                                                                                       // paramaters
-                    upstreamNodeChannel = instructionParameters.getChannel();
+                    && upstreamNodeInstruction.containsClauseOnAnyChannel(possibleCombineInstruction)
+                    && !upstreamNodeInstruction.hasElse()) {
+                  var upstreamNodeChannel = Channels.NO_CHANNEL;
+                  if (upstreamNodeInstruction.numClauses() == 1) {
+                    upstreamNodeChannel = upstreamNodeInstruction.getChannel();
                     // return upstreamNodeChannel to the available channels for this time slot
                     channelsAvailable.addChannel(instructionIndex, upstreamNodeChannel);
                   } else { // we just checked above that the prior instruction did not have an else
@@ -602,8 +719,8 @@ public class Program implements SystemAttributes {
                   }
                   // use the newInstruction channel in upstream instruction that is being combined
                   // and return the upstream channel to the available channel set
-                  newInstruction = newInstruction
-                      + elsePullClause(flowName, priorNodeName, currentNodeName, channel); // was
+                  newInstruction = newInstruction
+                      .orElse(pullInstruction(flowName, priorNodeName, currentNodeName, channel)); // was
                                                                                            // upstreamNodeChannel
                   currentInstructionTimeSlot[nodeIndex.get(instructionNodeName)] = newInstruction; // an
                                                                                                    // error
@@ -623,10 +740,10 @@ public class Program implements SystemAttributes {
                       waitInstruction(channel);; // an error finding the right location will result
                                                  // in location of snk or 0 // was
                                                  // upstreamNodeChannel
-                } else if (newInstruction
-                    .contains(elsePullClause(flowName, priorNodeName, currentNodeName, channel))
-                    && currentInstructionTimeSlot[nodeIndex.get(priorNodeName)]
-                        .contains(possibleCombineInstruction)) {
+                } else if (newInstruction
+                    .containsElseClause(pullInstruction(flowName, priorNodeName, currentNodeName, channel))
+                    && currentInstructionTimeSlot[nodeIndex.get(priorNodeName)]
+                        .containsClauseOnAnyChannel(possibleCombineInstruction)) {
                   currentInstructionTimeSlot[nodeIndex.get(priorNodeName)] =
                       waitInstruction(channel); // Replace combined instruction in prior node
                                                 // program with wait()
@@ -639,10 +756,9 @@ public class Program implements SystemAttributes {
                     currentInstructionTimeSlot[nodeIndex.get(priorNodeName)];
                 if (newInstruction
                     .equals(hasPushInstruction(flowName, currentNodeName, snk, channel))
-                    && upstreamNodeInstruction.contains(possibleCombineInstruction)) {
-                  String upstreamNodeChannel =
-                      getFirstChannelInInstruction(upstreamNodeInstruction);
-                  newInstruction = newInstruction + elseWaitInstruction(upstreamNodeChannel); // this
+                    && upstreamNodeInstruction.containsClauseOnAnyChannel(possibleCombineInstruction)) {
+                  int upstreamNodeChannel = getFirstChannelInInstruction(upstreamNodeInstruction);
+                  newInstruction = newInstruction.orElse(waitInstruction(upstreamNodeChannel)); // this
                                                                                               // node
                                                                                               // needs
                                                                                               // to
@@ -676,9 +792,11 @@ public class Program implements SystemAttributes {
             var timeSlot = new InstructionTimeSlot(currentInstructionTimeSlot);
             if (instructionIndex < schedule.size()) { // This should always be the case, but check
                                                       // anyway
-              schedule.set(instructionIndex, timeSlot);
-            } else {
-              schedule.add(timeSlot);
+              schedule.set(instructionIndex, timeSlot);
+              nodeOccupancy.setSlot(instructionIndex, timeSlot);
+            } else {
+              schedule.add(timeSlot);
+              nodeOccupancy.setSlot(schedule.size() - 1, timeSlot);
               String msg = String.format(
                   "ERROR: instructionIndex = %d > schedule length = %d. Appended instruction to avoid crash or throw...",
                   instructionIndex, schedule.size());
@@ -712,51 +830,261 @@ public class Program implements SystemAttributes {
         }
       }
     }
-    setSchedule(schedule); // store the schedule built
+    if (projectedNode != null) {
+      ((ProjectedSchedule) schedule).startFlow(prioritizedFlows.size());
+      checkpoints = null; // the other columns are gone, so a change rebuilds the program
+    } else if (checkpoints != null) {
+      checkpoints.add(checkpoint(schedule, nTx));
+    }
+    incremental = (projectedNode == null);
+    checkpointHyperPeriod = hyperPeriod;
+    checkpointNodes = snapshot.getNodeNamesOrderedAlphabetically();
+    setSchedule(schedule); // store the schedule built
      }
 
-  private String waitInstruction(String channel) {
-    var size = channel.length();
-    if (!Utilities.isInteger(channel)) {
-      System.out.println("channel length is " + String.valueOf(size));
-      System.err.println("ERROR: channel is not an Integer: " + channel);
-    }
-    return String.format("wait(#%s)", channel);
+  /*
+   * An empty schedule, or when a node is projected, one that drops each other node's column after
+   * the last flow through the node is scheduled.
+   */
+  private ProgramSchedule newSchedule() {
+    if (projectedNode == null) {
+      return new ProgramSchedule();
+    }
+    var nodeIndex = getNodeMapIndex();
+    var lastFlow = new int[nodeIndex.size()];
+    Arrays.fill(lastFlow, -1);
+    var prioritizedFlows = context.getFlowNamesInPriorityOrder();
+    for (int position = 0; position < prioritizedFlows.size(); position++) {
+      for (String node : snapshot.getNodesInFlow(prioritizedFlows.get(position))) {
+        lastFlow[nodeIndex.get(node)] = position;
+      }
+    }
+    return new ProjectedSchedule(nodeIndex.size(), nodeIndex.getOrDefault(projectedNode, -1),
+        lastFlow);
+  }
+
+  private FlowCheckpoint checkpoint(ProgramSchedule schedule, Integer nTx) {
+    return new FlowCheckpoint(schedule, channelsAvailable, nodeOccupancy, context, nTx,
+        deadlineMisses.size());
+     }
+
+  /*
+   * Called before the first workload change of a program that supports incremental updates. The
+   * unchanged program is built once more, keeping a checkpoint before each flow, so this change and
+   * the later ones only reschedule the flows they affect. Each checkpoint holds the schedule's rows
+   * and a copy of the channels and node occupancy of every slot so far, so from then on the program
+   * keeps O(flows x slots) memory for them.
+   */
+  private void startCheckpoints() {
+    if (supportsIncrementalUpdates() && checkpoints == null) {
+      checkpoints = new ArrayList<FlowCheckpoint>();
+      deadlineMisses.clear(); // found again by the build
+      buildProgram(SchedulerSelected);
+    }
      }
 
+  /* number of flow checkpoints the program keeps, which is 0 until the workload first changes */
+  int getNumCheckpoints() {
+    return (checkpoints == null) ? 0 : checkpoints.size();
+     }
 
-  private String elseWaitInstruction(String channel) {
-    var size = channel.length();
-    if (!Utilities.isInteger(channel)) {
-      System.err.println("ERROR: channel is not an Integer: " + channel);
-      System.err.println("\t channel size is not an Integer: " + String.valueOf(size));
-    }
-    return String.format(" else wait(#%s)", channel);
+  /*
+   * Restores the state saved in checkpoint, including the schedule rows when schedule is not null,
+   * and returns the nTx carried into the next flow.
+   */
+  private Integer restoreCheckpoint(FlowCheckpoint checkpoint, ProgramSchedule schedule) {
+    if (schedule != null) {
+      schedule.addAll(checkpoint.timeSlots);
+      channelsAvailable = new Channels(checkpoint.channels);
+      nodeOccupancy = new NodeOccupancy(checkpoint.occupancy);
+    }
+    context.setNodeChannels(checkpoint.nodeChannels);
+    if (deadlineMisses.size() > checkpoint.nDeadlineMisses) {
+      deadlineMisses.subList(checkpoint.nDeadlineMisses, deadlineMisses.size()).clear();
+    }
+    return checkpoint.nTx;
+     }
+
+  /*
+   * Gives the program its own copy of the workload before its first change, so the WorkLoad it was
+   * built from, and every other Program or WarpSystem built from that WorkLoad, stay unchanged.
+   */
+  private void copyWorkLoadBeforeChange() {
+    if (!ownsWorkLoad) {
+      workLoad = new WorkLoad(workLoad);
+      ownsWorkLoad = true;
+    }
+     }
+
+  /**
+   * Adds a flow to the workload and updates the program. With the priority, RM, DM and RealtimeHART
+   * schedulers only the new flow and the flows after it in priority order are scheduled again; the
+   * other schedulers rebuild the whole program.
+   * <p>
+   * The first change of a program copies its workload, so the change is seen through toWorkLoad()
+   * but not by the WorkLoad the program was built from or by other programs built from it. It also
+   * starts keeping a checkpoint per flow, which costs O(flows x slots) memory.
+   *
+   * @param flowName name of the new flow
+   * @param nodesInFlow nodes of the flow from src to snk
+   * @param priority flow priority, or null for the default (after all existing flows)
+   * @param period flow period, or null for the default
+   * @param deadline flow deadline, or null for the default
+   * @param phase flow phase, or null for the default
+   * @return the cells of the schedule that changed
+   */
+  public ProgramScheduleDiff addFlow(String flowName, String[] nodesInFlow, Integer priority,
+      Integer period, Integer deadline, Integer phase) {
+    if (workLoad.getFlows().containsKey(flowName) || nodesInFlow.length < 2) {
+      System.err.printf("ERROR: flow %s already exists or has fewer than 2 nodes; not added\n",
+          flowName);
+      return unchanged();
+    }
+    copyWorkLoadBeforeChange();
+    startCheckpoints();
+    var priorityOrder = new ArrayList<String>(context.getFlowNamesInPriorityOrder());
+    workLoad.addFlow(flowName);
+    if (priority != null) {
+      workLoad.setFlowPriority(flowName, priority);
+    }
+    if (period != null) {
+      workLoad.setFlowPeriod(flowName, period);
+    }
+    if (deadline != null) {
+      workLoad.setFlowDeadline(flowName, deadline);
+    }
+    if (phase != null) {
+      workLoad.setFlowPhase(flowName, phase);
+    }
+    for (String node : nodesInFlow) {
+      workLoad.addNodeToFlow(flowName, node);
+    }
+    workLoad.finalizeCurrentFlow(flowName);
+    return reschedule(priorityOrder, flowName);
+     }
+
+  /**
+   * Removes a flow from the workload and updates the program, rescheduling only the flows after it
+   * in priority order when the scheduler allows it. Nodes used only by the flow stay in the
+   * program and sleep. Like addFlow, the first change copies the workload and starts keeping
+   * checkpoints.
+   *
+   * @param flowName name of the flow to remove
+   * @return the cells of the schedule that changed
+   */
+  public ProgramScheduleDiff removeFlow(String flowName) {
+    if (workLoad.getFlows().containsKey(flowName)) {
+      copyWorkLoadBeforeChange();
+      startCheckpoints();
+    }
+    var priorityOrder = new ArrayList<String>(context.getFlowNamesInPriorityOrder());
+    if (!workLoad.removeFlow(flowName)) {
+      return unchanged();
+    }
+    return reschedule(priorityOrder, null);
      }
 
-  private String elsePullClause(String flow, String src, String snk, String channel) {
-    return String.format(" else pull(%s: %s -> %s, #%s)", flow, src, snk, channel);
+  /**
+   * Changes the period and/or deadline of a flow and updates the program, rescheduling from the
+   * first flow whose position in priority order or parameters changed. Like addFlow, the first
+   * change copies the workload and starts keeping checkpoints.
+   *
+   * @param flowName name of the flow to change
+   * @param period new period, or null to keep the current one
+   * @param deadline new deadline, or null to keep the current one
+   * @return the cells of the schedule that changed
+   */
+  public ProgramScheduleDiff changeFlow(String flowName, Integer period, Integer deadline) {
+    if (!workLoad.getFlows().containsKey(flowName)) {
+      System.err.printf("ERROR: flow %s does not exist; not changed\n", flowName);
+      return unchanged();
+    }
+    copyWorkLoadBeforeChange();
+    startCheckpoints();
+    var priorityOrder = new ArrayList<String>(context.getFlowNamesInPriorityOrder());
+    if (period != null) {
+      workLoad.setFlowPeriod(flowName, period);
+    }
+    if (deadline != null) {
+      workLoad.setFlowDeadline(flowName, deadline);
+    }
+    return reschedule(priorityOrder, flowName);
+     }
+
+  /**
+   * @return true if workload changes reschedule only the affected flows
+   */
+  public Boolean supportsIncrementalUpdates() {
+    return incremental;
+     }
+
+  /*
+   * Rebuilds the program after a workload change. oldOrder is the priority order before the change
+   * and changedFlow is a flow whose parameters changed, or null.
+   */
+  private ProgramScheduleDiff reschedule(List<String> oldOrder, String changedFlow) {
+    var oldSchedule = getSchedule();
+    var oldNodes = (checkpointNodes != null) ? checkpointNodes
+        : snapshot.getNodeNamesOrderedAlphabetically();
+    if (!supportsIncrementalUpdates()) {
+      buildProgram(SchedulerSelected);
+      var nFlows = context.getFlowNamesInPriorityOrder().size();
+      return new ProgramScheduleDiff(oldSchedule, oldNodes, getSchedule(),
+          snapshot.getNodeNamesOrderedAlphabetically(), 0, nFlows);
+    }
+    newSchedulerContext();
+    setScheduleSelected(SchedulerSelected); // sort the flows again
+    var newOrder = context.getFlowNamesInPriorityOrder();
+    var firstFlow = 0;
+    while (firstFlow < oldOrder.size() && firstFlow < newOrder.size()
+        && oldOrder.get(firstFlow).equals(newOrder.get(firstFlow))) {
+      firstFlow++; // flows before the first difference are scheduled exactly as before
+    }
+    if (changedFlow != null && newOrder.contains(changedFlow)) {
+      firstFlow = Math.min(firstFlow, newOrder.indexOf(changedFlow));
+    }
+    if (!snapshot.getHyperPeriod().equals(checkpointHyperPeriod)
+        || !Arrays.equals(snapshot.getNodeNamesOrderedAlphabetically(), checkpointNodes)) {
+      firstFlow = 0; // the schedule length or its columns change, so start over
+    }
+    buildOriginalProgram(firstFlow);
+    return new ProgramScheduleDiff(oldSchedule, oldNodes, getSchedule(), checkpointNodes,
+        firstFlow, newOrder.size() - firstFlow);
+     }
+
+  private ProgramScheduleDiff unchanged() {
+    var nodes = snapshot.getNodeNamesOrderedAlphabetically();
+    var nFlows = context.getFlowNamesInPriorityOrder().size();
+    return new ProgramScheduleDiff(getSchedule(), nodes, getSchedule(), nodes, nFlows, 0);
+     }
+
+  private Instruction waitInstruction(int channel) {
+    if (channel < 0) {
+      System.err.println("ERROR: channel is not valid: " + channel);
+      return Instruction.waitOn(Instruction.NO_CHANNEL);
+    }
+    return Instruction.waitOn(channel);
      }
 
-  private String hasPushInstruction(String flow, String src, String snk, String channel) {
-    return String.format("if has(%1$s) push(%1$s: %2$s -> %3$s, #%4$s)", flow, src, snk, channel);
+  private Instruction pullInstruction(String flow, String src, String snk, int channel) {
+    return Instruction.pull(flow, src, snk, channel);
      }
 
-  private String pushInstruction(String flow, String src, String snk, String channel) {
-    return String.format("push(%1$s: %2$s -> %3$s, #%4$s)", flow, src, snk, channel);
+  private Instruction hasPushInstruction(String flow, String src, String snk, int channel) {
+    return Instruction.push(flow, src, snk, channel).ifHas();
      }
 
-  private String getFirstChannelInInstruction(String Instruction) {
-    var beginIndex = Instruction.indexOf('#') + 1; // get index of the start of the channel #
-    var endIndex = Instruction.indexOf(')', beginIndex); // get index of the last character of the
-                                                         // channel #
-    var channel = Instruction.substring(beginIndex, endIndex); // this substring has the 1st channel
-    return channel;
+  private Instruction pushInstruction(String flow, String src, String snk, int channel) {
+    return Instruction.push(flow, src, snk, channel);
+     }
+
+  private int getFirstChannelInInstruction(Instruction instruction) {
+    return instruction.firstChannel(); // channel of the 1st clause that has one
      }
 
   private Integer findNextAvailableInstructionTimeSlot(ProgramSchedule schedule,
       Integer startLocation, Integer nodeInFlow, Integer transIndex, Integer nTx,
-      Integer[] previousNodeInstruction, Integer[] currentNodeInstruction, String sleepInstruction,
+      Integer[] previousNodeInstruction, Integer[] currentNodeInstruction, Instruction sleepInstruction,
       Boolean realtimeHART, Boolean optimizationRequested, Integer srcNodeIndex,
       Integer snkNodeIndex) {
     var currentTime = startLocation; // Make sure we don't start looking before the starting
@@ -772,18 +1100,10 @@ public class Program implements SystemAttributes {
                                                                                      // instruction
                                                                                      // we inserted
     }
-    var done = false; // Flag indicating time slot search is done
     if (realtimeHART || (nTx == 1 || nodeInFlow == 0 || transIndex >= nTx - 1)) {
       // do the same thing for all nodes when nTx == 1 as for first node of flow when nTx == 1 and
       // for kth retry
-      while (currentTime < schedule.size() && !done) {
-        var currentInstructionTimeSlot = schedule.get(currentTime);
-        if (slotIsAvailable(currentInstructionTimeSlot, srcNodeIndex, snkNodeIndex)) {
-          done = true;
-        } else {
-          currentTime += 1;
-        }
-      }
+      currentTime = nodeOccupancy.nextFreeSlot(currentTime, srcNodeIndex, snkNodeIndex);
     } else { // !reatimeHART and (nTx > 1 and nodeInFlow > 0)
       Integer slotOffsetFromLastPreviousInstructionEntry;
       if (transIndex >= (previousNodeInstruction.length - 1)) {
@@ -800,53 +1120,13 @@ public class Program implements SystemAttributes {
           // unavailability)
           currentTime = possibleInstructionTimeSlotIndex; // OK to update to this time slot index
         }
-        done = false; // However, we need to check if the current slot is available, and if not keep
-                      // searching until we find one. This happens with preemptions
+        // However, we need to check if the current slot is available, and if not keep searching
+        // until we find one. This happens with preemptions
         if (!optimizationRequested) {
-          while (currentTime < schedule.size() && !done) {
-            var currentInstructionTimeSlot = schedule.get(currentTime);
-            if (slotIsAvailable(currentInstructionTimeSlot, srcNodeIndex, snkNodeIndex)) { // get
-                                                                                           // the
-                                                                                           // proposed
-                                                                                           // currentInstructionTimeSlot.
-                                                                                           // If
-                                                                                           // available,
-                                                                                           // done
-                                                                                           // is
-                                                                                           // true,
-                                                                                           // else
-                                                                                           // keep
-                                                                                           // checking
-                                                                                           // for a
-                                                                                           // time
-              done = true;
-            } else {
-              currentTime += 1;
-            }
-          }
+          currentTime = nodeOccupancy.nextFreeSlot(currentTime, srcNodeIndex, snkNodeIndex);
         } else {
           // do something to support the optimization
-          while (currentTime < schedule.size() && !done) {
-            var currentInstructionTimeSlot = schedule.get(currentTime);
-            if (slotIsAvailable(currentInstructionTimeSlot, srcNodeIndex, snkNodeIndex)) { // get
-                                                                                           // the
-                                                                                           // proposed
-                                                                                           // currentInstructionTimeSlot.
-                                                                                           // If
-                                                                                           // available,
-                                                                                           // done
-                                                                                           // is
-                                                                                           // true,
-                                                                                           // else
-                                                                                           // keep
-                                                                                           // checking
-                                                                                           // for a
-                                                                                           // time
-              done = true;
-            } else {
-              currentTime += 1;
-            }
-          }
+          currentTime = nodeOccupancy.nextFreeSlot(currentTime, srcNodeIndex, snkNodeIndex);
         }
       } else {
         var possibleInstructionTimeSlotIndex = previousNodeInstruction[transIndex + 1]; // same as
@@ -862,30 +1142,10 @@ public class Program implements SystemAttributes {
           // unavailability)
           currentTime = possibleInstructionTimeSlotIndex; //
         }
-        done = false; // However, we need to check if the current slot is available, and if not keep
-                      // searching until we find one. This happens with preemptions
+        // However, we need to check if the current slot is available, and if not keep searching
+        // until we find one. This happens with preemptions
         if (!optimizationRequested) {
-          while (currentTime < schedule.size() && !done) {
-            var currentInstructionTimeSlot = schedule.get(currentTime);
-            if (slotIsAvailable(currentInstructionTimeSlot, srcNodeIndex, snkNodeIndex)) { // get
-                                                                                           // the
-                                                                                           // proposed
-                                                                                           // currentInstructionTimeSlot.
-                                                                                           // If
-                                                                                           // available,
-                                                                                           // done
-                                                                                           // is
-                                                                                           // true,
-                                                                                           // else
-                                                                                           // keep
-                                                                                           // checking
-                                                                                           // for a
-                                                                                           // time
-              done = true;
-            } else {
-              currentTime += 1;
-            }
-          }
+          currentTime = nodeOccupancy.nextFreeSlot(currentTime, srcNodeIndex, snkNodeIndex);
         } else {
           // do something to support the optimization
           if (currentTime < schedule.size()) { // First make sure we haven't exceeded the current
@@ -894,7 +1154,7 @@ public class Program implements SystemAttributes {
             var tmpInstructionTimeSlot = schedule.get(currentTime);
             var srcInstruction = tmpInstructionTimeSlot.get(srcNodeIndex);
             var snkInstruction = tmpInstructionTimeSlot.get(snkNodeIndex);
-            if (!srcInstruction.contains("wait(") || !snkInstruction.contains("sleep")) { // instruction
+            if (!srcInstruction.contains(Opcode.WAIT) || !snkInstruction.contains(Opcode.SLEEP)) { // instruction
                                                                                           // should
                                                                                           // contain
                                                                                           // a wait,
@@ -914,29 +1174,8 @@ public class Program implements SystemAttributes {
                                                                                           // point
               // we also need to be sure the snk is sleeping
               // If either condition is not true, then we need to find another time slot
-              while (currentTime < schedule.size() && !done) {
-                var currentInstructionTimeSlot = schedule.get(currentTime);
-                if (slotIsAvailable(currentInstructionTimeSlot, srcNodeIndex, snkNodeIndex)) { // get
-                                                                                               // the
-                                                                                               // proposed
-                                                                                               // currentInstructionTimeSlot.
-                                                                                               // If
-                                                                                               // available,
-                                                                                               // done
-                                                                                               // is
-                                                                                               // true,
-                                                                                               // else
-                                                                                               // keep
-                                                                                               // checking
-                                                                                               // for
-                                                                                               // a
-                                                                                               // time
-                  done = true;
-                } else {
-                  currentTime += 1;
-                }
-              }
-            } else if (srcInstruction.contains("else(")) { // This should never be the case, but not
+              currentTime = nodeOccupancy.nextFreeSlot(currentTime, srcNodeIndex, snkNodeIndex);
+            } else if (srcInstruction.hasElse()) { // This should never be the case, but not
                                                            // sure if it is bad...print an error
                                                            // indicating the issue
               var errorString = String.format(
@@ -954,103 +1193,31 @@ public class Program implements SystemAttributes {
     return currentTime;
      }
 
-  private Boolean slotIsAvailable(InstructionTimeSlot currentInstructionTimeSlot,
-      Integer srcNodeIndex, Integer snkNodeIndex) {
-    var vacantSlot = false; // assume slot is not vacant ----// Flag indicating time slot search is
-                            // done
-    if (SLEEP_INSTRUCTION.equals(currentInstructionTimeSlot.get(srcNodeIndex))
-        && SLEEP_INSTRUCTION.equals(currentInstructionTimeSlot.get(snkNodeIndex))) { // src and snk
-                                                                                     // are both
-                                                                                     // sleeping, so
-                                                                                     // slot is
-                                                                                     // available
-      vacantSlot = true;
-    }
-    return vacantSlot;
-     }
-
-  private String findNextAvailableChannel(ProgramSchedule schedule, String nodeName,
+  private int findNextAvailableChannel(ProgramSchedule schedule, String nodeName,
       Integer currentTime, Integer srcNodeIndex, Integer snkNodeIndex) {
 
-    var newChannel = UNKNOWN; // indicates no channel was available. The caller will need to check
-                              // this result
-   
-    // create an instance of the Warp DSL class for parsing instructions
-    var dsl = new WarpDSL();
-    InstructionTimeSlot priorInstructionTimeSlot;
-   
-    var channels = channelsAvailable.getChannelSet(currentTime);
-    if (currentTime > 0) { // get the prior schedule time slot to see what channels were used in
-                           // that slot, which have to be avoided here
-      Integer priorTime = currentTime - 1;
-      priorInstructionTimeSlot = schedule.get(priorTime); // get a copy of the prior time slot
-      var srcPriorInstruction = priorInstructionTimeSlot.get(srcNodeIndex);
-      var snkPriorInstruction = priorInstructionTimeSlot.get(snkNodeIndex);
-   
-      // extract the channels used by the src and snk nodes in the prior time slot and store them in
-      // an array
-      var instructionParametersArrayList = dsl.getInstructionParameters(srcPriorInstruction); // get
-                                                                                              // the
-                                                                                              // parameters
-                                                                                              // from
-                                                                                              // the
-                                                                                              // instruction
-                                                                                              // in
-                                                                                              // the
-                                                                                              // src
-                                                                                              // node's
-                                                                                              // prior
-                                                                                              // time
-                                                                                              // slot
-      for (int i = 0; i < instructionParametersArrayList.size(); i++) {
-        var instructionParameters = instructionParametersArrayList.get(i); // get a copy of the
-                                                                           // paramaters
-        channels.remove(instructionParameters.getChannel());
-      }
-      instructionParametersArrayList = dsl.getInstructionParameters(snkPriorInstruction); // get the
-                                                                                          // parameters
-                                                                                          // from
-                                                                                          // the
-                                                                                          // instruction
-                                                                                          // in the
-                                                                                          // snk
-                                                                                          // node's
-                                                                                          // prior
-                                                                                          // time
-                                                                                          // slot
-      for (int i = 0; i < instructionParametersArrayList.size(); i++) {
-        var instructionParameters = instructionParametersArrayList.get(i); // get a copy of the
-                                                                           // paramaters
-        channels.remove(instructionParameters.getChannel());
-      }
-    }
-    Integer channel = workLoad.getNodeChannel(nodeName); // get the last used channel for the node
-    channel++; // increment the channel because we don't use the same channel in consecutive time
-               // slots for the same node
-    if (channel >= getNumChannels()) { // valid range is 0..NumChannels-1. Reset when channel hits
-                                       // max
-      channel = 0;
-    }
-    var channelFound = false;
-    while (!channelFound && !channels.isEmpty()) { // loop until a channel is found or we run out of
-                                                   // channels to assign
-      var channelString = String.valueOf(channel);
-      var channelRemoved = channels.remove(channelString);
-      if (channelRemoved) {
-        // newChannel has the channel
-        newChannel = channelString;
-        channelFound = true;
-      } else {
-        // try another channel
-        channel += 1;
-        if (channel >= getNumChannels()) { // valid range is 0..NumChannels-1. Reset when channel
-                                           // hits max
-          channel = 0;
-        }
-      }
-    }
-    return newChannel; // returns UNKNOWN to indicate no channel found. This should never happen.
-     }
+    Arrays.fill(excludedChannels, 0L);
+    if (currentTime > 0) { // get the prior schedule time slot to see what channels were used in
+                           // that slot, which have to be avoided here
+      Integer priorTime = currentTime - 1;
+      var priorInstructionTimeSlot = schedule.get(priorTime);
+      var srcPriorInstruction = priorInstructionTimeSlot.get(srcNodeIndex);
+      var snkPriorInstruction = priorInstructionTimeSlot.get(snkNodeIndex);
+
+      // exclude the channels used by the src and snk nodes in the prior time slot
+      for (Instruction i = srcPriorInstruction; i != null; i = i.getElse()) {
+        Channels.setChannel(excludedChannels, i.getChannel());
+      }
+      for (Instruction i = snkPriorInstruction; i != null; i = i.getElse()) {
+        Channels.setChannel(excludedChannels, i.getChannel());
+      }
+    }
+    // start after the last used channel for the node because we don't use the same channel in
+    // consecutive time slots for the same node. Channels wraps back to 0 when it hits max.
+    var channel = context.getNodeChannel(nodeName) + 1;
+    // returns NO_CHANNEL to indicate no channel found. This should never happen.
+    return channelsAvailable.nextAvailableChannel(currentTime, channel, excludedChannels);
+  }
 
   public void selectPriority() {
     setScheduleSelected(ScheduleChoices.PRIORITY);
@@ -1073,75 +1240,62 @@ public class Program implements SystemAttributes {
       case PRIORITY:
         schedulerName = "Priority";
         schChoice = "-Priority";
-        workLoad.setFlowsInPriorityOrder();
         break;
       case RM:
         schedulerName = "RateMonotonic";
         schChoice = "-RM";
-        workLoad.setFlowsInRMorder();
         break;
       case DM:
         schedulerName = "DeadlineMonotonic";
         schChoice = "-DM";
-        workLoad.setFlowsInDMorder();
         break;
       case RTHART:
         schedulerName = "RealtimeHART";
         schChoice = "-RealTimeHART";
-        workLoad.setFlowsInRealTimeHARTorder();
         setRealTimeHartFlag(true);
         break;
       case CONNECTIVITY_POSET_DM:
         schedulerName = "ConnectivityPosetDM";
         schChoice = "-CPdm";
-        workLoad.setFlowsInDMorder();
         break;
       case CONNECTIVITY_POSET_PRIORITY:
         schedulerName = "ConnectivityPoset";
         schChoice = "-CPoset";
-        workLoad.setFlowsInPriorityOrder();
         break;
       case CONNECTIVITY_POSET_RM:
         schedulerName = "ConnectivityPosetRM";
         schChoice = "-CPrm";
-        workLoad.setFlowsInRMorder();
         break;
       case POSET_DM:
         schedulerName = "PosetDM";
         schChoice = "-PosetDM";
-        workLoad.setFlowsInDMorder();
         break;
       case POSET_PRIORITY:
         schedulerName = "Poset";
         schChoice = "-Poset";
-        workLoad.setFlowsInPriorityOrder();
         break;
       case POSET_RM:
         schedulerName = "PosetRM";
         schChoice = "-PosetDM";
-        workLoad.setFlowsInRMorder();
         break;
       case WARP_POSET_DM:
         schedulerName = "WarpPosetDM";
         schChoice = "-WPdm";
-        workLoad.setFlowsInDMorder();
         break;
       case WARP_POSET_PRIORITY:
         schedulerName = "WarpPoset";
         schChoice = "-WarpPoset";
-        workLoad.setFlowsInPriorityOrder();
         break;
       case WARP_POSET_RM:
         schedulerName = "WarpPosetRM";
         schChoice = "-WPrm";
-        workLoad.setFlowsInRMorder();
         break;
       default:
         schedulerName = "Priority";
         schChoice = "-Priority";
-        workLoad.setFlowsInPriorityOrder();
         break;
     }
+    context.setFlowOrder(choice);
     SchedulerSelected = choice;
      }
 
@@ -1158,6 +1312,14 @@ public class Program implements SystemAttributes {
     return scheduleBuilt;
      }
 
+  /**
+   * @return the channel by time slot table a poset scheduler built the program from, or null
+   *         when the program was built by one of the original schedulers
+   */
+  public ScheduleTable getPosetSchedule() {
+    return posetSchedule;
+  }
+
   @Override
   public String getSchedulerName() {
     return schedulerName;
@@ -1187,17 +1349,17 @@ public class Program implements SystemAttributes {
 
   @Override
   public Double getMinPacketReceptionRate() {
-    return workLoad.getMinPacketReceptionRate();
+    return snapshot.getMinPacketReceptionRate();
      }
 
   @Override
   public Double getE2e() {
-    return workLoad.getE2e();
+    return snapshot.getE2e();
      }
 
   @Override
   public String getName() {
-    return workLoad.getName();
+    return snapshot.getName();
      }
 
   @Override
@@ -1211,7 +1373,7 @@ public class Program implements SystemAttributes {
 
   @Override
   public Integer getNumFaults() {
-    return workLoad.getNumFaults();
+    return snapshot.getNumFaults();
      }
 
   /**
@@ -1221,7 +1383,7 @@ public class Program implements SystemAttributes {
  *    * @return HashMap of (node name, index) <br>
    */
   public HashMap<String, Integer> getNodeMapIndex() {
-    var orderedNodes = workLoad.getNodeNamesOrderedAlphabetically(); // create an array of node
+    var orderedNodes = snapshot.getNodeNamesOrderedAlphabetically(); // create an array of node
                                                                      // names
     // sorted alphabetically
     var nodeIndexMap = new HashMap<String, Integer>(); // create a new mapping from node names to
@@ -0,0 +1,333 @@
+package edu.uiowa.cs.warp;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.concurrent.atomic.AtomicInteger;
+import edu.uiowa.cs.warp.SystemAttributes.ScheduleChoices;
+
+/**
+ * Directory of programs already synthesized, so a run with the same workload and scheduling
+ * parameters as an earlier run reads its program back instead of scheduling it again.
+ * <p>
+ * An entry is keyed by the SHA-256 of everything the scheduler reads, which is the workload
+ * snapshot as WorkLoadSnapshot.writeTo writes it (including M, E2E and the number of faults), the
+ * number of channels, the scheduler and KEY_VERSION. The workload name is left out, since it does
+ * not change the program. The entry is the file <code>key.wpc</code>. It holds a header with the
+ * key and the SHA-256 of the rest of the file, then the program's deadline misses and the program
+ * in the BinaryProgram format. An entry with a wrong header or checksum is reported on System.err
+ * and deleted, and the program is built again.
+ * <p>
+ * Entries are written to a temporary file and then renamed, so runs sharing a directory never see
+ * a partly written entry. Reading an entry updates its modification time, and when the entries
+ * take more than the maximum size the least recently used are deleted. Temporary files count
+ * toward the size too, and one left for longer than TEMPORARY_LIFETIME_MILLIS by a run that
+ * stopped while writing it is deleted the next time an entry is written.
+ * <p>
+ * Only the programs of the priority, RM, DM and RealtimeHART schedulers are cached. The poset
+ * schedulers also keep the activation table they built the program from, which the format does
+ * not hold, so their programs are always built. A program read from the cache can't be updated
+ * incrementally; a workload change rebuilds it.
+ *
+ * @version 1.0
+ */
+public class ProgramCache {
+
+  /** Default maximum size of the entries in a cache directory, in bytes */
+  public static final long DEFAULT_MAX_BYTES = 256L << 20;
+  /** File name extension of cache entries */
+  public static final String SUFFIX = ".wpc";
+  /** Time after which a temporary file no run has renamed to an entry is deleted, in ms */
+  public static final long TEMPORARY_LIFETIME_MILLIS = 10L * 60 * 1000;
+  private static final String TEMPORARY_SUFFIX = ".tmp";
+  /* increase whenever a scheduler changes the programs it builds, so older entries are not used */
+  static final int KEY_VERSION = 1;
+  static final int ENTRY_MAGIC = 0x57504345; // "WPCE"
+  static final short ENTRY_VERSION = 1;
+  private static final int HASH_BYTES = 32;
+  private static final int HEADER_SIZE = Integer.BYTES + Short.BYTES + 2 * HASH_BYTES;
+
+  private final Path directory;
+  private final long maxBytes;
+  private final AtomicInteger hits = new AtomicInteger();
+  private final AtomicInteger misses = new AtomicInteger();
+
+  public ProgramCache(String directory) {
+    this(directory, DEFAULT_MAX_BYTES);
+  }
+
+  /**
+   * @param directory where entries are kept; it is created when the first entry is written
+   * @param maxBytes size the entries are kept under
+   */
+  public ProgramCache(String directory, long maxBytes) {
+    this.directory = Path.of(directory);
+    this.maxBytes = maxBytes;
+  }
+
+  /**
+   * @return the program choice builds for workLoad, read from the cache when it holds it, or
+   *         built and added to the cache
+   */
+  public Program getProgram(WorkLoad workLoad, Integer nChannels, ScheduleChoices choice) {
+    if (!isCached(choice)) {
+      return new Program(workLoad, nChannels, choice);
+    }
+    var key = key(workLoad.snapshot(), nChannels, choice);
+    var program = read(key, workLoad, nChannels, choice);
+    if (program != null) {
+      hits.incrementAndGet();
+      return program;
+    }
+    misses.incrementAndGet();
+    program = new Program(workLoad, nChannels, choice);
+    write(key, program);
+    return program;
+  }
+
+  public String getDirectory() {
+    return directory.toString();
+  }
+
+  /**
+   * @return number of programs read from the cache
+   */
+  public int getNumHits() {
+    return hits.get();
+  }
+
+  /**
+   * @return number of programs built and added to the cache
+   */
+  public int getNumMisses() {
+    return misses.get();
+  }
+
+  /**
+   * @return the file of the entry for the program choice builds for workLoad; it may not exist
+   */
+  public Path getEntry(WorkLoad workLoad, Integer nChannels, ScheduleChoices choice) {
+    return entry(key(workLoad.snapshot(), nChannels, choice));
+  }
+
+  static boolean isCached(ScheduleChoices choice) {
+    switch (choice) {
+      case PRIORITY: // fall through
+      case RM: // fall through
+      case DM: // fall through
+      case RTHART:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  static byte[] key(WorkLoadSnapshot snapshot, Integer nChannels, ScheduleChoices choice) {
+    var digest = sha256();
+    try (var out = new DataOutputStream(
+        new DigestOutputStream(OutputStream.nullOutputStream(), digest))) {
+      out.writeInt(KEY_VERSION);
+      out.writeShort(BinaryProgram.VERSION);
+      snapshot.writeTo(out);
+      out.writeInt(nChannels);
+      out.writeUTF(choice.name());
+    } catch (IOException e) {
+      throw new IllegalStateException(e); // the stream writes nowhere, so it never fails
+    }
+    return digest.digest();
+  }
+
+  private Path entry(byte[] key) {
+    return directory.resolve(HexFormat.of().formatHex(key) + SUFFIX);
+  }
+
+  /* the program in key's entry, or null if there is none or it is damaged */
+  private Program read(byte[] key, WorkLoad workLoad, Integer nChannels, ScheduleChoices choice) {
+    var file = entry(key);
+    if (!Files.isRegularFile(file)) {
+      return null;
+    }
+    String error;
+    try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      var program = decode(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), key,
+          workLoad, nChannels, choice);
+      Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+      return program;
+    } catch (NoSuchFileException e) {
+      return null; // another run evicted it
+    } catch (IOException | IllegalStateException e) {
+      error = e.getMessage(); // a damaged cell, when the checksum does not catch it
+    } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+      error = "truncated entry";
+    }
+    System.err.println("Error on reading program cache entry " + file + ": " + error
+        + "; the program is built again");
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      // left for the next write of the entry to replace
+    }
+    return null;
+  }
+
+  private static Program decode(ByteBuffer buffer, byte[] key, WorkLoad workLoad,
+      Integer nChannels, ScheduleChoices choice) throws IOException {
+    if (buffer.limit() < HEADER_SIZE || buffer.getInt() != ENTRY_MAGIC
+        || buffer.getShort() != ENTRY_VERSION) {
+      throw new IOException("not a program cache entry");
+    }
+    var entryKey = new byte[HASH_BYTES];
+    buffer.get(entryKey);
+    if (!Arrays.equals(key, entryKey)) {
+      throw new IOException("entry has another key");
+    }
+    var checksum = new byte[HASH_BYTES];
+    buffer.get(checksum);
+    var digest = sha256();
+    digest.update(buffer.duplicate());
+    if (!MessageDigest.isEqual(checksum, digest.digest())) {
+      throw new IOException("checksum does not match");
+    }
+    var deadlineMisses = new ArrayList<String>();
+    var numMisses = buffer.getInt();
+    for (int i = 0; i < numMisses; i++) {
+      var bytes = new byte[buffer.getInt()];
+      buffer.get(bytes);
+      deadlineMisses.add(new String(bytes, StandardCharsets.UTF_8));
+    }
+    var mapped = new MappedProgram(buffer.slice());
+    return new Program(workLoad, nChannels, choice, mapped.toProgramSchedule(), deadlineMisses);
+  }
+
+  private void write(byte[] key, Program program) {
+    var file = entry(key);
+    Path temporary = null;
+    try {
+      var payload = new ByteArrayOutputStream();
+      var out = new DataOutputStream(payload);
+      var deadlineMisses = program.deadlineMisses();
+      out.writeInt(deadlineMisses.size());
+      for (String miss : deadlineMisses) {
+        var bytes = miss.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+      }
+      out.flush();
+      new BinaryProgram(program).write(Channels.newChannel(payload));
+      var bytes = payload.toByteArray();
+      var header = ByteBuffer.allocate(HEADER_SIZE);
+      header.putInt(ENTRY_MAGIC);
+      header.putShort(ENTRY_VERSION);
+      header.put(key);
+      header.put(sha256().digest(bytes));
+      header.flip();
+
+      Files.createDirectories(directory);
+      temporary = Files.createTempFile(directory, file.getFileName().toString(),
+          TEMPORARY_SUFFIX);
+      try (var channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+        for (ByteBuffer buffer : new ByteBuffer[] {header, ByteBuffer.wrap(bytes)}) {
+          while (buffer.hasRemaining()) {
+            channel.write(buffer);
+          }
+        }
+      }
+      try {
+        Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE,
+            StandardCopyOption.REPLACE_EXISTING);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+      }
+      temporary = null;
+      evict(file);
+    } catch (IOException e) {
+      System.err.println("Error on writing program cache entry " + file + ": " + e.getMessage());
+    } finally {
+      if (temporary != null) {
+        try {
+          Files.deleteIfExists(temporary);
+        } catch (IOException e) {
+          // nothing else to do
+        }
+      }
+    }
+  }
+
+  /*
+   * deletes stale temporary files, then the least recently used entries other than keep until the
+   * entries and the temporary files still being written fit in maxBytes
+   */
+  private void evict(Path keep) throws IOException {
+    var entries = new ArrayList<Entry>();
+    var total = 0L;
+    var staleBefore = System.currentTimeMillis() - TEMPORARY_LIFETIME_MILLIS;
+    var glob = "*{" + SUFFIX + "," + SUFFIX + "*" + TEMPORARY_SUFFIX + "}";
+    try (var stream = Files.newDirectoryStream(directory, glob)) {
+      for (Path path : stream) {
+        try {
+          var attributes = Files.readAttributes(path, BasicFileAttributes.class);
+          if (!path.getFileName().toString().endsWith(TEMPORARY_SUFFIX)) {
+            entries.add(new Entry(path, attributes.size(), attributes.lastModifiedTime()));
+          } else if (attributes.lastModifiedTime().toMillis() < staleBefore) {
+            Files.deleteIfExists(path); // its run stopped before renaming it
+            continue;
+          }
+          total += attributes.size();
+        } catch (NoSuchFileException e) {
+          // another run evicted it
+        }
+      }
+    }
+    entries.sort(Comparator.comparing((Entry entry) -> entry.lastUsed));
+    for (Entry entry : entries) {
+      if (total <= maxBytes) {
+        break;
+      }
+      if (!entry.path.equals(keep)) {
+        Files.deleteIfExists(entry.path);
+        total -= entry.size;
+      }
+    }
+  }
+
+  private static MessageDigest sha256() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e); // every Java platform has SHA-256
+    }
+  }
+
+  private static final class Entry {
+    private final Path path;
+    private final long size;
+    private final FileTime lastUsed;
+
+    private Entry(Path path, long size, FileTime lastUsed) {
+      this.path = path;
+      this.size = size;
+      this.lastUsed = lastUsed;
+    }
+  }
+}
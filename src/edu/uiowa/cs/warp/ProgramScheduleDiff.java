@@ -0,0 +1,172 @@
+package edu.uiowa.cs.warp;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Cells that differ between two versions of a program schedule, which is what Program returns
+ * after adding, removing or changing a flow so callers can push only the changed instructions to
+ * the nodes.
+ * <p>
+ * Cells are matched by time slot and node name, so the two schedules may have different lengths
+ * and node columns. A cell missing from one schedule is reported as null on that side.
+ *
+ * @version 1.0
+ */
+public class ProgramScheduleDiff {
+
+  /**
+   * One cell whose instruction changed.
+   */
+  public static final class CellChange {
+    private final Integer timeSlot;
+    private final String node;
+    private final Instruction before;
+    private final Instruction after;
+
+    CellChange(Integer timeSlot, String node, Instruction before, Instruction after) {
+      this.timeSlot = timeSlot;
+      this.node = node;
+      this.before = before;
+      this.after = after;
+    }
+
+    public Integer getTimeSlot() {
+      return timeSlot;
+    }
+
+    public String getNode() {
+      return node;
+    }
+
+    /**
+     * @return the old instruction, or null if the cell did not exist
+     */
+    public Instruction getBefore() {
+      return before;
+    }
+
+    /**
+     * @return the new instruction, or null if the cell no longer exists
+     */
+    public Instruction getAfter() {
+      return after;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%d\t%s\t%s\t%s", timeSlot, node, before, after);
+    }
+  }
+
+  private final ArrayList<CellChange> changes = new ArrayList<>();
+  private final Integer firstFlowRescheduled;
+  private final Integer flowsRescheduled;
+  private final Integer lengthBefore;
+  private final Integer lengthAfter;
+
+  /**
+   * Compares the before and after schedules cell by cell.
+   *
+   * @param before schedule before the change
+   * @param nodesBefore node name of each column of before
+   * @param after schedule after the change
+   * @param nodesAfter node name of each column of after
+   * @param firstFlowRescheduled position in priority order of the first flow that was scheduled
+   *        again
+   * @param flowsRescheduled number of flows that were scheduled again
+   */
+  ProgramScheduleDiff(ProgramSchedule before, String[] nodesBefore, ProgramSchedule after,
+      String[] nodesAfter, Integer firstFlowRescheduled, Integer flowsRescheduled) {
+    this.firstFlowRescheduled = firstFlowRescheduled;
+    this.flowsRescheduled = flowsRescheduled;
+    this.lengthBefore = before.size();
+    this.lengthAfter = after.size();
+    var columnBefore = new HashMap<String, Integer>();
+    for (int column = 0; column < nodesBefore.length; column++) {
+      columnBefore.put(nodesBefore[column], column);
+    }
+    var nodes = new ArrayList<String>(List.of(nodesAfter));
+    for (String node : nodesBefore) {
+      if (!nodes.contains(node)) {
+        nodes.add(node); // a node that is no longer scheduled
+      }
+    }
+    var columnAfter = new HashMap<String, Integer>();
+    for (int column = 0; column < nodesAfter.length; column++) {
+      columnAfter.put(nodesAfter[column], column);
+    }
+    var length = Math.max(lengthBefore, lengthAfter);
+    for (int timeSlot = 0; timeSlot < length; timeSlot++) {
+      /* poset schedules hold plain lists rather than InstructionTimeSlots, so compare as Objects */
+      Object rowBefore = (timeSlot < lengthBefore) ? ((List<?>) before).get(timeSlot) : null;
+      Object rowAfter = (timeSlot < lengthAfter) ? ((List<?>) after).get(timeSlot) : null;
+      if (rowBefore == rowAfter) {
+        continue; // rows are never modified in place, so a shared row is unchanged
+      }
+      for (String node : nodes) {
+        var oldCell = cell(before, timeSlot, columnBefore.get(node));
+        var newCell = cell(after, timeSlot, columnAfter.get(node));
+        if (!Objects.equals(oldCell, newCell)) {
+          changes.add(new CellChange(timeSlot, node, oldCell, newCell));
+        }
+      }
+    }
+  }
+
+  private static Instruction cell(ProgramSchedule schedule, Integer timeSlot, Integer column) {
+    if (column == null) {
+      return null;
+    }
+    return schedule.get(timeSlot, column); // null when the slot or column does not exist
+  }
+
+  /**
+   * @return changed cells ordered by time slot
+   */
+  public List<CellChange> getChanges() {
+    return Collections.unmodifiableList(changes);
+  }
+
+  public Boolean isEmpty() {
+    return changes.isEmpty();
+  }
+
+  public Integer size() {
+    return changes.size();
+  }
+
+  public Integer getFirstFlowRescheduled() {
+    return firstFlowRescheduled;
+  }
+
+  public Integer getFlowsRescheduled() {
+    return flowsRescheduled;
+  }
+
+  public Integer getLengthBefore() {
+    return lengthBefore;
+  }
+
+  public Integer getLengthAfter() {
+    return lengthAfter;
+  }
+
+  /**
+   * @return one tab separated line per changed cell: time slot, node, old and new instruction
+   */
+  @Override
+  public String toString() {
+    var text = new StringBuilder();
+    text.append(String.format("// %d cells changed; %d flows rescheduled from priority %d; "
+        + "schedule length %d -> %d\n", changes.size(), flowsRescheduled, firstFlowRescheduled,
+        lengthBefore, lengthAfter));
+    for (CellChange change : changes) {
+      text.append(change).append('\n');
+    }
+    return text.toString();
+  }
+}
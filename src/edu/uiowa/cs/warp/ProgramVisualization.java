@@ -90,7 +90,7 @@ public class ProgramVisualization extends VisualizationObject {
    */
   @Override
   protected String[] createColumnHeader() {
-    var orderedNodes = program.toWorkLoad().getNodeNamesOrderedAlphabetically();
+    var orderedNodes = program.toWorkLoadSnapshot().getNodeNamesOrderedAlphabetically();
     String[] columnNames = new String[orderedNodes.length + 1];
     columnNames[0] = "Time Slot"; // add the Time Slot column header first
     /* loop through the node names, adding each to the header */
@@ -113,7 +113,7 @@ public class ProgramVisualization extends VisualizationObject {
       for (int row = 0; row < numRows; row++) {
         visualizationData[row][0] = String.format("%s", row);
         for (int column = 0; column < numColumns; column++) {
-          visualizationData[row][column + 1] = sourceCode.get(row, column);
+          visualizationData[row][column + 1] = String.valueOf(sourceCode.get(row, column));
         }
       }
     }
@@ -0,0 +1,156 @@
+package edu.uiowa.cs.warp;
+
+import java.util.Arrays;
+
+/**
+ * ProgramSchedule that keeps the columns of a program by node rather than its rows, and drops the
+ * column of each node once it is no longer needed, so that one node's program can be built
+ * without holding the whole table.
+ * <p>
+ * The priority, RM, DM and RealtimeHART schedulers only read and write the cells of the nodes of
+ * the flow they are scheduling. A node's column is therefore needed until the last flow through
+ * it has been scheduled, and after that only the column of the projected node is kept. Columns
+ * are stored in pages of PAGE_SLOTS time slots, and a page is only allocated once the node has an
+ * instruction other than sleep in it.
+ * <p>
+ * Only the methods the scheduler uses, get, set, add and size, are supported. get returns a new
+ * InstructionTimeSlot with sleep in the cells of dropped nodes.
+ *
+ * @version 1.0
+ */
+@SuppressWarnings("serial") // never serialized, so its pages of Instructions need not be
+class ProjectedSchedule extends ProgramSchedule {
+
+  private static final long serialVersionUID = 1L;
+  private static final int PAGE_BITS = 9;
+  private static final int PAGE_SLOTS = 1 << PAGE_BITS;
+  private static final Instruction SLEEP_INSTRUCTION = Instruction.sleep();
+
+  private final int numNodes;
+  private final int projectedNode;
+  /* position in priority order of the last flow through each node, -1 if there is none */
+  private final int[] lastFlow;
+  /* pages[node][page][slot % PAGE_SLOTS], pages[node] is null once the node is dropped */
+  private final Instruction[][][] pages;
+  private int numSlots = 0;
+
+  /**
+   * @param projectedNode column of the node whose program is kept, or -1 to keep none
+   * @param lastFlow position in priority order of the last flow through each node
+   */
+  ProjectedSchedule(int numNodes, int projectedNode, int[] lastFlow) {
+    this.numNodes = numNodes;
+    this.projectedNode = projectedNode;
+    this.lastFlow = lastFlow.clone();
+    pages = new Instruction[numNodes][][];
+    for (int node = 0; node < numNodes; node++) {
+      pages[node] = new Instruction[0][];
+    }
+  }
+
+  /**
+   * Drops the columns of the nodes that no flow at or after flowPosition goes through.
+   */
+  void startFlow(int flowPosition) {
+    for (int node = 0; node < numNodes; node++) {
+      if (node != projectedNode && lastFlow[node] < flowPosition) {
+        pages[node] = null;
+      }
+    }
+  }
+
+  int getProjectedNode() {
+    return projectedNode;
+  }
+
+  /**
+   * @return the instruction of node in slot, or null if node's column was dropped
+   */
+  Instruction getInstruction(int slot, int node) {
+    if (pages[node] == null) {
+      return null;
+    }
+    var page = slot >>> PAGE_BITS;
+    if (page >= pages[node].length || pages[node][page] == null) {
+      return SLEEP_INSTRUCTION;
+    }
+    var instruction = pages[node][page][slot & (PAGE_SLOTS - 1)];
+    return (instruction != null) ? instruction : SLEEP_INSTRUCTION;
+  }
+
+  /**
+   * @return the number of pages allocated, over all the nodes that have not been dropped
+   */
+  int getNumPages() {
+    var count = 0;
+    for (Instruction[][] column : pages) {
+      if (column != null) {
+        for (Instruction[] page : column) {
+          count += (page != null) ? 1 : 0;
+        }
+      }
+    }
+    return count;
+  }
+
+  @Override
+  public int size() {
+    return numSlots;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return numSlots == 0;
+  }
+
+  @Override
+  public InstructionTimeSlot get(int slot) {
+    if (slot < 0 || slot >= numSlots) {
+      throw new IndexOutOfBoundsException("Index " + slot + " out of bounds for length " + numSlots);
+    }
+    var timeSlot = new InstructionTimeSlot(numNodes, SLEEP_INSTRUCTION);
+    for (int node = 0; node < numNodes; node++) {
+      var instruction = getInstruction(slot, node);
+      if (instruction != null && instruction != SLEEP_INSTRUCTION) {
+        timeSlot.set(node, instruction);
+      }
+    }
+    return timeSlot;
+  }
+
+  @Override
+  public InstructionTimeSlot set(int slot, InstructionTimeSlot timeSlot) {
+    var previous = get(slot);
+    for (int node = 0; node < numNodes; node++) {
+      if (pages[node] != null) {
+        setInstruction(slot, node, (node < timeSlot.size()) ? timeSlot.get(node) : null);
+      }
+    }
+    return previous;
+  }
+
+  @Override
+  public boolean add(InstructionTimeSlot timeSlot) {
+    numSlots++;
+    set(numSlots - 1, timeSlot);
+    return true;
+  }
+
+  private void setInstruction(int slot, int node, Instruction instruction) {
+    var page = slot >>> PAGE_BITS;
+    var sleep = (instruction == null || instruction.isSleep());
+    if (page >= pages[node].length) {
+      if (sleep) {
+        return; // sleep is what an unallocated page holds
+      }
+      pages[node] = Arrays.copyOf(pages[node], Math.max(page + 1, 2 * pages[node].length));
+    }
+    if (pages[node][page] == null) {
+      if (sleep) {
+        return;
+      }
+      pages[node][page] = new Instruction[PAGE_SLOTS];
+    }
+    pages[node][page][slot & (PAGE_SLOTS - 1)] = sleep ? null : instruction;
+  }
+}
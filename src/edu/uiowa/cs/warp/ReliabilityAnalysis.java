@@ -5,9 +5,10 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Objects;
 import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
 
-import edu.uiowa.cs.warp.WarpDSL.InstructionParameters;
 
 import java.util.Collection;
 
@@ -43,8 +44,8 @@ import java.util.Collection;
  * success probability equation defined in the project assignment.
  * <p>
  * 
- * I recommend using the getInstructionParameters method of the WarpDSL class to extract the src and
- * snk nodes from the instruction string in a program schedule time slot.
+ * Each program schedule time slot holds an Instruction, whose clauses give the flow, src and snk
+ * nodes directly, so no DSL parsing is needed here.
  * 
  * @author sgoddard
  * @version 1.8 Fall 2024
@@ -65,6 +66,19 @@ public class ReliabilityAnalysis {
 	 * The DEFAULT_E2E variable specifies the default end-to-end reliability target <br>
 	 */
 	private static final Double DEFAULT_E2E = 0.99;
+	/**
+	 * The PARALLEL_THRESHOLD variable specifies the number of reliability table cells at which
+	 * the flows are computed in parallel by a ParallelReliabilityEngine <br>
+	 */
+	private static final int PARALLEL_THRESHOLD = 1 << 16;
+	/**
+	 * The TX_COST_CACHE variable holds the result of numTxPerLinkAndTotalTxCost for every flow 
+	 * length and set of reliability parameters computed so far in this process. The result 
+	 * depends only on those, and WorkLoad creates a new ReliabilityAnalysis for every flow, so 
+	 * the cache is shared by all instances <br>
+	 */
+	private static final ConcurrentHashMap<TxCostKey, ArrayList<Integer>> TX_COST_CACHE = 
+			new ConcurrentHashMap<TxCostKey, ArrayList<Integer>>();
 	
 	/**
 	 * The model variable specifies which model needs to be used based on how the 
@@ -84,9 +98,9 @@ public class ReliabilityAnalysis {
 	 */
 	private Integer numFaults;
 	/**
-	 * The workLoad variable specifies WorkLoad invoked on reliabilityAnalysis  <br>
+	 * The workLoad variable specifies the snapshot of the WorkLoad the program was built from  <br>
 	 */
-	private WorkLoad workLoad;
+	private WorkLoadSnapshot workLoad;
 	/**
 	 * The program variable specifies the priority schedule   <br>
 	 */
@@ -101,9 +115,41 @@ public class ReliabilityAnalysis {
 	 */
 	private ArrayList<String> flowNames;
 	/**
-	 * The reliabilities variable specifies a table of all the reliabilities of each flow  
+	 * The reliabilityValues variable specifies a table of all the reliabilities of each flow,
+	 * built the first time it is asked for  
+	 */
+	private DenseReliabilityTable reliabilityValues;
+	/**
+	 * The lastReliabilityRow variable specifies the reliabilities in the last time slot, 
+	 * which is all verifyReliablities needs  
+	 */
+	private double[] lastReliabilityRow;
+	/**
+	 * The parallelThreshold variable specifies the number of table cells at which the flows are
+	 * computed in parallel <br>
+	 */
+	private int parallelThreshold = PARALLEL_THRESHOLD;
+	/**
+	 * The reliabilities variable holds reliabilityValues as a ReliabilityTable, built the first
+	 * time it is asked for  
 	 */
 	private ReliabilityTable reliabilities;
+	/**
+	 * The periodicReliabilities variable holds the reliabilities as one window of rows for each
+	 * distinct period of each flow, built the first time it is asked for  
+	 */
+	private PeriodicReliabilityTable periodicReliabilities;
+	/**
+	 * The flowStart, flowLength and flowPeriod variables specify the first reliability table 
+	 * column, number of columns and period of each flow, in flowNames order <br>
+	 */
+	private int[] flowStart;
+	private int[] flowLength;
+	private int[] flowPeriod;
+	/**
+	 * The flowIndexes variable specifies the index of each flow in flowNames <br>
+	 */
+	private HashMap<String,Integer> flowIndexes;
 	
 
 	/**
@@ -138,9 +184,10 @@ public class ReliabilityAnalysis {
 	 */
 	public ReliabilityAnalysis(Program program) {
 		this.program = program;
-		this.workLoad = program.toWorkLoad();
+		/* the flows the program was scheduled with, even if its WorkLoad has changed since */
+		this.workLoad = program.toWorkLoadSnapshot();
 		this.numFaults = workLoad.getNumFaults();
-		this.flowNames = workLoad.getFlowNamesInPriorityOrder();
+		this.flowNames = program.getFlowNamesInPriorityOrder();
 		if( numFaults > 0) {
 			this.model = true;
 		}else {
@@ -149,7 +196,7 @@ public class ReliabilityAnalysis {
 			
 		this.minPacketReceptionRate = workLoad.getMinPacketReceptionRate();
 		this.e2e = workLoad.getE2e();
-		this.reliabilities = buildReliabilityTable();
+		/* the reliabilities are computed when they are first asked for, see getReliabilityValues */
 		// need program.getScheduler to make reliability table 
 		//read pass into warp get instrustions paraameters which parses it get the flow, source, and the sink, know if its a pull or push function, 
 		//tells us what index that needs to be change and then update it for the row your doing 
@@ -161,19 +208,63 @@ public class ReliabilityAnalysis {
 	 * @return ReliabilityTable a table made from all the reliabilities
 	 */
 	public ReliabilityTable getReliabilities() {
+		if (reliabilities == null && program != null) {
+			reliabilities = getReliabilityValues().toReliabilityTable();
+		}
 		return reliabilities;
 	}
 	
+	/**
+	 * Gets the reliabilities without boxing them, which is cheaper when the values are only read.
+	 * The table holds a row for every time slot of the program, so it is built the first time it
+	 * is asked for rather than when the analysis is created. A table of at least the parallel
+	 * threshold's cells is expanded from getPeriodicReliabilities, so each distinct period of a 
+	 * flow is only computed once.
+	 * 
+	 * @return DenseReliabilityTable a table made from all the reliabilities
+	 */
+	public DenseReliabilityTable getReliabilityValues() {
+		if (reliabilityValues == null && program != null) {
+			long cells = (long) program.getSchedule().getNumRows() * createHeaderRow().size();
+			if (periodicReliabilities == null && cells >= parallelThreshold) {
+				periodicReliabilities = computePeriodicReliabilities();
+			}
+			reliabilityValues = (periodicReliabilities != null) 
+					? periodicReliabilities.toDenseReliabilityTable() : buildReliabilityValues();
+			lastReliabilityRow = reliabilityValues.getNumRows() > 0 
+					? reliabilityValues.getRow(reliabilityValues.getNumRows() - 1) : new double[0];
+		}
+		return reliabilityValues;
+	}
+	
+	/**
+	 * Gets the reliabilities as a PeriodicReliabilityTable, which computes the rows of each flow 
+	 * only for the first of its periods with each pattern of transmissions and reads the other 
+	 * periods from those. Use getReliabilityValues, or toDenseReliabilityTable on the result, 
+	 * when every row is wanted.
+	 * 
+	 * @return PeriodicReliabilityTable the reliabilities of every time slot
+	 */
+	public PeriodicReliabilityTable getPeriodicReliabilities() {
+		if (periodicReliabilities == null && program != null) {
+			periodicReliabilities = computePeriodicReliabilities();
+			if (periodicReliabilities == null) {
+				/* a transmission reaches outside its flow, so the flows can't be computed apart */
+				periodicReliabilities = PeriodicReliabilityTable.of(getReliabilityValues());
+			}
+		}
+		return periodicReliabilities;
+	}
+	
 	/**
 	 * Computes the number of transmissions needed per node and total cost for a given flow.
  	 * 
- 	 * @param flow Flow whose node transmissions and total cost need to be calculated
+ 	 * @param nNodesInFlow number of nodes in the flow
  	 * @return ArrayList of number of transmissions needed for each node
 	 */
-	private ArrayList<Integer> getFixedTxPerLinkAndTotalTxCost(Flow flow) {
+	private ArrayList<Integer> getFixedTxPerLinkAndTotalTxCost(int nNodesInFlow) {
 		/* Each node will have at most numFaults+1 transmissions, do not know
 		 * which nodes will send message over an edge, giving cost to each node. */
-	    int nNodesInFlow = flow.nodes.size();
 	    int numEdgesInFlow = nNodesInFlow - 1;
 	    
 	    ArrayList<Integer> txArrayList = initializeTxArrayList(nNodesInFlow, numFaults + 1);
@@ -204,12 +295,54 @@ public class ReliabilityAnalysis {
  	 * @return ArrayList<Integer> containing number of transmissions per link and total cost.
 	 */
 	public ArrayList<Integer> numTxPerLinkAndTotalTxCost(Flow flow) {
+		return numTxPerLinkAndTotalTxCost(flow.nodes.size());
+	}
+	
+	/**
+	 * Same as numTxPerLinkAndTotalTxCost(Flow) for any flow with nNodesInFlow nodes. The result is
+	 * computed once per flow length, model and reliability parameters, and copied from the cache
+	 * after that, so the caller may change the list it gets.
+	 * 
+	 * @param nNodesInFlow number of nodes in the flow
+	 * @return ArrayList<Integer> containing number of transmissions per link and total cost.
+	 */
+	public ArrayList<Integer> numTxPerLinkAndTotalTxCost(int nNodesInFlow) {
+		var key = new TxCostKey(nNodesInFlow, model, minPacketReceptionRate, e2e, numFaults);
+		var txCost = TX_COST_CACHE.get(key);
+		if (txCost == null) {
+			txCost = computeTxPerLinkAndTotalTxCost(nNodesInFlow);
+			TX_COST_CACHE.putIfAbsent(key, txCost);
+		}
+		return new ArrayList<Integer>(txCost);
+	}
+	
+	/**
+	 * Computes numTxPerLinkAndTotalTxCost for every flow length from 2 to maxNodesInFlow nodes 
+	 * that is not already cached, so later flows of those lengths, in this or any other workload 
+	 * with the same parameters, only copy the result.
+	 * 
+	 * @param maxNodesInFlow the number of nodes in the longest flow, as from WorkLoad.maxFlowLength
+	 */
+	public void precomputeTxPerLinkAndTotalTxCost(int maxNodesInFlow) {
+		for (int nNodesInFlow = 2; nNodesInFlow <= maxNodesInFlow; nNodesInFlow++) {
+			numTxPerLinkAndTotalTxCost(nNodesInFlow);
+		}
+	}
+	
+	/**
+	 * Computes the number of transmissions based on model type, without the cache.
+	 * Note:This method should be private but for testing purposes is protected 
+	 * 
+	 * @param nNodesInFlow number of nodes in the flow
+	 * @return ArrayList<Integer> containing number of transmissions per link and total cost.
+	 */
+	protected ArrayList<Integer> computeTxPerLinkAndTotalTxCost(int nNodesInFlow) {
 		if (this.model) {
 			/* Case 1: If there is fixed numFaults */
-			return getFixedTxPerLinkAndTotalTxCost(flow);
+			return getFixedTxPerLinkAndTotalTxCost(nNodesInFlow);
 		} else {
 			/* Case 2: If there is not fixed numFaults */
-			return numTxAttemptsPerLinkAndTotalTxAttempts(flow, this.e2e, 
+			return numTxAttemptsPerLinkAndTotalTxAttempts(nNodesInFlow, this.e2e, 
 					this.minPacketReceptionRate, false); }
 	}
 	
@@ -217,16 +350,15 @@ public class ReliabilityAnalysis {
 	 * Computes number of transmission attempts per link and total number to achieve end-to-end
 	 * reliability for given flow.
 	 * 
-	 * @param flow Flow to analyze.
+	 * @param nNodesInFlow number of nodes in the flow to analyze.
 	 * @param e2e End-to-end reliability target
 	 * @param M Minimum link reliability needed per successful link
 	 * @param optimizationRequested Indicates if optimization is requested
 	 * @return ArrayList<Integer> represents number of transmissions per link and their cost
 	 */
-	private ArrayList<Integer> numTxAttemptsPerLinkAndTotalTxAttempts(Flow flow, Double e2e, 
+	private ArrayList<Integer> numTxAttemptsPerLinkAndTotalTxAttempts(int nNodesInFlow, Double e2e, 
 																	   Double M, 
 																	   boolean optimizationRequested) {
-		int nNodesInFlow = flow.nodes.size();
 		/* ArrayList to track nPushes for each node in this flow (same as nTx per link) */
 		ArrayList<Integer> nPushes = initalizePushArray(nNodesInFlow);
 	    
@@ -390,6 +522,13 @@ public class ReliabilityAnalysis {
 	protected double calculateNewSinkNodeState(Double M, Double prevSnkNodeState,
 			   							Double prevSrcNodeState, 
 			   							Double minLinkReliabilityNeeded) {
+		return newSinkNodeState(M, prevSnkNodeState, prevSrcNodeState);
+	}
+	
+	/**
+	 * Same as calculateNewSinkNodeState, without boxing the arguments 
+	 */
+	static double newSinkNodeState(double M, double prevSnkNodeState, double prevSrcNodeState) {
 		return (1.0 - M) * prevSnkNodeState + M * prevSrcNodeState;
 	}
 	
@@ -424,9 +563,9 @@ public class ReliabilityAnalysis {
 		
 		ArrayList<String> headerRow = new ArrayList<String>();
  		for (String flowName : flowNames) {
- 			ArrayList<Node> flows = workLoad.getFlows().get(flowName).getNodes();
- 			for (Node nodes : flows) {
- 				headerRowName = flowName + ":" + nodes.getName();
+ 			String[] nodesInFlow = workLoad.getNodesInFlow(flowName);
+ 			for (String node : nodesInFlow) {
+ 				headerRowName = flowName + ":" + node;
  				headerRow.add(headerRowName);
  			}
 		}
@@ -475,34 +614,30 @@ public class ReliabilityAnalysis {
 	 * @param headerRowHashMap the HashMap of our headerRow 
 	 * @return the first row that we created 
 	 */
-	protected ReliabilityRow createFirstRow(Table<String,InstructionTimeSlot> scheduleTable, 
+	protected ReliabilityRow createFirstRow(Table<Instruction,InstructionTimeSlot> scheduleTable, 
 												HashMap<String,Integer> headerRowHashMap){
 		ReliabilityRow dummyRow = buildDummyRow(headerRowHashMap.size());
 		
 		ReliabilityRow firstRow = createRowCopy(dummyRow);
 		
-		ArrayList<InstructionParameters> instructionsArray = new ArrayList<InstructionParameters>();
-		InstructionParameters instructionObject;
-		String instruction;
-		WarpDSL dsl = new WarpDSL();
+		Instruction instructionObject;
+		Instruction instruction;
 
 	
-		/** loop through each node from each flow to get each individual instructionsParameters */
+		/** loop through each node from each flow to get each individual instruction */
 		for(int col = 0; col < flowNames.get(0).length(); col++) {
-			/** gets the arrayList of instructionParameters from the first row of the dsl */
+			/** gets the instruction from the first row of the program */
 			instruction = scheduleTable.get(0,col);
 			
-			/** get the first row, an ArrayList<InstructionParameters */
-			instructionsArray = dsl.getInstructionParameters(instruction);
-			// get the instructionParameter object from the "node"(col)
-			instructionObject = instructionsArray.get(0);
+			// get the first clause of the instruction for the "node"(col)
+			instructionObject = instruction.clauses().get(0);
 			/** get flow should tell us whether it is UNUSED or not */
 			String flowName = instructionObject.getFlow();
 			String snk = instructionObject.getSnk();
 			
 			
 			/** if it is a push or a pull, and not waiting or sleeping */
-			if (!flowName.equals(instructionObject.unused())) {
+			if (instructionObject.isTransmission()) {
 				/** creates the HashMap value to get the current column index (the snk node) */
 				String columnName = flowName + ":" + snk;
 				int index = headerRowHashMap.get(columnName);
@@ -533,12 +668,13 @@ public class ReliabilityAnalysis {
 	public Boolean verifyReliablities() {
 		boolean metE2E = true;
 		
-		ReliabilityTable rTable = reliabilities;
+		double[] lastRow = getLastReliabilityRow();
+		double e2eTarget = workLoad.getE2e();
 								
-				for(int k = 0; k < rTable.getLast().size(); k++) {
+				for(int k = 0; k < lastRow.length; k++) {
 					
 					
-					if(rTable.getLast().get(k) < workLoad.getE2e()) {
+					if(lastRow[k] < e2eTarget) {
 						
 						metE2E = false;
 						
@@ -606,8 +742,8 @@ public class ReliabilityAnalysis {
 	 * Builds a reliabilityTable for the the reliabilities of a flow schedule
 	 * Iterates through each time slot of the schedule table.
 	 * As, this method iterates through every row, it creates a new row, that update with the following iterations
-	 * Then, it iterates through each column of schedule table to retrieve the instructions array. 
-	 * For each instruction in instruction array, it then iterates through that, 
+	 * Then, it iterates through each column of schedule table to retrieve the instruction. 
+	 * For each clause in the instruction, it then iterates through that, 
 	 * getting the flowName, checking if its a push/pull, 
 	 * and then doing calculations based on if its a period change or not. 
 	 * If the current flow of instructionParameter is a period reset,
@@ -623,73 +759,297 @@ public class ReliabilityAnalysis {
 	 * @return ReliabilityTable table of all reliabilities for the nodes in each flow
 	 */
 	protected ReliabilityTable buildReliabilityTable() {
-		headerRow = createHeaderRow();
-		/** builds the hashmap to access the columns indexs. eg. "flow 0: A" == col_index = 0 */
-		HashMap<String,Integer> headerRowHashMap = createHeaderRowHashMap(headerRow);
-		Table<String,InstructionTimeSlot> scheduleTable = program.getSchedule();
-		WarpDSL dsl = new WarpDSL();
-		String instruction;
-		ArrayList<InstructionParameters> instructionsArray = new ArrayList<InstructionParameters>();
-		Double nextSnkReliability = 0.0;
-		ReliabilityTable reliabilities = new ReliabilityTable();
-		ReliabilityRow firstRow = createFirstRow(scheduleTable, headerRowHashMap);
-		reliabilities.add(firstRow);
+		return buildReliabilityValues().toReliabilityTable();
+	}
+	
+	/**
+	 * Builds the reliabilities the way buildReliabilityTable describes, into a DenseReliabilityTable.
+	 * The schedule is read through an InstructionIdTable, so the columns an instruction updates are
+	 * looked up once for each distinct instruction rather than once for every time slot and node
+	 * it appears in.
+	 * 
+	 * @return DenseReliabilityTable table of all reliabilities for the nodes in each flow
+	 */
+	protected DenseReliabilityTable buildReliabilityValues() {
+		DenseReliabilityTable reliabilities = new DenseReliabilityTable(createHeaderRow().size());
+		computeReliabilities(reliabilities);
+		return reliabilities;
+	}
+	
+	/**
+	 * Computes the reliabilities one time slot at a time, keeping only the previous and current
+	 * rows in two arrays that trade places after each slot. Each row is added to reliabilities as
+	 * it is finished, unless reliabilities is null, so the whole table is only kept when it is
+	 * wanted.
+	 * 
+	 * @param reliabilities table to add every row to, or null to keep only the last row
+	 * @return the reliabilities in the last time slot
+	 */
+	private double[] computeReliabilities(DenseReliabilityTable reliabilities) {
+		HashMap<String,Integer> headerRowHashMap = indexColumns();
+		Table<Instruction,InstructionTimeSlot> scheduleTable = program.getSchedule();
+		double[] previous = createFirstValues(scheduleTable, headerRowHashMap);
+		double[] current = new double[previous.length];
+		if (reliabilities != null) {
+			reliabilities.addRow(previous);
+		}
+		
+		int numFlows = flowNames.size();
+		InstructionIdTable instructions = new InstructionIdTable(scheduleTable);
+		/** transmissions of each instruction id as {flow, indexOfSnk, indexOfSrc} triples */
+		int[][] transmissions = new int[instructions.getNumInstructions()][];
+		boolean[] resetPeriod = new boolean[numFlows];
+		double M = minPacketReceptionRate;
+		int numColumns = scheduleTable.getNumColumns();
+		int numRows = scheduleTable.getNumRows();
 		
+		/** Each flow's columns only depend on the flow's own transmissions, so large tables are
+		 *  computed one flow per task, unless a transmission reaches outside its flow */
+		if (numFlows > 1 && (long) numRows * previous.length >= parallelThreshold) {
+			ParallelReliabilityEngine engine = createEngine(instructions, transmissions, headerRowHashMap);
+			if (engine.isIndependent()) {
+				if (reliabilities != null) {
+					reliabilities.addRows(numRows - 1);
+				}
+				return engine.compute(previous, reliabilities);
+			}
+		}
 		
-		for(int row = 1; row < scheduleTable.getNumRows();row++) {
+		for(int row = 1; row < numRows;row++) {
 
-			/* Copy the previous row added to reliabilityTable */
-			ReliabilityRow prevReliabilityRow = createRowCopy(reliabilities.get(row-1));
-			
-			/** Get a list of all flowNames that have reach the end of their period */
-			ArrayList<String> resetPeriodFlowNames = checkRowForPeriod(row, prevReliabilityRow, minPacketReceptionRate);
+			/* Copy the previous row */
+			System.arraycopy(previous, 0, current, 0, previous.length);
 			
+			/** Reset the flows that have reached the end of their period, as checkRowForPeriod does */
+			for (int f = 0; f < numFlows; f++) {
+				resetPeriod[f] = row % flowPeriod[f] == 0;
+				if (resetPeriod[f]) {
+					current[flowStart[f]] = 1.0;
+					for (int i = flowStart[f] + 1; i < flowStart[f] + flowLength[f]; i++) {
+						current[i] = 0.0;
+					}
+				}
+			}
 			
-			for(int col = 0; col < scheduleTable.getNumColumns(); col++) {
-				
-				instruction = scheduleTable.get(row, col);
-				instructionsArray = dsl.getInstructionParameters(instruction);
-				
-				for ( InstructionParameters instructParam : instructionsArray ) {
-					/** Get the name for the current flow instruction parameter.*/
-					/*Each isntructionParameter can have a different Flow name and src & snk nodes */
-					String flowName = instructParam.getFlow();
-					
-					/** If flowName is not set to "unused" then we need to calculate the newSinkNodeState */
-					if (!flowName.equals(instructParam.unused())) {
-						
-						/** Get the required attributes from the instructionParameter to calculate newSinkNodeState.*/
-						String snk = instructParam.getSnk();
-						String src = instructParam.getSrc();
-						String columnNameForSnk = flowName + ":" + snk;
-						String columnNameForSrc = flowName + ":" + src;
-						int indexOfSnk = headerRowHashMap.get(columnNameForSnk);
-						int indexOfSrc = headerRowHashMap.get(columnNameForSrc);
-
-						/** Get the previous values of snk and src from the last added row in reliabilities */
-						Double prevSnkNodeState = reliabilities.get(row-1).get(indexOfSnk);
-						Double prevSrcNodeState = reliabilities.get(row-1).get(indexOfSnk-1);
-				
-						if( resetPeriodFlowNames.indexOf(flowName) != -1){
-							nextSnkReliability = calculateNewSinkNodeState(minPacketReceptionRate, 
-																			prevReliabilityRow.get(indexOfSnk), 
-																			prevReliabilityRow.get(indexOfSrc), 
-																			e2e);							
-						}else {							
-							nextSnkReliability = calculateNewSinkNodeState(minPacketReceptionRate, 
-																			prevSnkNodeState,
-																			prevSrcNodeState, e2e);
-						}
-						prevReliabilityRow.set(indexOfSnk, nextSnkReliability);
+			for(int col = 0; col < numColumns; col++) {
+				int id = instructions.getId(row, col);
+				if (id == InstructionIdTable.NO_INSTRUCTION) {
+					continue;
+				}
+				if (transmissions[id] == null) {
+					transmissions[id] = findTransmissions(instructions.getInstruction(id), 
+															headerRowHashMap, flowIndexes);
+				}
+				int[] clauses = transmissions[id];
+				for (int t = 0; t < clauses.length; t += 3) {
+					int indexOfSnk = clauses[t + 1];
+					int indexOfSrc = clauses[t + 2];
+					double nextSnkReliability;
+					if (resetPeriod[clauses[t]]) {
+						nextSnkReliability = newSinkNodeState(M, current[indexOfSnk], current[indexOfSrc]);
+					} else {
+						/** the previous values of snk and src from the previous row */
+						nextSnkReliability = newSinkNodeState(M, previous[indexOfSnk], 
+																previous[indexOfSnk-1]);
 					}
+					current[indexOfSnk] = nextSnkReliability;
 				}
 			}
-			/**Then reset the previous reliabilityRow for next times-slot */
-			ReliabilityRow resetRow = new ReliabilityRow();
-			reliabilities.add(prevReliabilityRow);
-			prevReliabilityRow = resetRow;
+			if (reliabilities != null) {
+				reliabilities.addRow(current);
+			}
+			double[] finished = current;
+			current = previous;
+			previous = finished;
+		}
+		return previous;
+	}
+	
+	/**
+	 * Gets the reliabilities in the last time slot. Unless the whole table was already computed, 
+	 * only the last period of each flow is computed, and none of the rows before the last are kept.
+	 * 
+	 * @return the reliabilities in the last time slot
+	 */
+	double[] getLastReliabilityRow() {
+		if (lastReliabilityRow == null) {
+			if (periodicReliabilities != null) {
+				lastReliabilityRow = periodicReliabilities.getRow(periodicReliabilities.getNumRows() - 1);
+			} else {
+				lastReliabilityRow = computeLastReliabilityRow();
+			}
+		}
+		return lastReliabilityRow;
+	}
+	
+	/**
+	 * Computes the last row from the last period of each flow, see 
+	 * ParallelReliabilityEngine.computeLastRow, or row by row keeping only the previous row if a 
+	 * transmission reaches outside its flow.
+	 * 
+	 * @return the reliabilities in the last time slot
+	 */
+	private double[] computeLastReliabilityRow() {
+		HashMap<String,Integer> headerRowHashMap = indexColumns();
+		Table<Instruction,InstructionTimeSlot> scheduleTable = program.getSchedule();
+		double[] firstValues = createFirstValues(scheduleTable, headerRowHashMap);
+		InstructionIdTable instructions = new InstructionIdTable(scheduleTable);
+		ParallelReliabilityEngine engine = createEngine(instructions, 
+				new int[instructions.getNumInstructions()][], headerRowHashMap);
+		return engine.isIndependent() ? engine.computeLastRow(firstValues) 
+				: computeReliabilities(null);
+	}
+	
+	/**
+	 * Computes the reliabilities of each flow for the first of its periods with each pattern of 
+	 * transmissions, see ParallelReliabilityEngine.computePeriodic.
+	 * 
+	 * @return the reliabilities, or null if a transmission reaches outside its flow
+	 */
+	private PeriodicReliabilityTable computePeriodicReliabilities() {
+		HashMap<String,Integer> headerRowHashMap = indexColumns();
+		Table<Instruction,InstructionTimeSlot> scheduleTable = program.getSchedule();
+		double[] firstValues = createFirstValues(scheduleTable, headerRowHashMap);
+		InstructionIdTable instructions = new InstructionIdTable(scheduleTable);
+		ParallelReliabilityEngine engine = createEngine(instructions, 
+				new int[instructions.getNumInstructions()][], headerRowHashMap);
+		return engine.isIndependent() ? engine.computePeriodic(firstValues) : null;
+	}
+	
+	/**
+	 * Builds the headerRow and the first column, number of columns and period of each flow.
+	 * 
+	 * @return the HashMap from each headerRow name to its column, eg. "F0:A" to 0
+	 */
+	private HashMap<String,Integer> indexColumns() {
+		headerRow = createHeaderRow();
+		int numFlows = flowNames.size();
+		flowStart = new int[numFlows];
+		flowLength = new int[numFlows];
+		flowPeriod = new int[numFlows];
+		flowIndexes = new HashMap<String,Integer>();
+		for (int f = 0, column = 0; f < numFlows; f++) {
+			String flow = flowNames.get(f);
+			flowStart[f] = column;
+			flowLength[f] = workLoad.getNodesInFlow(flow).length;
+			flowPeriod[f] = workLoad.getFlowPeriod(flow);
+			flowIndexes.put(flow, f);
+			column += flowLength[f];
+		}
+		return createHeaderRowHashMap(headerRow);
+	}
+	
+	/**
+	 * Creates the first row, as createFirstRow does, as an array of headerRow.size() values.
+	 * 
+	 * @param scheduleTable the flow schedule table
+	 * @param headerRowHashMap the HashMap of our headerRow 
+	 * @return the values of the first row
+	 */
+	private double[] createFirstValues(Table<Instruction,InstructionTimeSlot> scheduleTable, 
+										HashMap<String,Integer> headerRowHashMap) {
+		ReliabilityRow firstRow = createFirstRow(scheduleTable, headerRowHashMap);
+		double[] firstValues = new double[headerRow.size()];
+		for (int i = 0; i < Math.min(firstValues.length, firstRow.size()); i++) {
+			firstValues[i] = firstRow.get(i);
+		}
+		return firstValues;
+	}
+	
+	/**
+	 * Creates an engine that computes the flows apart from each other, finding the transmissions 
+	 * of each instruction id the first time they are needed.
+	 * 
+	 * @param instructions the program schedule
+	 * @param transmissions the transmissions found so far for each instruction id
+	 * @param headerRowHashMap the HashMap of our headerRow
+	 * @return the engine
+	 */
+	private ParallelReliabilityEngine createEngine(InstructionIdTable instructions, 
+													int[][] transmissions,
+													HashMap<String,Integer> headerRowHashMap) {
+		return new ParallelReliabilityEngine(minPacketReceptionRate, flowStart, flowLength, 
+				flowPeriod, instructions, (id) -> {
+					if (transmissions[id] == null) {
+						transmissions[id] = findTransmissions(instructions.getInstruction(id), 
+																headerRowHashMap, flowIndexes);
+					}
+					return transmissions[id];
+				});
+	}
+	
+	/**
+	 * Sets the number of reliability table cells at which the flows are computed in parallel;
+	 * smaller tables are computed row by row on the calling thread.
+	 * 
+	 * @param cells the number of cells, Integer.MAX_VALUE to always compute row by row
+	 */
+	void setParallelThreshold(int cells) {
+		this.parallelThreshold = cells;
+	}
+	
+	/**
+	 * Finds the push and pull clauses of an instruction and the reliability table columns they
+	 * update.
+	 * 
+	 * @param instruction the instruction in a program schedule cell
+	 * @param headerRowHashMap the HashMap of our headerRow
+	 * @param flowIndexes the index of each flow in flowNames
+	 * @return {flow, indexOfSnk, indexOfSrc} for each transmission, one after the other
+	 */
+	private int[] findTransmissions(Instruction instruction, HashMap<String,Integer> headerRowHashMap,
+									HashMap<String,Integer> flowIndexes) {
+		ArrayList<Integer> found = new ArrayList<Integer>();
+		for (Instruction instructParam : instruction.clauses()) {
+			if (instructParam.isTransmission()) {
+				String flowName = instructParam.getFlow();
+				found.add(flowIndexes.get(flowName));
+				found.add(headerRowHashMap.get(flowName + ":" + instructParam.getSnk()));
+				found.add(headerRowHashMap.get(flowName + ":" + instructParam.getSrc()));
+			}
+		}
+		int[] transmissions = new int[found.size()];
+		for (int i = 0; i < transmissions.length; i++) {
+			transmissions[i] = found.get(i);
+		}
+		return transmissions;
+	}
+
+	/**
+	 * Key of TX_COST_CACHE: the flow length and everything else numTxPerLinkAndTotalTxCost 
+	 * depends on 
+	 */
+	private static final class TxCostKey {
+		private final int nNodesInFlow;
+		private final boolean fixedFaults;
+		private final double minPacketReceptionRate;
+		private final double e2e;
+		private final int numFaults;
+		
+		private TxCostKey(int nNodesInFlow, boolean fixedFaults, double minPacketReceptionRate, 
+				double e2e, int numFaults) {
+			this.nNodesInFlow = nNodesInFlow;
+			this.fixedFaults = fixedFaults;
+			this.minPacketReceptionRate = minPacketReceptionRate;
+			this.e2e = e2e;
+			this.numFaults = numFaults;
+		}
+		
+		@Override
+		public boolean equals(Object object) {
+			if (!(object instanceof TxCostKey)) {
+				return false;
+			}
+			var other = (TxCostKey) object;
+			return nNodesInFlow == other.nNodesInFlow && fixedFaults == other.fixedFaults
+					&& Double.compare(minPacketReceptionRate, other.minPacketReceptionRate) == 0
+					&& Double.compare(e2e, other.e2e) == 0 && numFaults == other.numFaults;
+		}
+		
+		@Override
+		public int hashCode() {
+			return Objects.hash(nNodesInFlow, fixedFaults, minPacketReceptionRate, e2e, numFaults);
 		}
-		return reliabilities;
 	}
 
 }
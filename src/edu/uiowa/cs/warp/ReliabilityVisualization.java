@@ -32,7 +32,7 @@ public class ReliabilityVisualization extends VisualizationObject {
 	/** Program object to be made from the warp object*/
 	private Program program;
 	/**sourceTable to be givent ra attributes and reliabilities */
-	private ReliabilityTable sourceTable;
+	private DenseReliabilityTable sourceTable;
 	/** WorkLoad object for warp to be converted into*/
 	private WorkLoad workLoad;
 	/** Name of flows from a given workLoad, in order of each flow's priority number*/
@@ -49,8 +49,8 @@ public class ReliabilityVisualization extends VisualizationObject {
    		this.workLoad = warp.toWorkload();
    		this.program = warp.toProgram();
    		this.ra = warp.toReliabilityAnalysis();
-   		this.sourceTable = ra.getReliabilities();	
-   		this.flowNames = workLoad.getFlowNamesInPriorityOrder(); 
+   		this.sourceTable = ra.getReliabilityValues();	
+   		this.flowNames = program.getFlowNamesInPriorityOrder(); 
    	}
 	
 	/**
@@ -129,7 +129,7 @@ public class ReliabilityVisualization extends VisualizationObject {
 			visualizationData = new String[numRows][numColumns];
 			for (int row = 0; row < numRows; row++) {
 		        for (int column = 0; column < numColumns; column++) {
-		        	visualizationData[row][column] = Double.toString(sourceTable.get(row, column));
+		        	visualizationData[row][column] = Double.toString(sourceTable.getValue(row, column));
 		        }
 			}
 		}
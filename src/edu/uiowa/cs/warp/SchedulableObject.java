@@ -62,8 +62,12 @@ public abstract class SchedulableObject {
    		this.releaseTime = obj.getReleaseTime(); // initialize parameters
    		this.lastUpdateTime = time; // reset lastUpdate 
    		this.predecessor = obj.getPredecessor();
-   		this.endTimes = new PriorityQueue<Integer>(); 
-   		this.endTimes.addAll(obj.getAllEndTimes());
+   		/* shares the endTimes of obj rather than copying them. Copies are
+   		 * the entries placed in a schedule, and only the original object
+   		 * adds and polls end times, so copying the history into every
+   		 * entry only made each copy larger than the last.
+   		 */
+   		this.endTimes = obj.getAllEndTimes();
    		this.subObjects = new LinkedList<SchedulableObject>();
    		this.subObjects.addAll(obj.getSubObjects());
    		
@@ -1,8 +1,6 @@
 package edu.uiowa.cs.warp;
 
-import java.util.HashMap;
-import java.util.ArrayList;
-import edu.uiowa.cs.warp.WarpDSL.InstructionParameters;
+import java.util.HashMap;
 
 /**
 
@@ -29,6 +27,7 @@ public abstract class Schedule {
 	 * be schedulable
 	 */
 	protected ScheduleTable schedule;
+	private ScheduleIndex scheduleIndex; // slots used per channel and per conflict in schedule
 	protected Poset poset; // partially ordered set (poset)
 
 	Schedule(Poset poset, Integer numChannels) {
@@ -41,6 +40,7 @@ public abstract class Schedule {
    			endScheduleTime = maxPhase + 2*endScheduleTime ;
    		}
    		schedule = new ScheduleTable(numChannels+1,endScheduleTime);
+   		scheduleIndex = new ScheduleIndex(numChannels, endScheduleTime);
    		schedulable = true;
    		buildSchedule();
    	}
@@ -78,10 +78,19 @@ public abstract class Schedule {
 
 * @return the schedule
 	 */
-	public ScheduleTable getSchedule() {
+	public ScheduleTable getSchedule() {
 		return schedule;
    	}
 
+	/**
+	 * Stores entry in the schedule at channel and time and updates the index
+	 * used to search for free time. All writes to schedule go through here.
+	 */
+	protected void setEntry(Integer channel, Integer time, Activation entry) {
+		scheduleIndex.set(channel, time, schedule.get(channel, time), entry);
+   		schedule.set(channel, time, entry);
+   	}
+
 	private void buildSchedule() {
 
 		var next = poset.getNextActivation();
@@ -164,7 +173,7 @@ public abstract class Schedule {
    						 * and update the activation with the the new end time.
    						 */
    						for (int k = 0; k < (duration - codeFragment.size()); k++) {
-   							schedule.set(channel,endTime-k,null);
+   							setEntry(channel,endTime-k,null);
    						}
    						endTime = codeFragment.size() + startTime - 1;
    						entry.setEndTime(endTime);
@@ -205,11 +214,9 @@ public abstract class Schedule {
    							 * and insert the wait() instructions into
    							 * the program for each listener
    							 * */
-   							var dsl = new WarpDSL();
-   							var instructionParametersArray = dsl.getInstructionParameters(instr); 
-   							for (InstructionParameters fragment: instructionParametersArray) {
-   								String listener = fragment.getListener();
-   								if(!listener.equals(UNKNOWN)) {
+   							for (Instruction fragment: instr.clauses()) {
+   								String listener = fragment.getListener();
+   								if(listener != null) {
    									/* need to add a wait instruction for node listener
    									 * wait(#channel)
    									 * at time,listener location of program table
@@ -278,7 +285,7 @@ public abstract class Schedule {
    			/* Add this object to the schedule for the
    			 * from startTime to endTime.
    			 */
-   			schedule.set(channel, i, entry);
+   			setEntry(channel, i, entry);
    		}
    		fakeTime++;
    	}
@@ -329,74 +336,132 @@ public abstract class Schedule {
    		return channel;
    	}
 
+	/**
+	 * findChannelAndTime searches forward from time for the first time and channel
+	 * where schedulableObject can run without conflicts. <br>
+	 * The search is a loop rather than a recursion through continueSearch, and it
+	 * skips whole runs of conflicting slots using the schedule index, so it can
+	 * cover long hyperperiods.
+	 * 
+	 * @param time first time to consider
+	 * @param schedulableObject activation to place
+	 * @return ScheduleLocation; channel is numChannels when none was found
+	 */
 	protected ScheduleLocation findChannelAndTime(Integer time, Activation schedulableObject ) {
-		var channel = numChannels; // default is no channel available 
-   		var duration = schedulableObject.getExecutionDuration();
-   		
-   		while (time < endScheduleTime && conflictsExist(schedulableObject, time, duration )) {
-   			time ++; //+= duration+1;
-   		}
-   		if (time >= endScheduleTime) {
-   			/* no conflict time available */
-   			return new ScheduleLocation(channel, time);	
-   		} 
-   		
-   		/* can schedule at current value of time, so find the best channel.
-   		 * Bias toward and empty channel at near lowest end of spectrum */
-   		for (int i = numChannels-1; i >= 0 ; i--) {
-   			/* Start at numChannels and work down to 0
-   			 * checking for conflicts and finding an
-   			 * empty slot at the same time. This will
-   			 * result in the lowest possible channel
-   			 * being used if their are no conflicts
-   			 * with any channel entries.
-   			 * 
-   			 * This version combines entries as soon as.
-   			 * possible, without looking for other, low-channel
-   			 * combinations.
+		var duration = schedulableObject.getExecutionDuration();
+   		while (true) {
+   			var channel = numChannels; // default is no channel available 
+   			time = nextConflictFreeTime(schedulableObject, time, duration);
+   			if (time >= endScheduleTime) {
+   				/* no conflict time available */
+   				return new ScheduleLocation(channel, time);	
+   			} 
+   
+   			/* can schedule at current value of time, so find the best channel.
+   			 * Bias toward and empty channel at near lowest end of spectrum */
+   			for (int i = numChannels-1; i >= 0 ; i--) {
+   				/* Start at numChannels and work down to 0
+   				 * checking for conflicts and finding an
+   				 * empty slot at the same time. This will
+   				 * result in the lowest possible channel
+   				 * being used if their are no conflicts
+   				 * with any channel entries.
+   				 * 
+   				 * This version combines entries as soon as.
+   				 * possible, without looking for other, low-channel
+   				 * combinations.
+   				 */
+   				if (time > 0 && schedulableObject.getReleaseTime() < time) {
+   					var priorEntry = schedule.get(i, time-1);
+   					if (priorEntry != null) {
+   						var combinedDuration = priorEntry.getCombinedExecutionDuration(schedulableObject);
+   						if (priorEntry.canCombine(schedulableObject) && 
+   								noOtherChannelConflicts(i,schedulableObject, time-1) &&
+   								isAvailable(schedulableObject,i,priorEntry.getStartTime(),combinedDuration)) {
+   							channel = i;
+   							time = priorEntry.getStartTime();
+   							break;
+   						}
+   					}
+   				}
+   				if (isAvailable(schedulableObject, i, time, duration)) {
+   					channel = i;
+   				}
+   
+   			}
+   			if (channel != numChannels) {
+   				return new ScheduleLocation(channel, time);	
+   			}
+   			/* no time and channel found in interval [time, time+duration]
+   			 * so, let a subclass try its own search, or advance time and check again
    			 */
-   			// var entry = schedule.get(i,time);
-   			if (time > 0 && schedulableObject.getReleaseTime() < time) {
-   				var priorEntry = schedule.get(i, time-1);
-   				if (priorEntry != null) {
-   					var combinedDuration = priorEntry.getCombinedExecutionDuration(schedulableObject);
-   					if (priorEntry.canCombine(schedulableObject) && 
-   							noOtherChannelConflicts(i,schedulableObject, time-1) &&
-   							isAvailable(schedulableObject,i,priorEntry.getStartTime(),combinedDuration)) {
-   						channel = i;
-   						time = priorEntry.getStartTime();
-   						break;
-   					}
-   				}
+   			var location = continueSearch(time,schedulableObject);
+   			if (location != null) {
+   				return location;
    			}
-   			if (isAvailable(schedulableObject, i, time, duration)) {
-   				channel = i;
+   			time = nextSearchTime(time,schedulableObject);
+   		}
+   	}
+
+	/**
+	 * nextSearchTime returns the next time findChannelAndTime should try
+	 * after no channel was found for activation at time. <br>
+	 * A channel can only be used at a later time t if it is free in
+	 * [t, t+duration) or holds an entry in [t-1, t+duration) that can be
+	 * combined with activation, so the times before the first such
+	 * interval on any channel are skipped using the schedule index.
+	 * Subclasses whose continueSearch can succeed at any time should 
+	 * return time+1.
+	 * 
+	 * @param time time at which no channel was found
+	 * @param activation activation to place
+	 * @return next time to try, at most endScheduleTime
+	 */
+	protected Integer nextSearchTime(Integer time, Activation activation) {
+		var duration = activation.getExecutionDuration();
+   		var coordinators = activation.getCoordinators();
+   		if (duration <= 0 || coordinators.isEmpty()) {
+   			return time+1;
+   		}
+   		var coordinator = coordinators.get(0); // what canCombine matches on
+   		var next = endScheduleTime;
+   		for (int channel = 0; channel < numChannels; channel++) {
+   			next = scheduleIndex.nextFreeInterval(channel, time+1, duration, next);
+   			var slot = scheduleIndex.nextNodeEntry(coordinator, channel, time);
+   			if (slot >= 0) {
+   				next = Math.min(next, Math.max(time+1, slot-duration+1));
    			}
-   
-   		}
-   		/* no time and channel found in interval [time, time+duration]
-   		 * so, advance time and check again
-   		 */
-   		if (channel == numChannels) {
-   			return continueSearch(time,schedulableObject);
-   		} else {
-   			return new ScheduleLocation(channel, time);	
    		}
+   		return next;
+   	}
+
+	/* Returns the time that stepping time forward while conflictsExist(obj, time, duration)
+	 * would stop at, skipping runs of conflicting slots with the schedule index.
+	 */
+	private Integer nextConflictFreeTime(Activation obj, Integer time, Integer duration) {
+		if (duration <= 0) {
+   			return Math.max(time, endScheduleTime); // conflictsExist is true for every time
+   		}
+   		var lastStart = endScheduleTime - duration; // conflictsExist is false from here on
+   		if (time >= lastStart) {
+   			return time;
+   		}
+   		return scheduleIndex.nextConflictFreeTime(obj.getConflicts(), time, duration, lastStart);
    	}
 	
 	/** 
 * continueSearch continues the search for a channel time.<br>
- * 	 * The default implementation continues at time+1 by calling
- * 	 * findChannelAndTime(time+1,schedulableObject). This method
+ * 	 * The default implementation returns null, which tells 
+ * 	 * findChannelAndTime to continue at time+1. This method
  * 	 * can be overridden to provide preemptive searches or any
  * 	 * other method of continuing the search.
  * 	 * 
  * 	 * @param time
  * 	 * @param activation
- * 	 * @return ScheduleLocation
+ * 	 * @return ScheduleLocation, or null to continue at time+1
 	 */
 	protected ScheduleLocation continueSearch(Integer time, Activation activation) {
-		return findChannelAndTime(time+1,activation);
+		return null;
    	}
 	
 	protected Boolean noOtherChannelConflicts(Integer exceptedChannel, Activation schedulableObject, Integer time) {
@@ -432,18 +497,10 @@ public abstract class Schedule {
    		}
    		if (duration <= 0) {
    			result  = true;
-   		} else {
-   			for (Integer i = time; i < time+duration; i++ ) {
-   				for (Integer channel = 0; channel < numChannels ; channel++) {
-   					var entry = schedule.get(channel,i);
-   					if (entry != null && obj != null) {
-   						if (entry.conflictExists(obj)) {
-   							result = true;
-   							return result;
-   						}
-   					} 
-   				}
-   			}	
+   		} else if (obj != null) {
+   			/* same as checking entry.conflictExists(obj) for the entry of
+   			 * every channel in [time, time+duration) */
+   			result = scheduleIndex.conflictsExist(obj.getConflicts(), time, duration);
    		}
    		return result;
    	}
@@ -486,7 +543,8 @@ public abstract class Schedule {
    		if (conflictsExist(a1,start,duration)) {
    			return false;
    		}
-   		for (Integer j = start; j < start+duration; j++ ) {
+   		var j = scheduleIndex.nextEntry(channel, start); // first entry at or after start
+   		if (j >= 0 && j < start+duration) {
    			var currentEntry = schedule.get(channel,j);
    			if (currentEntry != null) {
    				if (currentEntry.canCombine(a1)) {
@@ -501,7 +559,6 @@ public abstract class Schedule {
    					return isAvailable(combinedEntry, channel, searchTime, searchLength);
    				} else {
    					available = false;
-   					break;
    				}
    			}
    		}
@@ -536,9 +593,8 @@ public abstract class Schedule {
 	protected Integer timeRemaining(Integer channel, Integer start, Integer duration) {
 		var result = duration;
    
-   		var row = schedule.get(channel);
    		for (Integer i = start; i < start+duration; i++, result-- ) {
-   			if (row.get(i) != null) {
+   			if (schedule.get(channel,i) != null) {
    				break;
    			}
    		}
@@ -575,7 +631,7 @@ public abstract class Schedule {
    				/* Add this object to the schedule for the
    				 * from startTime to endTime.
    				 */
-   				schedule.set(channel, i, entry);
+   				setEntry(channel, i, entry);
    			}
    			result = true;
    		}
@@ -672,7 +728,7 @@ public abstract class Schedule {
    			/* Add this object to the schedule for the
    			 * from startTime to endTime.
    			 */
-   			schedule.set(channel, i, entry);
+   			setEntry(channel, i, entry);
    		}
    		return true;
    	}
@@ -683,7 +739,7 @@ public abstract class Schedule {
 
 	public void printVerbose() {
 		System.out.println("\nSchedule:");
-   		var endSchedule = schedule.get(0).size();
+   		var endSchedule = schedule.getNumColumns();
    		for (int i = 0; i < numChannels; i++) {
    			System.out.printf("\nChannel: %d",i);
    			var name = UNKNOWN;
@@ -702,7 +758,7 @@ public abstract class Schedule {
 
 	public void print() {
 		System.out.printf("\nSchedule (length is %d):\n", endScheduleTime);
-   		for (int i = 0; i < schedule.size(); i++) {
+   		for (int i = 0; i < schedule.getNumRows(); i++) {
    			System.out.printf("\nChannel: %d: ",i);
    			var name = UNKNOWN;
    			var startTime = -1;
@@ -721,12 +777,11 @@ public abstract class Schedule {
    			}
    		}
    		/* report the number of Activations not schedulable, if any */
-   		ArrayList<Activation> notSchedulable = schedule.get(numChannels);
    		var numNotSchedulable = 0; 	
    		var name = UNKNOWN;
    		var lastStartTime = -1;
    		for (int i = 0; i < endScheduleTime; i++) {
-   			var entry = notSchedulable.get(i);
+   			var entry = schedule.get(numChannels,i);
    			if (entry != null) {
    				var entryName = entry.getName();
    				if (!name.equals(entryName) || (name.equals(entryName) && lastStartTime != entry.getStartTime())) {
@@ -0,0 +1,165 @@
+package edu.uiowa.cs.warp;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Set;
+
+/**
+ * Index of the time slots used in a ScheduleTable, kept so that Schedule can find the next time an
+ * activation fits without checking every channel of every slot.
+ * <p>
+ * For each channel there is a bitmap of the slots holding an entry, and for each conflict (the
+ * node names in Activation.getConflicts()) a bitmap of the slots where some channel holds an entry
+ * with that conflict. Two activations conflict when their conflict sets intersect, so an activation
+ * is free of conflicts in a slot exactly when none of its conflicts is busy there. A conflict can
+ * be held by entries on several channels in the same slot, so a count per slot is kept and the bit
+ * is cleared only when the last such entry is overwritten.
+ * <p>
+ * For each node there is also a bitmap per channel of the slots holding an entry that the node
+ * coordinates. An entry can be combined with an activation exactly when it lists the first
+ * coordinator of the activation among its coordinators (Activation.canCombine), so together with
+ * the channel bitmaps this tells Schedule the next interval in which a channel is either free or
+ * holds an entry it could combine with, and the search can skip the slots in between.
+ *
+ * @version 1.0
+ */
+class ScheduleIndex {
+
+  private final BitSet[] channelBusy; // slots of each channel that hold an entry
+  private final HashMap<String, BitSet> conflictBusy = new HashMap<>();
+  private final HashMap<String, int[]> conflictCount = new HashMap<>();
+  private final HashMap<String, BitSet[]> nodeBusy = new HashMap<>(); // per channel, by coordinator
+  private final int numChannels;
+  private final int length;
+
+  /**
+   * @param numChannels channels indexed; entries in other columns, such as the column of entries
+   *        that were not schedulable, are ignored
+   * @param length number of time slots in the schedule
+   */
+  ScheduleIndex(int numChannels, int length) {
+    this.numChannels = numChannels;
+    this.length = length;
+    this.channelBusy = new BitSet[numChannels];
+    for (int channel = 0; channel < numChannels; channel++) {
+      channelBusy[channel] = new BitSet(length);
+    }
+  }
+
+  /**
+   * Records that entry replaced oldEntry at channel and time.
+   */
+  void set(int channel, int time, Activation oldEntry, Activation entry) {
+    if (channel < 0 || channel >= numChannels || time < 0 || time >= length) {
+      return;
+    }
+    if (oldEntry != null) {
+      for (String node : oldEntry.getCoordinators()) {
+        nodeBusy.get(node)[channel].clear(time);
+      }
+      for (String conflict : oldEntry.getConflicts()) {
+        var count = conflictCount.get(conflict);
+        if (--count[time] == 0) {
+          conflictBusy.get(conflict).clear(time);
+        }
+      }
+    }
+    if (entry != null) {
+      for (String node : entry.getCoordinators()) {
+        nodeBusy.computeIfAbsent(node, (n) -> newChannelBitSets())[channel].set(time);
+      }
+      for (String conflict : entry.getConflicts()) {
+        var count = conflictCount.computeIfAbsent(conflict, (c) -> new int[length]);
+        if (count[time]++ == 0) {
+          conflictBusy.computeIfAbsent(conflict, (c) -> new BitSet(length)).set(time);
+        }
+      }
+    }
+    channelBusy[channel].set(time, entry != null);
+  }
+
+  /**
+   * @return true if an entry with one of conflicts is scheduled on any channel in
+   *         [time, time+duration)
+   */
+  Boolean conflictsExist(Set<String> conflicts, int time, int duration) {
+    for (String conflict : conflicts) {
+      var busy = conflictBusy.get(conflict);
+      if (busy != null) {
+        var slot = busy.nextSetBit(time);
+        if (slot >= 0 && slot < time + duration) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Finds the first time at or after time where [time, time+duration) is free of conflicts.
+   *
+   * @return that time, or limit if there is none before limit
+   */
+  int nextConflictFreeTime(Set<String> conflicts, int time, int duration, int limit) {
+    while (time < limit) {
+      var moved = false;
+      for (String conflict : conflicts) {
+        var busy = conflictBusy.get(conflict);
+        if (busy == null) {
+          continue;
+        }
+        var slot = busy.nextSetBit(time);
+        if (slot >= 0 && slot < time + duration) {
+          /* every start up to and including slot overlaps it, and so do the busy slots after it */
+          time = busy.nextClearBit(slot);
+          moved = true;
+        }
+      }
+      if (!moved) {
+        return time;
+      }
+    }
+    return limit;
+  }
+
+  /**
+   * @return the first slot at or after time that holds an entry on channel, or -1 if there is none
+   */
+  int nextEntry(int channel, int time) {
+    return channelBusy[channel].nextSetBit(time);
+  }
+
+  /**
+   * Finds the first time at or after time where channel holds no entry in [time, time+duration).
+   *
+   * @return that time, or limit if there is none before limit
+   */
+  int nextFreeInterval(int channel, int time, int duration, int limit) {
+    var busy = channelBusy[channel];
+    while (time < limit) {
+      var slot = busy.nextSetBit(time);
+      if (slot < 0 || slot >= time + duration) {
+        return time;
+      }
+      time = busy.nextClearBit(slot);
+    }
+    return limit;
+  }
+
+  /**
+   * @return the first slot at or after time where channel holds an entry coordinated by node, or
+   *         -1 if there is none
+   */
+  int nextNodeEntry(String node, int channel, int time) {
+    var busy = nodeBusy.get(node);
+    return (busy == null) ? -1 : busy[channel].nextSetBit(time);
+  }
+
+  private BitSet[] newChannelBitSets() {
+    var bitSets = new BitSet[numChannels];
+    for (int channel = 0; channel < numChannels; channel++) {
+      bitSets[channel] = new BitSet(length);
+    }
+    return bitSets;
+  }
+}
@@ -1,15 +1,22 @@
 package edu.uiowa.cs.warp;
 
-public class ScheduleTable extends Table<Activation,Row<Activation>> {
+/**
+ * Table of the Activations in a Schedule, with one row per channel (plus the row of entries that
+ * were not schedulable) and one column per time slot.
+ * <p>
+ * The cells are kept in one array in row-major order, so walking a channel through time reads
+ * consecutive memory. Like Table, get returns null and set does nothing for a cell outside the
+ * table.
+ */
+public class ScheduleTable {
 	
-	/**
-	 * 
-	 */
-	private static final long serialVersionUID = 1L;
+	private final Activation[] cells;
+	private final int numRows;
+	private final int numColumns;
 
 	ScheduleTable(){
-		super();
-   	}
+		this(0,0);
+	}
 	
 	/**
 	 * Constructor creates a table row x column in size, full
@@ -19,8 +26,31 @@ public class ScheduleTable extends Table<Activation,Row<Activation>> {
 	 * @param column
 	 */
 	ScheduleTable(Integer row, Integer column){
-		super(row,column);
-   		
-   	}
+		numRows = row;
+		numColumns = column;
+		cells = new Activation[row*column];
+	}
+
+	public Integer getNumRows() {
+		return numRows;
+	}
+
+	public Integer getNumColumns() {
+		return numColumns;
+	}
+
+	public void set(Integer row, Integer column, Activation element) {
+		if (contains(row, column)) {
+			cells[row*numColumns + column] = element;
+		}
+	}
+
+	public Activation get(Integer row, Integer column) {
+		return contains(row, column) ? cells[row*numColumns + column] : null;
+	}
+
+	private boolean contains(int row, int column) {
+		return row >= 0 && row < numRows && column >= 0 && column < numColumns;
+	}
 
 }
@@ -0,0 +1,94 @@
+package edu.uiowa.cs.warp;
+
+import edu.uiowa.cs.warp.SystemAttributes.ScheduleChoices;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * State one scheduler run updates while it builds a program from a WorkLoadSnapshot: the order in
+ * which flows are scheduled and the channel each node last used.
+ * <p>
+ * This is the state WorkLoad used to hold for its Program, so giving every run its own context
+ * lets several schedulers share one snapshot (and one WorkLoad) without copying it. A context is
+ * not thread safe and is meant to be used by one run at a time.
+ *
+ * @version 1.0
+ */
+class SchedulerContext {
+
+  private final WorkLoadSnapshot snapshot;
+  private ArrayList<String> flowNamesInPriorityOrder;
+  private final HashMap<String, Integer> nodeChannels;
+
+  /**
+   * Creates a context with the flows in priority order and each node on the channel it had in the
+   * snapshot.
+   */
+  SchedulerContext(WorkLoadSnapshot snapshot) {
+    this.snapshot = snapshot;
+    this.flowNamesInPriorityOrder = snapshot.getFlowNamesInPriorityOrder();
+    this.nodeChannels = new HashMap<String, Integer>(snapshot.getNodeChannels());
+  }
+
+  WorkLoadSnapshot getSnapshot() {
+    return snapshot;
+  }
+
+  /**
+   * Orders the flows the way choice schedules them. The poset schedulers use the same orders as
+   * the schedulers they are named after.
+   */
+  void setFlowOrder(ScheduleChoices choice) {
+    switch (choice) {
+      case RM:
+      case POSET_RM:
+      case CONNECTIVITY_POSET_RM:
+      case WARP_POSET_RM:
+        flowNamesInPriorityOrder = snapshot.getFlowNamesInRMorder();
+        break;
+      case DM:
+      case POSET_DM:
+      case CONNECTIVITY_POSET_DM:
+      case WARP_POSET_DM:
+        flowNamesInPriorityOrder = snapshot.getFlowNamesInDMorder();
+        break;
+      default: // PRIORITY, RTHART and the priority posets
+        flowNamesInPriorityOrder = snapshot.getFlowNamesInPriorityOrder();
+        break;
+    }
+  }
+
+  /**
+   * @return the flows in the order they are scheduled; the list belongs to this context
+   */
+  ArrayList<String> getFlowNamesInPriorityOrder() {
+    return flowNamesInPriorityOrder;
+  }
+
+  Integer getNodeChannel(String nodeName) {
+    return nodeChannels.get(nodeName);
+  }
+
+  void setNodeChannel(String nodeName, Integer channel) {
+    nodeChannels.put(nodeName, channel);
+  }
+
+  /**
+   * @return a copy of the channel of every node
+   */
+  HashMap<String, Integer> getNodeChannels() {
+    return new HashMap<String, Integer>(nodeChannels);
+  }
+
+  /**
+   * Sets the channel of every node in channels that is still in the snapshot.
+   */
+  void setNodeChannels(Map<String, Integer> channels) {
+    channels.forEach((nodeName, channel) -> {
+      if (nodeChannels.containsKey(nodeName)) {
+        nodeChannels.put(nodeName, channel);
+      }
+    });
+  }
+}
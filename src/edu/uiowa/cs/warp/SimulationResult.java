@@ -0,0 +1,197 @@
+package edu.uiowa.cs.warp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+
+/**
+ * The deliveries, latencies and deadline misses counted by a PacketSimulator run, per flow and
+ * per flow instance.
+ * <p>
+ * Reliabilities are the fraction of trials in which an instance was delivered. Confidence
+ * intervals are 95% Wilson score intervals, which stay inside [0, 1] even when every trial, or
+ * none, delivers the packet.
+ *
+ * @version 1.0
+ */
+public class SimulationResult {
+
+  private static final double Z_95 = 1.96;
+
+  private final String[] flowNames;
+  private final HashMap<String, Integer> flowIndex = new HashMap<String, Integer>();
+  private final double minPacketReceptionRate;
+  private final int numTrials;
+  private final int[] instanceStart;
+  private final int[] releaseTimes;
+  private final int[] deliveries;
+  private final LatencyHistogram[] latencies;
+  private final int[] deadlineMisses;
+
+  SimulationResult(String[] flowNames, double minPacketReceptionRate, int numTrials,
+      int[] instanceStart, int[] releaseTimes, int[] deliveries, LatencyHistogram[] latencies,
+      int[] deadlineMisses) {
+    this.flowNames = flowNames;
+    for (int f = 0; f < flowNames.length; f++) {
+      flowIndex.put(flowNames[f], f);
+    }
+    this.minPacketReceptionRate = minPacketReceptionRate;
+    this.numTrials = numTrials;
+    this.instanceStart = instanceStart;
+    this.releaseTimes = releaseTimes;
+    this.deliveries = deliveries;
+    this.latencies = latencies;
+    this.deadlineMisses = deadlineMisses;
+  }
+
+  public int getNumTrials() {
+    return numTrials;
+  }
+
+  public double getMinPacketReceptionRate() {
+    return minPacketReceptionRate;
+  }
+
+  /**
+   * @return the names of the flows, in priority order
+   */
+  public ArrayList<String> getFlowNames() {
+    return new ArrayList<String>(Arrays.asList(flowNames));
+  }
+
+  /**
+   * @return the number of instances of flowName released in the program, 0 for an unknown flow
+   */
+  public int getNumInstances(String flowName) {
+    var f = flowIndex.get(flowName);
+    return (f != null) ? instanceStart[f + 1] - instanceStart[f] : 0;
+  }
+
+  /**
+   * @return the time slot in which instance k of flowName is released
+   */
+  public int getReleaseTime(String flowName, int k) {
+    return releaseTimes[instance(flowName, k)];
+  }
+
+  /**
+   * @return the number of trials in which instance k of flowName was delivered
+   */
+  public int getDeliveries(String flowName, int k) {
+    return deliveries[instance(flowName, k)];
+  }
+
+  /**
+   * @return the fraction of trials in which instance k of flowName was delivered
+   */
+  public double getReliability(String flowName, int k) {
+    return fraction(getDeliveries(flowName, k), numTrials);
+  }
+
+  /**
+   * @return the fraction of all instances of flowName, over all trials, that were delivered
+   */
+  public double getReliability(String flowName) {
+    return fraction(totalDeliveries(flowName), (long) numTrials * getNumInstances(flowName));
+  }
+
+  /**
+   * @return the reliability of the least reliable instance of flowName, 1.0 if it has none
+   */
+  public double getMinReliability(String flowName) {
+    var min = 1.0;
+    for (int k = 0; k < getNumInstances(flowName); k++) {
+      min = Math.min(min, getReliability(flowName, k));
+    }
+    return min;
+  }
+
+  /**
+   * @return {low, high} of the 95% confidence interval of getReliability(flowName)
+   */
+  public double[] getConfidenceInterval(String flowName) {
+    return wilson(totalDeliveries(flowName), (long) numTrials * getNumInstances(flowName));
+  }
+
+  /**
+   * @return {low, high} of the 95% confidence interval of getReliability(flowName, k)
+   */
+  public double[] getConfidenceInterval(String flowName, int k) {
+    return wilson(getDeliveries(flowName, k), numTrials);
+  }
+
+  /**
+   * @return the latencies of the delivered instances of flowName, with the lost ones counted as
+   *         unknown, or null for an unknown flow
+   */
+  public LatencyHistogram getLatencyHistogram(String flowName) {
+    var f = flowIndex.get(flowName);
+    return (f != null) ? latencies[f] : null;
+  }
+
+  /**
+   * @return the number of instances of flowName delivered after their deadline
+   */
+  public int getDeadlineMisses(String flowName) {
+    var f = flowIndex.get(flowName);
+    return (f != null) ? deadlineMisses[f] : 0;
+  }
+
+  /**
+   * @return one line per flow with its reliability, confidence interval, latencies and deadline
+   *         misses
+   */
+  public Description report() {
+    var description = new Description();
+    description.add(String.format(Locale.ROOT, "%d trials with M = %s\n", numTrials,
+        String.valueOf(minPacketReceptionRate)));
+    for (String flowName : flowNames) {
+      var ci = getConfidenceInterval(flowName);
+      var histogram = getLatencyHistogram(flowName);
+      description.add(String.format(Locale.ROOT,
+          "%s: reliability %.6f [%.6f, %.6f], min %.6f, mean latency %.2f, max latency %d, "
+              + "%d deadline misses\n",
+          flowName, getReliability(flowName), ci[0], ci[1], getMinReliability(flowName),
+          histogram.getMean(), histogram.getMax(), getDeadlineMisses(flowName)));
+    }
+    return description;
+  }
+
+  private int instance(String flowName, int k) {
+    var f = flowIndex.get(flowName);
+    if (f == null || k < 0 || k >= instanceStart[f + 1] - instanceStart[f]) {
+      throw new IndexOutOfBoundsException(flowName + " instance " + k);
+    }
+    return instanceStart[f] + k;
+  }
+
+  private long totalDeliveries(String flowName) {
+    var f = flowIndex.get(flowName);
+    long total = 0;
+    if (f != null) {
+      for (int i = instanceStart[f]; i < instanceStart[f + 1]; i++) {
+        total += deliveries[i];
+      }
+    }
+    return total;
+  }
+
+  private static double fraction(long successes, long trials) {
+    return trials > 0 ? (double) successes / trials : 0.0;
+  }
+
+  private static double[] wilson(long successes, long trials) {
+    if (trials <= 0) {
+      return new double[] {0.0, 1.0};
+    }
+    var p = (double) successes / trials;
+    var z2 = Z_95 * Z_95;
+    var denominator = 1.0 + z2 / trials;
+    var center = (p + z2 / (2.0 * trials)) / denominator;
+    var halfWidth =
+        Z_95 * Math.sqrt(p * (1.0 - p) / trials + z2 / (4.0 * trials * (double) trials))
+            / denominator;
+    return new double[] {Math.max(0.0, center - halfWidth), Math.min(1.0, center + halfWidth)};
+  }
+}
@@ -1,13 +1,304 @@
 /**
- * 
+ *
  */
 package edu.uiowa.cs.warp;
 
-/**
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
 
-* @author sgoddard
- *  *
+/**
+ * Input file for the WARP simulator, in the SimFile grammar shipped in CS2820.jar.
+ * <p>
+ * Each time slot of the program is one line. For every channel used in the slot, in channel
+ * order, the line has a <code>#CHANNEL c#</code> entry, an <code>#NCP (src,snk),...#</code> entry
+ * with the links that may transmit on the channel, and one <code>#*coordinator @flow.instance,...#
+ * </code> entry for each node that coordinates those transmissions. Channels are separated by
+ * <code>|</code>, and a slot with no transmissions is <code>##</code>. Nodes are named by
+ * Node.getIndex() and flows by Flow.getIndex(), so names are short numbers whatever the workload
+ * calls them; the instance is the number of the flow's release, from 0, current in the slot.
+ * <p>
+ * The file is streamed: rows are read from the program one at a time and written through a
+ * ByteBuffer to a channel, so the file is never held in memory. Each distinct instruction is
+ * decoded once, the first time a cell holds it.
+ *
+ * @author sgoddard
+ * @version 1.1
  */
 public class SimulatorInput {
-	// TODO Auto-generated method stub
+
+  private static final int BUFFER_SIZE = 1 << 16;
+  /* room left in the buffer before it is flushed, enough for any one number or keyword */
+  private static final int FLUSH_MARGIN = 32;
+  /* fields of each decoded transmission */
+  private static final int CHANNEL = 0;
+  private static final int FLOW = 1;
+  private static final int SRC = 2;
+  private static final int SNK = 3;
+  private static final int COORDINATOR = 4;
+  private static final int FIELDS = 5;
+  private static final int[] NO_TRANSMISSIONS = new int[0];
+
+  private final Program program;
+
+  SimulatorInput(Program program) {
+    this.program = program;
+  }
+
+  /**
+   * Writes the simulator input to file, replacing it if it exists. Errors are reported on
+   * System.err, as FileManager does.
+   */
+  public void toFile(String file) {
+    try (var channel = FileChannel.open(Path.of(file), StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      write(channel);
+    } catch (IOException e) {
+      System.err.println("Error on writing simulator input to file " + file + ": " + e.getMessage());
+    }
+  }
+
+  /**
+   * Streams the simulator input to channel, which is left open.
+   */
+  void write(WritableByteChannel channel) throws IOException {
+    new Writer(channel).writeProgram();
+  }
+
+  /* state of one pass over the program */
+  private class Writer {
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final WorkLoad workLoad = program.toWorkLoad();
+    private final WorkLoadSnapshot snapshot = program.toWorkLoadSnapshot();
+    private final String[] flowNames;
+    private final HashMap<String, Integer> flowIndex = new HashMap<String, Integer>();
+    private final int[] flowNumber;
+    private final int[] instance;
+    private final int[] nextRelease;
+    private final HashMap<Instruction, int[]> transmissions = new HashMap<Instruction, int[]>();
+    /* transmissions of the current slot, as (channel << 32 | position in slotFields) */
+    private long[] slotKeys = new long[16];
+    private int[] slotFields = new int[16 * FIELDS];
+
+    Writer(WritableByteChannel channel) {
+      this.channel = channel;
+      flowNames = program.getFlowNamesInPriorityOrder().toArray(new String[0]);
+      flowNumber = new int[flowNames.length];
+      instance = new int[flowNames.length];
+      nextRelease = new int[flowNames.length];
+      var flows = workLoad.getFlows();
+      for (int f = 0; f < flowNames.length; f++) {
+        flowIndex.put(flowNames[f], f);
+        var flow = flows.get(flowNames[f]);
+        flowNumber[f] = (flow != null) ? flow.getIndex() : f;
+        instance[f] = -1;
+        nextRelease[f] = snapshot.nextReleaseTime(flowNames[f], 0);
+      }
+    }
+
+    void writeProgram() throws IOException {
+      var schedule = program.getSchedule();
+      var numColumns = schedule.getNumColumns();
+      /* a node often repeats its instruction, e.g. sleep, so the last one is checked first */
+      var lastInstruction = new Instruction[numColumns];
+      var lastDecoded = new int[numColumns][];
+      for (int slot = 0; slot < schedule.getNumRows(); slot++) {
+        advanceInstances(slot);
+        var count = 0;
+        for (int column = 0; column < numColumns; column++) {
+          var instruction = schedule.get(slot, column);
+          if (instruction != lastInstruction[column] || lastDecoded[column] == null) {
+            lastInstruction[column] = instruction;
+            lastDecoded[column] = decode(instruction);
+          }
+          var decoded = lastDecoded[column];
+          for (int t = 0; t < decoded.length; t += FIELDS) {
+            if (count == slotKeys.length) {
+              slotKeys = Arrays.copyOf(slotKeys, count * 2);
+              slotFields = Arrays.copyOf(slotFields, count * 2 * FIELDS);
+            }
+            System.arraycopy(decoded, t, slotFields, count * FIELDS, FIELDS);
+            slotKeys[count] = ((long) decoded[t + CHANNEL] << 32) | count;
+            count++;
+          }
+        }
+        writeSlot(count);
+      }
+      flush();
+    }
+
+    private void advanceInstances(int slot) {
+      for (int f = 0; f < flowNames.length; f++) {
+        while (nextRelease[f] <= slot) {
+          instance[f]++;
+          var next = snapshot.nextReleaseTime(flowNames[f], nextRelease[f] + 1);
+          nextRelease[f] = (next > nextRelease[f]) ? next : Integer.MAX_VALUE;
+        }
+      }
+    }
+
+    /* the transmissions of instruction, FIELDS ints each */
+    private int[] decode(Instruction instruction) {
+      if (instruction == null) {
+        return NO_TRANSMISSIONS;
+      }
+      var decoded = transmissions.get(instruction);
+      if (decoded == null) {
+        var fields = new int[instruction.numClauses() * FIELDS];
+        var length = 0;
+        for (var clause = instruction; clause != null; clause = clause.getElse()) {
+          var f = clause.isTransmission() ? flowIndex.get(clause.getFlow()) : null;
+          var src = clause.isTransmission() ? nodeNumber(clause.getSrc()) : null;
+          var snk = clause.isTransmission() ? nodeNumber(clause.getSnk()) : null;
+          if (f == null || src == null || snk == null || clause.getChannel() < 0) {
+            continue;
+          }
+          fields[length + CHANNEL] = clause.getChannel();
+          fields[length + FLOW] = f;
+          fields[length + SRC] = src;
+          fields[length + SNK] = snk;
+          fields[length + COORDINATOR] = nodeNumber(clause.getCoordinator());
+          length += FIELDS;
+        }
+        decoded = (length > 0) ? Arrays.copyOf(fields, length) : NO_TRANSMISSIONS;
+        transmissions.put(instruction, decoded);
+      }
+      return decoded;
+    }
+
+    private Integer nodeNumber(String nodeName) {
+      var node = workLoad.getNodes().get(nodeName);
+      return (node != null) ? node.getIndex() : null;
+    }
+
+    private void writeSlot(int count) throws IOException {
+      if (count == 0) {
+        put("##\n");
+        return;
+      }
+      Arrays.sort(slotKeys, 0, count); // by channel, then in column order
+      for (int first = 0; first < count;) {
+        var channelNumber = (int) (slotKeys[first] >>> 32);
+        var last = first;
+        while (last < count && (int) (slotKeys[last] >>> 32) == channelNumber) {
+          last++;
+        }
+        if (first > 0) {
+          put(" | ");
+        }
+        put("#CHANNEL ");
+        put(channelNumber);
+        put("# #NCP ");
+        writePairs(first, last);
+        put("#");
+        writeCoordinators(first, last);
+        first = last;
+      }
+      put("\n");
+    }
+
+    /* distinct (src,snk) links of the transmissions from first to last */
+    private void writePairs(int first, int last) throws IOException {
+      var separator = "";
+      for (int k = first; k < last; k++) {
+        var fields = field(k);
+        if (seenBefore(first, k, SRC, SNK)) {
+          continue;
+        }
+        put(separator);
+        put("(");
+        put(slotFields[fields + SRC]);
+        put(",");
+        put(slotFields[fields + SNK]);
+        put(")");
+        separator = ",";
+      }
+    }
+
+    /* one entry per coordinator, with the distinct flow instances it coordinates */
+    private void writeCoordinators(int first, int last) throws IOException {
+      for (int k = first; k < last; k++) {
+        var coordinator = slotFields[field(k) + COORDINATOR];
+        if (seenBefore(first, k, COORDINATOR, COORDINATOR)) {
+          continue;
+        }
+        put(" #*");
+        put(coordinator);
+        var separator = " ";
+        for (int j = k; j < last; j++) {
+          var fields = field(j);
+          if (slotFields[fields + COORDINATOR] != coordinator
+              || seenBefore(k, j, COORDINATOR, FLOW)) {
+            continue;
+          }
+          var f = slotFields[fields + FLOW];
+          put(separator);
+          put("@");
+          put(flowNumber[f]);
+          put(".");
+          put(Math.max(0, instance[f]));
+          separator = ",";
+        }
+        put("#");
+      }
+    }
+
+    /* true if a transmission from first to k has the same fieldA and fieldB as k */
+    private boolean seenBefore(int first, int k, int fieldA, int fieldB) {
+      var fields = field(k);
+      for (int j = first; j < k; j++) {
+        var other = field(j);
+        if (slotFields[other + fieldA] == slotFields[fields + fieldA]
+            && slotFields[other + fieldB] == slotFields[fields + fieldB]) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    /* offset in slotFields of the k-th transmission of the slot in channel order */
+    private int field(int k) {
+      return (int) slotKeys[k] * FIELDS;
+    }
+
+    private void put(String text) throws IOException {
+      if (buffer.remaining() < FLUSH_MARGIN) {
+        flush();
+      }
+      for (int i = 0; i < text.length(); i++) {
+        buffer.put((byte) text.charAt(i));
+      }
+    }
+
+    private void put(int number) throws IOException {
+      if (buffer.remaining() < FLUSH_MARGIN) {
+        flush();
+      }
+      if (number < 0) {
+        buffer.put((byte) '-');
+        number = -number;
+      }
+      var digits = 1;
+      for (var n = number; n >= 10; n /= 10) {
+        digits *= 10;
+      }
+      for (; digits > 0; digits /= 10) {
+        buffer.put((byte) ('0' + (number / digits) % 10));
+      }
+    }
+
+    private void flush() throws IOException {
+      buffer.flip();
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      buffer.clear();
+    }
+  }
 }
@@ -0,0 +1,44 @@
+package edu.uiowa.cs.warp;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * SimulatorInputVisualization writes the SimulatorInput of a WARP program, the file created by
+ * the -s option.
+ * <p>
+ * The file has no header or footer, since the SimFile grammar has no comments. toFile streams it
+ * straight to the file; visualization() builds it in memory and is only meant for programs small
+ * enough to print.
+ *
+ * @version 1.0
+ */
+public class SimulatorInputVisualization extends VisualizationObject {
+
+  private static final String NAME_EXTENSION = "SimInput";
+  private static final String SOURCE_SUFFIX = ".txt";
+  private SimulatorInput simulatorInput;
+
+  SimulatorInputVisualization(WarpInterface warp) {
+    super(new FileManager(), warp, NAME_EXTENSION, SOURCE_SUFFIX);
+    this.simulatorInput = warp.toSimulator();
+  }
+
+  @Override
+  public Description visualization() {
+    var content = new ByteArrayOutputStream();
+    try {
+      simulatorInput.write(Channels.newChannel(content));
+    } catch (IOException e) {
+      System.err.println("Error on creating simulator input: " + e.getMessage());
+    }
+    return new Description(content.toString(StandardCharsets.US_ASCII));
+  }
+
+  @Override
+  public void toFile(String fileName) {
+    simulatorInput.toFile(fileName);
+  }
+}
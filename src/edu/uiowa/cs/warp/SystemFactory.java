@@ -17,4 +17,13 @@ public class SystemFactory {
 	public static WarpInterface create(WorkLoad workload, Integer numChannels, ScheduleChoices choice) {
 		return new WarpSystem(workload,numChannels, choice);
    	}
+
+	/**
+	 * Creates a system whose program is read from cache when it holds it, or built and added to it.
+	 * A null cache builds the program.
+	 */
+	public static WarpInterface create(WorkLoad workload, Integer numChannels, ScheduleChoices choice,
+			ProgramCache cache) {
+		return new WarpSystem(workload, numChannels, choice, cache);
+	}
 }
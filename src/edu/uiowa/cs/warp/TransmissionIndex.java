@@ -0,0 +1,85 @@
+package edu.uiowa.cs.warp;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * The time slots in which each link of each flow transmits in a program schedule, built in one
+ * pass over the schedule.
+ * <p>
+ * A slot is listed once for each clause of the link in the src node's cell of that slot and once
+ * for each in the snk node's cell, the same count LatencyAnalysis.numMatchingTx gives for the two
+ * cells. Most cells hold a sleep, which is passed over without looking anything up.
+ *
+ * @version 1.0
+ */
+class TransmissionIndex {
+
+  private static final int[] NO_SLOTS = new int[0];
+
+  /* sorted slots of each link, by linkName */
+  private final HashMap<String, int[]> slots = new HashMap<String, int[]>();
+
+  /**
+   * @param schedule the program schedule, with a column for each node
+   * @param nodeIndex the column of each node, as from Program.getNodeMapIndex
+   */
+  TransmissionIndex(Table<Instruction, InstructionTimeSlot> schedule,
+      HashMap<String, Integer> nodeIndex) {
+    var linkIds = new HashMap<String, Integer>();
+    var linkSlots = new int[16][];
+    var linkCounts = new int[16];
+    /* read as Lists, since the poset schedulers fill the table with plain ArrayList rows */
+    List<?> rows = schedule;
+    /* rows are scanned in order, so each link's slots are added sorted */
+    for (int row = 0; row < rows.size(); row++) {
+      var timeSlot = (List<?>) rows.get(row);
+      for (int column = 0; column < timeSlot.size(); column++) {
+        var cell = (Instruction) timeSlot.get(column);
+        for (var clause = cell; clause != null; clause = clause.getElse()) {
+          if (!clause.isTransmission()) {
+            continue;
+          }
+          var matches = (column == nodeIndex.getOrDefault(clause.getSrc(), -1) ? 1 : 0)
+              + (column == nodeIndex.getOrDefault(clause.getSnk(), -1) ? 1 : 0);
+          if (matches == 0) {
+            continue;
+          }
+          var link = linkIds.computeIfAbsent(
+              linkName(clause.getFlow(), clause.getSrc(), clause.getSnk()), (name) -> linkIds.size());
+          if (link == linkSlots.length) {
+            linkSlots = Arrays.copyOf(linkSlots, link * 2);
+            linkCounts = Arrays.copyOf(linkCounts, link * 2);
+          }
+          if (linkSlots[link] == null) {
+            linkSlots[link] = new int[4];
+          }
+          for (int m = 0; m < matches; m++) {
+            if (linkCounts[link] == linkSlots[link].length) {
+              linkSlots[link] = Arrays.copyOf(linkSlots[link], linkCounts[link] * 2);
+            }
+            linkSlots[link][linkCounts[link]++] = row;
+          }
+        }
+      }
+    }
+    for (var entry : linkIds.entrySet()) {
+      var link = entry.getValue();
+      slots.put(entry.getKey(), Arrays.copyOf(linkSlots[link], linkCounts[link]));
+    }
+  }
+
+  /**
+   * @return the slots in which src transmits to snk for flow, in increasing order and listed as
+   *         many times as the link is counted in the slot; empty if the link never transmits
+   */
+  int[] getSlots(String flow, String src, String snk) {
+    return slots.getOrDefault(linkName(flow, src, snk), NO_SLOTS);
+  }
+
+  /* flow, node and flow names can't hold ':', so the name is unique for each link */
+  private static String linkName(String flow, String src, String snk) {
+    return flow + ":" + src + ":" + snk;
+  }
+}
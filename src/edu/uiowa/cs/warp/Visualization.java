@@ -11,7 +11,8 @@ package edu.uiowa.cs.warp;
 public interface Visualization {
 
   public enum SystemChoices {
-    SOURCE, RELIABILITIES, SIMULATOR_INPUT, LATENCY, LATENCY_REPORT, DEADLINE_REPORT, CHANNEL
+    SOURCE, RELIABILITIES, SIMULATOR_INPUT, LATENCY, LATENCY_REPORT, DEADLINE_REPORT, CHANNEL,
+    UTILIZATION
   }
 
   public enum WorkLoadChoices {
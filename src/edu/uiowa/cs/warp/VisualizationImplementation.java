@@ -21,13 +21,9 @@ import java.io.File;
  */
 public class VisualizationImplementation implements Visualization {
   /**
-  * The variable visualization is a description of the visualization <br>
+  * The variable visualization is a description of the visualization, created when first needed <br>
   */
   private Description visualization;
-  /** 
-   * The variable fileContent is a description of the file's content <br>
-   */
-  private Description fileContent;
   /**
    * The variable window that creates a GUI visualization window of the visualization <br>
    */
@@ -128,11 +124,12 @@ public class VisualizationImplementation implements Visualization {
   
   /**
    * Overrides the implemented Visualization toFile method. <br>
-   * Assigns the file manager to write the file name and content to a file. <br>
+   * Has the visualization object write its file content to the file name. <br>
+   * @see VisualizationObject's method toFile(String) <br>
    */
   @Override
   public void toFile() {
-    fm.writeFile(fileName, fileContent.toString());
+    visualizationObject.toFile(fileName);
      }
   
   /**
@@ -141,6 +138,9 @@ public class VisualizationImplementation implements Visualization {
    */
   @Override
   public String toString() {
+    if (visualization == null) {
+      visualization = visualizationObject.visualization();
+    }
     return visualization.toString();
      }
   
@@ -165,8 +165,7 @@ public class VisualizationImplementation implements Visualization {
         break;
    
       case SIMULATOR_INPUT:
-        // TODO Implement Simulator Input Visualization
-        createVisualization(new NotImplentedVisualization("SimInputNotImplemented"));
+        createVisualization(new SimulatorInputVisualization(warp));
         break;
    
       case LATENCY:
@@ -178,6 +177,10 @@ public class VisualizationImplementation implements Visualization {
         // TODO Implement Channel Analysis Visualization
         createVisualization(new ChannelVisualization(warp));
         break;
+   
+      case UTILIZATION:
+        createVisualization(new ChannelUtilizationVisualization(warp));
+        break;
    
       case LATENCY_REPORT:
         createVisualization(new ReportVisualization(fm, warp,
@@ -226,16 +229,15 @@ public class VisualizationImplementation implements Visualization {
   
   /**
    * Create a visualization based on an object that extends VisualizationObject that is sent as a parameter. <br>
-   * Assigns the instance variable visualization equal to the object's visualization. <br>
-   * Assigns the instance variable fileContent equal to the object's visualization file's content. <br>
+   * The object's visualization and file content are only created when toString or toFile asks for
+   * them, so a file can be streamed without being held in memory. <br>
    * Creates a file for object based on the fileNameTemplete and assigns it to the instance variable fileName. <br>
    * Sets the Visualization object equal to the obj parameter. <br>
    * @param <T>, a placeholder that can be filled by any object type sent as parameter. <br>
    * @param obj, the object that needs to be visualized. <br>
    */
   private <T extends VisualizationObject> void createVisualization(T obj) {
-    visualization = obj.visualization();
-    fileContent = obj.fileVisualization();
+    visualization = null;
     /* display is file content printed to console */
     fileName = obj.createFile(fileNameTemplate); // in output directory
     visualizationObject = obj;
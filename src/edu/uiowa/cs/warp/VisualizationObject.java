@@ -108,6 +108,14 @@ abstract class VisualizationObject {
     return fileContent;
      }
 
+  /**
+   * Writes fileVisualization() to fileName. Visualizations too large to hold in memory override
+   * this to stream their content to the file.
+   */
+  public void toFile(String fileName) {
+    fm.writeFile(fileName, fileVisualization().toString());
+     }
+
   public GuiVisualization displayVisualization() {
     return null; // not implemented
      }
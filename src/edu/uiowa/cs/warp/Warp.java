@@ -30,6 +30,10 @@ import argparser.StringHolder;
 import edu.uiowa.cs.warp.SystemAttributes.ScheduleChoices;
 import edu.uiowa.cs.warp.Visualization.SystemChoices;
 import edu.uiowa.cs.warp.Visualization.WorkLoadChoices;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
 
@@ -152,6 +156,10 @@ public class Warp {
    * The object schedulerSeclected show what Scheduler is requested <br>
    */
   private static ScheduleChoices schedulerSelected; 
+  /** 
+   * The programCache holds programs built by earlier runs, or is null when --cache is not given <br>
+   */
+  private static ProgramCache programCache; 
   
   /**
 
@@ -194,20 +202,14 @@ public class Warp {
       }
       // Create and visualize the Warp System
       if (schedulerRequested) {
-        WarpInterface warp = SystemFactory.create(workLoad, nChannels, schedulerSelected);
-        verifyPerformanceRequirements(warp);
+        WarpInterface warp =
+            SystemFactory.create(workLoad, nChannels, schedulerSelected, programCache);
+        verifyPerformanceRequirements(warp, schedulerSelected);
         for (SystemChoices choice : SystemChoices.values()) {
           visualize(warp, choice); // visualize all System choices
         }
       } else { // create a system for all scheduler choices
-        for (ScheduleChoices sch : ScheduleChoices.values()) {
-          schedulerSelected = sch;
-          WarpInterface warp = SystemFactory.create(workLoad, nChannels, schedulerSelected);
-          verifyPerformanceRequirements(warp);
-          for (SystemChoices choice : SystemChoices.values()) {
-            visualize(warp, choice); // visualize all System choices
-          }
-        }
+        evaluateAllSchedulers(workLoad);
       }
     } else { // visualize warp workload, source program and other requested items
       visualize(workLoad, WorkLoadChoices.INPUT_GRAPH);
@@ -217,11 +219,13 @@ public class Warp {
       if (gvRequested) {
         visualize(workLoad, WorkLoadChoices.GRAPHVIZ);
       }
-      WarpInterface warp = SystemFactory.create(workLoad, nChannels, schedulerSelected);
-      verifyPerformanceRequirements(warp);
+      WarpInterface warp =
+          SystemFactory.create(workLoad, nChannels, schedulerSelected, programCache);
+      verifyPerformanceRequirements(warp, schedulerSelected);
       visualize(warp, SystemChoices.SOURCE);
       if (caRequested) {
         visualize(warp, SystemChoices.CHANNEL);
+        visualize(warp, SystemChoices.UTILIZATION);
       }
       if (laRequested) {
         visualize(warp, SystemChoices.LATENCY);
@@ -232,11 +236,78 @@ public class Warp {
       if (raRequested) {
         visualize(warp, SystemChoices.RELIABILITIES);
       }
+      if (simRequested) {
+        visualize(warp, SystemChoices.SIMULATOR_INPUT);
+      }
     }
    
      }
   /**
 
+* Builds, verifies and visualizes a WARP system for every scheduler choice. <br>
+ *    * The schedulers run concurrently, up to one per processor. Each gets its own copy of the
+ *    * workload because a Program changes the flow order and node channels of its WorkLoad. <br>
+ *    * When all are done, a summary of which schedulers met their deadlines and reliabilities and
+ *    * avoided channel conflicts is printed, in ScheduleChoices order. <br>
+ *    * @param workLoad the workload to schedule, which is only read <br>
+   */
+  private static void evaluateAllSchedulers(WorkLoad workLoad) {
+    var choices = ScheduleChoices.values();
+    var nThreads = Math.min(choices.length, Runtime.getRuntime().availableProcessors());
+    var executor = Executors.newFixedThreadPool(Math.max(1, nThreads));
+    var results = new ArrayList<Future<String>>();
+    try {
+      for (ScheduleChoices sch : choices) {
+        results.add(executor.submit(() -> evaluateScheduler(new WorkLoad(workLoad), sch)));
+      }
+      var summary = new StringBuilder();
+      summary.append(String.format("\nScheduler summary for %s:\n", workLoad.getName()));
+      summary.append("Scheduler\tDeadlines\tReliabilities\tChannels\n");
+      for (int i = 0; i < choices.length; i++) {
+        try {
+          summary.append(results.get(i).get());
+        } catch (ExecutionException e) {
+          if (verboseMode) {
+            e.getCause().printStackTrace();
+          }
+          System.err.printf("\n\tERROR: %s scheduling failed: %s\n", choices[i], e.getCause());
+          summary.append(String.format("%s\tfailed\tfailed\tfailed\n", choices[i]));
+        }
+      }
+      System.out.print(summary);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      System.err.println("\n\tERROR: interrupted while waiting for the schedulers to finish.");
+    } finally {
+      executor.shutdownNow();
+    }
+     }
+  /**
+
+* Builds a WARP system for one scheduler, verifies its performance requirements and creates all
+ *    * of its visualizations. <br>
+ *    * @param workLoad the workload to schedule, which is not shared with any other system <br>
+ *    * @param sch the scheduler to use <br>
+ *    * @return a tab separated summary line for the scheduler <br>
+   */
+  private static String evaluateScheduler(WorkLoad workLoad, ScheduleChoices sch) {
+    WarpInterface warp = SystemFactory.create(workLoad, nChannels, sch, programCache);
+    var deadlinesMet = verifyDeadlines(warp, sch);
+    var reliabilitiesMet = verifyReliabilities(warp, sch);
+    var noChannelConflicts = verifyNoChannelConflicts(warp);
+    for (SystemChoices choice : SystemChoices.values()) {
+      visualize(warp, choice); // visualize all System choices
+    }
+    var reliabilities = (sch == ScheduleChoices.RTHART) ? "n/a" : met(reliabilitiesMet);
+    return String.format("%s\t%s\t%s\t%s\n", sch, met(deadlinesMet), reliabilities,
+        noChannelConflicts ? "no conflicts" : "conflicts");
+     }
+
+  private static String met(Boolean requirementMet) {
+    return requirementMet ? "met" : "NOT met";
+     }
+  /**
+
 * Creates a visualize for workload based on specific choices sent to command line. <br>
  *    * And prints that visualization to the consule or to a GUI, 
  *    * depending on if either the verboseMode or the GUI is enabled <br>
@@ -280,13 +351,14 @@ public class Warp {
 
 * Verifies each of the performance requirements for a warp <br>
  *    * @param warp what is sent to the methods <br>
+ *    * @param sch the scheduler used to build warp <br>
  *    * @see Warp's method verifyDeadlines(Warp) <br>
  *    * @see Warp's verifyReliabilities(Warp) <br>
  *    * @see Warp's method  verifyNoChannelConflicts(Warp) <br> 
    */
-  private static void verifyPerformanceRequirements(WarpInterface warp) {
-    verifyDeadlines(warp);
-    verifyReliabilities(warp);
+  private static void verifyPerformanceRequirements(WarpInterface warp, ScheduleChoices sch) {
+    verifyDeadlines(warp, sch);
+    verifyReliabilities(warp, sch);
     verifyNoChannelConflicts(warp);
      }
   
@@ -297,21 +369,26 @@ public class Warp {
  *    * Prints an error if they don't  
  *    * or prints a confirmation of reliability if they are and verboseMode is on. <br>
  *    * @param warp the warp you use to determine if reliabilities have been met
+ *    * @param sch the scheduler used to build warp <br>
+ *    * @return false if a reliability target was checked and missed <br>
    */
-  private static void verifyReliabilities(WarpInterface warp) {
-    if (schedulerSelected != ScheduleChoices.RTHART) {
+  private static Boolean verifyReliabilities(WarpInterface warp, ScheduleChoices sch) {
+    var reliabilitiesMet = true;
+    if (sch != ScheduleChoices.RTHART) {
       /* RealTime HART doesn't adhere to reliability targets */
-      if (!warp.reliabilitiesMet()) {
+      reliabilitiesMet = warp.reliabilitiesMet();
+      if (!reliabilitiesMet) {
         System.err.printf(
             "\n\tERROR: Not all flows meet the end-to-end "
                 + "reliability of %s under %s scheduling.\n",
-            String.valueOf(e2e), schedulerSelected.toString());
+            String.valueOf(e2e), sch.toString());
       } else if (verboseMode) {
         System.out.printf(
             "\n\tAll flows meet the end-to-end reliability " + "of %s under %s scheduling.\n",
-            String.valueOf(e2e), schedulerSelected.toString());
+            String.valueOf(e2e), sch.toString());
       }
     }
+    return reliabilitiesMet;
      }
   /**
 
@@ -320,17 +397,21 @@ public class Warp {
  *    * and a visualization of the deadline report is prompted <br>
  *    * Else if verboseMode is on, a deadline confirmation is printed to console. <br>
  *    * @param warp an interface that gives access to methods for managing warp operations in the visualization. <br>
+ *    * @param sch the scheduler used to build warp <br>
+ *    * @return true if all deadlines are met <br>
  *    * @see Warp's method visualize(WorkLoad, WorkLoadChoices) <br>
    */
-  private static void verifyDeadlines(WarpInterface warp) {
-    if (!warp.deadlinesMet()) {
+  private static Boolean verifyDeadlines(WarpInterface warp, ScheduleChoices sch) {
+    var deadlinesMet = warp.deadlinesMet();
+    if (!deadlinesMet) {
       System.err.printf("\n\tERROR: Not all flows meet their deadlines under %s scheduling.\n",
-          schedulerSelected.toString());
+          sch.toString());
       visualize(warp, SystemChoices.DEADLINE_REPORT);
     } else if (verboseMode) {
       System.out.printf("\n\tAll flows meet their deadlines under %s scheduling.\n",
-          schedulerSelected.toString());
+          sch.toString());
     }
+    return deadlinesMet;
      }
   /**
 
@@ -339,9 +420,11 @@ public class Warp {
  *    * and if a visualization is not requested yet then prompt a visualization of the channel. <br>
  *    * Else if verbose mode is on, an no channel conflicts confirmation is printed to console. <br>
  *    * @param warp an interface that gives access to methods for managing warp operations in the visualization. <br>
+ *    * @return true if there are no channel conflicts <br>
    */
-  private static void verifyNoChannelConflicts(WarpInterface warp) {
-    if (warp.toChannelAnalysis().isChannelConflict()) {
+  private static Boolean verifyNoChannelConflicts(WarpInterface warp) {
+    var channelConflict = warp.toChannelAnalysis().isChannelConflict();
+    if (channelConflict) {
       System.err
           .printf("\n\tERROR: Channel conficts exists. See Channel Visualization for details.\n");
       if (!caRequested) { // only need to create the visualization if not already requested
@@ -350,6 +433,7 @@ public class Warp {
     } else if (verboseMode) {
       System.out.printf("\n\tNo channel conflicts detected.\n");
     }
+    return !channelConflict;
      }
   /** 
 
@@ -386,6 +470,7 @@ public class Warp {
     BooleanHolder verbose = new BooleanHolder();
     StringHolder input = new StringHolder();
     StringHolder output = new StringHolder();
+    StringHolder cache = new StringHolder();
    
     // create the parser and specify the allowed options ...
     ArgParser parser = new ArgParser("java -jar warp.jar");
@@ -416,6 +501,9 @@ public class Warp {
     parser.addOption("-i, --input %s #<InputFile> of graph flows (workload)", input);
     parser.addOption("-o, --output %s #<OutputDIRECTORY> where output files will be placed",
         output);
+    parser.addOption(
+        "--cache %s #<CacheDIRECTORY> where programs are kept, and reused when the workload and scheduling parameters are unchanged",
+        cache);
     parser.addOption(
         "-v, --verbose %v #Echo input file name and parsed contents. Then for each flow instance: show maximum E2E latency and min/max communication cost for that instance of the flow",
         verbose);
@@ -475,6 +563,8 @@ public class Warp {
     // debugMode = debug.value; // debug mode flag (mainly for running in IDE)
     /** input file specified */
     inputFile = input.value; 
+    /** program cache directory specified */
+    programCache = (cache.value != null) ? new ProgramCache(cache.value) : null; 
     
     if (schedulerSelected.value != null) { // can't switch on a null value so check then switch
       schedulerRequested = true;
@@ -533,6 +623,9 @@ public class Warp {
       System.out.println("\tNo input file specified; will be requested when needed.");
     }
     System.out.println("\toutputSubDirectory=" + outputSubDirectory);
+    if (programCache != null) {
+      System.out.println("\tprogram cache=" + programCache.getDirectory());
+    }
     System.out.println("\tverbose flag=" + verboseMode);
     // System.out.println ("\tdebug flag=" + debugMode);
      }
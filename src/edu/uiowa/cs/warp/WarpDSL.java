@@ -21,6 +21,29 @@ public class WarpDSL {
 	private static final String UNKNOWN = "unknown";
 	public static final String UNUSED = "unused";
 	public static final String PUSH = "push";
+	private static final Set<String> KEYWORDS = Set.of("if", "else", "pull", "push", "wait", "sleep");
+	
+	/**
+	 * How getInstructionParameters turns an instruction string into InstructionParameters.
+	 */
+	public enum ParseMode {
+		/** hand-written scanner; falls back to ANTLR for anything it does not accept */
+		FAST,
+		/** the ANTLR generated lexer and parser only */
+		ANTLR,
+		/** run both, report any disagreement on System.err and return the ANTLR result */
+		VERIFY
+	}
+	
+	private final ParseMode mode;
+	
+	public WarpDSL() {
+		this(ParseMode.FAST);
+	}
+	
+	public WarpDSL(ParseMode mode) {
+		this.mode = mode;
+	}
 	
 	public class InstructionParameters {
 		// initially parameters are marked unused. Once the grammar is updated, this will be set 
@@ -90,15 +113,87 @@ public class WarpDSL {
        	 this.channel = channel;
         }
 		public String unused() {
-			return UNUSED;
+			return UNUSED;
    		}
+		
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof InstructionParameters)) {
+				return false;
+			}
+			var other = (InstructionParameters) obj;
+			return name.equals(other.name) && flow.equals(other.flow) && src.equals(other.src)
+					&& snk.equals(other.snk) && channel.equals(other.channel)
+					&& coordinator.equals(other.coordinator) && listener.equals(other.listener);
+		}
+		
+		@Override
+		public int hashCode() {
+			return Objects.hash(name, flow, src, snk, channel, coordinator, listener);
+		}
+		
+		@Override
+		public String toString() {
+			return String.format("%s(%s: %s -> %s, #%s) coordinator=%s listener=%s", name, flow, src,
+					snk, channel, coordinator, listener);
+		}
 	
 	}
 
 	
     public ArrayList<InstructionParameters> getInstructionParameters(String instruction)  {
+    	ArrayList<InstructionParameters> instructionParametersArrayList;
+    	switch (mode) {
+    	case ANTLR:
+    		instructionParametersArrayList = parseInstructionParameters(instruction);
+    		break;
+    	case VERIFY:
+    		instructionParametersArrayList = parseInstructionParameters(instruction);
+    		var scanned = scanInstructionParameters(instruction);
+    		if (scanned != null && !scanned.equals(instructionParametersArrayList)) {
+    			System.err.printf("ERROR: scanner and parser disagree on instruction %s\n\tscanner: %s\n\tparser: %s\n",
+    					instruction, scanned, instructionParametersArrayList);
+    		}
+    		break;
+    	default:
+    		instructionParametersArrayList = scanInstructionParameters(instruction);
+    		if (instructionParametersArrayList == null) {
+    			/* not a well formed instruction, so let ANTLR parse and report it */
+    			instructionParametersArrayList = parseInstructionParameters(instruction);
+    		}
+    		break;
+    	}
+    	return instructionParametersArrayList;
+    }
+    
+    /**
+     * Parses instruction with the hand-written scanner, which produces the same parameters as the
+     * ANTLR parser for every instruction the WARPdsl grammar accepts, without building a lexer,
+     * token stream, parse tree or walker.
+     * 
+     * @param instruction WARP DSL instruction
+     * @return the parameters of each action in the instruction, or null if instruction is not a
+     *         complete, well formed instruction
+     */
+    ArrayList<InstructionParameters> scanInstructionParameters(String instruction) {
+    	if (instruction == null) {
+    		return null;
+    	}
+    	return new ScannerDsl(instruction).scan();
+    }
+    
+    /**
+     * Parses instruction with the ANTLR generated WARPdsl lexer and parser.
+     * 
+     * @param instruction WARP DSL instruction
+     * @return the parameters of each action in the instruction
+     */
+    ArrayList<InstructionParameters> parseInstructionParameters(String instruction)  {
         
-    	ArrayList<InstructionParameters> instructionParametersArrayList;
+    	ArrayList<InstructionParameters> instructionParametersArrayList;
     	var dsl = new ListenerDsl();
         // Read input file and build AST of graph
         try {
@@ -194,5 +289,210 @@ public class WarpDSL {
         }
     }
 
+    // Recursive-descent scanner for the WARPdsl instruction grammar
+    private final class ScannerDsl { // scans one instruction
+    	private final String text;
+    	private int pos;
+    	private final ArrayList<InstructionParameters> instructionParametersArrayList;
+    	
+    	ScannerDsl(String text) {
+    		this.text = text;
+    		this.pos = 0;
+    		this.instructionParametersArrayList = new ArrayList<InstructionParameters>();
+    	}
+    	
+    	/* instruction : release_blk action_blk drop_blk | action_blk drop_blk | action_blk */
+    	ArrayList<InstructionParameters> scan() {
+    		var released = false;
+    		while (literal("release(")) {
+    			if (name() == null || !symbol(')')) {
+    				return null;
+    			}
+    			released = true;
+    		}
+    		if (!actionBlock()) {
+    			return null;
+    		}
+    		var dropped = false;
+    		while (literal("drop(")) {
+    			if (name() == null || !symbol(')')) {
+    				return null;
+    			}
+    			dropped = true;
+    		}
+    		skipSpace();
+    		if (pos != text.length() || (released && !dropped)) {
+    			return null; // trailing text or a release block without a drop block
+    		}
+    		return instructionParametersArrayList;
+    	}
+    	
+    	/* action_blk : action | if_statement */
+    	private boolean actionBlock() {
+    		var start = pos;
+    		if ("if".equals(word())) {
+    			return ifStatement();
+    		}
+    		pos = start;
+    		return action();
+    	}
+    	
+    	/* if_statement : 'if' bool_expr action ( 'else' ( if_statement | action ) )? */
+    	private boolean ifStatement() {
+    		if (!boolExpr() || !action()) {
+    			return false;
+    		}
+    		var start = pos;
+    		if (!"else".equals(word())) {
+    			pos = start;
+    			return true;
+    		}
+    		return actionBlock();
+    	}
+    	
+    	/* bool_expr : 'has(' flow_edge ')' | '!has(' flow_edge ')' */
+    	private boolean boolExpr() {
+    		if (!literal("has(") && !literal("!has(")) {
+    			return false;
+    		}
+    		if (name() == null) {
+    			return false;
+    		}
+    		if (peek(':')) {
+    			symbol(':');
+    			if (name() == null || !arrow() || name() == null) {
+    				return false;
+    			}
+    		}
+    		return symbol(')');
+    	}
+    	
+    	/* action : cmd '(' flowName ':' srcNode '->' snkNode ',' channel ')' | cmd '(' channel ')' | cmd */
+    	private boolean action() {
+    		var command = word();
+    		if (command == null || !(command.equals("pull") || command.equals(PUSH)
+    				|| command.equals("wait") || command.equals("sleep"))) {
+    			return false;
+    		}
+    		var parameters = new InstructionParameters();
+    		parameters.setName(command);
+    		if (symbol('(')) {
+    			if (!peek('#')) {
+    				var flowName = name();
+    				if (flowName == null || !symbol(':')) {
+    					return false;
+    				}
+    				var srcName = name();
+    				if (srcName == null || !arrow()) {
+    					return false;
+    				}
+    				var snkName = name();
+    				if (snkName == null || !symbol(',')) {
+    					return false;
+    				}
+    				parameters.setFlow(flowName);
+    				parameters.setSrc(srcName);
+    				parameters.setSnk(snkName);
+    				if (command.equals(PUSH)) {
+    					parameters.setCoordinator(srcName);
+    					parameters.setListener(snkName);
+    				} else {
+    					parameters.setListener(srcName);
+    					parameters.setCoordinator(snkName);
+    				}
+    			}
+    			var channel = channel();
+    			if (channel == null || !symbol(')')) {
+    				return false;
+    			}
+    			parameters.setChannel(channel);
+    		}
+    		instructionParametersArrayList.add(parameters);
+    		return true;
+    	}
+    	
+    	/* channel : '#' NUMBER */
+    	private String channel() {
+    		if (!symbol('#')) {
+    			return null;
+    		}
+    		var number = word();
+    		if (number == null) {
+    			return null;
+    		}
+    		for (int i = 0; i < number.length(); i++) {
+    			if (!Character.isDigit(number.charAt(i))) {
+    				return null;
+    			}
+    		}
+    		return number;
+    	}
+    	
+    	/* flowName, srcNode, snkNode, has_src, has_snk : NAME | NUMBER, but never a keyword */
+    	private String name() {
+    		var name = word();
+    		if (name == null || KEYWORDS.contains(name) || (pos < text.length() && text.charAt(pos) == '(')) {
+    			return null; // the ANTLR lexer would not produce a NAME token here
+    		}
+    		return name;
+    	}
+    	
+    	/* the longest run of [a-zA-Z0-9] after any white space, or null */
+    	private String word() {
+    		skipSpace();
+    		var start = pos;
+    		while (pos < text.length() && isWordChar(text.charAt(pos))) {
+    			pos++;
+    		}
+    		return (pos > start) ? text.substring(start, pos) : null;
+    	}
+    	
+    	private boolean isWordChar(char c) {
+    		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+    	}
+    	
+    	private boolean arrow() {
+    		skipSpace();
+    		if (text.startsWith("->", pos)) {
+    			pos += 2;
+    			return true;
+    		}
+    		return false;
+    	}
+    	
+    	/* a literal token such as 'has(' that must not be a prefix of a longer word */
+    	private boolean literal(String token) {
+    		skipSpace();
+    		if (text.startsWith(token, pos) && (pos == 0 || !isWordChar(text.charAt(pos - 1)))) {
+    			pos += token.length();
+    			return true;
+    		}
+    		return false;
+    	}
+    	
+    	private boolean symbol(char c) {
+    		if (peek(c)) {
+    			pos++;
+    			return true;
+    		}
+    		return false;
+    	}
+    	
+    	private boolean peek(char c) {
+    		skipSpace();
+    		return pos < text.length() && text.charAt(pos) == c;
+    	}
+    	
+    	private void skipSpace() {
+    		while (pos < text.length()) {
+    			var c = text.charAt(pos);
+    			if (c != ' ' && c != '\t' && c != '\r' && c != '\n') {
+    				break;
+    			}
+    			pos++;
+    		}
+    	}
+    }
+
 }
 
@@ -22,6 +22,10 @@ public interface WarpInterface extends SystemAttributes {
 
   public ChannelAnalysis toChannelAnalysis();
 
+  public ChannelUtilization toChannelUtilization();
+
+  public PacketSimulator toPacketSimulator();
+
   public void toSensorNetwork(); // deploys code
 
   public Boolean reliabilitiesMet();
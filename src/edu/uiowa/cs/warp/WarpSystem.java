@@ -17,6 +17,8 @@ public class WarpSystem implements WarpInterface {
   private ReliabilityAnalysis ra;
   private LatencyAnalysis la;
   private ChannelAnalysis ca;
+  private ChannelUtilization cu;
+  private PacketSimulator ps;
   private Integer numChannels;
   private Boolean verboseMode = false;
   private Boolean latencyRequested = false;
@@ -27,9 +29,25 @@ public class WarpSystem implements WarpInterface {
     createProgram(workLoad, numChannels, choice);
   }
 
+  /**
+   * Creates a system whose program is read from cache when it holds it, or built and added to it.
+   * A null cache builds the program.
+   */
+  public WarpSystem(WorkLoad workLoad, Integer numChannels, ScheduleChoices choice,
+      ProgramCache cache) {
+    this.workLoad = workLoad;
+    this.numChannels = numChannels;
+    if (cache != null) {
+      program = cache.getProgram(workLoad, numChannels, choice);
+    } else {
+      createProgram(workLoad, numChannels, choice);
+    }
+  }
+
   @Override
   public WorkLoad toWorkload() {
-    return workLoad;
+    /* the program's, which is a copy once a flow has been added, removed or changed */
+    return program.toWorkLoad();
   }
 
   @Override
@@ -46,8 +64,7 @@ public class WarpSystem implements WarpInterface {
 
   @Override
   public SimulatorInput toSimulator() {
-    // TODO Auto-generated method stub
-    return null;
+    return new SimulatorInput(program);
   }
 
   @Override
@@ -64,6 +81,22 @@ public class WarpSystem implements WarpInterface {
     return ca;
   }
 
+  @Override
+  public ChannelUtilization toChannelUtilization() {
+    if (cu == null) {
+      cu = new ChannelUtilization(program);
+    }
+    return cu;
+  }
+
+  @Override
+  public PacketSimulator toPacketSimulator() {
+    if (ps == null) {
+      ps = new PacketSimulator(program);
+    }
+    return ps;
+  }
+
   @Override
   public Boolean reliabilitiesMet() {
     if (ra == null) {
@@ -82,6 +115,42 @@ public class WarpSystem implements WarpInterface {
   }
 
 
+  /**
+   * Adds a flow and updates the program, rescheduling only the flows it can displace.
+   *
+   * @see Program#addFlow(String, String[], Integer, Integer, Integer, Integer)
+   */
+  public ProgramScheduleDiff addFlow(String flowName, String[] nodesInFlow, Integer priority,
+      Integer period, Integer deadline, Integer phase) {
+    clearAnalyses();
+    return program.addFlow(flowName, nodesInFlow, priority, period, deadline, phase);
+  }
+
+  /**
+   * @see Program#removeFlow(String)
+   */
+  public ProgramScheduleDiff removeFlow(String flowName) {
+    clearAnalyses();
+    return program.removeFlow(flowName);
+  }
+
+  /**
+   * @see Program#changeFlow(String, Integer, Integer)
+   */
+  public ProgramScheduleDiff changeFlow(String flowName, Integer period, Integer deadline) {
+    clearAnalyses();
+    return program.changeFlow(flowName, period, deadline);
+  }
+
+  /* analyses of the old program no longer apply after the workload changes */
+  private void clearAnalyses() {
+    ra = null;
+    la = null;
+    ca = null;
+    cu = null;
+    ps = null;
+  }
+
   private void createProgram(WorkLoad workLoad, Integer numChannels, ScheduleChoices choice) {
     program = new Program(workLoad, numChannels, choice, verboseMode, latencyRequested);
 
@@ -80,6 +80,7 @@ public class WorkLoad extends WorkLoadDescription implements ReliabilityParamete
      * objects
      */
     WorkLoadListener.buildNodesAndFlows(this);
+    setFlowsInPriorityOrder();
   }
   /**
 
@@ -104,6 +105,46 @@ public class WorkLoad extends WorkLoadDescription implements ReliabilityParamete
      * objects
      */
     WorkLoadListener.buildNodesAndFlows(this);
+    setFlowsInPriorityOrder();
+  }
+
+  /**
+
+* Creates a WorkLoad with the same description, fault toleration, packet reception rate and E2E
+ * reliability as workLoad, and the nodes and flows workLoad has now, including flows added,
+ * removed or changed since its input file was read. Changes made to one are not seen by the other.
+ *
+ *    * @param workLoad WorkLoad to copy
+   */
+  WorkLoad(WorkLoad workLoad) {
+    super(workLoad);
+    setDefaultParameters();
+    this.numFaults = workLoad.numFaults;
+    minPacketReceptionRate = workLoad.minPacketReceptionRate;
+    this.e2e = workLoad.e2e;
+    this.name = workLoad.name;
+    /* nodes first, so they keep their indexes, including nodes that no flow uses any more */
+    workLoad.nodes.values().stream().sorted(Comparator.comparing(Node::getIndex))
+        .forEach((node) -> nodes.put(node.getName(),
+            new Node(node.getName(), DEFAULT_PRIORITY, node.getIndex())));
+    /* then each flow, built the way WorkLoadListener builds it from the input file */
+    for (String flowName : workLoad.flowNamesInOriginalOrder) {
+      var flow = workLoad.getFlow(flowName);
+      addFlow(flowName);
+      setFlowPriority(flowName, flow.getPriority());
+      setFlowPeriod(flowName, flow.getPeriod());
+      setFlowDeadline(flowName, flow.getDeadline());
+      setFlowPhase(flowName, flow.getPhase());
+      getFlow(flowName).setIndex(flow.getIndex());
+      getFlow(flowName).setInitialPriority(flow.getInitialPriority());
+      for (Node node : flow.getNodes()) {
+        addNodeToFlow(flowName, node.getName());
+      }
+      finalizeCurrentFlow(flowName);
+    }
+    intForNodeNames = workLoad.intForNodeNames;
+    intForFlowNames = workLoad.intForFlowNames;
+    flowNamesInPriorityOrder = new ArrayList<>(workLoad.flowNamesInPriorityOrder);
   }
 
   private void setDefaultParameters() {
@@ -205,7 +246,8 @@ public class WorkLoad extends WorkLoadDescription implements ReliabilityParamete
   }
 
   /**
-   * Get all the flows in order of priorities.
+   * Get all the flows in order of priorities. This is priority order until one of the setFlowsIn
+   * methods sorts them otherwise; a Program keeps the order it scheduled the flows in itself.
 
    * @return the flowNamesInPriorityOrder
    */
@@ -377,6 +419,23 @@ public class WorkLoad extends WorkLoadDescription implements ReliabilityParamete
     flowNamesInOriginalOrder.add(flowName);
   }
 
+  /**
+   * Remove a flow from the Flow dictionary and from both flow orderings. Its nodes are kept, since
+   * other flows may use them.
+   *
+   * @param flowName Name of the flow.
+   * @return true if the flow existed and was removed
+   */
+  public Boolean removeFlow(String flowName) {
+    if (flows.remove(flowName) == null) {
+      System.out.printf(FLOW_WARNING + "remove it.\n", flowName);
+      return false;
+    }
+    flowNamesInOriginalOrder.remove(flowName);
+    flowNamesInPriorityOrder.remove(flowName);
+    return true;
+  }
+
   public Boolean isIntForNodeNames() {
     /* Return true if all node names are integers */
     return intForNodeNames;
@@ -603,18 +662,25 @@ public class WorkLoad extends WorkLoadDescription implements ReliabilityParamete
 
   public Integer nextReleaseTime(String flowName, Integer currentTime) {
     var flow = getFlow(flowName);
-    flow.setLastUpdateTime(currentTime);
-    flow.setNextReleaseTime(currentTime);
-    /* Next release TIme at or after currentTime */ 
-    return flow.getReleaseTime();
+    /* Next release time at or after currentTime. The Flow is not updated, so this is safe to
+     * call while other threads read the WorkLoad */
+    return WorkLoadSnapshot.nextReleaseTime(currentTime, flow.getPeriod(), flow.getPhase());
   }
 
   public Integer nextAbsoluteDeadline(String flowName, Integer currentTime) {
     var flow = getFlow(flowName);
-    flow.setLastUpdateTime(currentTime);
-    flow.setNextReleaseTime(currentTime);
     /* Next deadline after currentTime */
-    return flow.getReleaseTime() + flow.getDeadline();
+    return nextReleaseTime(flowName, currentTime) + flow.getDeadline();
+  }
+
+  /**
+   * Freezes the current flows, nodes and reliability parameters. Programs are built from a
+   * snapshot, so they never change the WorkLoad and several can be built from it at once.
+   *
+   * @return a snapshot of this WorkLoad
+   */
+  public WorkLoadSnapshot snapshot() {
+    return new WorkLoadSnapshot(this);
   }
 
   private void finalizeFlowWithE2eParameters(String flowName) {
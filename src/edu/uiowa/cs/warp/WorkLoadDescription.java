@@ -32,6 +32,15 @@ public class WorkLoadDescription extends VisualizationObject {
     initialize(inputFileName);
      }
 
+  /* Copies the graph text of workLoadDescription without reading its input file again */
+  WorkLoadDescription(WorkLoadDescription workLoadDescription) {
+    super(new FileManager(), EMPTY, INPUT_FILE_SUFFIX); // VisualizationObject constructor
+    this.fm = this.getFileManager();
+    this.inputGraphString = workLoadDescription.inputGraphString;
+    this.inputFileName = workLoadDescription.inputFileName;
+    this.description = new Description(inputGraphString);
+     }
+
   @Override
   public Description visualization() {
     return description;
@@ -0,0 +1,365 @@
+package edu.uiowa.cs.warp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates synthetic workloads in the WARP graph file grammar, for testing and benchmarking at
+ * sizes the checked-in inputs don't reach.
+ * <p>
+ * Nodes are named 0 to numNodes-1 and laid out in one of the Topology shapes; each flow is a path
+ * along the edges of that topology. Flow i is named Fi and has priority i, a period drawn from the
+ * period set, a deadline equal to its period, and a phase drawn from [0, maxPhase] (kept below the
+ * period). Everything random is drawn from a Random seeded with the seed given to the constructor,
+ * so the same seed and parameters always give the same workload.
+ * <p>
+ * For example, 1000 flows on a 200 node base station network:
+ *
+ * <pre>
+ * var generator = new WorkLoadGenerator(42);
+ * generator.setTopology(WorkLoadGenerator.Topology.BASE_STATION);
+ * generator.setNumNodes(200);
+ * generator.setNumFlows(1000);
+ * var workLoad = generator.toWorkLoad(0.9, 0.99, "Synthetic1000.txt");
+ * </pre>
+ *
+ * @version 1.0
+ */
+public class WorkLoadGenerator {
+
+  /**
+   * How the nodes are connected.
+   * <ul>
+   * <li>LINE: node i is linked to nodes i-1 and i+1.</li>
+   * <li>TREE: a random tree in which no node has more than fanout children; flows are paths
+   * between any two nodes.</li>
+   * <li>MESH: a grid with ceil(sqrt(numNodes)) columns, each node linked to the nodes next to
+   * it.</li>
+   * <li>BASE_STATION: the same kind of tree rooted at node 0, the base station. Collection flows
+   * run from a node up to the base station and dissemination flows from the base station down to
+   * a node; setCollectionFraction sets the mix.</li>
+   * </ul>
+   */
+  public enum Topology {
+    LINE, TREE, MESH, BASE_STATION
+  }
+
+  /**
+   * How the number of hops of a flow is drawn from [minHops, maxHops]: UNIFORM draws every length
+   * equally often, GEOMETRIC halves the chance with each hop over minHops, so most flows are short.
+   */
+  public enum HopDistribution {
+    UNIFORM, GEOMETRIC
+  }
+
+  private static final String DEFAULT_NAME = "Synthetic";
+  private static final Integer[] DEFAULT_PERIODS = {100, 200, 400, 800};
+  private static final int MAX_WALK_ATTEMPTS = 10;
+
+  private final long seed;
+  private String name = DEFAULT_NAME;
+  private int numNodes = 20;
+  private int numFlows = 10;
+  private int minHops = 1;
+  private int maxHops = 4;
+  private HopDistribution hopDistribution = HopDistribution.UNIFORM;
+  private Integer[] periods = DEFAULT_PERIODS;
+  private int maxPhase = 0;
+  private Topology topology = Topology.TREE;
+  private int fanout = 3;
+  private double collectionFraction = 0.5;
+
+  /* state of one generate() call */
+  private Random random;
+  private List<List<Integer>> neighbors;
+  private int[] parents; // parent of each node in TREE and BASE_STATION, -1 for the root
+
+  /**
+   * @param seed seed for every random choice made by the generator
+   */
+  public WorkLoadGenerator(long seed) {
+    this.seed = seed;
+  }
+
+  /**
+   * @return periods base, 2*base, 4*base, ... with count entries, each dividing the next one
+   */
+  public static Integer[] harmonicPeriods(int base, int count) {
+    var harmonic = new Integer[count];
+    for (int i = 0; i < count; i++) {
+      harmonic[i] = base << i;
+    }
+    return harmonic;
+  }
+
+  /**
+   * Sets the name of the workload, which must be a name the grammar accepts (letters and digits,
+   * starting with a letter).
+   */
+  public void setName(String name) {
+    this.name = name;
+  }
+
+  public void setNumNodes(int numNodes) {
+    this.numNodes = numNodes;
+  }
+
+  public void setNumFlows(int numFlows) {
+    this.numFlows = numFlows;
+  }
+
+  /**
+   * Sets the range of the number of hops (links) in a flow. Flows can be shorter than minHops
+   * when the topology has no path that long, and BASE_STATION flows can't be longer than the
+   * path between their node and the base station.
+   */
+  public void setHops(int minHops, int maxHops) {
+    this.minHops = minHops;
+    this.maxHops = maxHops;
+  }
+
+  public void setHopDistribution(HopDistribution hopDistribution) {
+    this.hopDistribution = hopDistribution;
+  }
+
+  /**
+   * Sets the periods flows are given, each drawn with equal chance. Use harmonicPeriods for a set
+   * whose hyperperiod is its largest period; other sets can have a far longer hyperperiod.
+   */
+  public void setPeriods(Integer... periods) {
+    this.periods = periods.clone();
+  }
+
+  /**
+   * Sets the largest phase a flow is given. The default of 0 releases every flow at time 0.
+   */
+  public void setMaxPhase(int maxPhase) {
+    this.maxPhase = maxPhase;
+  }
+
+  public void setTopology(Topology topology) {
+    this.topology = topology;
+  }
+
+  /**
+   * Sets the largest number of children a node has in the TREE and BASE_STATION topologies.
+   */
+  public void setFanout(int fanout) {
+    this.fanout = fanout;
+  }
+
+  /**
+   * Sets the fraction of BASE_STATION flows that are collection flows; the rest are dissemination
+   * flows.
+   */
+  public void setCollectionFraction(double collectionFraction) {
+    this.collectionFraction = collectionFraction;
+  }
+
+  /**
+   * Generates the workload as the contents of a graph file. Calling this again gives the same
+   * text as long as the parameters are not changed.
+   *
+   * @return the graph file contents, or null if the parameters can't make a workload
+   */
+  public String generate() {
+    if (!parametersAreValid()) {
+      return null;
+    }
+    random = new Random(seed);
+    buildTopology();
+    var graph = new StringBuilder();
+    graph.append(name).append(" {\n");
+    for (int flow = 0; flow < numFlows; flow++) {
+      var period = periods[random.nextInt(periods.length)];
+      var phase = random.nextInt(Math.min(maxPhase, period - 1) + 1);
+      var path = nextPath();
+      graph.append(String.format("F%d (%d, %d, %d, %d) : ", flow, flow, period, period, phase));
+      for (int i = 0; i < path.size(); i++) {
+        graph.append(i > 0 ? " -> " : "").append(path.get(i));
+      }
+      graph.append("\n");
+    }
+    graph.append("}\n");
+    random = null;
+    neighbors = null;
+    parents = null;
+    return graph.toString();
+  }
+
+  /**
+   * Generates the workload and writes it to fileName.
+   *
+   * @return true if the file was written
+   */
+  public Boolean writeFile(String fileName) {
+    var graph = generate();
+    if (graph == null) {
+      return false;
+    }
+    new FileManager().writeFile(fileName, graph);
+    return true;
+  }
+
+  /**
+   * Writes the workload to fileName and reads it back into a WorkLoad, the same way Warp reads an
+   * input file. The transmissions needed by flows of every length the generator can make are
+   * computed before the file is read, so flows of the same length share them.
+   *
+   * @return the WorkLoad, or null if the parameters can't make a workload
+   */
+  public WorkLoad toWorkLoad(Double m, Double e2e, String fileName) {
+    if (!writeFile(fileName)) {
+      return null;
+    }
+    new ReliabilityAnalysis(e2e, m).precomputeTxPerLinkAndTotalTxCost(maxHops + 1);
+    return new WorkLoad(m, e2e, fileName);
+  }
+
+  private Boolean parametersAreValid() {
+    String message = null;
+    if (numNodes < 2) {
+      message = "at least 2 nodes are needed";
+    } else if (numFlows < 0) {
+      message = "the number of flows can't be negative";
+    } else if (minHops < 1 || maxHops < minHops) {
+      message = "hops must satisfy 1 <= minHops <= maxHops";
+    } else if (periods.length == 0 || Arrays.stream(periods).anyMatch((p) -> p == null || p < 1)) {
+      message = "at least one period is needed and periods must be positive";
+    } else if (maxPhase < 0) {
+      message = "maxPhase can't be negative";
+    } else if (fanout < 1) {
+      message = "fanout must be at least 1";
+    }
+    if (message != null) {
+      System.err.printf("WorkLoadGenerator: %s.\n", message);
+      return false;
+    }
+    return true;
+  }
+
+  private void buildTopology() {
+    neighbors = new ArrayList<List<Integer>>(numNodes);
+    for (int node = 0; node < numNodes; node++) {
+      neighbors.add(new ArrayList<Integer>());
+    }
+    parents = null;
+    switch (topology) {
+      case LINE:
+        for (int node = 1; node < numNodes; node++) {
+          link(node - 1, node);
+        }
+        break;
+      case MESH:
+        var columns = (int) Math.ceil(Math.sqrt(numNodes));
+        for (int node = 1; node < numNodes; node++) {
+          if (node % columns != 0) {
+            link(node - 1, node);
+          }
+          if (node >= columns) {
+            link(node - columns, node);
+          }
+        }
+        break;
+      default: // TREE and BASE_STATION
+        parents = new int[numNodes];
+        parents[0] = -1;
+        var open = new ArrayList<Integer>(List.of(0)); // nodes with fewer than fanout children
+        var children = new int[numNodes];
+        for (int node = 1; node < numNodes; node++) {
+          var i = random.nextInt(open.size());
+          var parent = open.get(i);
+          parents[node] = parent;
+          link(parent, node);
+          if (++children[parent] == fanout) {
+            open.set(i, open.get(open.size() - 1));
+            open.remove(open.size() - 1);
+          }
+          open.add(node);
+        }
+        break;
+    }
+  }
+
+  private void link(int a, int b) {
+    neighbors.get(a).add(b);
+    neighbors.get(b).add(a);
+  }
+
+  private int nextHops() {
+    var hops = minHops;
+    if (hopDistribution == HopDistribution.UNIFORM) {
+      hops += random.nextInt(maxHops - minHops + 1);
+    } else {
+      while (hops < maxHops && random.nextBoolean()) {
+        hops++;
+      }
+    }
+    return hops;
+  }
+
+  private List<Integer> nextPath() {
+    if (topology == Topology.BASE_STATION) {
+      return nextBaseStationPath();
+    }
+    var hops = nextHops();
+    List<Integer> path = null;
+    for (int attempt = 0; attempt < MAX_WALK_ATTEMPTS; attempt++) {
+      var walk = randomWalk(random.nextInt(numNodes), hops);
+      if (path == null || walk.size() > path.size()) {
+        path = walk;
+      }
+      if (path.size() == hops + 1) {
+        break;
+      }
+    }
+    return path;
+  }
+
+  /* walks up to hops links from start without visiting a node twice */
+  private List<Integer> randomWalk(int start, int hops) {
+    var path = new ArrayList<Integer>(hops + 1);
+    var visited = new boolean[numNodes];
+    var node = start;
+    path.add(node);
+    visited[node] = true;
+    var next = new ArrayList<Integer>();
+    while (path.size() <= hops) {
+      next.clear();
+      for (int neighbor : neighbors.get(node)) {
+        if (!visited[neighbor]) {
+          next.add(neighbor);
+        }
+      }
+      if (next.isEmpty()) {
+        break;
+      }
+      node = next.get(random.nextInt(next.size()));
+      path.add(node);
+      visited[node] = true;
+    }
+    return path;
+  }
+
+  /* routes a random node to the base station, or the base station to it for dissemination */
+  private List<Integer> nextBaseStationPath() {
+    var collection = random.nextDouble() < collectionFraction;
+    var hops = nextHops();
+    var node = 1 + random.nextInt(numNodes - 1);
+    var path = new ArrayList<Integer>();
+    for (int n = node; n >= 0; n = parents[n]) {
+      path.add(n);
+    }
+    /* a path longer than hops starts part way up instead; shorter ones are used as they are */
+    while (path.size() > hops + 1) {
+      path.remove(0);
+    }
+    if (!collection) {
+      Collections.reverse(path);
+    }
+    return path;
+  }
+}
@@ -0,0 +1,325 @@
+package edu.uiowa.cs.warp;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Frozen copy of everything a scheduler reads from a WorkLoad: its reliability parameters, nodes,
+ * and the parameters and transmission costs of each flow.
+ * <p>
+ * Nothing in a snapshot changes after it is built, so one snapshot can be shared by any number of
+ * schedulers and analyses running on different threads. State that changes while a program is
+ * built, the flow order and node channels, lives in a SchedulerContext instead. Changes made to
+ * the WorkLoad after the snapshot was taken are not seen; take a new snapshot to pick them up.
+ *
+ * @version 1.0
+ */
+public final class WorkLoadSnapshot {
+
+  /* parameters returned for an unknown flow, matching what WorkLoad returns */
+  private static final FlowParameters DEFAULT_FLOW =
+      new FlowParameters(new Flow(), new String[0], new Integer[0], -1);
+
+  /**
+   * Parameters of one flow at the time the snapshot was taken.
+   */
+  static final class FlowParameters {
+    private final String name;
+    private final Integer priority;
+    private final Integer index;
+    private final Integer period;
+    private final Integer deadline;
+    private final Integer phase;
+    private final Integer txAttemptsPerLink;
+    private final String[] nodes;
+    private final Integer[] numTxAttemptsPerLink;
+    private final Integer totalTxAttempts;
+
+    private FlowParameters(Flow flow, String[] nodes, Integer[] numTxAttemptsPerLink,
+        Integer totalTxAttempts) {
+      this.name = flow.getName();
+      this.priority = flow.getPriority();
+      this.index = flow.getIndex();
+      this.period = flow.getPeriod();
+      this.deadline = flow.getDeadline();
+      this.phase = flow.getPhase();
+      this.txAttemptsPerLink = flow.getNumTxPerLink();
+      this.nodes = nodes;
+      this.numTxAttemptsPerLink = numTxAttemptsPerLink;
+      this.totalTxAttempts = totalTxAttempts;
+    }
+
+    String getName() {
+      return name;
+    }
+
+    Integer getPriority() {
+      return priority;
+    }
+
+    Integer getIndex() {
+      return index;
+    }
+
+    Integer getPeriod() {
+      return period;
+    }
+
+    Integer getDeadline() {
+      return deadline;
+    }
+  }
+
+  private final String name;
+  private final Integer numFaults;
+  private final Double minPacketReceptionRate;
+  private final Double e2e;
+  private final String[] nodeNamesOrderedAlphabetically;
+  private final Map<String, Integer> nodeChannels;
+  private final List<String> flowNames; // in the order they were read from the graph file
+  /* flows in WorkLoad.getFlows() iteration order, which the sorts use to break remaining ties */
+  private final Map<String, FlowParameters> flows;
+  private final Integer hyperPeriod;
+
+  WorkLoadSnapshot(WorkLoad workLoad) {
+    name = workLoad.getName();
+    numFaults = workLoad.getNumFaults();
+    minPacketReceptionRate = workLoad.getMinPacketReceptionRate();
+    e2e = workLoad.getE2e();
+    nodeNamesOrderedAlphabetically = workLoad.getNodeNamesOrderedAlphabetically();
+    var channels = new HashMap<String, Integer>();
+    workLoad.getNodes().forEach((nodeName, node) -> channels.put(nodeName, node.getChannel()));
+    nodeChannels = Collections.unmodifiableMap(channels);
+    flowNames = List.of(workLoad.getFlowNames());
+    var flowParameters = new LinkedHashMap<String, FlowParameters>();
+    for (Flow flow : workLoad.getFlows().values()) {
+      var flowName = flow.getName();
+      flowParameters.put(flowName, new FlowParameters(flow, workLoad.getNodesInFlow(flowName),
+          workLoad.getNumTxAttemptsPerLink(flowName), workLoad.getTotalTxAttemptsInFlow(flowName)));
+    }
+    flows = Collections.unmodifiableMap(flowParameters);
+    hyperPeriod = workLoad.getHyperPeriod();
+  }
+
+  /**
+   * Writes everything a scheduler reads from the snapshot, except the workload name, in a fixed
+   * order, so that two snapshots a scheduler can't tell apart write the same bytes. The flows are
+   * written in the order the sorts use to break ties.
+   *
+   * @see ProgramCache
+   */
+  void writeTo(DataOutputStream out) throws IOException {
+    writeInteger(out, numFaults);
+    out.writeDouble(minPacketReceptionRate);
+    out.writeDouble(e2e);
+    writeInteger(out, hyperPeriod);
+    out.writeInt(nodeNamesOrderedAlphabetically.length);
+    for (String nodeName : nodeNamesOrderedAlphabetically) {
+      out.writeUTF(nodeName);
+      writeInteger(out, nodeChannels.get(nodeName));
+    }
+    out.writeInt(flowNames.size());
+    for (String flowName : flowNames) {
+      out.writeUTF(flowName);
+    }
+    out.writeInt(flows.size());
+    for (FlowParameters flow : flows.values()) {
+      out.writeUTF(flow.name);
+      writeInteger(out, flow.priority);
+      writeInteger(out, flow.index);
+      writeInteger(out, flow.period);
+      writeInteger(out, flow.deadline);
+      writeInteger(out, flow.phase);
+      writeInteger(out, flow.txAttemptsPerLink);
+      writeInteger(out, flow.totalTxAttempts);
+      out.writeInt(flow.nodes.length);
+      for (String node : flow.nodes) {
+        out.writeUTF(node);
+      }
+      out.writeInt(flow.numTxAttemptsPerLink.length);
+      for (Integer attempts : flow.numTxAttemptsPerLink) {
+        writeInteger(out, attempts);
+      }
+    }
+  }
+
+  private static void writeInteger(DataOutputStream out, Integer value) throws IOException {
+    out.writeBoolean(value != null);
+    out.writeInt((value != null) ? value : 0);
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public Integer getNumFaults() {
+    return numFaults;
+  }
+
+  public Double getMinPacketReceptionRate() {
+    return minPacketReceptionRate;
+  }
+
+  public Double getE2e() {
+    return e2e;
+  }
+
+  public Integer getHyperPeriod() {
+    return hyperPeriod;
+  }
+
+  public Integer getNumNodes() {
+    return nodeNamesOrderedAlphabetically.length;
+  }
+
+  /**
+   * @return the node names in the order of WorkLoad.getNodeNamesOrderedAlphabetically()
+   */
+  public String[] getNodeNamesOrderedAlphabetically() {
+    return nodeNamesOrderedAlphabetically.clone();
+  }
+
+  /**
+   * @return the channel the node had when the snapshot was taken, or null for an unknown node
+   */
+  public Integer getNodeChannel(String nodeName) {
+    return nodeChannels.get(nodeName);
+  }
+
+  Map<String, Integer> getNodeChannels() {
+    return nodeChannels;
+  }
+
+  public Boolean hasFlow(String flowName) {
+    return flows.containsKey(flowName);
+  }
+
+  /**
+   * @return flow names in the order they were read from the graph file
+   */
+  public List<String> getFlowNames() {
+    return flowNames;
+  }
+
+  public String[] getNodesInFlow(String flowName) {
+    return getFlow(flowName).nodes.clone();
+  }
+
+  public Integer getFlowPriority(String flowName) {
+    return getFlow(flowName).priority;
+  }
+
+  public Integer getFlowPeriod(String flowName) {
+    return getFlow(flowName).period;
+  }
+
+  public Integer getFlowDeadline(String flowName) {
+    return getFlow(flowName).deadline;
+  }
+
+  public Integer getFlowPhase(String flowName) {
+    return getFlow(flowName).phase;
+  }
+
+  public Integer getFlowTxAttemptsPerLink(String flowName) {
+    return getFlow(flowName).txAttemptsPerLink;
+  }
+
+  /**
+   * @return number of transmissions needed per link to meet the E2E reliability target
+   */
+  public Integer[] getNumTxAttemptsPerLink(String flowName) {
+    return getFlow(flowName).numTxAttemptsPerLink.clone();
+  }
+
+  /**
+   * @return worst-case cost of all transmission attempts in the flow, or -1 for an unknown flow
+   */
+  public Integer getTotalTxAttemptsInFlow(String flowName) {
+    return getFlow(flowName).totalTxAttempts;
+  }
+
+  /**
+   * Flows sorted by priority and then by index, as WorkLoad.setFlowsInPriorityOrder sorts them.
+   *
+   * @return a new list the caller may modify
+   */
+  public ArrayList<String> getFlowNamesInPriorityOrder() {
+    return sortedFlowNames(Comparator.comparing(FlowParameters::getIndex),
+        Comparator.comparing(FlowParameters::getPriority));
+  }
+
+  /**
+   * Flows sorted by period and then by priority, as WorkLoad.setFlowsInRMorder sorts them.
+   *
+   * @return a new list the caller may modify
+   */
+  public ArrayList<String> getFlowNamesInRMorder() {
+    return sortedFlowNames(Comparator.comparing(FlowParameters::getPriority),
+        Comparator.comparing(FlowParameters::getPeriod));
+  }
+
+  /**
+   * Flows sorted by deadline and then by priority, as WorkLoad.setFlowsInDMorder sorts them.
+   *
+   * @return a new list the caller may modify
+   */
+  public ArrayList<String> getFlowNamesInDMorder() {
+    return sortedFlowNames(Comparator.comparing(FlowParameters::getPriority),
+        Comparator.comparing(FlowParameters::getDeadline));
+  }
+
+  /* two stable sorts, secondary key first, so ties fall back to the WorkLoad's own flow order */
+  private ArrayList<String> sortedFlowNames(Comparator<FlowParameters> secondary,
+      Comparator<FlowParameters> primary) {
+    var sorted = new ArrayList<FlowParameters>(flows.values());
+    sorted.sort(secondary);
+    sorted.sort(primary);
+    var flowNamesInOrder = new ArrayList<String>(sorted.size());
+    sorted.forEach((flow) -> flowNamesInOrder.add(flow.getName()));
+    return flowNamesInOrder;
+  }
+
+  /**
+   * @return the first release of the flow at or after currentTime
+   */
+  public Integer nextReleaseTime(String flowName, Integer currentTime) {
+    var flow = getFlow(flowName);
+    return nextReleaseTime(currentTime, flow.period, flow.phase);
+  }
+
+  /**
+   * Same release rule as SchedulableObject.setNextReleaseTime: released at phase + j * period for
+   * all j >= 0.
+   */
+  static Integer nextReleaseTime(Integer currentTime, Integer period, Integer phase) {
+    var instance = 0;
+    if (period > 0) {
+      instance = -Math.floorDiv(-currentTime, period); // ceiling of currentTime / period
+    }
+    return instance * period + phase;
+  }
+
+  /**
+   * @return the absolute deadline of the first release of the flow at or after currentTime
+   */
+  public Integer nextAbsoluteDeadline(String flowName, Integer currentTime) {
+    return nextReleaseTime(flowName, currentTime) + getFlow(flowName).deadline;
+  }
+
+  private FlowParameters getFlow(String flowName) {
+    var flow = flows.get(flowName);
+    if (flow == null) {
+      System.out.printf("\n\tWarning! No Flow with name %s.\n", flowName);
+      flow = DEFAULT_FLOW;
+    }
+    return flow;
+  }
+}
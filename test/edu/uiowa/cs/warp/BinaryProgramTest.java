@@ -0,0 +1,181 @@
+package edu.uiowa.cs.warp;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import edu.uiowa.cs.warp.SystemAttributes.ScheduleChoices;
+
+/**
+ * Checks that a program written by BinaryProgram reads back through MappedProgram cell for cell.
+ */
+@ExtendWith(QuietOutput.class)
+class BinaryProgramTest {
+
+  @TempDir
+  Path tempDir;
+
+  private MappedProgram writeAndOpen(Program program, String fileName) {
+    var file = tempDir.resolve(fileName).toString();
+    new BinaryProgram(program).toFile(file);
+    return MappedProgram.open(file);
+  }
+
+  @Test
+  void testRoundTrip() {
+    for (String input : new String[] {"Example4.txt", "StressTest4.txt", "Example1a.txt"}) {
+      for (ScheduleChoices choice : new ScheduleChoices[] {ScheduleChoices.PRIORITY,
+          ScheduleChoices.RTHART, ScheduleChoices.POSET_PRIORITY}) {
+        var message = input + " " + choice;
+        var program = new Program(new WorkLoad(0.9, 0.99, input), 16, choice);
+        var schedule = program.getSchedule();
+        var mapped = writeAndOpen(program, input + choice + ".wpb");
+        assertNotNull(mapped, message);
+        assertEquals(program.getName(), mapped.getName(), message);
+        assertEquals(program.getSchedulerName(), mapped.getSchedulerName(), message);
+        assertEquals(program.getNumChannels(), mapped.getNumChannels(), message);
+        assertEquals(program.getMinPacketReceptionRate(), mapped.getMinPacketReceptionRate());
+        assertEquals(program.getE2e(), mapped.getE2e(), message);
+        assertEquals(program.getFlowNamesInPriorityOrder(), mapped.getFlowNamesInPriorityOrder());
+        assertEquals(schedule.getNumRows(), mapped.getNumTimeSlots(), message);
+        assertEquals(schedule.getNumColumns(), mapped.getNumNodes(), message);
+        var nodeNames = mapped.getNodeNames();
+        for (var node : program.getNodeMapIndex().entrySet()) {
+          assertEquals(node.getKey(), nodeNames[node.getValue()], message);
+        }
+        for (int slot = 0; slot < schedule.getNumRows(); slot++) {
+          for (int node = 0; node < schedule.getNumColumns(); node++) {
+            var instruction = schedule.get(slot, node);
+            var read = mapped.get(slot, node);
+            assertEquals(instruction, read, message + " " + slot + " " + node);
+            if (read != null) {
+              assertEquals(instruction.toString(), read.toString());
+            }
+          }
+        }
+        assertNull(mapped.get(schedule.getNumRows(), 0));
+        assertNull(mapped.get(0, -1));
+      }
+    }
+  }
+
+  @Test
+  void testSmallerThanDsl() throws IOException {
+    var warp = SystemFactory.create(new WorkLoad(0.9, 0.99, "StressTest4.txt"), 16,
+        ScheduleChoices.PRIORITY);
+    var file = tempDir.resolve("StressTest4.wpb");
+    new BinaryProgram(warp.toProgram()).toFile(file.toString());
+    var dsl = new ProgramVisualization(warp).fileVisualization().toString();
+    assertTrue(Files.size(file) * 4 < dsl.getBytes(StandardCharsets.UTF_8).length,
+        Files.size(file) + " bytes");
+    var mapped = MappedProgram.open(file.toString());
+    var schedule = mapped.toProgramSchedule();
+    assertEquals(warp.toProgram().getSchedule().getNumRows(), schedule.getNumRows());
+    assertEquals(warp.toProgram().getSchedule().get(3, 2), schedule.get(3, 2));
+  }
+
+  @Test
+  void testSleepIsShared() {
+    var mapped = writeAndOpen(
+        new Program(new WorkLoad(0.9, 0.99, "Example4.txt"), 16, ScheduleChoices.PRIORITY),
+        "Example4.wpb");
+    var ids = new boolean[mapped.getNumInstructions()];
+    for (int slot = 0; slot < mapped.getNumTimeSlots(); slot++) {
+      for (int node = 0; node < mapped.getNumNodes(); node++) {
+        ids[mapped.getId(slot, node)] = true;
+        if (mapped.get(slot, node).isSleep()) {
+          assertSame(Instruction.sleep(), mapped.get(slot, node));
+        }
+      }
+    }
+    var all = new boolean[ids.length];
+    Arrays.fill(all, true);
+    assertArrayEquals(all, ids); // every instruction in the dictionary is used
+  }
+
+  @Test
+  void testBadFile() throws IOException {
+    System.setErr(new PrintStream(new ByteArrayOutputStream()));
+    var text = tempDir.resolve("Example4.dsl");
+    Files.writeString(text, "Example4 \t PRIORITY \t 0.9 \t 0.99 \t 16\n");
+    assertNull(MappedProgram.open(text.toString()));
+    assertNull(MappedProgram.open(tempDir.resolve("missing.wpb").toString()));
+
+    var file = tempDir.resolve("Truncated.wpb");
+    new BinaryProgram(
+        new Program(new WorkLoad(0.9, 0.99, "Example4.txt"), 16, ScheduleChoices.PRIORITY))
+            .toFile(file.toString());
+    var bytes = Files.readAllBytes(file);
+    Files.write(file, Arrays.copyOf(bytes, bytes.length - 1));
+    assertNull(MappedProgram.open(file.toString()));
+  }
+
+  @Test
+  void testDamagedCount() throws IOException {
+    var errors = new ByteArrayOutputStream();
+    System.setErr(new PrintStream(errors));
+    var file = tempDir.resolve("Damaged.wpb");
+    new BinaryProgram(
+        new Program(new WorkLoad(0.9, 0.99, "Example4.txt"), 16, ScheduleChoices.PRIORITY))
+            .toFile(file.toString());
+    var bytes = Files.readAllBytes(file);
+    /* the number of strings, the first varint after the header, read as -1 and as 2^31 - 1 */
+    for (byte last : new byte[] {0x0F, 0x07}) {
+      var damaged = bytes.clone();
+      Arrays.fill(damaged, BinaryProgram.HEADER_SIZE, BinaryProgram.HEADER_SIZE + 4, (byte) 0xFF);
+      damaged[BinaryProgram.HEADER_SIZE + 4] = last;
+      Files.write(file, damaged);
+      assertNull(MappedProgram.open(file.toString()));
+      assertTrue(errors.toString().contains("larger than the rest of the file"), errors.toString());
+    }
+  }
+
+  @Test
+  void testDamagedCell() throws IOException {
+    var file = tempDir.resolve("Damaged.wpb");
+    new BinaryProgram(
+        new Program(new WorkLoad(0.9, 0.99, "Example4.txt"), 16, ScheduleChoices.PRIORITY))
+            .toFile(file.toString());
+    var bytes = Files.readAllBytes(file);
+    var mapped = MappedProgram.open(file.toString());
+    var numCells = mapped.getNumTimeSlots() * mapped.getNumNodes();
+    /* the same program with 4 byte cells, as written for a node with over 0xFFFF instructions */
+    var cellsOffset = bytes.length - numCells;
+    var wide = ByteBuffer.allocate(cellsOffset + 4 * numCells);
+    wide.put(bytes, 0, cellsOffset);
+    for (int i = cellsOffset; i < bytes.length; i++) {
+      wide.putInt(Byte.toUnsignedInt(bytes[i]));
+    }
+    wide.put(6, (byte) 4); // cell size in the header
+    var node = 1;
+    var slot = 2;
+    var widened = new MappedProgram(wide.duplicate().clear());
+    assertEquals(mapped.toProgramSchedule(), widened.toProgramSchedule());
+
+    var cell = cellsOffset + 4 * (slot * mapped.getNumNodes() + node);
+    for (int damaged : new int[] {-1, Integer.MIN_VALUE, mapped.getNumInstructions() + 1}) {
+      wide.putInt(cell, damaged);
+      var program = new MappedProgram(wide.duplicate().clear());
+      var error = assertThrows(IllegalStateException.class, () -> program.getId(slot, node));
+      assertTrue(error.getMessage().contains("in time slot " + slot), error.getMessage());
+      assertThrows(IllegalStateException.class, () -> program.get(slot, node));
+      assertThrows(IllegalStateException.class, () -> program.toProgramSchedule());
+      assertEquals(mapped.get(0, node), program.get(0, node)); // the other cells still read
+    }
+  }
+}
@@ -0,0 +1,93 @@
+package edu.uiowa.cs.warp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import edu.uiowa.cs.warp.SystemAttributes.ScheduleChoices;
+
+/**
+ * Checks the conflicts ChannelAnalysis finds against the cells of the programs it analyses.
+ */
+@ExtendWith(QuietOutput.class)
+class ChannelAnalysisTest {
+
+  @Test
+  void testNoConflicts() {
+    var program = new Program(new WorkLoad(0.9, 0.99, "Example4.txt"), 16,
+        ScheduleChoices.PRIORITY);
+    var analysis = new ChannelAnalysis(program);
+    assertFalse(analysis.isChannelConflict());
+    assertTrue(analysis.getConflicts().isEmpty());
+    assertEquals(16, analysis.getNumChannels());
+  }
+
+  @Test
+  void testSameSlotConflict() {
+    /* the chains of Example2 are disjoint, and the first link of each uses #1 in slot 0 */
+    var program = new Program(new WorkLoad(0.9, 0.99, "Example2.txt"), 16,
+        ScheduleChoices.PRIORITY);
+    var analysis = new ChannelAnalysis(program);
+    assertTrue(analysis.isChannelConflict());
+    var conflict = analysis.getConflicts().get(0);
+    assertEquals(ChannelConflict.Type.SAME_SLOT, conflict.getType());
+    assertEquals(0, conflict.getTimeSlot());
+    assertEquals(1, conflict.getChannel());
+    assertEquals("A", conflict.getOtherNode());
+    assertEquals("F0", conflict.getOtherFlow());
+    assertEquals("D", conflict.getNode());
+    assertEquals("F2", conflict.getFlow());
+    var links = analysis.getChannelTable()[0][1];
+    assertTrue(links.startsWith("F0: A -> B, "), links);
+    assertTrue(links.contains("F2: D -> E"), links);
+  }
+
+  @Test
+  void testConflictsMatchCells() {
+    for (String input : new String[] {"StressTest4.txt", "LongChain.txt", "Example1a.txt"}) {
+      for (ScheduleChoices choice : new ScheduleChoices[] {ScheduleChoices.PRIORITY,
+          ScheduleChoices.RTHART, ScheduleChoices.POSET_PRIORITY}) {
+        var program = new Program(new WorkLoad(0.9, 0.99, input), 16, choice);
+        var schedule = program.getSchedule();
+        var nodeIndex = program.getNodeMapIndex();
+        for (ChannelConflict conflict : new ChannelAnalysis(program).getConflicts()) {
+          var message = input + " " + choice + " " + conflict;
+          var slot = conflict.getTimeSlot();
+          var channel = conflict.getChannel();
+          if (conflict.getType() == ChannelConflict.Type.SAME_SLOT) {
+            assertTrue(!conflict.getFlow().equals(conflict.getOtherFlow()), message);
+            assertTrue(transmits(schedule.get(slot, nodeIndex.get(conflict.getNode())),
+                conflict.getFlow(), channel), message);
+            assertTrue(transmits(schedule.get(slot, nodeIndex.get(conflict.getOtherNode())),
+                conflict.getOtherFlow(), channel), message);
+          } else {
+            var column = nodeIndex.get(conflict.getNode());
+            assertTrue(uses(schedule.get(slot - 1, column), channel), message);
+            assertTrue(uses(schedule.get(slot, column), channel), message);
+          }
+        }
+      }
+    }
+  }
+
+  private static boolean transmits(Instruction instruction, String flow, int channel) {
+    for (var clause = instruction; clause != null; clause = clause.getElse()) {
+      if (clause.isTransmission() && clause.getFlow().equals(flow)
+          && clause.getChannel() == channel) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean uses(Instruction instruction, int channel) {
+    for (var clause = instruction; clause != null; clause = clause.getElse()) {
+      if (clause.getChannel() == channel) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
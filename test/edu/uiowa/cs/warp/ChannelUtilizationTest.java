@@ -0,0 +1,124 @@
+package edu.uiowa.cs.warp;
+
+import static edu.uiowa.cs.warp.TestPrograms.NO_FAULTS;
+import static edu.uiowa.cs.warp.TestPrograms.NUM_CHANNELS;
+import static edu.uiowa.cs.warp.TestPrograms.forEachProgram;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.extension.ExtendWith;
+import edu.uiowa.cs.warp.SystemAttributes.ScheduleChoices;
+
+/**
+ * Checks ChannelUtilization against counts taken directly from the cells of a program.
+ */
+@ExtendWith(QuietOutput.class)
+class ChannelUtilizationTest {
+
+  private static final String[] INPUT_FILES = {"Example4.txt", "StressTest4.txt"};
+  /* also a small count, so that some slots use every channel */
+  private static final Integer[] CHANNEL_COUNTS = {NUM_CHANNELS, 2};
+  private static final ScheduleChoices[] PRIORITY_ONLY = {ScheduleChoices.PRIORITY};
+  private static final String[] POSET_INPUT_FILES =
+      {"Example1a.txt", "Example4.txt", "StressTest4.txt"};
+  private static final ScheduleChoices[] POSET_CHOICES =
+      {ScheduleChoices.POSET_PRIORITY, ScheduleChoices.WARP_POSET_PRIORITY};
+  private static final long TIMEOUT_IN_MILLISECONDS = 10000;
+
+  @Test
+  @Timeout(value = TIMEOUT_IN_MILLISECONDS, unit = TimeUnit.MILLISECONDS)
+  void testProgramCounts() {
+    for (Integer numChannels : CHANNEL_COUNTS) {
+      forEachProgram(NO_FAULTS, numChannels, INPUT_FILES, PRIORITY_ONLY, (program, message) -> {
+        assertNull(program.getPosetSchedule());
+        assertSameCounts(program, message + " " + numChannels);
+      });
+    }
+  }
+
+  @Test
+  @Timeout(value = TIMEOUT_IN_MILLISECONDS, unit = TimeUnit.MILLISECONDS)
+  void testPosetSchedule() {
+    forEachProgram(POSET_INPUT_FILES, POSET_CHOICES, (program, message) -> {
+      assertNotNull(program.getPosetSchedule());
+      assertSamePosetCounts(program, message);
+    });
+  }
+
+  private void assertSamePosetCounts(Program program, String message) {
+    var utilization = new ChannelUtilization(program);
+    var posetSchedule = program.getPosetSchedule();
+    var numSlots = posetSchedule.getNumColumns();
+    assertEquals(numSlots, utilization.getNumTimeSlots(), message);
+    var activeSlots = new HashMap<String, Integer>();
+    for (int time = 0; time < numSlots; time++) {
+      var inUse = 0;
+      var awake = new HashSet<String>();
+      for (int channel = 0; channel < NUM_CHANNELS; channel++) {
+        var activation = posetSchedule.get(channel, time);
+        if (activation != null) {
+          inUse++;
+          for (Edge edge : activation.getEdges()) {
+            awake.add(edge.getSrc());
+            awake.add(edge.getSnk());
+          }
+        }
+      }
+      assertEquals(inUse, utilization.getChannelsInUse(time), message + " slot " + time);
+      for (String node : awake) {
+        activeSlots.merge(node, 1, Integer::sum);
+      }
+    }
+    for (String node : utilization.getNodeNames()) {
+      assertEquals((double) activeSlots.getOrDefault(node, 0) / numSlots,
+          utilization.getNodeDutyCycle(node), 1e-12, message + " " + node);
+    }
+  }
+
+  private void assertSameCounts(Program program, String message) {
+    var utilization = new ChannelUtilization(program);
+    var schedule = program.getSchedule();
+    var numChannels = utilization.getNumChannels();
+    var busySlots = new int[numChannels];
+    var run = 0;
+    var longestRun = 0;
+    for (int row = 0; row < schedule.getNumRows(); row++) {
+      var channels = new HashSet<Integer>();
+      for (int column = 0; column < schedule.getNumColumns(); column++) {
+        for (var clause = schedule.get(row, column); clause != null; clause = clause.getElse()) {
+          if (clause.getChannel() >= 0) {
+            channels.add(clause.getChannel());
+          }
+        }
+      }
+      assertEquals(channels.size(), utilization.getChannelsInUse(row), message + " slot " + row);
+      for (Integer channel : channels) {
+        busySlots[channel]++;
+      }
+      run = (channels.size() == numChannels) ? run + 1 : 0;
+      longestRun = Math.max(longestRun, run);
+    }
+    for (int channel = 0; channel < numChannels; channel++) {
+      assertEquals((double) busySlots[channel] / schedule.getNumRows(),
+          utilization.getChannelBusyFraction(channel), 1e-12, message + " #" + channel);
+    }
+    assertEquals(longestRun, utilization.getLongestSaturatedRun(), message);
+    var nodeIndex = program.getNodeMapIndex();
+    for (String node : utilization.getNodeNames()) {
+      var active = 0;
+      for (int row = 0; row < schedule.getNumRows(); row++) {
+        active += schedule.get(row, nodeIndex.get(node)).isSleep() ? 0 : 1;
+      }
+      assertEquals((double) active / schedule.getNumRows(), utilization.getNodeDutyCycle(node),
+          1e-12, message + " " + node);
+    }
+    assertTrue(utilization.getUtilization() <= 1.0, message);
+  }
+}
@@ -0,0 +1,92 @@
+package edu.uiowa.cs.warp;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import edu.uiowa.cs.warp.SystemAttributes.ScheduleChoices;
+
+/**
+ * Checks that the array backed tables hold the same values as the list backed tables they stand
+ * in for, and that ReliabilityAnalysis verifies the same way whether or not it keeps the table.
+ */
+@ExtendWith(QuietOutput.class)
+class DenseTableTest {
+
+  @Test
+  void testReliabilityTableRoundTrip() {
+    var table = new DenseReliabilityTable(3);
+    for (int row = 0; row < 40; row++) { // enough rows to grow the array
+      table.addCopyOfLastRow();
+      table.setValue(row, row % 3, row / 40.0);
+    }
+    assertEquals(40, table.getNumRows());
+    assertEquals(3, table.getNumColumns());
+    assertEquals(39 / 40.0, table.get(39, 0));
+    assertEquals(38 / 40.0, table.get(39, 2)); // copied forward from row 38
+    assertNull(table.get(40, 0));
+    assertNull(table.get(0, 3));
+    var boxed = table.toReliabilityTable();
+    assertEquals(40, boxed.getNumRows());
+    for (int row = 0; row < 40; row++) {
+      for (int column = 0; column < 3; column++) {
+        assertEquals(table.get(row, column), boxed.get(row, column));
+      }
+    }
+    var copy = new DenseReliabilityTable(boxed);
+    assertEquals(boxed, copy.toReliabilityTable());
+  }
+
+  @Test
+  void testInstructionIdTableRoundTrip() {
+    for (ScheduleChoices choice : new ScheduleChoices[] {ScheduleChoices.PRIORITY,
+        ScheduleChoices.WARP_POSET_PRIORITY}) {
+      var program = new Program(new WorkLoad(0.9, 0.99, "StressTest4.txt"), 16, choice);
+      var schedule = program.getSchedule();
+      var ids = new InstructionIdTable(schedule);
+      assertEquals(schedule.getNumRows(), ids.getNumRows());
+      assertEquals(schedule.getNumColumns(), ids.getNumColumns());
+      assertTrue(ids.getNumInstructions() < schedule.getNumRows() * schedule.getNumColumns());
+      for (int row = 0; row < schedule.getNumRows(); row++) {
+        for (int column = 0; column < schedule.getNumColumns(); column++) {
+          assertEquals(schedule.get(row, column), ids.get(row, column));
+        }
+      }
+      assertEquals(schedule, ids.toProgramSchedule());
+    }
+  }
+
+  @Test
+  void testReliabilityValuesMatchReliabilityTable() {
+    var program = new Program(new WorkLoad(0.9, 0.99, "StressTest4.txt"), 16,
+        ScheduleChoices.PRIORITY);
+    var analysis = new ReliabilityAnalysis(program);
+    var values = analysis.getReliabilityValues();
+    assertEquals(analysis.buildReliabilityTable(), values.toReliabilityTable());
+    assertEquals(analysis.getReliabilities(), values.toReliabilityTable());
+  }
+
+  @Test
+  void testVerifyWithoutBuildingTheTable() {
+    for (String input : new String[] {"Example4.txt", "StressTest4.txt", "WARP-WASHU-MIX.txt"}) {
+      for (Integer numFaults : new Integer[] {0, 1}) {
+        var workLoad = new WorkLoad(numFaults, 0.9, 0.99, input);
+        var program = new Program(workLoad, 16, ScheduleChoices.PRIORITY);
+        var rolling = new ReliabilityAnalysis(program); // keeps only two rows
+        var full = new ReliabilityAnalysis(program);
+        var values = full.getReliabilityValues();
+        var lastRow = values.getRow(values.getNumRows() - 1);
+        var met = true;
+        for (double value : lastRow) {
+          met &= value >= 0.99;
+        }
+        assertEquals(met, rolling.verifyReliablities(), input);
+        assertEquals(met, full.verifyReliablities(), input);
+        assertArrayEquals(lastRow, rolling.getLastReliabilityRow(), 0.0, input);
+      }
+    }
+  }
+}
@@ -0,0 +1,81 @@
+package edu.uiowa.cs.warp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import edu.uiowa.cs.warp.SystemAttributes.ScheduleChoices;
+
+/**
+ * Checks the statistics of LatencyHistogram and the per-flow statistics in the latency report.
+ */
+@ExtendWith(QuietOutput.class)
+class LatencyHistogramTest {
+
+  @Test
+  void testExactPercentiles() {
+    var histogram = new LatencyHistogram(100);
+    for (int latency = 1; latency <= 100; latency++) {
+      histogram.add(latency);
+    }
+    assertEquals(100, histogram.getCount());
+    assertEquals(1, histogram.getMin());
+    assertEquals(100, histogram.getMax());
+    assertEquals(50.5, histogram.getMean());
+    assertEquals(99, histogram.getJitter());
+    assertEquals(50, histogram.getPercentile(50));
+    assertEquals(95, histogram.getPercentile(95));
+    assertEquals(99, histogram.getPercentile(99));
+    assertEquals(100, histogram.getPercentile(100));
+    assertEquals(1, histogram.getPercentile(0));
+  }
+
+  @Test
+  void testSharedBuckets() {
+    var histogram = new LatencyHistogram(LatencyHistogram.MAX_BUCKETS * 10 - 1);
+    histogram.add(3);
+    histogram.add(7);
+    histogram.add(25);
+    /* 3 and 7 share the first bucket, whose largest latency is 9 */
+    assertEquals(9, histogram.getPercentile(50));
+    assertEquals(25, histogram.getPercentile(99));
+    assertEquals(3, histogram.getMin());
+  }
+
+  @Test
+  void testBeyondMaxLatency() {
+    var histogram = new LatencyHistogram(10);
+    histogram.add(5);
+    histogram.add(40);
+    assertEquals(40, histogram.getMax());
+    assertEquals(40, histogram.getPercentile(99));
+  }
+
+  @Test
+  void testEmpty() {
+    var histogram = new LatencyHistogram(10);
+    histogram.addUnknown();
+    assertEquals(0, histogram.getCount());
+    assertEquals(1, histogram.getNumUnknown());
+    assertEquals(0, histogram.getMin());
+    assertEquals(0, histogram.getMax());
+    assertEquals(0.0, histogram.getMean());
+    assertEquals(0, histogram.getPercentile(95));
+  }
+
+  @Test
+  void testLatencyReportStatistics() {
+    var program = new Program(new WorkLoad(1, 0.9, 0.99, "Example4.txt"), 16,
+        ScheduleChoices.PRIORITY);
+    var analysis = new LatencyAnalysis(program);
+    var report = analysis.latencyReport().toString();
+    var workLoad = program.toWorkLoadSnapshot();
+    for (String flowName : program.getFlowNamesInPriorityOrder()) {
+      var histogram = analysis.getLatencyHistogram(flowName);
+      var instances = workLoad.getHyperPeriod() / workLoad.getFlowPeriod(flowName);
+      assertEquals(instances, histogram.getCount() + histogram.getNumUnknown(), flowName);
+      assertTrue(report.contains("Latency of " + flowName + " over "), flowName);
+    }
+  }
+}
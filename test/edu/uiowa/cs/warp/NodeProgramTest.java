@@ -0,0 +1,87 @@
+package edu.uiowa.cs.warp;
+
+import static edu.uiowa.cs.warp.TestPrograms.E2E;
+import static edu.uiowa.cs.warp.TestPrograms.MIN_LQ;
+import static edu.uiowa.cs.warp.TestPrograms.NUM_CHANNELS;
+import static edu.uiowa.cs.warp.TestPrograms.forEachProgram;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.extension.ExtendWith;
+import edu.uiowa.cs.warp.SystemAttributes.ScheduleChoices;
+
+/**
+ * Checks that the program NodeProgram synthesizes for a node is the node's column of the full
+ * ProgramSchedule.
+ */
+@ExtendWith(QuietOutput.class)
+class NodeProgramTest {
+
+  private static final String[] INPUT_FILES = {"Example4.txt", "StressTest4.txt", "LongChain.txt"};
+  private static final ScheduleChoices[] CHOICES = {ScheduleChoices.PRIORITY, ScheduleChoices.RM,
+      ScheduleChoices.DM, ScheduleChoices.RTHART, ScheduleChoices.POSET_PRIORITY};
+  /* one NodeProgram is built for every node of every program, so this test takes the longest */
+  private static final long SAME_AS_COLUMN_TIMEOUT_IN_MILLISECONDS = 30000;
+  private static final long TIMEOUT_IN_MILLISECONDS = 10000;
+
+  @Test
+  @Timeout(value = SAME_AS_COLUMN_TIMEOUT_IN_MILLISECONDS, unit = TimeUnit.MILLISECONDS)
+  void testSameAsProgramColumn() {
+    /* one choice at a time, since the NodePrograms are built with the program's choice */
+    for (ScheduleChoices choice : CHOICES) {
+      forEachProgram(INPUT_FILES, new ScheduleChoices[] {choice},
+          (program, message) -> assertSameAsColumns(program, choice, message));
+    }
+  }
+
+  @Test
+  @Timeout(value = TIMEOUT_IN_MILLISECONDS, unit = TimeUnit.MILLISECONDS)
+  void testOtherColumnsDropped() {
+    var workLoad = new WorkLoad(MIN_LQ, E2E, "StressTest4.txt");
+    var program = new Program(workLoad, NUM_CHANNELS, ScheduleChoices.PRIORITY, "A");
+    var projection = (ProjectedSchedule) program.getSchedule();
+    var nodeIndex = program.getNodeMapIndex();
+    for (var node : nodeIndex.entrySet()) {
+      if (node.getValue() == projection.getProjectedNode()) {
+        assertEquals("A", node.getKey());
+      } else {
+        assertNull(projection.getInstruction(0, node.getValue()), node.getKey());
+      }
+    }
+    assertTrue(projection.getNumPages() > 0);
+    assertFalse(program.supportsIncrementalUpdates());
+  }
+
+  @Test
+  @Timeout(value = TIMEOUT_IN_MILLISECONDS, unit = TimeUnit.MILLISECONDS)
+  void testUnknownNode() {
+    System.setErr(new PrintStream(new ByteArrayOutputStream()));
+    var nodeProgram = new NodeProgram(new WorkLoad(MIN_LQ, E2E, "Example4.txt"), NUM_CHANNELS,
+        ScheduleChoices.PRIORITY, "NoSuchNode");
+    assertEquals(0, nodeProgram.getNumTimeSlots());
+    assertNull(nodeProgram.getInstruction(0));
+  }
+
+  /* the NodeProgram of each node of program has the same instructions as the node's column */
+  private void assertSameAsColumns(Program program, ScheduleChoices choice, String message) {
+    var schedule = program.getSchedule();
+    for (var node : program.getNodeMapIndex().entrySet()) {
+      var nodeMessage = message + " " + node.getKey();
+      var nodeProgram =
+          new NodeProgram(program.toWorkLoad(), NUM_CHANNELS, choice, node.getKey());
+      assertEquals(program.getSchedulerName(), nodeProgram.getSchedulerName(), nodeMessage);
+      assertEquals(schedule.getNumRows(), nodeProgram.getNumTimeSlots(), nodeMessage);
+      for (int slot = 0; slot < schedule.getNumRows(); slot++) {
+        assertEquals(schedule.get(slot, node.getValue()), nodeProgram.getInstruction(slot),
+            nodeMessage + " slot " + slot);
+      }
+    }
+  }
+}
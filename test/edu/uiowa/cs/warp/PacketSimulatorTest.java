@@ -0,0 +1,97 @@
+package edu.uiowa.cs.warp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import edu.uiowa.cs.warp.SystemAttributes.ScheduleChoices;
+
+/**
+ * Checks PacketSimulator on programs whose outcome is known: lossless and fully lossy links, and
+ * the reliabilities ReliabilityAnalysis computes for the same program.
+ */
+@ExtendWith(QuietOutput.class)
+class PacketSimulatorTest {
+
+  private static Program program(String input) {
+    return new Program(new WorkLoad(0.9, 0.99, input), 16, ScheduleChoices.PRIORITY);
+  }
+
+  @Test
+  void testSameSeedSameResult() {
+    var simulator = new PacketSimulator(program("StressTest4.txt"));
+    var first = simulator.simulate(500, 7L);
+    var second = simulator.simulate(500, 7L);
+    assertEquals(first.report().toString(), second.report().toString());
+    for (String flow : first.getFlowNames()) {
+      for (int k = 0; k < first.getNumInstances(flow); k++) {
+        assertEquals(first.getDeliveries(flow, k), second.getDeliveries(flow, k), flow);
+      }
+    }
+  }
+
+  @Test
+  void testReleases() {
+    var program = program("Example4.txt");
+    var workLoad = program.toWorkLoadSnapshot();
+    var numSlots = program.getSchedule().getNumRows();
+    var result = new PacketSimulator(program).simulate(1, 0L);
+    for (String flow : result.getFlowNames()) {
+      var release = workLoad.nextReleaseTime(flow, 0);
+      for (int k = 0; k < result.getNumInstances(flow); k++) {
+        assertEquals(release, result.getReleaseTime(flow, k), flow + " " + k);
+        release = workLoad.nextReleaseTime(flow, release + 1);
+      }
+      assertTrue(release >= numSlots, flow);
+    }
+  }
+
+  @Test
+  void testLosslessLinks() {
+    var simulator = new PacketSimulator(program("Example4.txt"), 1.0);
+    var result = simulator.simulate(20, 1L);
+    var again = simulator.simulate(20, 2L);
+    for (String flow : result.getFlowNames()) {
+      assertEquals(1.0, result.getReliability(flow), flow);
+      assertEquals(1.0, result.getConfidenceInterval(flow)[1], flow);
+      var histogram = result.getLatencyHistogram(flow);
+      assertEquals(0, histogram.getNumUnknown(), flow);
+      assertEquals(20 * result.getNumInstances(flow), histogram.getCount(), flow);
+      assertEquals(0, result.getDeadlineMisses(flow), flow);
+      /* with no losses every trial takes the same path, whatever the seed */
+      assertEquals(histogram.getMean(), again.getLatencyHistogram(flow).getMean(), flow);
+      assertEquals(histogram.getMax(), again.getLatencyHistogram(flow).getMax(), flow);
+    }
+  }
+
+  @Test
+  void testLossyLinks() {
+    var simulator = new PacketSimulator(program("Example4.txt"), 0.0);
+    var result = simulator.simulate(50, 3L);
+    for (String flow : result.getFlowNames()) {
+      assertEquals(0.0, result.getReliability(flow), flow);
+      assertEquals(0, result.getLatencyHistogram(flow).getCount(), flow);
+      assertEquals(50 * result.getNumInstances(flow),
+          result.getLatencyHistogram(flow).getNumUnknown(), flow);
+    }
+  }
+
+  @Test
+  void testAgreesWithReliabilityAnalysis() {
+    var program = program("Example4.txt");
+    var workLoad = program.toWorkLoadSnapshot();
+    var reliabilities = new ReliabilityAnalysis(program).getReliabilityValues();
+    var result = new PacketSimulator(program).simulate(20000, 11L);
+    var column = -1;
+    for (String flow : program.getFlowNamesInPriorityOrder()) {
+      column += workLoad.getNodesInFlow(flow).length; // the column of the flow's last node
+      for (int k = 0; k < result.getNumInstances(flow); k++) {
+        var row = Math.min(reliabilities.getNumRows() - 1,
+            result.getReleaseTime(flow, k) + workLoad.getFlowPeriod(flow) - 1);
+        assertEquals(reliabilities.getValue(row, column), result.getReliability(flow, k), 0.005,
+            flow + " " + k);
+      }
+    }
+  }
+}
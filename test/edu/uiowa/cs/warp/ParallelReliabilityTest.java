@@ -0,0 +1,63 @@
+package edu.uiowa.cs.warp;
+
+import static edu.uiowa.cs.warp.TestPrograms.INPUT_FILES;
+import static edu.uiowa.cs.warp.TestPrograms.NUM_CHANNELS;
+import static edu.uiowa.cs.warp.TestPrograms.PRIORITY_CHOICES;
+import static edu.uiowa.cs.warp.TestPrograms.forEachProgram;
+import static edu.uiowa.cs.warp.TestPrograms.generatedWorkLoad;
+import static edu.uiowa.cs.warp.TestPrograms.rowByRow;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import edu.uiowa.cs.warp.SystemAttributes.ScheduleChoices;
+
+/**
+ * Checks that computing the reliabilities one flow per fork/join task gives exactly the table
+ * computed row by row.
+ */
+@ExtendWith(QuietOutput.class)
+class ParallelReliabilityTest {
+
+  /* the first row of the table can't be built for some poset programs, so only these are used */
+  private static final String[] POSET_INPUT_FILES = {"WARP-WASHU-MIX.txt", "WARP-INDRIYA-MIX.txt"};
+  private static final ScheduleChoices[] POSET_CHOICES =
+      {ScheduleChoices.WARP_POSET_PRIORITY, ScheduleChoices.CONNECTIVITY_POSET_RM};
+
+  @TempDir
+  Path tempDir;
+
+  @Test
+  void testParallelMatchesRowByRow() {
+    forEachProgram(INPUT_FILES, PRIORITY_CHOICES, this::assertSameReliabilities);
+    forEachProgram(POSET_INPUT_FILES, POSET_CHOICES, this::assertSameReliabilities);
+  }
+
+  @Test
+  void testParallelMatchesRowByRowOnGeneratedWorkLoad() {
+    var generator = new WorkLoadGenerator(14);
+    generator.setTopology(WorkLoadGenerator.Topology.BASE_STATION);
+    generator.setNumNodes(60);
+    generator.setNumFlows(150);
+    generator.setMaxPhase(20);
+    var workLoad = generatedWorkLoad(generator, tempDir);
+    assertSameReliabilities(new Program(workLoad, NUM_CHANNELS, ScheduleChoices.PRIORITY),
+        "generated");
+  }
+
+  private void assertSameReliabilities(Program program, String message) {
+    var rowByRow = rowByRow(program);
+    var parallel = new ReliabilityAnalysis(program);
+    parallel.setParallelThreshold(0);
+    assertEquals(rowByRow.getReliabilities(), parallel.getReliabilities(), message);
+    var rollingParallel = new ReliabilityAnalysis(program);
+    rollingParallel.setParallelThreshold(0);
+    assertEquals(rowByRow.verifyReliablities(), rollingParallel.verifyReliablities(), message);
+    var values = rowByRow.getReliabilityValues();
+    assertArrayEquals(values.getRow(values.getNumRows() - 1),
+        new ReliabilityAnalysis(program).getLastReliabilityRow(), message);
+  }
+}
@@ -0,0 +1,82 @@
+package edu.uiowa.cs.warp;
+
+import static edu.uiowa.cs.warp.TestPrograms.INPUT_FILES;
+import static edu.uiowa.cs.warp.TestPrograms.NUM_CHANNELS;
+import static edu.uiowa.cs.warp.TestPrograms.PRIORITY_CHOICES;
+import static edu.uiowa.cs.warp.TestPrograms.forEachProgram;
+import static edu.uiowa.cs.warp.TestPrograms.generatedWorkLoad;
+import static edu.uiowa.cs.warp.TestPrograms.newProgram;
+import static edu.uiowa.cs.warp.TestPrograms.rowByRow;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import edu.uiowa.cs.warp.SystemAttributes.ScheduleChoices;
+
+/**
+ * Checks that the reliabilities computed once per distinct period of each flow are the same as
+ * those computed row by row, and that repeated periods share their windows.
+ */
+@ExtendWith(QuietOutput.class)
+class PeriodicReliabilityTableTest {
+
+  @TempDir
+  Path tempDir;
+
+  @Test
+  void testPeriodicMatchesRowByRow() {
+    forEachProgram(INPUT_FILES, PRIORITY_CHOICES, this::assertSameReliabilities);
+    var program = newProgram("WARP-WASHU-MIX.txt", ScheduleChoices.WARP_POSET_PRIORITY);
+    assertSameReliabilities(program, "WARP-WASHU-MIX.txt WARP_POSET_PRIORITY");
+  }
+
+  @Test
+  void testRepeatedPeriodsShareWindows() {
+    var generator = new WorkLoadGenerator(16);
+    generator.setTopology(WorkLoadGenerator.Topology.BASE_STATION);
+    generator.setNumNodes(40);
+    generator.setNumFlows(60);
+    generator.setPeriods(20, 25, 50, 100);
+    var workLoad = generatedWorkLoad(generator, tempDir);
+    var program = new Program(workLoad, NUM_CHANNELS, ScheduleChoices.PRIORITY);
+    var periodic = assertSameReliabilities(program, "generated");
+    assertTrue(periodic.getNumWindows() < periodic.getNumPeriods(),
+        periodic.getNumWindows() + " windows for " + periodic.getNumPeriods() + " periods");
+  }
+
+  @Test
+  void testWrappedTable() {
+    var table = new DenseReliabilityTable(2);
+    table.addRow(new double[] {1.0, 0.0});
+    table.addRow(new double[] {1.0, 0.9});
+    var periodic = PeriodicReliabilityTable.of(table);
+    assertEquals(2, periodic.getNumRows());
+    assertEquals(2, periodic.getNumColumns());
+    assertEquals(0.9, periodic.get(1, 1));
+    assertNull(periodic.get(2, 0));
+    assertArrayEquals(table.getRow(1), periodic.getRow(1));
+    assertEquals(table.toReliabilityTable(),
+        periodic.toDenseReliabilityTable().toReliabilityTable());
+  }
+
+  private PeriodicReliabilityTable assertSameReliabilities(Program program, String message) {
+    var rowByRow = rowByRow(program);
+    var values = rowByRow.getReliabilityValues();
+    var analysis = new ReliabilityAnalysis(program);
+    var periodic = analysis.getPeriodicReliabilities();
+    assertEquals(values.getNumRows(), periodic.getNumRows(), message);
+    assertEquals(values.getNumColumns(), periodic.getNumColumns(), message);
+    for (int row = 0; row < values.getNumRows(); row++) {
+      assertArrayEquals(values.getRow(row), periodic.getRow(row), message + " row " + row);
+    }
+    assertEquals(values.toReliabilityTable(),
+        periodic.toDenseReliabilityTable().toReliabilityTable(), message);
+    assertEquals(rowByRow.verifyReliablities(), analysis.verifyReliablities(), message);
+    return periodic;
+  }
+}
@@ -0,0 +1,158 @@
+package edu.uiowa.cs.warp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import edu.uiowa.cs.warp.SystemAttributes.ScheduleChoices;
+
+/**
+ * Checks that ProgramCache gives back the program the scheduler builds, and its keys, integrity
+ * checks and eviction.
+ */
+@ExtendWith(QuietOutput.class)
+class ProgramCacheTest {
+
+  @TempDir
+  Path tempDir;
+
+  private static WorkLoad workLoad(String input) {
+    return new WorkLoad(0.9, 0.99, input);
+  }
+
+  private static void assertSameProgram(Program expected, Program actual) {
+    assertEquals(expected.getSchedulerName(), actual.getSchedulerName());
+    assertEquals(expected.getFlowNamesInPriorityOrder(), actual.getFlowNamesInPriorityOrder());
+    assertEquals(expected.deadlineMisses(), actual.deadlineMisses());
+    var schedule = expected.getSchedule();
+    assertEquals(schedule.getNumRows(), actual.getSchedule().getNumRows());
+    for (int slot = 0; slot < schedule.getNumRows(); slot++) {
+      assertEquals(schedule.get(slot), actual.getSchedule().get(slot), "slot " + slot);
+    }
+  }
+
+  @Test
+  void testHit() {
+    var cache = new ProgramCache(tempDir.toString());
+    for (String input : new String[] {"StressTest4.txt", "StressTest.txt", "Example1a.txt"}) {
+      for (ScheduleChoices choice : new ScheduleChoices[] {ScheduleChoices.PRIORITY,
+          ScheduleChoices.RM, ScheduleChoices.DM, ScheduleChoices.RTHART}) {
+        var built = new Program(workLoad(input), 16, choice);
+        assertSameProgram(built, cache.getProgram(workLoad(input), 16, choice));
+        assertSameProgram(built, cache.getProgram(workLoad(input), 16, choice));
+      }
+    }
+    assertEquals(12, cache.getNumMisses());
+    assertEquals(12, cache.getNumHits());
+  }
+
+  @Test
+  void testKeyHasAllParameters() {
+    var cache = new ProgramCache(tempDir.toString());
+    var entry = cache.getEntry(workLoad("Example4.txt"), 16, ScheduleChoices.PRIORITY);
+    assertEquals(entry, cache.getEntry(workLoad("Example4.txt"), 16, ScheduleChoices.PRIORITY));
+    assertNotEquals(entry, cache.getEntry(workLoad("Example4.txt"), 8, ScheduleChoices.PRIORITY));
+    assertNotEquals(entry, cache.getEntry(workLoad("Example4.txt"), 16, ScheduleChoices.RM));
+    assertNotEquals(entry, cache.getEntry(workLoad("Example4b.txt"), 16,
+        ScheduleChoices.PRIORITY));
+    assertNotEquals(entry, cache.getEntry(new WorkLoad(0.8, 0.99, "Example4.txt"), 16,
+        ScheduleChoices.PRIORITY));
+    assertNotEquals(entry, cache.getEntry(new WorkLoad(1, 0.9, 0.99, "Example4.txt"), 16,
+        ScheduleChoices.PRIORITY));
+    var changed = workLoad("Example4.txt");
+    changed.setFlowPeriod("F0", 40);
+    assertNotEquals(entry, cache.getEntry(changed, 16, ScheduleChoices.PRIORITY));
+  }
+
+  @Test
+  void testDamagedEntryIsRebuilt() throws IOException {
+    var errors = new ByteArrayOutputStream();
+    System.setErr(new PrintStream(errors));
+    var cache = new ProgramCache(tempDir.toString());
+    var built = cache.getProgram(workLoad("StressTest4.txt"), 16, ScheduleChoices.PRIORITY);
+    var entry = cache.getEntry(workLoad("StressTest4.txt"), 16, ScheduleChoices.PRIORITY);
+    var bytes = Files.readAllBytes(entry);
+    bytes[bytes.length / 2] ^= 1;
+    Files.write(entry, bytes);
+
+    var rebuilt = cache.getProgram(workLoad("StressTest4.txt"), 16, ScheduleChoices.PRIORITY);
+    assertSameProgram(built, rebuilt);
+    assertEquals(2, cache.getNumMisses());
+    assertTrue(errors.toString().contains("checksum"), errors.toString());
+    assertTrue(Files.isRegularFile(entry)); // written again
+
+    Files.write(entry, new byte[] {1, 2, 3});
+    assertSameProgram(built,
+        cache.getProgram(workLoad("StressTest4.txt"), 16, ScheduleChoices.PRIORITY));
+    assertEquals(3, cache.getNumMisses());
+    assertEquals(0, cache.getNumHits());
+  }
+
+  @Test
+  void testLeastRecentlyUsedEvicted() throws IOException {
+    var other = new ProgramCache(tempDir.resolve("other").toString());
+    other.getProgram(workLoad("Example4.txt"), 16, ScheduleChoices.DM);
+    var sizeC = Files.size(other.getEntry(workLoad("Example4.txt"), 16, ScheduleChoices.DM));
+
+    var directory = tempDir.resolve("cache").toString();
+    var cache = new ProgramCache(directory);
+    cache.getProgram(workLoad("Example4.txt"), 16, ScheduleChoices.PRIORITY);
+    cache.getProgram(workLoad("Example4.txt"), 16, ScheduleChoices.RM);
+    var a = cache.getEntry(workLoad("Example4.txt"), 16, ScheduleChoices.PRIORITY);
+    var b = cache.getEntry(workLoad("Example4.txt"), 16, ScheduleChoices.RM);
+    Files.setLastModifiedTime(a, FileTime.fromMillis(1000));
+    Files.setLastModifiedTime(b, FileTime.fromMillis(2000));
+    cache.getProgram(workLoad("Example4.txt"), 16, ScheduleChoices.PRIORITY); // uses a again
+    assertEquals(1, cache.getNumHits());
+
+    var small = new ProgramCache(directory, Files.size(a) + sizeC);
+    small.getProgram(workLoad("Example4.txt"), 16, ScheduleChoices.DM);
+    assertTrue(Files.isRegularFile(a));
+    assertFalse(Files.exists(b));
+    assertTrue(Files.isRegularFile(small.getEntry(workLoad("Example4.txt"), 16,
+        ScheduleChoices.DM)));
+  }
+
+  @Test
+  void testStaleTemporaryFilesDeleted() throws IOException {
+    var cache = new ProgramCache(tempDir.toString());
+    var entry = cache.getEntry(workLoad("Example4.txt"), 16, ScheduleChoices.PRIORITY);
+    var stale = tempDir.resolve(entry.getFileName() + "1234.tmp");
+    var writing = tempDir.resolve(entry.getFileName() + "5678.tmp");
+    Files.write(stale, new byte[] {1, 2, 3});
+    Files.write(writing, new byte[] {4, 5, 6});
+    Files.setLastModifiedTime(stale, FileTime.fromMillis(
+        System.currentTimeMillis() - ProgramCache.TEMPORARY_LIFETIME_MILLIS - 1000));
+    var other = tempDir.resolve("notes.tmp");
+    Files.write(other, new byte[] {7});
+    Files.setLastModifiedTime(other, FileTime.fromMillis(1000));
+
+    cache.getProgram(workLoad("Example4.txt"), 16, ScheduleChoices.PRIORITY);
+    assertFalse(Files.exists(stale));
+    assertTrue(Files.isRegularFile(writing)); // another run may still rename it
+    assertTrue(Files.isRegularFile(other)); // not the cache's
+    assertTrue(Files.isRegularFile(entry));
+  }
+
+  @Test
+  void testPosetNotCached() throws IOException {
+    var cache = new ProgramCache(tempDir.toString());
+    var program = cache.getProgram(workLoad("Example4.txt"), 16, ScheduleChoices.POSET_PRIORITY);
+    assertNotNull(program.getPosetSchedule());
+    try (var files = Files.list(tempDir)) {
+      assertEquals(0, files.count());
+    }
+    assertEquals(0, cache.getNumMisses() + cache.getNumHits());
+  }
+}
@@ -0,0 +1,234 @@
+package edu.uiowa.cs.warp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import edu.uiowa.cs.warp.SystemAttributes.ScheduleChoices;
+
+/**
+ * Checks that adding, removing and changing flows on an existing Program gives the same schedule
+ * as building a new Program for the changed workload, and that the returned diff describes the
+ * change.
+ */
+class ProgramTest {
+
+  private static final String INPUT_FILE = "StressTest4.txt";
+  private static final Double MIN_LQ = 0.9;
+  private static final Double E2E = 0.99;
+  private static final Integer NUM_CHANNELS = 16;
+
+  @Test
+  void testRemoveFlowReschedulesOnlyLowerPriorityFlows() {
+    var program = newProgram(ScheduleChoices.PRIORITY);
+    var diff = program.removeFlow("F6");
+    var expected = new WorkLoad(MIN_LQ, E2E, INPUT_FILE);
+    expected.removeFlow("F6");
+    assertSameSchedule(expected, ScheduleChoices.PRIORITY, program);
+    assertEquals(5, diff.getFirstFlowRescheduled()); // F1..F5 have higher priority than F6
+    assertEquals(4, diff.getFlowsRescheduled());
+    assertDiffMatches(diff, program);
+  }
+
+  @Test
+  void testAddFlow() {
+    var program = newProgram(ScheduleChoices.PRIORITY);
+    var nodes = new String[] {"B", "C", "D"};
+    var diff = program.addFlow("F11", nodes, 4, 100, 100, 0);
+    var expected = new WorkLoad(MIN_LQ, E2E, INPUT_FILE);
+    addFlow(expected, "F11", nodes, 4, 100, 100, 0);
+    assertSameSchedule(expected, ScheduleChoices.PRIORITY, program);
+    assertEquals(4, diff.getFirstFlowRescheduled()); // after F1..F4 and before F5
+    assertFalse(diff.isEmpty());
+    assertDiffMatches(diff, program);
+  }
+
+  @Test
+  void testAddFlowWithNewNodesStartsOver() {
+    var program = newProgram(ScheduleChoices.PRIORITY);
+    var nodes = new String[] {"L", "M"};
+    var diff = program.addFlow("F11", nodes, null, null, null, null);
+    var expected = new WorkLoad(MIN_LQ, E2E, INPUT_FILE);
+    addFlow(expected, "F11", nodes, null, null, null, null);
+    assertSameSchedule(expected, ScheduleChoices.PRIORITY, program);
+    assertEquals(0, diff.getFirstFlowRescheduled());
+    assertDiffMatches(diff, program);
+  }
+
+  @Test
+  void testChangeDeadline() {
+    var program = newProgram(ScheduleChoices.PRIORITY);
+    var diff = program.changeFlow("F8", null, 90);
+    var expected = new WorkLoad(MIN_LQ, E2E, INPUT_FILE);
+    expected.setFlowDeadline("F8", 90);
+    assertSameSchedule(expected, ScheduleChoices.PRIORITY, program);
+    assertEquals(7, diff.getFirstFlowRescheduled());
+    assertTrue(diff.isEmpty()); // F8's slots don't depend on its deadline
+  }
+
+  @Test
+  void testChangePeriodReordersRateMonotonicFlows() {
+    var program = newProgram(ScheduleChoices.RM);
+    var diff = program.changeFlow("F9", 50, 50);
+    var expected = new WorkLoad(MIN_LQ, E2E, INPUT_FILE);
+    expected.setFlowPeriod("F9", 50);
+    expected.setFlowDeadline("F9", 50);
+    assertSameSchedule(expected, ScheduleChoices.RM, program);
+    assertTrue(diff.getFirstFlowRescheduled() > 0);
+    assertDiffMatches(diff, program);
+  }
+
+  @Test
+  void testChangeHyperPeriodStartsOver() {
+    var program = newProgram(ScheduleChoices.PRIORITY);
+    var diff = program.changeFlow("F1", 25, 25);
+    var expected = new WorkLoad(MIN_LQ, E2E, INPUT_FILE);
+    expected.setFlowPeriod("F1", 25);
+    expected.setFlowDeadline("F1", 25);
+    assertSameSchedule(expected, ScheduleChoices.PRIORITY, program);
+    assertEquals(0, diff.getFirstFlowRescheduled());
+    assertDiffMatches(diff, program);
+  }
+
+  @Test
+  void testSequenceOfChanges() {
+    var program = newProgram(ScheduleChoices.PRIORITY);
+    var nodes = new String[] {"A", "B", "C"};
+    program.addFlow("F11", nodes, 11, 100, 100, 0);
+    program.removeFlow("F3");
+    program.changeFlow("F10", 50, 50);
+    var expected = new WorkLoad(MIN_LQ, E2E, INPUT_FILE);
+    addFlow(expected, "F11", nodes, 11, 100, 100, 0);
+    expected.removeFlow("F3");
+    expected.setFlowPeriod("F10", 50);
+    expected.setFlowDeadline("F10", 50);
+    assertSameSchedule(expected, ScheduleChoices.PRIORITY, program);
+  }
+
+  @Test
+  void testPosetSchedulersRebuildTheWholeProgram() {
+    var program = newProgram(ScheduleChoices.WARP_POSET_PRIORITY);
+    assertFalse(program.supportsIncrementalUpdates());
+    var diff = program.removeFlow("F10");
+    assertEquals(0, diff.getFirstFlowRescheduled());
+    assertEquals(9, diff.getFlowsRescheduled());
+    assertDiffMatches(diff, program);
+  }
+
+  @Test
+  void testCheckpointsKeptOnlyOnceTheWorkLoadChanges() {
+    var program = newProgram(ScheduleChoices.PRIORITY);
+    assertTrue(program.supportsIncrementalUpdates());
+    assertEquals(0, program.getNumCheckpoints());
+    program.removeFlow("F99"); // unknown, so nothing changes
+    assertEquals(0, program.getNumCheckpoints());
+    program.removeFlow("F6");
+    assertEquals(10, program.getNumCheckpoints()); // one before each of the 9 flows, one after
+  }
+
+  @Test
+  void testUnknownFlowIsNotChanged() {
+    var program = newProgram(ScheduleChoices.PRIORITY);
+    assertTrue(program.removeFlow("F99").isEmpty());
+    assertTrue(program.changeFlow("F99", 10, 10).isEmpty());
+  }
+
+  @Test
+  void testProgramsBuiltConcurrentlyFromOneWorkLoad() {
+    var workLoad = new WorkLoad(MIN_LQ, E2E, INPUT_FILE);
+    var priorityOrder = new ArrayList<String>(workLoad.getFlowNamesInPriorityOrder());
+    var choices = List.of(ScheduleChoices.PRIORITY, ScheduleChoices.RM, ScheduleChoices.DM,
+        ScheduleChoices.RTHART);
+    var programs = choices.parallelStream()
+        .map((choice) -> new Program(workLoad, NUM_CHANNELS, choice)).collect(Collectors.toList());
+    for (int i = 0; i < choices.size(); i++) {
+      assertSameSchedule(new WorkLoad(MIN_LQ, E2E, INPUT_FILE), choices.get(i), programs.get(i));
+    }
+    assertEquals(priorityOrder, workLoad.getFlowNamesInPriorityOrder()); // not reordered
+  }
+
+  @Test
+  void testPosetProgramsBuiltAgainFromOneWorkLoad() {
+    for (ScheduleChoices choice : List.of(ScheduleChoices.WARP_POSET_PRIORITY,
+        ScheduleChoices.POSET_PRIORITY)) {
+      var workLoad = new WorkLoad(MIN_LQ, E2E, "Example4.txt");
+      var first = new Program(workLoad, NUM_CHANNELS, choice);
+      var second = new Program(workLoad, NUM_CHANNELS, choice);
+      assertEquals(first.getSchedule(), second.getSchedule(), choice.toString());
+    }
+  }
+
+  @Test
+  void testChangesDoNotReachTheWorkLoadOrOtherPrograms() {
+    var workLoad = new WorkLoad(MIN_LQ, E2E, INPUT_FILE);
+    var changed = new Program(workLoad, NUM_CHANNELS, ScheduleChoices.PRIORITY);
+    var other = new Program(workLoad, NUM_CHANNELS, ScheduleChoices.PRIORITY);
+    var nodes = new String[] {"B", "C", "D"};
+    changed.addFlow("F11", nodes, 4, 100, 100, 0);
+    changed.removeFlow("F6");
+    changed.changeFlow("F10", 50, 50);
+    assertTrue(changed.toWorkLoad().getFlows().containsKey("F11"));
+    assertFalse(changed.toWorkLoad().getFlows().containsKey("F6"));
+    assertFalse(workLoad.getFlows().containsKey("F11"));
+    assertTrue(workLoad.getFlows().containsKey("F6"));
+    assertEquals(workLoad, other.toWorkLoad());
+    assertSameSchedule(new WorkLoad(MIN_LQ, E2E, INPUT_FILE), ScheduleChoices.PRIORITY, other);
+    var expected = new WorkLoad(MIN_LQ, E2E, INPUT_FILE);
+    addFlow(expected, "F11", nodes, 4, 100, 100, 0);
+    expected.removeFlow("F6");
+    expected.setFlowPeriod("F10", 50);
+    expected.setFlowDeadline("F10", 50);
+    assertSameSchedule(expected, ScheduleChoices.PRIORITY, changed);
+  }
+
+  private Program newProgram(ScheduleChoices choice) {
+    return new Program(new WorkLoad(MIN_LQ, E2E, INPUT_FILE), NUM_CHANNELS, choice);
+  }
+
+  /* makes the same workload change that Program.addFlow makes */
+  private void addFlow(WorkLoad workLoad, String flowName, String[] nodes, Integer priority,
+      Integer period, Integer deadline, Integer phase) {
+    workLoad.addFlow(flowName);
+    if (priority != null) {
+      workLoad.setFlowPriority(flowName, priority);
+    }
+    if (period != null) {
+      workLoad.setFlowPeriod(flowName, period);
+    }
+    if (deadline != null) {
+      workLoad.setFlowDeadline(flowName, deadline);
+    }
+    if (phase != null) {
+      workLoad.setFlowPhase(flowName, phase);
+    }
+    for (String node : nodes) {
+      workLoad.addNodeToFlow(flowName, node);
+    }
+    workLoad.finalizeCurrentFlow(flowName);
+  }
+
+  private void assertSameSchedule(WorkLoad workLoad, ScheduleChoices choice, Program program) {
+    var expected = new Program(workLoad, NUM_CHANNELS, choice);
+    assertEquals(expected.getSchedule(), program.getSchedule());
+    assertEquals(expected.deadlineMisses(), program.deadlineMisses());
+  }
+
+  /* every changed cell holds the new instruction and no cell is reported twice */
+  private void assertDiffMatches(ProgramScheduleDiff diff, Program program) {
+    var schedule = program.getSchedule();
+    var nodes = Arrays.asList(program.toWorkLoad().getNodeNamesOrderedAlphabetically());
+    var changed = new ArrayList<String>();
+    for (ProgramScheduleDiff.CellChange change : diff.getChanges()) {
+      var column = nodes.indexOf(change.getNode());
+      assertEquals(change.getAfter(), schedule.get(change.getTimeSlot(), column));
+      changed.add(change.getTimeSlot() + ":" + change.getNode());
+    }
+    assertEquals(diff.getLengthAfter(), schedule.size());
+    assertEquals(changed.size(), changed.stream().distinct().count());
+  }
+}
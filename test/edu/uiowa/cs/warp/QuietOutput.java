@@ -0,0 +1,35 @@
+package edu.uiowa.cs.warp;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+/**
+ * Discards System.out while each test runs, for tests that build a Program, since the schedulers
+ * print as they work. System.out and System.err are both put back after the test, so a test may
+ * also point System.err at a stream of its own to check or hide what gets reported there.
+ * <p>
+ * Use with {@code @ExtendWith(QuietOutput.class)} on the test class.
+ */
+class QuietOutput implements BeforeEachCallback, AfterEachCallback {
+
+  private static final ExtensionContext.Namespace NAMESPACE =
+      ExtensionContext.Namespace.create(QuietOutput.class);
+
+  @Override
+  public void beforeEach(ExtensionContext context) {
+    var store = context.getStore(NAMESPACE);
+    store.put("out", System.out);
+    store.put("err", System.err);
+    System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+  }
+
+  @Override
+  public void afterEach(ExtensionContext context) {
+    var store = context.getStore(NAMESPACE);
+    System.setOut(store.get("out", PrintStream.class));
+    System.setErr(store.get("err", PrintStream.class));
+  }
+}
@@ -130,6 +130,26 @@ class ReliabilityAnalysisTest {
 		assertFalse(ra.verifyReliablities());
 	}
 	
+	/**
+	 * Test for the verifyReliabilities method. Checks that a program is analyzed with the flows it was scheduled with, after 
+	 * another program built from the same WorkLoad removes a flow and after the WorkLoad itself changes.
+	 */
+	@Test
+	@Timeout(value = TIMEOUT_IN_MILLISECONDS, unit = TimeUnit.MILLISECONDS)
+	void testVerifyReliabilitiesAfterTheWorkLoadChanges() {
+	
+		workLoad = new WorkLoad(MIN_LQ, E2E, "Example.txt");
+		var programA = new Program(workLoad, nChannels, ScheduleChoices.PRIORITY);
+		var programB = new Program(workLoad, nChannels, ScheduleChoices.PRIORITY);
+		programA.removeFlow("F0");
+		assertTrue(new ReliabilityAnalysis(programB).verifyReliablities());
+		
+		workLoad.removeFlow("F0");
+		ra = new ReliabilityAnalysis(programB);
+		assertTrue(ra.verifyReliablities());
+		assertEquals(Arrays.asList("F0:A", "F0:B", "F0:C", "F1:C", "F1:B", "F1:A"), ra.createHeaderRow());
+	}
+	
 	/**
 	 * Test for the createHeaderRow method that ensures the method creates the appropriate header row for Example4.txt.
 	 */
@@ -294,7 +314,7 @@ class ReliabilityAnalysisTest {
 
 
 		
-		Table<String,InstructionTimeSlot> scheduleTable = program.getSchedule();
+		Table<Instruction,InstructionTimeSlot> scheduleTable = program.getSchedule();
 		//System.out.println(scheduleTable);
 		ReliabilityRow firstRow = new ReliabilityRow();
 
@@ -303,7 +323,7 @@ class ReliabilityAnalysisTest {
 		for(int row = 0; row < scheduleTable.getNumRows(); row++) {
 			
 			for(int col = 0; col < scheduleTable.getNumColumns(); col++) {
-				String instruction = scheduleTable.get(row,col);
+				String instruction = scheduleTable.get(row,col).toString();
 				
 				System.out.println(instruction);
 				InstructionParameters instructionObject;
@@ -348,7 +368,7 @@ class ReliabilityAnalysisTest {
 		
 		HashMap<String,Integer> headerRowHashMap = ra.createHeaderRowHashMap(headerRow);
 		
-		Table<String,InstructionTimeSlot> scheduleTable = program.getSchedule();
+		Table<Instruction,InstructionTimeSlot> scheduleTable = program.getSchedule();
 
 		ReliabilityRow expectedFirstRow = new ReliabilityRow();
 		expectedFirstRow.add(1.0);
@@ -1136,5 +1156,52 @@ class ReliabilityAnalysisTest {
 	
 
 	
+	/**
+	 * Test for numTxPerLinkAndTotalTxCost. Checks that flows of the same length get the same transmissions, that different 
+	 * parameters are not mixed up in the cache, and that changing a returned list does not change later results.
+	 */
+	@Test
+	@Timeout(value = TIMEOUT_IN_MILLISECONDS, unit = TimeUnit.MILLISECONDS)
+	void testNumTxPerLinkAndTotalTxCostIsCached() {
+		var expected = new ArrayList<Integer>(Arrays.asList(3, 4, 3, 0, 5));
+		var txCost = new ReliabilityAnalysis(E2E, MIN_LQ).numTxPerLinkAndTotalTxCost(4);
+		assertEquals(expected, txCost);
+		txCost.set(0, 42);
+		assertEquals(expected, new ReliabilityAnalysis(E2E, MIN_LQ).numTxPerLinkAndTotalTxCost(4));
+		assertEquals(new ArrayList<Integer>(Arrays.asList(4, 5, 5, 0, 7)),
+				new ReliabilityAnalysis(E2E, 0.8).numTxPerLinkAndTotalTxCost(4));
+		assertEquals(new ArrayList<Integer>(Arrays.asList(2, 2, 2, 2, 6)),
+				new ReliabilityAnalysis(1).numTxPerLinkAndTotalTxCost(4));
+		/* F0 of Example4.txt has 4 nodes */
+		var flow = workLoad.getFlows().get("F0");
+		assertEquals(expected, ra.numTxPerLinkAndTotalTxCost(flow));
+		assertEquals(expected, flow.getLinkTxAndTotalCost());
+	}
+	
+	/**
+	 * Test for precomputeTxPerLinkAndTotalTxCost. Checks that precomputed lengths give exactly the results computed without 
+	 * the cache, for both models and several reliability parameters and fault counts, precomputed one after another so that 
+	 * any parameter missing from the cache key would hand one analysis the results of another.
+	 */
+	@Test
+	@Timeout(value = TIMEOUT_IN_MILLISECONDS, unit = TimeUnit.MILLISECONDS)
+	void testPrecomputeTxPerLinkAndTotalTxCost() {
+		var maxNodesInFlow = 8;
+		var analyses = new ReliabilityAnalysis[] {new ReliabilityAnalysis(0.999, 0.7), 
+				new ReliabilityAnalysis(0.999, 0.8), new ReliabilityAnalysis(0.99, 0.7), 
+				new ReliabilityAnalysis(E2E, MIN_LQ), new ReliabilityAnalysis(1), new ReliabilityAnalysis(2), 
+				new ReliabilityAnalysis(3)};
+		for (ReliabilityAnalysis analysis : analyses) {
+			analysis.precomputeTxPerLinkAndTotalTxCost(maxNodesInFlow);
+		}
+		for (ReliabilityAnalysis analysis : analyses) {
+			for (int nNodesInFlow = 2; nNodesInFlow <= maxNodesInFlow; nNodesInFlow++) {
+				assertEquals(analysis.computeTxPerLinkAndTotalTxCost(nNodesInFlow), 
+						analysis.numTxPerLinkAndTotalTxCost(nNodesInFlow), nNodesInFlow + " nodes");
+			}
+		}
+		assertEquals(new ArrayList<Integer>(Arrays.asList(6, 0, 6)), analyses[0].numTxPerLinkAndTotalTxCost(2));
+		assertEquals(new ArrayList<Integer>(Arrays.asList(3, 3, 3, 6)), analyses[5].numTxPerLinkAndTotalTxCost(3));
+	}
+
 }
-	
\ No newline at end of file
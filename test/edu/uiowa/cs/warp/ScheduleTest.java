@@ -0,0 +1,53 @@
+package edu.uiowa.cs.warp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.extension.ExtendWith;
+import edu.uiowa.cs.warp.SystemAttributes.ScheduleChoices;
+
+/**
+ * Checks that the poset schedulers can search long hyperperiods for a free time and channel.
+ * <p>
+ * DeepSearch.txt has a 30000 slot hyperperiod in which F0 keeps the only channel busy, so the
+ * search for a time to run F1 walks the whole schedule one slot at a time. When that search
+ * recursed once per slot it overflowed the stack. LongSearch.txt is the same workload with a
+ * 100002 slot hyperperiod, which ran out of heap while every schedule entry copied the end times
+ * of all earlier instances of F0.
+ */
+@ExtendWith(QuietOutput.class)
+class ScheduleTest {
+
+  private static final String INPUT_FILE = "DeepSearch.txt";
+  private static final String LONG_INPUT_FILE = "LongSearch.txt";
+  private static final Double MIN_LQ = 0.9;
+  private static final Double E2E = 0.99;
+  private static final long TIMEOUT_IN_MILLISECONDS = 20000;
+
+  @Test
+  @Timeout(value = TIMEOUT_IN_MILLISECONDS, unit = TimeUnit.MILLISECONDS)
+  void testLongSearchOnOneChannel() {
+    var workLoad = new WorkLoad(MIN_LQ, E2E, INPUT_FILE);
+    var program = new Program(workLoad, 1, ScheduleChoices.POSET_PRIORITY);
+    assertEquals(workLoad.getHyperPeriod(), program.getSchedule().size());
+  }
+
+  @Test
+  @Timeout(value = TIMEOUT_IN_MILLISECONDS, unit = TimeUnit.MILLISECONDS)
+  void testLongSearchWarpPoset() {
+    var workLoad = new WorkLoad(MIN_LQ, E2E, INPUT_FILE);
+    var program = new Program(workLoad, 1, ScheduleChoices.WARP_POSET_PRIORITY);
+    assertEquals(workLoad.getHyperPeriod(), program.getSchedule().size());
+  }
+
+  @Test
+  @Timeout(value = TIMEOUT_IN_MILLISECONDS, unit = TimeUnit.MILLISECONDS)
+  void testHyperPeriodOverOneHundredThousandSlots() {
+    var workLoad = new WorkLoad(MIN_LQ, E2E, LONG_INPUT_FILE);
+    assertEquals(100002, workLoad.getHyperPeriod());
+    var program = new Program(workLoad, 1, ScheduleChoices.POSET_PRIORITY);
+    assertEquals(workLoad.getHyperPeriod(), program.getSchedule().size());
+  }
+}
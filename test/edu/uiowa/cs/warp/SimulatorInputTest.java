@@ -0,0 +1,90 @@
+package edu.uiowa.cs.warp;
+
+import static edu.uiowa.cs.warp.TestPrograms.E2E;
+import static edu.uiowa.cs.warp.TestPrograms.MIN_LQ;
+import static edu.uiowa.cs.warp.TestPrograms.NUM_CHANNELS;
+import static edu.uiowa.cs.warp.TestPrograms.forEachProgram;
+import static edu.uiowa.cs.warp.TestPrograms.newProgram;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.Token;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import edu.uiowa.cs.warp.SystemAttributes.ScheduleChoices;
+import edu.uiowa.cs.warpdsls.SimFileLexer;
+import edu.uiowa.cs.warpdsls.SimFileParser;
+
+/**
+ * Checks the simulator input written for a few programs, and that it parses with the SimFile
+ * grammar.
+ */
+@ExtendWith(QuietOutput.class)
+class SimulatorInputTest {
+
+  private static final String[] INPUT_FILES = {"StressTest4.txt", "Example1a.txt"};
+  private static final ScheduleChoices[] CHOICES =
+      {ScheduleChoices.PRIORITY, ScheduleChoices.POSET_PRIORITY};
+  private static final long TIMEOUT_IN_MILLISECONDS = 10000;
+
+  @TempDir
+  Path tempDir;
+
+  private static String simulatorInput(Program program) throws IOException {
+    var content = new ByteArrayOutputStream();
+    new SimulatorInput(program).write(Channels.newChannel(content));
+    return content.toString(StandardCharsets.US_ASCII);
+  }
+
+  @Test
+  @Timeout(value = TIMEOUT_IN_MILLISECONDS, unit = TimeUnit.MILLISECONDS)
+  void testExample4() throws IOException {
+    var lines =
+        simulatorInput(newProgram("Example4.txt", ScheduleChoices.PRIORITY)).split("\n");
+    assertEquals(20, lines.length);
+    /* A, B, C and D are nodes 0 to 3; F0 is flow 0 and F1 flow 1 */
+    assertEquals("#CHANNEL 1# #NCP (0,1)# #*0 @0.0#", lines[0]);
+    assertEquals("#CHANNEL 2# #NCP (1,2),(0,1)# #*1 @0.0#", lines[1]);
+    assertEquals("#CHANNEL 1# #NCP (2,3)# #*2 @0.0# | #CHANNEL 3# #NCP (1,2),(0,1)# #*1 @0.0#",
+        lines[2]);
+    assertEquals("#CHANNEL 7# #NCP (2,1)# #*2 @1.0#", lines[6]);
+    assertEquals("#CHANNEL 4# #NCP (0,1)# #*0 @0.1#", lines[10]); // F0's second release
+    assertEquals("##", lines[19]);
+  }
+
+  @Test
+  @Timeout(value = TIMEOUT_IN_MILLISECONDS, unit = TimeUnit.MILLISECONDS)
+  void testParses() throws IOException {
+    forEachProgram(INPUT_FILES, CHOICES, (program, message) -> {
+      var parser = new SimFileParser(new CommonTokenStream(
+          new SimFileLexer(CharStreams.fromString(simulatorInput(program)))));
+      parser.removeErrorListeners();
+      parser.line();
+      assertEquals(0, parser.getNumberOfSyntaxErrors(), message);
+      /* line has no EOF, so it stops without an error after the last entry it can parse */
+      assertEquals(Token.EOF, parser.getCurrentToken().getType(), message);
+    });
+  }
+
+  @Test
+  @Timeout(value = TIMEOUT_IN_MILLISECONDS, unit = TimeUnit.MILLISECONDS)
+  void testToFile() throws IOException {
+    var warp = SystemFactory.create(new WorkLoad(MIN_LQ, E2E, "StressTest4.txt"), NUM_CHANNELS,
+        ScheduleChoices.PRIORITY);
+    var file = tempDir.resolve("StressTest4SimInput.txt");
+    warp.toSimulator().toFile(file.toString());
+    var written = Files.readString(file, StandardCharsets.US_ASCII);
+    assertEquals(simulatorInput(warp.toProgram()), written);
+    assertEquals(warp.toProgram().getSchedule().getNumRows(), written.split("\n").length);
+  }
+}
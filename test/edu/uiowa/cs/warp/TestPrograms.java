@@ -0,0 +1,80 @@
+package edu.uiowa.cs.warp;
+
+import java.nio.file.Path;
+import edu.uiowa.cs.warp.SystemAttributes.ScheduleChoices;
+
+/**
+ * Builds the programs that tests check over several input files and scheduler choices, with the
+ * default M and E2E given in Warp.java.
+ */
+final class TestPrograms {
+
+  static final Double MIN_LQ = 0.9;
+  static final Double E2E = 0.99;
+  static final Integer NUM_CHANNELS = 16;
+  static final Integer NO_FAULTS = 0;
+  /* from the smallest example to the two testbed mixes */
+  static final String[] INPUT_FILES =
+      {"Example4.txt", "StressTest4.txt", "WARP-WASHU-MIX.txt", "WARP-INDRIYA-MIX.txt"};
+  static final ScheduleChoices[] PRIORITY_CHOICES =
+      {ScheduleChoices.PRIORITY, ScheduleChoices.DM, ScheduleChoices.RTHART};
+
+  /**
+   * A check made on each program; message names the input file and choice it was built from.
+   *
+   * @param <E> the exception the check may throw
+   */
+  @FunctionalInterface
+  interface ProgramCheck<E extends Exception> {
+    void check(Program program, String message) throws E;
+  }
+
+  private TestPrograms() {}
+
+  static Program newProgram(String input, ScheduleChoices choice) {
+    return newProgram(NO_FAULTS, input, NUM_CHANNELS, choice);
+  }
+
+  static Program newProgram(Integer numFaults, String input, Integer numChannels,
+      ScheduleChoices choice) {
+    return new Program(new WorkLoad(numFaults, MIN_LQ, E2E, input), numChannels, choice);
+  }
+
+  /**
+   * Builds a program for every input file and choice, and checks it.
+   */
+  static <E extends Exception> void forEachProgram(String[] inputs, ScheduleChoices[] choices,
+      ProgramCheck<E> check) throws E {
+    forEachProgram(NO_FAULTS, NUM_CHANNELS, inputs, choices, check);
+  }
+
+  /**
+   * Builds a program tolerating numFaults faults on numChannels channels for every input file and
+   * choice, and checks it.
+   */
+  static <E extends Exception> void forEachProgram(Integer numFaults, Integer numChannels,
+      String[] inputs, ScheduleChoices[] choices, ProgramCheck<E> check) throws E {
+    for (String input : inputs) {
+      for (ScheduleChoices choice : choices) {
+        check.check(newProgram(numFaults, input, numChannels, choice), input + " " + choice);
+      }
+    }
+  }
+
+  /**
+   * @return the workload generator writes to an input file in dir
+   */
+  static WorkLoad generatedWorkLoad(WorkLoadGenerator generator, Path dir) {
+    return generator.toWorkLoad(MIN_LQ, E2E, dir.resolve("g.txt").toString());
+  }
+
+  /**
+   * @return an analysis of program that computes its reliabilities row by row, the reference the
+   *         other ways of computing them are checked against
+   */
+  static ReliabilityAnalysis rowByRow(Program program) {
+    var analysis = new ReliabilityAnalysis(program);
+    analysis.setParallelThreshold(Integer.MAX_VALUE);
+    return analysis;
+  }
+}
@@ -0,0 +1,71 @@
+package edu.uiowa.cs.warp;
+
+import static edu.uiowa.cs.warp.TestPrograms.NUM_CHANNELS;
+import static edu.uiowa.cs.warp.TestPrograms.forEachProgram;
+import static edu.uiowa.cs.warp.TestPrograms.newProgram;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.extension.ExtendWith;
+import edu.uiowa.cs.warp.SystemAttributes.ScheduleChoices;
+
+/**
+ * Checks that the slots indexed for each link are the slots in which LatencyAnalysis.numMatchingTx
+ * counts a Tx in the link's src or snk cell, each listed as often as it is counted.
+ */
+@ExtendWith(QuietOutput.class)
+class TransmissionIndexTest {
+
+  private static final String[] INPUT_FILES = {"Example4.txt", "StressTest4.txt"};
+  private static final Integer[] NUM_FAULTS = {0, 1};
+  private static final ScheduleChoices[] CHOICES =
+      {ScheduleChoices.PRIORITY, ScheduleChoices.WARP_POSET_PRIORITY};
+  private static final long TIMEOUT_IN_MILLISECONDS = 10000;
+
+  @Test
+  @Timeout(value = TIMEOUT_IN_MILLISECONDS, unit = TimeUnit.MILLISECONDS)
+  void testSlotsMatchNumMatchingTx() {
+    for (Integer numFaults : NUM_FAULTS) {
+      forEachProgram(numFaults, NUM_CHANNELS, INPUT_FILES, CHOICES,
+          (program, message) -> assertSameSlots(program, message + " " + numFaults));
+    }
+  }
+
+  @Test
+  @Timeout(value = TIMEOUT_IN_MILLISECONDS, unit = TimeUnit.MILLISECONDS)
+  void testUnknownLink() {
+    var program = newProgram("Example4.txt", ScheduleChoices.PRIORITY);
+    var index = new TransmissionIndex(program.getSchedule(), program.getNodeMapIndex());
+    assertEquals(0, index.getSlots("F0", "D", "A").length);
+    assertEquals(0, index.getSlots("F9", "A", "B").length);
+  }
+
+  private void assertSameSlots(Program program, String message) {
+    var schedule = program.getSchedule();
+    var nodeIndex = program.getNodeMapIndex();
+    var index = new TransmissionIndex(schedule, nodeIndex);
+    var latency = new LatencyAnalysis(program);
+    var workLoad = program.toWorkLoadSnapshot();
+    for (String flow : program.getFlowNamesInPriorityOrder()) {
+      var nodes = workLoad.getNodesInFlow(flow);
+      for (int link = 1; link < nodes.length; link++) {
+        var src = nodes[link - 1];
+        var snk = nodes[link];
+        var expected = new ArrayList<Integer>();
+        for (int time = 0; time < schedule.getNumRows(); time++) {
+          var numTx = latency.numMatchingTx(flow, src, snk, schedule.get(time, nodeIndex.get(src)))
+              + latency.numMatchingTx(flow, src, snk, schedule.get(time, nodeIndex.get(snk)));
+          for (int tx = 0; tx < numTx; tx++) {
+            expected.add(time);
+          }
+        }
+        assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(),
+            index.getSlots(flow, src, snk), message + " " + flow + ":" + src + ":" + snk);
+      }
+    }
+  }
+}
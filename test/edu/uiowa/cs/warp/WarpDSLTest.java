@@ -0,0 +1,162 @@
+package edu.uiowa.cs.warp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import edu.uiowa.cs.warp.WarpDSL.InstructionParameters;
+import edu.uiowa.cs.warp.WarpDSL.ParseMode;
+
+/**
+ * Checks that the hand-written WarpDSL scanner and the ANTLR parser produce the same
+ * InstructionParameters.
+ */
+class WarpDSLTest {
+
+  private static final long TIMEOUT_IN_MILLISECONDS = 60000;
+  /* directories holding checked in WARP programs */
+  private static final String[] DSL_DIRECTORIES =
+      {"OutputFiles", "OutputFiles4", "test_outputs", "hopeThisWorks"};
+  private static final String TABLE_HEADER = "Time Slot";
+  private WarpDSL dsl;
+
+  @BeforeEach
+  void setUp() {
+    dsl = new WarpDSL(ParseMode.ANTLR);
+  }
+
+  /**
+   * Every instruction in the checked in .dsl files must be accepted by the scanner and give the
+   * same parameters as the ANTLR parser.
+   */
+  @Test
+  @Timeout(value = TIMEOUT_IN_MILLISECONDS, unit = TimeUnit.MILLISECONDS)
+  void testScannerMatchesParserOnCheckedInPrograms() throws IOException {
+    var instructions = readCheckedInInstructions();
+    assertTrue(instructions.size() > 100, "expected checked in .dsl programs to compare");
+    var mismatches = new ArrayList<String>();
+    for (String instruction : instructions) {
+      var scanned = dsl.scanInstructionParameters(instruction);
+      var parsed = dsl.parseInstructionParameters(instruction);
+      if (scanned == null || !scanned.equals(parsed)) {
+        mismatches.add(instruction);
+      }
+    }
+    assertEquals(List.of(), mismatches);
+  }
+
+  @Test
+  void testSleep() {
+    var parameters = scanAndCompare("sleep");
+    assertEquals(1, parameters.size());
+    assertEquals("sleep", parameters.get(0).getName());
+    assertEquals(WarpDSL.UNUSED, parameters.get(0).getFlow());
+    assertEquals(WarpDSL.UNUSED, parameters.get(0).getChannel());
+  }
+
+  @Test
+  void testWait() {
+    var parameters = scanAndCompare("wait(#12)");
+    assertEquals(1, parameters.size());
+    assertEquals("wait", parameters.get(0).getName());
+    assertEquals("12", parameters.get(0).getChannel());
+  }
+
+  @Test
+  void testPushElsePull() {
+    var parameters = scanAndCompare("if has(F1) push(F1: B -> C, #3) else pull(F1: A -> B, #3)");
+    assertEquals(2, parameters.size());
+    assertEquals("B", parameters.get(0).getCoordinator());
+    assertEquals("C", parameters.get(0).getListener());
+    assertEquals("A", parameters.get(1).getListener());
+    assertEquals("B", parameters.get(1).getCoordinator());
+  }
+
+  @Test
+  void testPosetChain() {
+    var parameters = scanAndCompare("if !has(F0: A -> B) pull(F0: A -> B, #0) "
+        + "else if has(F0: B -> C) push(F0: B -> C, #0) else wait(#1)");
+    assertEquals(3, parameters.size());
+    assertEquals("wait", parameters.get(2).getName());
+  }
+
+  @Test
+  void testReleaseAndDropBlocks() {
+    var parameters = scanAndCompare("release(F2) push(F2:X->Y,# 4) drop(F2) drop(F3)");
+    assertEquals(1, parameters.size());
+    assertEquals("F2", parameters.get(0).getFlow());
+    assertEquals("4", parameters.get(0).getChannel());
+  }
+
+  @Test
+  void testScannerRejectsMalformedInstructions() {
+    assertNull(dsl.scanInstructionParameters("push(F0: A -> , #1)"));
+    assertNull(dsl.scanInstructionParameters("push(F0: A -> B, #1a)"));
+    assertNull(dsl.scanInstructionParameters("sleep sleep"));
+    assertNull(dsl.scanInstructionParameters("release(F0) sleep"));
+    assertNull(dsl.scanInstructionParameters("push(if: A -> B, #1)"));
+    assertNull(dsl.scanInstructionParameters(""));
+    assertNull(dsl.scanInstructionParameters(null));
+  }
+
+  @Test
+  void testFastModeFallsBackToParser() {
+    var instruction = "sleep sleep";
+    assertEquals(dsl.parseInstructionParameters(instruction),
+        new WarpDSL(ParseMode.FAST).getInstructionParameters(instruction));
+  }
+
+  private ArrayList<InstructionParameters> scanAndCompare(String instruction) {
+    var scanned = dsl.scanInstructionParameters(instruction);
+    assertNotNull(scanned);
+    assertEquals(dsl.parseInstructionParameters(instruction), scanned);
+    return scanned;
+  }
+
+  /* returns every instruction cell of the program tables in the checked in .dsl files */
+  private List<String> readCheckedInInstructions() throws IOException {
+    var instructions = new ArrayList<String>();
+    for (String directory : DSL_DIRECTORIES) {
+      var path = Paths.get(directory);
+      if (!Files.isDirectory(path)) {
+        continue;
+      }
+      List<Path> files;
+      try (Stream<Path> list = Files.list(path)) {
+        files = list.filter(f -> f.toString().endsWith(".dsl")).sorted()
+            .collect(Collectors.toList());
+      }
+      for (Path file : files) {
+        var inTable = false;
+        for (String line : Files.readAllLines(file)) {
+          if (line.startsWith(TABLE_HEADER)) {
+            inTable = true;
+          } else if (line.startsWith("//")) {
+            inTable = false;
+          } else if (inTable) {
+            var cells = line.split("\t");
+            for (int i = 1; i < cells.length; i++) { // column 0 is the time slot
+              if (!cells[i].equals("null")) { // unschedulable programs have empty cells
+                instructions.add(cells[i]);
+              }
+            }
+          }
+        }
+      }
+    }
+    return instructions;
+  }
+}
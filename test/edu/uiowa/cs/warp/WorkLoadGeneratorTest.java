@@ -0,0 +1,102 @@
+package edu.uiowa.cs.warp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import edu.uiowa.cs.warp.WorkLoadGenerator.Topology;
+
+/**
+ * Checks that generated workloads are reproducible from their seed, parse as WARP graph files and
+ * respect the generator's parameters.
+ */
+@ExtendWith(QuietOutput.class)
+class WorkLoadGeneratorTest {
+
+  private static final Double MIN_LQ = 0.9;
+  private static final Double E2E = 0.99;
+
+  @TempDir
+  Path tempDir;
+
+  @Test
+  void testSameSeedGivesSameWorkLoad() {
+    for (Topology topology : Topology.values()) {
+      var first = newGenerator(7, topology).generate();
+      assertEquals(first, newGenerator(7, topology).generate());
+      assertNotEquals(first, newGenerator(8, topology).generate());
+    }
+  }
+
+  @Test
+  void testGeneratedFileParses() {
+    for (Topology topology : Topology.values()) {
+      var generator = newGenerator(1, topology);
+      var file = tempDir.resolve(topology + ".txt").toString();
+      var workLoad = generator.toWorkLoad(MIN_LQ, E2E, file);
+      assertEquals(200, workLoad.getFlowNames().length);
+      assertEquals(400, workLoad.getHyperPeriod());
+      for (String flowName : workLoad.getFlowNames()) {
+        var hops = workLoad.getNodesInFlow(flowName).length - 1;
+        assertTrue(hops >= 1 && hops <= 6, flowName + " has " + hops + " hops");
+        assertTrue(workLoad.getFlowPhase(flowName) <= 10);
+        assertEquals(workLoad.getFlowPeriod(flowName), workLoad.getFlowDeadline(flowName));
+      }
+    }
+  }
+
+  @Test
+  void testCollectionFlowsEndAtTheBaseStation() {
+    var generator = newGenerator(3, Topology.BASE_STATION);
+    generator.setCollectionFraction(1.0);
+    var workLoad = generator.toWorkLoad(MIN_LQ, E2E, tempDir.resolve("c.txt").toString());
+    for (String flowName : workLoad.getFlowNames()) {
+      var nodes = workLoad.getNodesInFlow(flowName);
+      assertEquals("0", nodes[nodes.length - 1]);
+    }
+  }
+
+  @Test
+  void testLineFlowsUseAdjacentNodes() {
+    var generator = newGenerator(5, Topology.LINE);
+    generator.setHops(3, 3);
+    var workLoad = generator.toWorkLoad(MIN_LQ, E2E, tempDir.resolve("l.txt").toString());
+    for (String flowName : workLoad.getFlowNames()) {
+      var nodes = workLoad.getNodesInFlow(flowName);
+      assertEquals(4, nodes.length);
+      for (int i = 1; i < nodes.length; i++) {
+        var step = Integer.parseInt(nodes[i]) - Integer.parseInt(nodes[i - 1]);
+        assertEquals(1, Math.abs(step));
+      }
+    }
+  }
+
+  @Test
+  void testInvalidParameters() {
+    System.setErr(new PrintStream(new ByteArrayOutputStream())); // invalid parameters are reported
+    var generator = new WorkLoadGenerator(0);
+    generator.setNumNodes(1);
+    assertNull(generator.generate());
+    generator.setNumNodes(10);
+    generator.setHops(3, 2);
+    assertNull(generator.generate());
+  }
+
+  private WorkLoadGenerator newGenerator(long seed, Topology topology) {
+    var generator = new WorkLoadGenerator(seed);
+    generator.setTopology(topology);
+    generator.setNumNodes(50);
+    generator.setNumFlows(200);
+    generator.setHops(1, 6);
+    generator.setPeriods(WorkLoadGenerator.harmonicPeriods(100, 3));
+    generator.setMaxPhase(10);
+    return generator;
+  }
+}
@@ -744,10 +744,36 @@ class WorkLoadTest {
    * Test method for {@link edu.uiowa.cs.warp.WorkLoad#maxFlowLength()}.
    */
   @Test
-  void testMaxFlowLengthOneFlow() {
+  void testMaxFlowLengthOneFlow() {
 	  WorkLoad workLoadOneFlow = new WorkLoad(0.9, 0.99, "LongChain.txt");
    	  Integer output= workLoadOneFlow.maxFlowLength();
    	  assertEquals(26,output);
-     }
+     }
+
+  /**
+   * Tests that a copy has the flows and nodes the WorkLoad has when it is copied, including
+   * changes made after the input file was read, and that later changes to the copy stay in it.
+   * Test method for {@link edu.uiowa.cs.warp.WorkLoad#WorkLoad(WorkLoad)}.
+   */
+  @Test
+  void testCopyKeepsChangesMadeBeforeCopying() {
+    workLoad.removeFlow("F1");
+    workLoad.addFlow("F9");
+    workLoad.addNodeToFlow("F9", "A");
+    workLoad.addNodeToFlow("F9", "M");
+    workLoad.finalizeCurrentFlow("F9");
+    workLoad.setFlowPeriod("F5", 150);
+    var copy = new WorkLoad(workLoad);
+    assertEquals(workLoad.getFlowNamesInOriginalOrder(), copy.getFlowNamesInOriginalOrder());
+    assertEquals(workLoad.getFlowNamesInPriorityOrder(), copy.getFlowNamesInPriorityOrder());
+    assertArrayEquals(workLoad.getNodeNamesOrderedAlphabetically(),
+        copy.getNodeNamesOrderedAlphabetically());
+    assertEquals(workLoad.getNodeIndex("M"), copy.getNodeIndex("M"));
+    assertEquals(150, copy.getFlowPeriod("F5"));
+    assertArrayEquals(workLoad.getNodesInFlow("F9"), copy.getNodesInFlow("F9"));
+    assertArrayEquals(workLoad.getNumTxAttemptsPerLink("F9"), copy.getNumTxAttemptsPerLink("F9"));
+    copy.removeFlow("F9");
+    assertTrue(workLoad.getFlows().containsKey("F9"));
+     }
 	
 }